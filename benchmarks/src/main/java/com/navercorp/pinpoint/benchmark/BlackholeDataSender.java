@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark;
+
+import com.navercorp.pinpoint.profiler.context.Recyclable;
+import com.navercorp.pinpoint.profiler.sender.DataSender;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import org.apache.thrift.TBase;
+
+/**
+ * Drops everything it is handed, only counting spans and span events so a benchmark can
+ * check that its chain actually recorded something. Pooled trace data is recycled the way the
+ * UDP senders do after serialization.
+ */
+public class BlackholeDataSender implements DataSender {
+
+    private long spanCount;
+    private long spanEventCount;
+
+    @Override
+    public boolean send(TBase<?, ?> data) {
+        if (data instanceof TSpan) {
+            spanCount++;
+            spanEventCount += ((TSpan) data).getSpanEventListSize();
+        } else if (data instanceof TSpanChunk) {
+            spanEventCount += ((TSpanChunk) data).getSpanEventListSize();
+        }
+        if (data instanceof Recyclable) {
+            ((Recyclable) data).recycle();
+        }
+        return true;
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    public long getSpanCount() {
+        return spanCount;
+    }
+
+    public long getSpanEventCount() {
+        return spanEventCount;
+    }
+
+    public void reset() {
+        spanCount = 0;
+        spanEventCount = 0;
+    }
+}
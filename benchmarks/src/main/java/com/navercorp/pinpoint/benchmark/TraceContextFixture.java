@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark;
+
+import java.util.Properties;
+
+import com.navercorp.pinpoint.bootstrap.config.DefaultProfilerConfig;
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
+import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
+import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.profiler.context.DefaultMethodDescriptor;
+import com.navercorp.pinpoint.profiler.context.DefaultServerMetaDataHolder;
+import com.navercorp.pinpoint.profiler.context.DefaultSpanFactory;
+import com.navercorp.pinpoint.profiler.context.DefaultTraceContext;
+import com.navercorp.pinpoint.profiler.context.RecyclingSpanFactory;
+import com.navercorp.pinpoint.profiler.context.SpanFactory;
+import com.navercorp.pinpoint.profiler.context.storage.BufferedStorageFactory;
+import com.navercorp.pinpoint.profiler.logging.Slf4jLoggerBinder;
+import com.navercorp.pinpoint.profiler.sampler.FalseSampler;
+import com.navercorp.pinpoint.profiler.sampler.TrueSampler;
+import com.navercorp.pinpoint.profiler.util.RuntimeMXBeanUtils;
+import com.navercorp.pinpoint.test.TestAgentInformation;
+import com.navercorp.pinpoint.test.TestTcpDataSender;
+
+/**
+ * Builds the same {@link DefaultTraceContext} the agent builds in DefaultAgent, but with a
+ * fixed sampler and a {@link BlackholeDataSender}, so interceptors see production code paths
+ * without a collector.
+ *
+ * Interceptors resolve their loggers when they are constructed, so they must be created
+ * after this class has been loaded.
+ */
+public class TraceContextFixture {
+
+    static {
+        // interceptors log through slf4j/log4j in the agent; log4j.xml keeps it at WARN
+        PLoggerFactory.initialize(new Slf4jLoggerBinder());
+    }
+
+    private final ProfilerConfig profilerConfig;
+    private final BlackholeDataSender dataSender;
+    private final DefaultTraceContext traceContext;
+
+    public TraceContextFixture(boolean sampled) {
+        this(sampled, new Properties());
+    }
+
+    public TraceContextFixture(boolean sampled, Properties properties) {
+        if (properties == null) {
+            throw new NullPointerException("properties must not be null");
+        }
+        this.profilerConfig = new DefaultProfilerConfig(properties);
+        this.dataSender = new BlackholeDataSender();
+
+        final TestAgentInformation agentInformation = new TestAgentInformation();
+        final SpanFactory spanFactory = createSpanFactory(profilerConfig);
+        final BufferedStorageFactory storageFactory = new BufferedStorageFactory(dataSender, profilerConfig, agentInformation, spanFactory);
+        final Sampler sampler = sampled ? new TrueSampler() : new FalseSampler();
+        final DefaultServerMetaDataHolder serverMetaDataHolder = new DefaultServerMetaDataHolder(RuntimeMXBeanUtils.getVmArgs());
+
+        this.traceContext = new DefaultTraceContext(profilerConfig.getJdbcSqlCacheSize(), agentInformation, storageFactory, sampler, serverMetaDataHolder, profilerConfig.isTraceAgentActiveThread(), spanFactory);
+        // api, string and sql meta data is sent once per distinct value
+        this.traceContext.setPriorityDataSender(new TestTcpDataSender());
+        this.traceContext.setProfilerConfig(profilerConfig);
+    }
+
+    private static SpanFactory createSpanFactory(ProfilerConfig profilerConfig) {
+        if (profilerConfig.isSpanRecycleEnable()) {
+            return new RecyclingSpanFactory(profilerConfig.getSpanRecyclePoolSize());
+        }
+        return DefaultSpanFactory.INSTANCE;
+    }
+
+    public DefaultTraceContext getTraceContext() {
+        return traceContext;
+    }
+
+    public ProfilerConfig getProfilerConfig() {
+        return profilerConfig;
+    }
+
+    public BlackholeDataSender getDataSender() {
+        return dataSender;
+    }
+
+    public MethodDescriptor cacheApi(String className, String methodName, String... parameterTypes) {
+        final String[] parameterNames = new String[parameterTypes.length];
+        for (int i = 0; i < parameterNames.length; i++) {
+            parameterNames[i] = "arg" + i;
+        }
+        final MethodDescriptor descriptor = new DefaultMethodDescriptor(className, methodName, parameterTypes, parameterNames);
+        traceContext.cacheApi(descriptor);
+        return descriptor;
+    }
+
+    /**
+     * Starts a root transaction the way a server plugin would before a client call is made.
+     */
+    public Trace beginTransaction() {
+        final Trace trace = traceContext.newTraceObject();
+        if (trace.canSampled()) {
+            trace.getSpanRecorder().recordServiceType(ServiceType.STAND_ALONE);
+            final SpanEventRecorder recorder = trace.traceBlockBegin();
+            recorder.recordServiceType(ServiceType.INTERNAL_METHOD);
+        }
+        return trace;
+    }
+
+    public void endTransaction(Trace trace) {
+        if (trace.canSampled()) {
+            trace.traceBlockEnd();
+        }
+        traceContext.removeTraceObject();
+        trace.close();
+    }
+
+    /**
+     * Fails the trial when a sampled transaction sent fewer span events than the chain should
+     * record, which would mean the interceptors were not actually exercised.
+     */
+    public void verifyRecorded(boolean sampled, int spanEventsPerSpan) {
+        if (!sampled) {
+            return;
+        }
+        final long spanCount = dataSender.getSpanCount();
+        final long spanEventCount = dataSender.getSpanEventCount();
+        if (spanCount == 0 || spanEventCount < spanCount * spanEventsPerSpan) {
+            throw new IllegalStateException("chain not recorded. spans:" + spanCount + " spanEvents:" + spanEventCount);
+        }
+        dataSender.reset();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.bootstrap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.context.TraceId;
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderAdaptor;
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderSetter;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeader;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderReader;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Writing the propagation headers on the client side and reading them back on the server side,
+ * with the per field Pinpoint-* headers and with the compact Pinpoint-Trace header.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceHeaderBenchmark {
+
+    private static final RequestHeaderSetter<Map<String, String>> HEADER_SETTER = new RequestHeaderSetter<Map<String, String>>() {
+        @Override
+        public void setHeader(Map<String, String> request, String name, String value) {
+            request.put(name, value);
+        }
+    };
+
+    private static final RequestHeaderAdaptor<Map<String, String>> HEADER_ADAPTOR = new RequestHeaderAdaptor<Map<String, String>>() {
+        @Override
+        public String getHeader(Map<String, String> request, String name) {
+            return request.get(name);
+        }
+    };
+
+    @Param({"false", "true"})
+    public boolean compactHeader;
+
+    private TraceHeaderWriter<Map<String, String>> writer;
+    private TraceHeaderReader<Map<String, String>> reader;
+    private TraceContext traceContext;
+    private TraceId nextId;
+
+    private final Map<String, String> outgoing = new HashMap<String, String>();
+    private final Map<String, String> incoming = new HashMap<String, String>();
+
+    @Setup
+    public void setUp() {
+        final Properties properties = new Properties();
+        properties.setProperty(TraceHeaderWriter.COMPACT_HEADER_ENABLE, String.valueOf(compactHeader));
+        final TraceContextFixture fixture = new TraceContextFixture(true, properties);
+        this.traceContext = fixture.getTraceContext();
+
+        this.writer = new TraceHeaderWriter<Map<String, String>>(fixture.getTraceContext(), HEADER_SETTER);
+        this.reader = new TraceHeaderReader<Map<String, String>>(HEADER_ADAPTOR);
+
+        final Trace trace = fixture.beginTransaction();
+        this.nextId = trace.getTraceId().getNextTraceId();
+        fixture.endTransaction(trace);
+
+        writer.write(incoming, nextId, "localhost:8080");
+        if (reader.read(incoming).createTraceId(traceContext) == null) {
+            throw new IllegalStateException("trace header not readable. headers:" + incoming);
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> write() {
+        outgoing.clear();
+        writer.write(outgoing, nextId, "localhost:8080");
+        return outgoing;
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) {
+        final TraceHeader traceHeader = reader.read(incoming);
+        blackhole.consume(traceHeader.isSampled());
+        // as the server interceptors do
+        blackhole.consume(traceHeader.createTraceId(traceContext));
+        blackhole.consume(traceHeader.getParentApplicationName());
+        blackhole.consume(traceHeader.getParentApplicationType());
+        blackhole.consume(traceHeader.getHost());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.collector;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.collector.dao.hbase.HbaseMapStatisticsCalleeDao;
+import com.navercorp.pinpoint.collector.dao.hbase.HbaseMapStatisticsCallerDao;
+import com.navercorp.pinpoint.collector.handler.SpanEventStatisticsAggregator;
+import com.navercorp.pinpoint.common.server.util.AcceptedTimeService;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.common.util.DefaultTimeSlot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Server map statistics of one span, in spans/sec: one caller and one callee update per span
+ * event, as SpanHandler did before, against one update per SpanEventStatisticsAggregator group.
+ * The DAOs run in bulk mode, so an update ends in ConcurrentCounterMap and nothing is flushed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpanStatisticsBenchmark {
+
+    private static final String APPLICATION_NAME = "order-api";
+    private static final String AGENT_ID = "order-api-01";
+    private static final String END_POINT = "10.0.0.10:8080";
+    private static final ServiceType APPLICATION_SERVICE_TYPE = ServiceType.STAND_ALONE;
+
+    @Param({"10", "100"})
+    public int spanEvents;
+
+    private final HbaseMapStatisticsCallerDao callerDao = new HbaseMapStatisticsCallerDao(true);
+    private final HbaseMapStatisticsCalleeDao calleeDao = new HbaseMapStatisticsCalleeDao(true);
+
+    private String[] destinationIds;
+    private ServiceType[] serviceTypes;
+    private String[] endPoints;
+    private int[] elapsedTimes;
+    private boolean[] errors;
+
+    @Setup
+    public void setUp() throws Exception {
+        final AcceptedTimeService acceptedTimeService = new FixedAcceptedTimeService(System.currentTimeMillis());
+        for (Object dao : new Object[] {callerDao, calleeDao}) {
+            // @Autowired in the collector
+            setField(dao, "acceptedTimeService", acceptedTimeService);
+            setField(dao, "timeSlot", new DefaultTimeSlot());
+        }
+
+        // a few databases and a remote api, called over and over in one transaction
+        final String[] destinations = {"ORDER_DB", "USER_DB", "payment.api"};
+        final ServiceType[] destinationTypes = {ServiceType.UNKNOWN_DB_EXECUTE_QUERY, ServiceType.UNKNOWN_DB_EXECUTE_QUERY, ServiceType.UNKNOWN};
+        final String[] destinationEndPoints = {"10.0.0.20:3306", "10.0.0.21:3306", "payment.api:80"};
+
+        this.destinationIds = new String[spanEvents];
+        this.serviceTypes = new ServiceType[spanEvents];
+        this.endPoints = new String[spanEvents];
+        this.elapsedTimes = new int[spanEvents];
+        this.errors = new boolean[spanEvents];
+        for (int i = 0; i < spanEvents; i++) {
+            final int destination = i % destinations.length;
+            destinationIds[i] = destinations[destination];
+            serviceTypes[i] = destinationTypes[destination];
+            endPoints[i] = destinationEndPoints[destination];
+            elapsedTimes[i] = (i * 37) % 400;
+            errors[i] = i % 97 == 0;
+        }
+    }
+
+    private static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        final Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    @Benchmark
+    public void perSpanEvent() {
+        for (int i = 0; i < spanEvents; i++) {
+            callerDao.update(APPLICATION_NAME, APPLICATION_SERVICE_TYPE, AGENT_ID, destinationIds[i], serviceTypes[i], endPoints[i], elapsedTimes[i], errors[i], 1);
+            calleeDao.update(destinationIds[i], serviceTypes[i], APPLICATION_NAME, APPLICATION_SERVICE_TYPE, END_POINT, elapsedTimes[i], errors[i], 1);
+        }
+    }
+
+    @Benchmark
+    public void aggregated() {
+        final SpanEventStatisticsAggregator aggregator = new SpanEventStatisticsAggregator();
+        for (int i = 0; i < spanEvents; i++) {
+            aggregator.add(destinationIds[i], serviceTypes[i], endPoints[i], elapsedTimes[i], errors[i]);
+        }
+        for (SpanEventStatisticsAggregator.SpanEventStatistics statistics : aggregator.getStatistics()) {
+            callerDao.update(APPLICATION_NAME, APPLICATION_SERVICE_TYPE, AGENT_ID, statistics.getDestinationId(), statistics.getServiceType(), statistics.getEndPoint(),
+                    statistics.getElapsed(), statistics.isError(), statistics.getCount());
+            calleeDao.update(statistics.getDestinationId(), statistics.getServiceType(), APPLICATION_NAME, APPLICATION_SERVICE_TYPE, END_POINT,
+                    statistics.getElapsed(), statistics.isError(), statistics.getCount());
+        }
+    }
+
+    private static class FixedAcceptedTimeService implements AcceptedTimeService {
+
+        private final long acceptedTime;
+
+        private FixedAcceptedTimeService(long acceptedTime) {
+            this.acceptedTime = acceptedTime;
+        }
+
+        @Override
+        public void accept() {
+        }
+
+        @Override
+        public void accept(long time) {
+        }
+
+        @Override
+        public long getAcceptedTime() {
+            return acceptedTime;
+        }
+    }
+}
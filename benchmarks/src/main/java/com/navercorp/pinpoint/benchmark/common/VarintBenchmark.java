@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.common;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The VarintBenchmark referred to by BytesUtils.bytesToVar64() and FixedBuffer.readVLong():
+ * varint encoding and decoding per value, for values of a given encoded size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VarintBenchmark {
+
+    private static final int VALUES = 1024;
+
+    /**
+     * encoded size of the values in bytes
+     */
+    @Param({"1", "2", "5", "10"})
+    public int encodedSize;
+
+    private long[] values;
+    private byte[] encoded;
+    private byte[] scratch;
+    private FixedBuffer encodedBuffer;
+    private FixedBuffer scratchBuffer;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(0);
+        final int bits = encodedSize * 7;
+        this.values = new long[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            // highest bit set so that every value encodes to exactly encodedSize bytes
+            if (bits >= 64) {
+                values[i] = random.nextLong() | Long.MIN_VALUE;
+            } else {
+                final long mask = (1L << bits) - 1;
+                values[i] = (random.nextLong() & mask) | (1L << (bits - 1));
+            }
+            if (BytesUtils.computeVar64Size(values[i]) != encodedSize) {
+                throw new IllegalStateException("unexpected encoded size. value:" + values[i]);
+            }
+        }
+
+        this.encoded = new byte[VALUES * BytesUtils.VLONG_MAX_SIZE];
+        int offset = 0;
+        for (long value : values) {
+            offset = BytesUtils.writeVar64(value, encoded, offset);
+        }
+        this.scratch = new byte[encoded.length];
+        this.encodedBuffer = new FixedBuffer(encoded);
+        this.scratchBuffer = new FixedBuffer(new byte[encoded.length]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int bytesUtilsWriteVar64() {
+        final byte[] buffer = this.scratch;
+        int offset = 0;
+        for (long value : values) {
+            offset = BytesUtils.writeVar64(value, buffer, offset);
+        }
+        return offset;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long bytesUtilsBytesToVar64() {
+        final byte[] buffer = this.encoded;
+        long sum = 0;
+        int offset = 0;
+        for (int i = 0; i < VALUES; i++) {
+            final long value = BytesUtils.bytesToVar64(buffer, offset);
+            offset += BytesUtils.computeVar64Size(value);
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int bufferPutVLong() {
+        final FixedBuffer buffer = this.scratchBuffer;
+        buffer.setOffset(0);
+        for (long value : values) {
+            buffer.putVLong(value);
+        }
+        return buffer.getOffset();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long bufferReadVLong() {
+        final FixedBuffer buffer = this.encodedBuffer;
+        buffer.setOffset(0);
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += buffer.readVLong();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.plugin;
+
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ExecutionPolicy;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ScopedInterceptor;
+import com.navercorp.pinpoint.plugin.arcus.ArcusConstants;
+import com.navercorp.pinpoint.plugin.arcus.ArcusPluginConfig;
+import com.navercorp.pinpoint.plugin.arcus.ServiceCodeAccessor;
+import com.navercorp.pinpoint.plugin.arcus.interceptor.ApiInterceptor;
+import com.navercorp.pinpoint.profiler.interceptor.scope.DefaultInterceptorScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ArcusClient.get(String) as instrumented by the arcus plugin, for a synchronous call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArcusBenchmark {
+
+    @Param({"true", "false"})
+    public boolean sampled;
+
+    private TraceContextFixture fixture;
+
+    private AroundInterceptor getInterceptor;
+
+    private BenchmarkArcusClient arcusClient;
+
+    @Setup
+    public void setUp() {
+        this.fixture = new TraceContextFixture(sampled);
+        final TraceContext traceContext = fixture.getTraceContext();
+        final InterceptorScope scope = new DefaultInterceptorScope(ArcusConstants.ARCUS_SCOPE);
+        final ArcusPluginConfig config = new ArcusPluginConfig(fixture.getProfilerConfig());
+
+        final MethodDescriptor get = fixture.cacheApi("net.spy.memcached.ArcusClient", "get", "java.lang.String");
+        this.getInterceptor = new ScopedInterceptor(new ApiInterceptor(traceContext, get, config.isArcusKeyTrace()), scope, ExecutionPolicy.BOUNDARY);
+
+        this.arcusClient = new BenchmarkArcusClient();
+        this.arcusClient._$PINPOINT$_setServiceCode("orders");
+
+        call();
+        fixture.verifyRecorded(sampled, 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.verifyRecorded(sampled, 2);
+    }
+
+    @Benchmark
+    public Object call() {
+        final Trace trace = fixture.beginTransaction();
+        try {
+            return arcusClient.get("order:1234");
+        } finally {
+            fixture.endTransaction(trace);
+        }
+    }
+
+    /**
+     * An ArcusClient as it looks after the arcus plugin injected its interceptor and accessor.
+     */
+    private class BenchmarkArcusClient implements ServiceCodeAccessor {
+
+        private String serviceCode;
+
+        public Object get(String key) {
+            final Object[] args = {key};
+            getInterceptor.before(this, args);
+            final Object value = "SHIPPED";
+            getInterceptor.after(this, args, value, null);
+            return value;
+        }
+
+        @Override
+        public void _$PINPOINT$_setServiceCode(String serviceCode) {
+            this.serviceCode = serviceCode;
+        }
+
+        @Override
+        public String _$PINPOINT$_getServiceCode() {
+            return serviceCode;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.plugin;
+
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ExecutionPolicy;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ScopedInterceptor;
+import com.navercorp.pinpoint.plugin.httpclient4.HttpClient4Constants;
+import com.navercorp.pinpoint.plugin.httpclient4.interceptor.HttpClientExecuteMethodWithHttpRequestInterceptor;
+import com.navercorp.pinpoint.plugin.httpclient4.interceptor.HttpRequestExecutorDoSendRequestAndDoReceiveResponseMethodInterceptor;
+import com.navercorp.pinpoint.plugin.httpclient4.interceptor.HttpRequestExecutorExecuteMethodInterceptor;
+import com.navercorp.pinpoint.profiler.interceptor.scope.DefaultInterceptorScope;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HttpClient.execute(HttpHost, HttpRequest) down to HttpRequestExecutor.doSendRequest()/doReceiveResponse(),
+ * including writing the trace headers into the outgoing request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpClient4Benchmark {
+
+    @Param({"true", "false"})
+    public boolean sampled;
+
+    private TraceContextFixture fixture;
+    private BenchmarkHttpClient httpClient;
+
+    private HttpHost httpHost;
+    private HttpRequest httpRequest;
+    private HttpResponse httpResponse;
+
+    @Setup
+    public void setUp() {
+        this.fixture = new TraceContextFixture(sampled);
+        this.httpClient = new BenchmarkHttpClient(fixture);
+        this.httpHost = new HttpHost("localhost", 8080);
+        this.httpRequest = new BasicHttpRequest("GET", "/api/v1/orders?id=1234");
+        this.httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+
+        call();
+        fixture.verifyRecorded(sampled, 3);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.verifyRecorded(sampled, 3);
+    }
+
+    @Benchmark
+    public Object call() {
+        final Trace trace = fixture.beginTransaction();
+        try {
+            final Object[] clientArgs = {httpHost, httpRequest};
+            final Object[] executorArgs = {httpRequest, null, null};
+            return httpClient.execute(clientArgs, executorArgs, httpResponse);
+        } finally {
+            fixture.endTransaction(trace);
+        }
+    }
+
+    /**
+     * The calls of CloseableHttpClient.execute() the httpclient4 plugin intercepts. The arguments arrays
+     * are the ones the injected code passes to the interceptors, so the caller decides how they are allocated.
+     */
+    static class BenchmarkHttpClient {
+
+        private final AroundInterceptor clientExecuteInterceptor;
+        private final AroundInterceptor executorExecuteInterceptor;
+        private final AroundInterceptor doSendRequestInterceptor;
+        private final AroundInterceptor doReceiveResponseInterceptor;
+
+        private final Object client = new Object();
+        private final Object requestExecutor = new Object();
+
+        BenchmarkHttpClient(TraceContextFixture fixture) {
+            final TraceContext traceContext = fixture.getTraceContext();
+            final InterceptorScope scope = new DefaultInterceptorScope(HttpClient4Constants.HTTP_CLIENT4_SCOPE);
+
+            final MethodDescriptor clientExecute = fixture.cacheApi("org.apache.http.impl.client.CloseableHttpClient", "execute",
+                    "org.apache.http.HttpHost", "org.apache.http.HttpRequest");
+            final MethodDescriptor executorExecute = fixture.cacheApi("org.apache.http.protocol.HttpRequestExecutor", "execute",
+                    "org.apache.http.HttpRequest", "org.apache.http.HttpClientConnection", "org.apache.http.protocol.HttpContext");
+            final MethodDescriptor doSendRequest = fixture.cacheApi("org.apache.http.protocol.HttpRequestExecutor", "doSendRequest",
+                    "org.apache.http.HttpRequest", "org.apache.http.HttpClientConnection", "org.apache.http.protocol.HttpContext");
+            final MethodDescriptor doReceiveResponse = fixture.cacheApi("org.apache.http.protocol.HttpRequestExecutor", "doReceiveResponse",
+                    "org.apache.http.HttpRequest", "org.apache.http.HttpClientConnection", "org.apache.http.protocol.HttpContext");
+
+            this.clientExecuteInterceptor = new ScopedInterceptor(new HttpClientExecuteMethodWithHttpRequestInterceptor(false, traceContext, clientExecute, scope),
+                    scope, ExecutionPolicy.BOUNDARY);
+            this.executorExecuteInterceptor = new ScopedInterceptor(new HttpRequestExecutorExecuteMethodInterceptor(traceContext, executorExecute, scope),
+                    scope, ExecutionPolicy.ALWAYS);
+            this.doSendRequestInterceptor = new ScopedInterceptor(new HttpRequestExecutorDoSendRequestAndDoReceiveResponseMethodInterceptor(traceContext, doSendRequest, scope),
+                    scope, ExecutionPolicy.ALWAYS);
+            this.doReceiveResponseInterceptor = new ScopedInterceptor(new HttpRequestExecutorDoSendRequestAndDoReceiveResponseMethodInterceptor(traceContext, doReceiveResponse, scope),
+                    scope, ExecutionPolicy.ALWAYS);
+        }
+
+        /**
+         * @param clientArgs {HttpHost, HttpRequest} of HttpClient.execute()
+         * @param executorArgs {HttpRequest, HttpClientConnection, HttpContext} of HttpRequestExecutor.execute()
+         */
+        HttpResponse execute(Object[] clientArgs, Object[] executorArgs, HttpResponse response) {
+            clientExecuteInterceptor.before(client, clientArgs);
+
+            executorExecuteInterceptor.before(requestExecutor, executorArgs);
+
+            doSendRequestInterceptor.before(requestExecutor, executorArgs);
+            doSendRequestInterceptor.after(requestExecutor, executorArgs, null, null);
+
+            doReceiveResponseInterceptor.before(requestExecutor, executorArgs);
+            doReceiveResponseInterceptor.after(requestExecutor, executorArgs, response, null);
+
+            executorExecuteInterceptor.after(requestExecutor, executorArgs, response, null);
+
+            clientExecuteInterceptor.after(client, clientArgs, response, null);
+            return response;
+        }
+    }
+}
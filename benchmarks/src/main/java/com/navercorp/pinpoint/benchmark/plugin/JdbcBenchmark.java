@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.plugin;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.bootstrap.context.DatabaseInfo;
+import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.StaticAroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ExecutionPolicy;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ScopedInterceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ScopedStaticAroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.BindValueAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.DatabaseInfoAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.DefaultDatabaseInfo;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.ParsingResultAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor.PreparedStatementBindVariableInterceptor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor.PreparedStatementCreateInterceptor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor.PreparedStatementExecuteQueryInterceptor;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.profiler.interceptor.scope.DefaultInterceptorScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Connection.prepareStatement(), two bind calls and PreparedStatement.executeQuery() wired the way
+ * the jdbc driver plugins do it, including their BOUNDARY scope.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdbcBenchmark {
+
+    static final String SQL = "SELECT id, name, status FROM orders WHERE id = ? AND status = ?";
+
+    @Param({"true", "false"})
+    public boolean sampled;
+
+    private TraceContextFixture fixture;
+    private BenchmarkConnection connection;
+
+    @Setup
+    public void setUp() {
+        this.fixture = new TraceContextFixture(sampled);
+        this.connection = newConnection(fixture);
+
+        query();
+        fixture.verifyRecorded(sampled, 3);
+    }
+
+    static BenchmarkConnection newConnection(TraceContextFixture fixture) {
+        final InterceptorScope scope = new DefaultInterceptorScope("JDBC");
+
+        final MethodDescriptor prepareStatement = fixture.cacheApi("com.mysql.jdbc.ConnectionImpl", "prepareStatement", "java.lang.String");
+        final AroundInterceptor createInterceptor = new PreparedStatementCreateInterceptor(fixture.getTraceContext(), prepareStatement);
+
+        final StaticAroundInterceptor bindInterceptor = new PreparedStatementBindVariableInterceptor(fixture.getTraceContext());
+
+        final MethodDescriptor executeQuery = fixture.cacheApi("com.mysql.jdbc.PreparedStatement", "executeQuery");
+        final int maxSqlBindValueSize = fixture.getProfilerConfig().getMaxSqlBindValueSize();
+        final AroundInterceptor executeInterceptor = new PreparedStatementExecuteQueryInterceptor(fixture.getTraceContext(), executeQuery, maxSqlBindValueSize);
+
+        final DatabaseInfo databaseInfo = new DefaultDatabaseInfo(ServiceType.UNKNOWN_DB, ServiceType.UNKNOWN_DB_EXECUTE_QUERY,
+                "jdbc:mysql://localhost:3306/orders", "jdbc:mysql://localhost:3306/orders", Collections.singletonList("localhost:3306"), "orders");
+        final Interceptors interceptors = new Interceptors(
+                new ScopedInterceptor(createInterceptor, scope, ExecutionPolicy.BOUNDARY),
+                new ScopedStaticAroundInterceptor(bindInterceptor, scope, ExecutionPolicy.BOUNDARY),
+                new ScopedInterceptor(executeInterceptor, scope, ExecutionPolicy.BOUNDARY));
+        return new BenchmarkConnection(interceptors, databaseInfo);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.verifyRecorded(sampled, 3);
+    }
+
+    @Benchmark
+    public Object query() {
+        final Trace trace = fixture.beginTransaction();
+        try {
+            final BenchmarkPreparedStatement statement = connection.prepareStatement(SQL);
+            statement.setInt(1, 1234);
+            statement.setString(2, "SHIPPED");
+            return statement.executeQuery();
+        } finally {
+            fixture.endTransaction(trace);
+        }
+    }
+
+    private static class Interceptors {
+        private final AroundInterceptor create;
+        private final StaticAroundInterceptor bind;
+        private final AroundInterceptor execute;
+
+        private Interceptors(AroundInterceptor create, StaticAroundInterceptor bind, AroundInterceptor execute) {
+            this.create = create;
+            this.bind = bind;
+            this.execute = execute;
+        }
+    }
+
+    /**
+     * A connection as it looks after the jdbc plugin injected its interceptors and accessor.
+     */
+    static class BenchmarkConnection implements DatabaseInfoAccessor {
+
+        private final Interceptors interceptors;
+        private DatabaseInfo databaseInfo;
+
+        private BenchmarkConnection(Interceptors interceptors, DatabaseInfo databaseInfo) {
+            this.interceptors = interceptors;
+            this.databaseInfo = databaseInfo;
+        }
+
+        public BenchmarkPreparedStatement prepareStatement(String sql) {
+            final Object[] args = {sql};
+            interceptors.create.before(this, args);
+            final BenchmarkPreparedStatement statement = new BenchmarkPreparedStatement(interceptors);
+            interceptors.create.after(this, args, statement, null);
+            return statement;
+        }
+
+        @Override
+        public void _$PINPOINT$_setDatabaseInfo(DatabaseInfo info) {
+            this.databaseInfo = info;
+        }
+
+        @Override
+        public DatabaseInfo _$PINPOINT$_getDatabaseInfo() {
+            return databaseInfo;
+        }
+    }
+
+    static class BenchmarkPreparedStatement implements DatabaseInfoAccessor, ParsingResultAccessor, BindValueAccessor {
+
+        private static final String CLASS_NAME = "com.mysql.jdbc.PreparedStatement";
+
+        private final Interceptors interceptors;
+        private DatabaseInfo databaseInfo;
+        private ParsingResult parsingResult;
+        private Map<Integer, String> bindValue;
+
+        private BenchmarkPreparedStatement(Interceptors interceptors) {
+            this.interceptors = interceptors;
+        }
+
+        public void setInt(int parameterIndex, int x) {
+            bind("setInt", "(int, int)", new Object[] {parameterIndex, x});
+        }
+
+        public void setString(int parameterIndex, String x) {
+            bind("setString", "(int, java.lang.String)", new Object[] {parameterIndex, x});
+        }
+
+        public Object executeQuery() {
+            return executeQuery(new Object[] {});
+        }
+
+        /**
+         * A setXxx() call, with the arguments array the injected code passes to the interceptor.
+         */
+        void bind(String methodName, String parameterDescription, Object[] args) {
+            interceptors.bind.before(this, CLASS_NAME, methodName, parameterDescription, args);
+            interceptors.bind.after(this, CLASS_NAME, methodName, parameterDescription, args, null, null);
+        }
+
+        Object executeQuery(Object[] args) {
+            interceptors.execute.before(this, args);
+            final Object resultSet = this;
+            interceptors.execute.after(this, args, resultSet, null);
+            return resultSet;
+        }
+
+        @Override
+        public void _$PINPOINT$_setDatabaseInfo(DatabaseInfo info) {
+            this.databaseInfo = info;
+        }
+
+        @Override
+        public DatabaseInfo _$PINPOINT$_getDatabaseInfo() {
+            return databaseInfo;
+        }
+
+        @Override
+        public void _$PINPOINT$_setParsingResult(ParsingResult result) {
+            this.parsingResult = result;
+        }
+
+        @Override
+        public ParsingResult _$PINPOINT$_getParsingResult() {
+            return parsingResult;
+        }
+
+        @Override
+        public void _$PINPOINT$_setBindValue(Map<Integer, String> map) {
+            this.bindValue = map;
+        }
+
+        @Override
+        public Map<Integer, String> _$PINPOINT$_getBindValue() {
+            return bindValue;
+        }
+    }
+}
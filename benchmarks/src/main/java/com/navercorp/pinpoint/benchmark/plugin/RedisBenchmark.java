@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.plugin;
+
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ExecutionPolicy;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ScopedInterceptor;
+import com.navercorp.pinpoint.plugin.redis.EndPointAccessor;
+import com.navercorp.pinpoint.plugin.redis.RedisConstants;
+import com.navercorp.pinpoint.plugin.redis.RedisPluginConfig;
+import com.navercorp.pinpoint.plugin.redis.interceptor.JedisMethodInterceptor;
+import com.navercorp.pinpoint.plugin.redis.interceptor.ProtocolSendCommandAndReadMethodInterceptor;
+import com.navercorp.pinpoint.profiler.interceptor.scope.DefaultInterceptorScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jedis.get(String) with the static Protocol.sendCommand()/read() calls it makes inside the redis scope.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisBenchmark {
+
+    @Param({"true", "false"})
+    public boolean sampled;
+
+    private TraceContextFixture fixture;
+
+    private AroundInterceptor getInterceptor;
+    private AroundInterceptor sendCommandInterceptor;
+    private AroundInterceptor readInterceptor;
+
+    private BenchmarkJedis jedis;
+
+    @Setup
+    public void setUp() {
+        this.fixture = new TraceContextFixture(sampled);
+        final TraceContext traceContext = fixture.getTraceContext();
+        final InterceptorScope scope = new DefaultInterceptorScope(RedisConstants.REDIS_SCOPE);
+        final RedisPluginConfig config = new RedisPluginConfig(fixture.getProfilerConfig());
+
+        final MethodDescriptor get = fixture.cacheApi("redis.clients.jedis.Jedis", "get", "java.lang.String");
+        final MethodDescriptor sendCommand = fixture.cacheApi("redis.clients.jedis.Protocol", "sendCommand",
+                "redis.clients.util.RedisOutputStream", "byte[]", "byte[][]");
+        final MethodDescriptor read = fixture.cacheApi("redis.clients.jedis.Protocol", "read", "redis.clients.util.RedisInputStream");
+
+        this.getInterceptor = new ScopedInterceptor(new JedisMethodInterceptor(traceContext, get, scope, config.isIo()), scope, ExecutionPolicy.BOUNDARY);
+        this.sendCommandInterceptor = new ScopedInterceptor(new ProtocolSendCommandAndReadMethodInterceptor(traceContext, sendCommand, scope), scope, ExecutionPolicy.INTERNAL);
+        this.readInterceptor = new ScopedInterceptor(new ProtocolSendCommandAndReadMethodInterceptor(traceContext, read, scope), scope, ExecutionPolicy.INTERNAL);
+
+        this.jedis = new BenchmarkJedis();
+        this.jedis._$PINPOINT$_setEndPoint("localhost:6379");
+
+        call();
+        fixture.verifyRecorded(sampled, 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.verifyRecorded(sampled, 2);
+    }
+
+    @Benchmark
+    public Object call() {
+        final Trace trace = fixture.beginTransaction();
+        try {
+            return jedis.get("order:1234");
+        } finally {
+            fixture.endTransaction(trace);
+        }
+    }
+
+    /**
+     * A Jedis as it looks after the redis plugin injected its interceptors and accessor.
+     */
+    private class BenchmarkJedis implements EndPointAccessor {
+
+        private String endPoint;
+
+        public String get(String key) {
+            final Object[] args = {key};
+            getInterceptor.before(this, args);
+
+            // Protocol.sendCommand() and Protocol.read() are static
+            final Object[] sendCommandArgs = {null, null, null};
+            sendCommandInterceptor.before(null, sendCommandArgs);
+            sendCommandInterceptor.after(null, sendCommandArgs, null, null);
+
+            final Object[] readArgs = {null};
+            readInterceptor.before(null, readArgs);
+            final String value = "SHIPPED";
+            readInterceptor.after(null, readArgs, value, null);
+
+            getInterceptor.after(this, args, value, null);
+            return value;
+        }
+
+        @Override
+        public void _$PINPOINT$_setEndPoint(String endPoint) {
+            this.endPoint = endPoint;
+        }
+
+        @Override
+        public String _$PINPOINT$_getEndPoint() {
+            return endPoint;
+        }
+    }
+}
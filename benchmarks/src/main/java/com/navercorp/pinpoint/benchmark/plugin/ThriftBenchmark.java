@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.plugin;
+
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ExecutionPolicy;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ScopedInterceptor;
+import com.navercorp.pinpoint.plugin.thrift.ThriftPluginConfig;
+import com.navercorp.pinpoint.plugin.thrift.ThriftScope;
+import com.navercorp.pinpoint.plugin.thrift.interceptor.client.TServiceClientSendBaseInterceptor;
+import com.navercorp.pinpoint.plugin.thrift.interceptor.tprotocol.client.TProtocolWriteFieldStopInterceptor;
+import com.navercorp.pinpoint.profiler.interceptor.scope.DefaultInterceptorScope;
+import com.navercorp.pinpoint.thrift.dto.TApiMetaData;
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.apache.thrift.TServiceClient;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TServiceClient.sendBase() serializing a real struct through TBinaryProtocol, with the trace
+ * headers appended by the TProtocol.writeFieldStop() interceptor. The transport discards the bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThriftBenchmark {
+
+    @Param({"true", "false"})
+    public boolean sampled;
+
+    private TraceContextFixture fixture;
+
+    private OrderService.Client client;
+    private TApiMetaData request;
+
+    @Setup
+    public void setUp() throws TException {
+        this.fixture = new TraceContextFixture(sampled);
+        final TraceContext traceContext = fixture.getTraceContext();
+        final InterceptorScope scope = new DefaultInterceptorScope(ThriftScope.THRIFT_CLIENT_SCOPE);
+        final ThriftPluginConfig config = new ThriftPluginConfig(fixture.getProfilerConfig());
+
+        final MethodDescriptor sendBase = fixture.cacheApi("org.apache.thrift.TServiceClient", "sendBase", "java.lang.String", "org.apache.thrift.TBase");
+        final AroundInterceptor sendBaseInterceptor = new ScopedInterceptor(new TServiceClientSendBaseInterceptor(traceContext, sendBase, scope, config.traceThriftServiceArgs()),
+                scope, ExecutionPolicy.BOUNDARY);
+        final AroundInterceptor writeFieldStopInterceptor = new ScopedInterceptor(new TProtocolWriteFieldStopInterceptor(scope), scope, ExecutionPolicy.INTERNAL);
+
+        final BenchmarkProtocol protocol = new BenchmarkProtocol(new DiscardTransport(), writeFieldStopInterceptor);
+        this.client = new OrderService.Client(protocol, sendBaseInterceptor);
+        this.request = new TApiMetaData("test-agent", 1460000000000L, 10, "OrderService.getOrder(long id)");
+
+        call();
+        fixture.verifyRecorded(sampled, 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.verifyRecorded(sampled, 2);
+    }
+
+    @Benchmark
+    public void call() throws TException {
+        final Trace trace = fixture.beginTransaction();
+        try {
+            client.send("getOrder", request);
+        } finally {
+            fixture.endTransaction(trace);
+        }
+    }
+
+    /**
+     * Named like generated code, the plugin derives the service name from "$Client".
+     */
+    public static class OrderService {
+
+        /**
+         * A TServiceClient as it looks after the thrift plugin injected its interceptor.
+         */
+        public static class Client extends TServiceClient {
+
+            private final AroundInterceptor sendBaseInterceptor;
+
+            public Client(BenchmarkProtocol protocol, AroundInterceptor sendBaseInterceptor) {
+                super(protocol);
+                this.sendBaseInterceptor = sendBaseInterceptor;
+            }
+
+            public void send(String methodName, TBase<?, ?> args) throws TException {
+                final Object[] interceptorArgs = {methodName, args};
+                sendBaseInterceptor.before(this, interceptorArgs);
+                sendBase(methodName, args);
+                sendBaseInterceptor.after(this, interceptorArgs, null, null);
+            }
+        }
+    }
+
+    /**
+     * A TBinaryProtocol as it looks after the thrift plugin injected its writeFieldStop() interceptor.
+     */
+    public static class BenchmarkProtocol extends TBinaryProtocol {
+
+        private static final Object[] EMPTY_ARGS = new Object[0];
+
+        private final AroundInterceptor writeFieldStopInterceptor;
+
+        public BenchmarkProtocol(TTransport transport, AroundInterceptor writeFieldStopInterceptor) {
+            super(transport);
+            this.writeFieldStopInterceptor = writeFieldStopInterceptor;
+        }
+
+        @Override
+        public void writeFieldStop() throws TException {
+            writeFieldStopInterceptor.before(this, EMPTY_ARGS);
+            super.writeFieldStop();
+            writeFieldStopInterceptor.after(this, EMPTY_ARGS, null, null);
+        }
+    }
+
+    private static class DiscardTransport extends TTransport {
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws TTransportException {
+            throw new TTransportException(TTransportException.END_OF_FILE, "write only transport");
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.plugin;
+
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.bootstrap.context.Header;
+import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.plugin.tomcat.AsyncAccessor;
+import com.navercorp.pinpoint.plugin.tomcat.TraceAccessor;
+import com.navercorp.pinpoint.plugin.tomcat.interceptor.StandardHostValveInvokeInterceptor;
+import org.apache.catalina.connector.Request;
+import org.apache.tomcat.util.http.MimeHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Server side entry point: StandardHostValve.invoke() as instrumented by the tomcat plugin.
+ * The interceptor creates, records and closes the root span itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TomcatBenchmark {
+
+    @Param({"true", "false"})
+    public boolean sampled;
+
+    /**
+     * true when the caller propagated Pinpoint headers, so the sampling decision comes from the header.
+     */
+    @Param({"false", "true"})
+    public boolean remoteParent;
+
+    private TraceContextFixture fixture;
+    private AroundInterceptor interceptor;
+    private Object valve;
+    private BenchmarkRequest request;
+
+    @Setup
+    public void setUp() {
+        this.fixture = new TraceContextFixture(sampled);
+        this.interceptor = newInterceptor(fixture);
+        this.valve = new Object();
+        this.request = newRequest(remoteParent, sampled);
+
+        invoke();
+        fixture.verifyRecorded(sampled, 1);
+    }
+
+    static AroundInterceptor newInterceptor(TraceContextFixture fixture) {
+        final MethodDescriptor descriptor = fixture.cacheApi("org.apache.catalina.core.StandardHostValve", "invoke",
+                "org.apache.catalina.connector.Request", "org.apache.catalina.connector.Response");
+        return new StandardHostValveInvokeInterceptor(fixture.getTraceContext(), descriptor, fixture.getProfilerConfig().getTomcatExcludeUrlFilter());
+    }
+
+    static BenchmarkRequest newRequest(boolean remoteParent, boolean sampled) {
+        final org.apache.coyote.Request coyoteRequest = new org.apache.coyote.Request();
+        coyoteRequest.method().setString("GET");
+        coyoteRequest.requestURI().setString("/api/v1/orders");
+        coyoteRequest.serverName().setString("localhost");
+        coyoteRequest.setServerPort(8080);
+        coyoteRequest.remoteAddr().setString("10.0.0.1");
+        coyoteRequest.getParameters().addParameterValues("id", new String[] {"1234"});
+
+        final MimeHeaders headers = coyoteRequest.getMimeHeaders();
+        headers.addValue("Host").setString("localhost:8080");
+        headers.addValue("User-Agent").setString("Apache-HttpClient/4.3");
+        headers.addValue("Accept").setString("*/*");
+        if (remoteParent) {
+            if (sampled) {
+                headers.addValue(Header.HTTP_TRACE_ID.toString()).setString(TransactionIdUtils.formatString("caller-agent", 1460000000000L, 10));
+                headers.addValue(Header.HTTP_SPAN_ID.toString()).setString("-3496451094413498532");
+                headers.addValue(Header.HTTP_PARENT_SPAN_ID.toString()).setString("7155823925934451834");
+                headers.addValue(Header.HTTP_FLAGS.toString()).setString("0");
+                headers.addValue(Header.HTTP_PARENT_APPLICATION_NAME.toString()).setString("caller");
+                headers.addValue(Header.HTTP_PARENT_APPLICATION_TYPE.toString()).setString("1010");
+                headers.addValue(Header.HTTP_HOST.toString()).setString("localhost:8080");
+            } else {
+                headers.addValue(Header.HTTP_SAMPLED.toString()).setString(SamplingFlagUtils.SAMPLING_RATE_FALSE);
+            }
+        }
+        headers.addValue("Connection").setString("keep-alive");
+
+        final BenchmarkRequest request = new BenchmarkRequest();
+        request.setCoyoteRequest(coyoteRequest);
+        return request;
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.verifyRecorded(sampled, 1);
+    }
+
+    @Benchmark
+    public void invoke() {
+        final Object[] args = {request, null};
+        interceptor.before(valve, args);
+        interceptor.after(valve, args, null, null);
+    }
+
+    /**
+     * The fields and methods the tomcat plugin injects into Request.
+     */
+    public static class BenchmarkRequest extends Request implements TraceAccessor, AsyncAccessor {
+
+        private Trace trace;
+        private boolean async;
+
+        @Override
+        public void _$PINPOINT$_setTrace(Trace trace) {
+            this.trace = trace;
+        }
+
+        @Override
+        public Trace _$PINPOINT$_getTrace() {
+            return trace;
+        }
+
+        @Override
+        public void _$PINPOINT$_setAsync(boolean async) {
+            this.async = async;
+        }
+
+        @Override
+        public boolean _$PINPOINT$_isAsync() {
+            return async;
+        }
+
+        // Request parses parameters through its Connector, which is not created here.
+        @Override
+        public Enumeration getParameterNames() {
+            return coyoteRequest.getParameters().getParameterNames();
+        }
+
+        @Override
+        public String getParameter(String name) {
+            return coyoteRequest.getParameters().getParameter(name);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.plugin;
+
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.benchmark.plugin.HttpClient4Benchmark.BenchmarkHttpClient;
+import com.navercorp.pinpoint.benchmark.plugin.JdbcBenchmark.BenchmarkPreparedStatement;
+import com.navercorp.pinpoint.benchmark.plugin.TomcatBenchmark.BenchmarkRequest;
+import com.navercorp.pinpoint.bootstrap.context.Header;
+import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
+import com.sun.management.ThreadMXBean;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * An unsampled root request through the tomcat, jdbc and httpclient4 interceptors:
+ * StandardHostValve.invoke() around two bind calls, PreparedStatement.executeQuery() and an outgoing
+ * HttpClient.execute(), which still propagates the sampling flag.
+ *
+ * The arguments arrays the injected code would build are allocated once, and the statement comes from
+ * a statement cache, because creating one allocates its ParsingResult whether the thread is sampled or not.
+ * Everything left is what the agent allocates per request, which must be nothing:
+ * the trial fails if the thread allocated at least one byte per operation, same as gc.alloc.rate.norm of -prof gc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnsampledTraceBenchmark {
+
+    private static final int VERIFY_OPERATIONS = 100000;
+
+    @Param({"false", "true"})
+    public boolean activeThread;
+
+    private ThreadMXBean threadMXBean;
+
+    private AroundInterceptor tomcatInterceptor;
+    private Object valve;
+    private Object[] invokeArgs;
+
+    private BenchmarkPreparedStatement statement;
+    private Object[] setIntArgs;
+    private Object[] setStringArgs;
+    private Object[] executeQueryArgs;
+
+    private BenchmarkHttpClient httpClient;
+    private HttpRequest httpRequest;
+    private HttpResponse httpResponse;
+    private Object[] clientArgs;
+    private Object[] executorArgs;
+
+    @Setup
+    public void setUp() {
+        this.threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("thread allocated memory is not supported by this JVM");
+        }
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        final Properties properties = new Properties();
+        properties.setProperty("profiler.pinpoint.activethread", String.valueOf(activeThread));
+        final TraceContextFixture fixture = new TraceContextFixture(false, properties);
+
+        this.tomcatInterceptor = TomcatBenchmark.newInterceptor(fixture);
+        this.valve = new Object();
+        final BenchmarkRequest request = TomcatBenchmark.newRequest(false, false);
+        this.invokeArgs = new Object[] {request, null};
+
+        // unsampled, so prepareStatement() is not recorded. the statement still gets its DatabaseInfo and ParsingResult
+        this.statement = JdbcBenchmark.newConnection(fixture).prepareStatement(JdbcBenchmark.SQL);
+        this.setIntArgs = new Object[] {1, 1234};
+        this.setStringArgs = new Object[] {2, "SHIPPED"};
+        this.executeQueryArgs = new Object[] {};
+
+        this.httpClient = new BenchmarkHttpClient(fixture);
+        this.httpRequest = new BasicHttpRequest("GET", "/api/v1/orders?id=1234");
+        this.httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        this.clientArgs = new Object[] {new HttpHost("localhost", 8080), httpRequest};
+        this.executorArgs = new Object[] {httpRequest, null, null};
+
+        invoke();
+        if (!httpRequest.containsHeader(Header.HTTP_SAMPLED.toString())) {
+            throw new IllegalStateException("unsampled transaction did not propagate the sampling flag");
+        }
+        if (fixture.getDataSender().getSpanCount() != 0) {
+            throw new IllegalStateException("unsampled transaction sent a span");
+        }
+    }
+
+    /**
+     * Runs after the measurement, so the interceptors are as compiled as they were measured.
+     */
+    @TearDown
+    public void verifyNoAllocation() {
+        final long threadId = Thread.currentThread().getId();
+        final long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < VERIFY_OPERATIONS; i++) {
+            invoke();
+        }
+        final long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        final long allocatedPerOperation = allocated / VERIFY_OPERATIONS;
+        if (allocatedPerOperation > 0) {
+            throw new IllegalStateException("unsampled transaction allocates " + allocatedPerOperation + " bytes/op");
+        }
+    }
+
+    @Benchmark
+    public Object invoke() {
+        tomcatInterceptor.before(valve, invokeArgs);
+        try {
+            return service();
+        } finally {
+            tomcatInterceptor.after(valve, invokeArgs, null, null);
+        }
+    }
+
+    private Object service() {
+        statement.bind("setInt", "(int, int)", setIntArgs);
+        statement.bind("setString", "(int, java.lang.String)", setStringArgs);
+        statement.executeQuery(executeQueryArgs);
+
+        return httpClient.execute(clientArgs, executorArgs, httpResponse);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.profiler;
+
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.profiler.context.active.ActiveTraceRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Registering and unregistering an active trace, which every sampled transaction does once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActiveTraceRepositoryBenchmark {
+
+    private ActiveTraceRepository repository;
+
+    @Setup
+    public void setUp() {
+        this.repository = new ActiveTraceRepository();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int putAndRemove() {
+        return putAndRemove0();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int putAndRemove_8threads() {
+        return putAndRemove0();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int putAndRemove_64threads() {
+        return putAndRemove0();
+    }
+
+    private int putAndRemove0() {
+        final Thread thread = Thread.currentThread();
+        final int handle = repository.put(thread.getId(), System.currentTimeMillis(), thread);
+        repository.remove(handle);
+        return handle;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.profiler;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.profiler.sender.AsyncQueueingExecutor;
+import com.navercorp.pinpoint.profiler.sender.AsyncQueueingExecutorFactory;
+import com.navercorp.pinpoint.profiler.sender.AsyncQueueingExecutorListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Producer side cost of handing a span to the sender thread, for each queue and wait strategy
+ * selectable by profiler.datasender.executor.queue.type / profiler.datasender.executor.waitstrategy.
+ * The consumer does nothing, so the contended variants measure a full queue as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncQueueingExecutorBenchmark {
+
+    /**
+     * queue type / wait strategy
+     */
+    @Param({"BLOCKING/BLOCKING", "RINGBUFFER/BLOCKING", "RINGBUFFER/SLEEPING", "RINGBUFFER/YIELDING"})
+    public String executorType;
+
+    private AsyncQueueingExecutor<Object> executor;
+    private final Object message = new Object();
+
+    @Setup
+    public void setUp() {
+        final String[] types = executorType.split("/");
+        final AsyncQueueingExecutorFactory factory = new AsyncQueueingExecutorFactory(types[0], types[1], AsyncQueueingExecutor.DEFAULT_MAX_DRAIN_SIZE);
+        this.executor = factory.create(1024 * 5, "Pinpoint-AsyncQueueingExecutorBenchmark");
+        this.executor.setListener(new AsyncQueueingExecutorListener<Object>() {
+            @Override
+            public void execute(Collection<Object> messageList) {
+            }
+
+            @Override
+            public void execute(Object message) {
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.stop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean execute() {
+        return executor.execute(message);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean execute_8threads() {
+        return executor.execute(message);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean execute_64threads() {
+        return executor.execute(message);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.profiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.Matchers;
+import com.navercorp.pinpoint.profiler.instrument.transformer.ClassFileMatcherIndex;
+import com.navercorp.pinpoint.test.util.BytecodeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup cost of the interface, super class, annotation and package matchers: every class
+ * of the shaded benchmarks.jar is run through a fresh ClassFileMatcherIndex, as if the whole
+ * classpath was loaded once. The hierarchy matchers read the class files of super types
+ * through the class loader.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(1)
+public class ClassFileMatcherIndexBenchmark {
+
+    private static final ClassFileTransformer TRANSFORMER = new ClassFileTransformer() {
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+            return null;
+        }
+    };
+
+    @Param({"false", "true"})
+    public boolean considerHierarchy;
+
+    private ClassLoader classLoader;
+    private final List<String> classNames = new ArrayList<String>();
+    private final List<byte[]> classFiles = new ArrayList<byte[]>();
+
+    private ClassFileMatcherIndex index;
+
+    @Setup
+    public void loadClassFiles() throws IOException {
+        this.classLoader = ClassFileMatcherIndexBenchmark.class.getClassLoader();
+        final File jar = new File(ClassFileMatcherIndexBenchmark.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+        if (!jar.isFile()) {
+            throw new IllegalStateException("run from benchmarks.jar. location:" + jar);
+        }
+        final JarFile jarFile = new JarFile(jar);
+        try {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                final String name = entry.getName();
+                if (!name.endsWith(".class") || name.startsWith("META-INF/")) {
+                    continue;
+                }
+                final String jvmClassName = name.substring(0, name.length() - ".class".length());
+                classNames.add(jvmClassName);
+                classFiles.add(BytecodeUtils.getClassFile(classLoader, jvmClassName));
+            }
+        } finally {
+            jarFile.close();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void newIndex() {
+        // the super type cache is part of the startup cost
+        this.index = new ClassFileMatcherIndex();
+        index.addTransformer(Matchers.newInterfaceMatcher("java.lang.Runnable", considerHierarchy), TRANSFORMER);
+        index.addTransformer(Matchers.newInterfaceMatcher("java.util.concurrent.Callable", considerHierarchy), TRANSFORMER);
+        index.addTransformer(Matchers.newSuperClassMatcher("java.io.InputStream", considerHierarchy), TRANSFORMER);
+        index.addTransformer(Matchers.newAnnotationMatcher("java.lang.Deprecated"), TRANSFORMER);
+        index.addTransformer(Matchers.newPackageMatcher("com.navercorp.pinpoint.benchmark"), TRANSFORMER);
+    }
+
+    @Benchmark
+    public int findTransformer() {
+        int matched = 0;
+        for (int i = 0; i < classFiles.size(); i++) {
+            if (index.findTransformer(classLoader, classNames.get(i), classFiles.get(i)) != null) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.profiler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClass;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClassPool;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentContext;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentException;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentMethod;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.Matcher;
+import com.navercorp.pinpoint.bootstrap.instrument.transformer.TransformCallback;
+import com.navercorp.pinpoint.bootstrap.interceptor.BasicMethodInterceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
+import com.navercorp.pinpoint.profiler.instrument.ASMClassPool;
+import com.navercorp.pinpoint.profiler.instrument.JavassistClassPool;
+import com.navercorp.pinpoint.profiler.interceptor.registry.DefaultInterceptorRegistryBinder;
+import com.navercorp.pinpoint.profiler.interceptor.registry.InterceptorRegistryBinder;
+import com.navercorp.pinpoint.profiler.interceptor.scope.DefaultInterceptorScope;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup cost of the instrumentation engines (profiler.instrument.engine) over a generated jar:
+ * every class gets an interceptor on each of its methods and is written back to bytecode, with a
+ * fresh class pool per iteration. Every tenth class starts a new hierarchy, the others extend the
+ * previous class, so super types are resolved through the jar. The classes are never defined.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InstrumentEngineBenchmark {
+
+    private static final String PACKAGE = "com/navercorp/pinpoint/benchmark/synthetic/";
+    private static final String INTERCEPTOR = BasicMethodInterceptor.class.getName();
+    private static final int METHODS_PER_CLASS = 10;
+
+    @Param({"JAVASSIST", "ASM"})
+    public String engine;
+
+    @Param({"1000", "5000"})
+    public int classes;
+
+    private TraceContextFixture fixture;
+    private File jar;
+    private URLClassLoader classLoader;
+    private String[] classNames;
+    private byte[][] classFiles;
+
+    private InstrumentClassPool classPool;
+    private InstrumentContext instrumentContext;
+
+    @Setup
+    public void writeJar() throws IOException {
+        this.fixture = new TraceContextFixture(true);
+        this.classNames = new String[classes];
+        this.classFiles = new byte[classes][];
+        this.jar = File.createTempFile("synthetic", ".jar");
+        final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (int i = 0; i < classes; i++) {
+                final String jvmClassName = PACKAGE + "Synthetic" + i;
+                final String superName = i % 10 == 0 ? "java/lang/Object" : PACKAGE + "Synthetic" + (i - 1);
+                final byte[] classFile = newClassFile(jvmClassName, superName);
+                out.putNextEntry(new JarEntry(jvmClassName + ".class"));
+                out.write(classFile);
+                out.closeEntry();
+                // ClassFileTransformerDispatcher hands java class names to the plugin transformers
+                classNames[i] = jvmClassName.replace('/', '.');
+                classFiles[i] = classFile;
+            }
+        } finally {
+            out.close();
+        }
+        this.classLoader = new URLClassLoader(new URL[] {jar.toURI().toURL()}, InstrumentEngineBenchmark.class.getClassLoader());
+    }
+
+    private static byte[] newClassFile(String jvmClassName, String superName) {
+        final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, jvmClassName, null, superName, null);
+        cw.visitField(Opcodes.ACC_PRIVATE, "value", "Ljava/lang/String;", null, null).visitEnd();
+
+        final MethodVisitor constructor = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        for (int i = 0; i < METHODS_PER_CLASS; i++) {
+            // String method(int count, String prefix) { return prefix + String.valueOf(count + i); }
+            final MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "method" + i, "(ILjava/lang/String;)Ljava/lang/String;", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitLdcInsn(i);
+            mv.visitInsn(Opcodes.IADD);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/String", "valueOf", "(I)Ljava/lang/String;", false);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;", false);
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    @TearDown
+    public void deleteJar() throws IOException {
+        classLoader.close();
+        if (!jar.delete()) {
+            jar.deleteOnExit();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void newClassPool() {
+        final InterceptorRegistryBinder binder = new DefaultInterceptorRegistryBinder(classes * (METHODS_PER_CLASS + 1));
+        final JavassistClassPool javassistClassPool = new JavassistClassPool(binder, null);
+        if ("ASM".equals(engine)) {
+            this.classPool = new ASMClassPool(binder, javassistClassPool, null);
+        } else {
+            this.classPool = javassistClassPool;
+        }
+        this.instrumentContext = new BenchmarkInstrumentContext(fixture.getTraceContext());
+    }
+
+    @Benchmark
+    public int instrument() throws InstrumentException {
+        int size = 0;
+        for (int i = 0; i < classNames.length; i++) {
+            final InstrumentClass target = classPool.getClass(instrumentContext, classLoader, classNames[i], classFiles[i]);
+            for (InstrumentMethod method : target.getDeclaredMethods()) {
+                method.addInterceptor(INTERCEPTOR);
+            }
+            size += target.toBytecode().length;
+        }
+        return size;
+    }
+
+    /**
+     * Only what adding an interceptor needs.
+     */
+    private static class BenchmarkInstrumentContext implements InstrumentContext {
+
+        private final TraceContext traceContext;
+
+        private BenchmarkInstrumentContext(TraceContext traceContext) {
+            this.traceContext = traceContext;
+        }
+
+        @Override
+        public TraceContext getTraceContext() {
+            return traceContext;
+        }
+
+        @Override
+        public InterceptorScope getInterceptorScope(String name) {
+            return new DefaultInterceptorScope(name);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Class<? extends T> injectClass(ClassLoader targetClassLoader, String className) {
+            try {
+                return (Class<? extends T>) Class.forName(className, false, targetClassLoader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(className + " not found", e);
+            }
+        }
+
+        @Override
+        public InstrumentClass getInstrumentClass(ClassLoader classLoader, String className, byte[] classfileBuffer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean exist(ClassLoader classLoader, String className) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addClassFileTransformer(ClassLoader classLoader, String targetClassName, TransformCallback transformCallback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addClassFileTransformer(String targetClassName, TransformCallback transformCallback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void addClassFileTransformer(Matcher matcher, TransformCallback transformCallback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void retransform(Class<?> target, TransformCallback transformCallback) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.profiler;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.benchmark.TraceContextFixture;
+import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A sampled transaction recording a number of span events, with Span/SpanEvent recycling
+ * (profiler.span.recycle.enable) off and on. Run with -prof gc to compare the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpanRecyclingBenchmark {
+
+    @Param({"false", "true"})
+    public boolean recycle;
+
+    @Param({"4", "32"})
+    public int spanEvents;
+
+    private TraceContextFixture fixture;
+    private MethodDescriptor descriptor;
+
+    @Setup
+    public void setUp() {
+        final Properties properties = new Properties();
+        properties.setProperty("profiler.span.recycle.enable", String.valueOf(recycle));
+        this.fixture = new TraceContextFixture(true, properties);
+        this.descriptor = fixture.cacheApi("com.navercorp.pinpoint.benchmark.Service", "call", "java.lang.String");
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        fixture.verifyRecorded(true, spanEvents);
+    }
+
+    @Benchmark
+    public Trace transaction() {
+        final Trace trace = fixture.beginTransaction();
+        for (int i = 0; i < spanEvents; i++) {
+            final SpanEventRecorder recorder = trace.traceBlockBegin();
+            recorder.recordServiceType(ServiceType.INTERNAL_METHOD);
+            recorder.recordApi(descriptor);
+            trace.traceBlockEnd();
+        }
+        fixture.endTransaction(trace);
+        return trace;
+    }
+}
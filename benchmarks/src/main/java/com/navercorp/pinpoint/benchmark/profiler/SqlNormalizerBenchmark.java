@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.profiler;
+
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
+import com.navercorp.pinpoint.profiler.context.DefaultCachingSqlNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of DefaultCachingSqlNormalizer for a working set of prepared statements, with the front
+ * cache effectively off (1 slot) and sized for the working set.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlNormalizerBenchmark {
+
+    @Param({"1", "1024"})
+    public int frontCacheSize;
+
+    @Param({"1", "64"})
+    public int distinctSql;
+
+    private DefaultCachingSqlNormalizer normalizer;
+    private String[] sqls;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        this.normalizer = new DefaultCachingSqlNormalizer(1024, frontCacheSize);
+        this.sqls = new String[distinctSql];
+        for (int i = 0; i < sqls.length; i++) {
+            sqls[i] = "SELECT id, name, status, created_at FROM orders_" + i + " WHERE id = 1234 AND status = 'SHIPPED' AND region IN (1, 2, 3)";
+        }
+    }
+
+    @Benchmark
+    public ParsingResult normalize() {
+        final String sql = sqls[index];
+        if (++index == sqls.length) {
+            index = 0;
+        }
+        final ParsingResult parsingResult = normalizer.wrapSql(sql);
+        normalizer.normalizedSql(parsingResult);
+        return parsingResult;
+    }
+}
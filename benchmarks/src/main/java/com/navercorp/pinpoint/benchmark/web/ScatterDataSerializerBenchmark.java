@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.benchmark.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.navercorp.pinpoint.web.scatter.ScatterData;
+import com.navercorp.pinpoint.web.view.ScatterDataBinarySerializer;
+import com.navercorp.pinpoint.web.vo.TransactionId;
+import com.navercorp.pinpoint.web.vo.scatter.Dot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing a scatter chart response with the JSON model of ScatterChartController and with
+ * ScatterDataBinarySerializer. The output is only counted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScatterDataSerializerBenchmark {
+
+    @Param({"1000", "10000"})
+    public int dots;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScatterDataBinarySerializer binarySerializer = new ScatterDataBinarySerializer();
+    private final CountingOutputStream out = new CountingOutputStream();
+
+    private ScatterData scatterData;
+    private Map<String, Object> model;
+
+    @Setup
+    public void setUp() {
+        final long from = 1000000;
+        final long to = from + 300000;
+        this.scatterData = new ScatterData(from, to, 1000, 100);
+        for (int i = 0; i < dots; i++) {
+            final String agentId = "agent" + (i % 8);
+            final TransactionId transactionId = new TransactionId(agentId, 1234, i);
+            scatterData.addDot(new Dot(transactionId, from + (i * 29) % 300000, (i * 7) % 3000, i % 50 == 0 ? 1 : 0, agentId));
+        }
+
+        // same model as ScatterChartController.createScatterDataV1
+        this.model = new LinkedHashMap<>();
+        model.put("currentServerTime", to);
+        model.put("from", from);
+        model.put("to", to);
+        model.put("resultFrom", scatterData.getOldestAcceptedTime());
+        model.put("resultTo", scatterData.getLatestAcceptedTime());
+        model.put("complete", true);
+        model.put("scatter", scatterData);
+    }
+
+    @Benchmark
+    public long json() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, model);
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long binary() throws IOException {
+        out.reset();
+        binarySerializer.serialize(scatterData, true, scatterData.getTo(), out);
+        return out.getCount();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void reset() {
+            count = 0;
+        }
+    }
+}
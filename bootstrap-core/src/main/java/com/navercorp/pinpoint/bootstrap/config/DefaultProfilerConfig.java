@@ -41,6 +41,9 @@ public class DefaultProfilerConfig implements ProfilerConfig {
     private static final Logger logger = JavaLoggerFactory.getLogger(DefaultProfilerConfig.class.getName());
     private static final String DEFAULT_IP = "127.0.0.1";
 
+    public static final String INSTRUMENT_ENGINE_JAVASSIST = "JAVASSIST";
+    public static final String INSTRUMENT_ENGINE_ASM = "ASM";
+
     private final Properties properties;
     private final PropertyPlaceholderHelper propertyPlaceholderHelper = new PropertyPlaceholderHelper("${", "}");
 
@@ -88,6 +91,8 @@ public class DefaultProfilerConfig implements ProfilerConfig {
 
     private int interceptorRegistrySize = 1024*8;
 
+    private String profileInstrumentEngine = INSTRUMENT_ENGINE_JAVASSIST;
+
     private String collectorSpanServerIp = DEFAULT_IP;
     private int collectorSpanServerPort = 9996;
 
@@ -109,8 +114,18 @@ public class DefaultProfilerConfig implements ProfilerConfig {
     private int statDataSenderChunkSize = 1024 * 16;
     private String statDataSenderSocketType = "OIO";
 
+    private String dataSenderExecutorQueueType = "BLOCKING";
+    private String dataSenderExecutorWaitStrategy = "BLOCKING";
+    private int dataSenderExecutorDrainSize = 10;
+
     private boolean tcpDataSenderCommandAcceptEnable = false;
 
+    private boolean tcpDataSenderSpillEnable = false;
+    private String tcpDataSenderSpillDir = "";
+    private int tcpDataSenderSpillMetadataSize = 1024 * 1024 * 4;
+    private int tcpDataSenderSpillDataSize = 1024 * 1024 * 16;
+    private int tcpDataSenderSpillReplaySize = 100;
+
     private boolean traceAgentActiveThread = true;
 
     private int callStackMaxDepth = 512;
@@ -170,6 +185,11 @@ public class DefaultProfilerConfig implements ProfilerConfig {
     // span buffering
     private boolean ioBufferingEnable;
     private int ioBufferingBufferSize;
+    private int ioBufferingFlushBytes;
+
+    // span object recycling
+    private boolean spanRecycleEnable = false;
+    private int spanRecyclePoolSize = 256;
 
     private int profileJvmCollectInterval;
     private String profileJvmVendorName;
@@ -205,6 +225,11 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return interceptorRegistrySize;
     }
 
+    @Override
+    public String getProfileInstrumentEngine() {
+        return profileInstrumentEngine;
+    }
+
     @Override
     public String getCollectorSpanServerIp() {
         return collectorSpanServerIp;
@@ -270,6 +295,31 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return tcpDataSenderCommandAcceptEnable;
     }
 
+    @Override
+    public boolean isTcpDataSenderSpillEnable() {
+        return tcpDataSenderSpillEnable;
+    }
+
+    @Override
+    public String getTcpDataSenderSpillDir() {
+        return tcpDataSenderSpillDir;
+    }
+
+    @Override
+    public int getTcpDataSenderSpillMetadataSize() {
+        return tcpDataSenderSpillMetadataSize;
+    }
+
+    @Override
+    public int getTcpDataSenderSpillDataSize() {
+        return tcpDataSenderSpillDataSize;
+    }
+
+    @Override
+    public int getTcpDataSenderSpillReplaySize() {
+        return tcpDataSenderSpillReplaySize;
+    }
+
     @Override
     public boolean isTraceAgentActiveThread() {
         return traceAgentActiveThread;
@@ -295,6 +345,21 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return statDataSenderChunkSize;
     }
 
+    @Override
+    public String getDataSenderExecutorQueueType() {
+        return dataSenderExecutorQueueType;
+    }
+
+    @Override
+    public String getDataSenderExecutorWaitStrategy() {
+        return dataSenderExecutorWaitStrategy;
+    }
+
+    @Override
+    public int getDataSenderExecutorDrainSize() {
+        return dataSenderExecutorDrainSize;
+    }
+
     @Override
     public boolean isProfileEnable() {
         return profileEnable;
@@ -336,6 +401,21 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         return ioBufferingBufferSize;
     }
 
+    @Override
+    public int getIoBufferingFlushBytes() {
+        return ioBufferingFlushBytes;
+    }
+
+    @Override
+    public boolean isSpanRecycleEnable() {
+        return spanRecycleEnable;
+    }
+
+    @Override
+    public int getSpanRecyclePoolSize() {
+        return spanRecyclePoolSize;
+    }
+
     @Override
     public int getProfileJvmCollectInterval() {
         return profileJvmCollectInterval;
@@ -573,6 +653,8 @@ public class DefaultProfilerConfig implements ProfilerConfig {
 
         this.interceptorRegistrySize = readInt("profiler.interceptorregistry.size", 1024*8);
 
+        this.profileInstrumentEngine = readString("profiler.instrument.engine", INSTRUMENT_ENGINE_JAVASSIST).toUpperCase();
+
         this.collectorSpanServerIp = readString("profiler.collector.span.ip", DEFAULT_IP, placeHolderResolver);
         this.collectorSpanServerPort = readInt("profiler.collector.span.port", 9996);
 
@@ -594,8 +676,20 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         this.statDataSenderChunkSize = readInt("profiler.statdatasender.chunk.size", 1024 * 16);
         this.statDataSenderSocketType = readString("profiler.statdatasender.socket.type", "OIO");
 
+        // BLOCKING : LinkedBlockingQueue, RINGBUFFER : lock-free ring buffer
+        this.dataSenderExecutorQueueType = readString("profiler.datasender.executor.queue.type", "BLOCKING");
+        // used by RINGBUFFER only. BLOCKING, SLEEPING, YIELDING
+        this.dataSenderExecutorWaitStrategy = readString("profiler.datasender.executor.waitstrategy", "BLOCKING");
+        this.dataSenderExecutorDrainSize = readInt("profiler.datasender.executor.drain.size", 10);
+
         this.tcpDataSenderCommandAcceptEnable = readBoolean("profiler.tcpdatasender.command.accept.enable", false);
 
+        this.tcpDataSenderSpillEnable = readBoolean("profiler.tcpdatasender.spill.enable", false);
+        this.tcpDataSenderSpillDir = readString("profiler.tcpdatasender.spill.dir", "");
+        this.tcpDataSenderSpillMetadataSize = readInt("profiler.tcpdatasender.spill.metadata.size", 1024 * 1024 * 4);
+        this.tcpDataSenderSpillDataSize = readInt("profiler.tcpdatasender.spill.data.size", 1024 * 1024 * 16);
+        this.tcpDataSenderSpillReplaySize = readInt("profiler.tcpdatasender.spill.replay.size", 100);
+
         this.traceAgentActiveThread = readBoolean("profiler.pinpoint.activethread", true);
 
         // CallStck
@@ -679,6 +773,12 @@ public class DefaultProfilerConfig implements ProfilerConfig {
 
         // it may be a problem to be here.  need to modify(delete or move or .. )  this configuration.
         this.ioBufferingBufferSize = readInt("profiler.io.buffering.buffersize", 20);
+        // flush the buffered SpanEvents early when their estimated encoded size reaches this size.
+        this.ioBufferingFlushBytes = readInt("profiler.io.buffering.flush.bytes", 16384);
+
+        // reuse Span, SpanEvent and SpanEvent list after they are sent.
+        this.spanRecycleEnable = readBoolean("profiler.span.recycle.enable", false);
+        this.spanRecyclePoolSize = readInt("profiler.span.recycle.pool.size", 256);
 
         // JVM
         this.profileJvmCollectInterval = readInt("profiler.jvm.collect.interval", 1000);
@@ -814,6 +914,8 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         builder.append(properties);
         builder.append(", interceptorRegistrySize=");
         builder.append(interceptorRegistrySize);
+        builder.append(", profileInstrumentEngine=");
+        builder.append(profileInstrumentEngine);
         builder.append(", propertyPlaceholderHelper=");
         builder.append(propertyPlaceholderHelper);
         builder.append(", profileEnable=");
@@ -850,8 +952,24 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         builder.append(statDataSenderChunkSize);
         builder.append(", statDataSenderSocketType=");
         builder.append(statDataSenderSocketType);
+        builder.append(", dataSenderExecutorQueueType=");
+        builder.append(dataSenderExecutorQueueType);
+        builder.append(", dataSenderExecutorWaitStrategy=");
+        builder.append(dataSenderExecutorWaitStrategy);
+        builder.append(", dataSenderExecutorDrainSize=");
+        builder.append(dataSenderExecutorDrainSize);
         builder.append(", tcpDataSenderCommandAcceptEnable=");
         builder.append(tcpDataSenderCommandAcceptEnable);
+        builder.append(", tcpDataSenderSpillEnable=");
+        builder.append(tcpDataSenderSpillEnable);
+        builder.append(", tcpDataSenderSpillDir=");
+        builder.append(tcpDataSenderSpillDir);
+        builder.append(", tcpDataSenderSpillMetadataSize=");
+        builder.append(tcpDataSenderSpillMetadataSize);
+        builder.append(", tcpDataSenderSpillDataSize=");
+        builder.append(tcpDataSenderSpillDataSize);
+        builder.append(", tcpDataSenderSpillReplaySize=");
+        builder.append(tcpDataSenderSpillReplaySize);
         builder.append(", traceAgentActiveThread=");
         builder.append(traceAgentActiveThread);
         builder.append(", callStackMaxDepth=");
@@ -922,6 +1040,12 @@ public class DefaultProfilerConfig implements ProfilerConfig {
         builder.append(ioBufferingEnable);
         builder.append(", ioBufferingBufferSize=");
         builder.append(ioBufferingBufferSize);
+        builder.append(", ioBufferingFlushBytes=");
+        builder.append(ioBufferingFlushBytes);
+        builder.append(", spanRecycleEnable=");
+        builder.append(spanRecycleEnable);
+        builder.append(", spanRecyclePoolSize=");
+        builder.append(spanRecyclePoolSize);
         builder.append(", profileJvmCollectInterval=");
         builder.append(profileJvmCollectInterval);
         builder.append(", profilableClassFilter=");
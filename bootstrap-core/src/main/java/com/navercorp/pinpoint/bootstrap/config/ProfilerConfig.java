@@ -25,6 +25,8 @@ import java.util.Map;
 public interface ProfilerConfig {
     int getInterceptorRegistrySize();
 
+    String getProfileInstrumentEngine();
+
     String getCollectorSpanServerIp();
 
     int getCollectorSpanServerPort();
@@ -51,6 +53,16 @@ public interface ProfilerConfig {
 
     boolean isTcpDataSenderCommandAcceptEnable();
 
+    boolean isTcpDataSenderSpillEnable();
+
+    String getTcpDataSenderSpillDir();
+
+    int getTcpDataSenderSpillMetadataSize();
+
+    int getTcpDataSenderSpillDataSize();
+
+    int getTcpDataSenderSpillReplaySize();
+
     boolean isTraceAgentActiveThread();
 
     int getSpanDataSenderSocketTimeout();
@@ -61,6 +73,12 @@ public interface ProfilerConfig {
 
     int getStatDataSenderChunkSize();
 
+    String getDataSenderExecutorQueueType();
+
+    String getDataSenderExecutorWaitStrategy();
+
+    int getDataSenderExecutorDrainSize();
+
     boolean isProfileEnable();
 
     int getJdbcSqlCacheSize();
@@ -77,6 +95,12 @@ public interface ProfilerConfig {
 
     int getIoBufferingBufferSize();
 
+    int getIoBufferingFlushBytes();
+
+    boolean isSpanRecycleEnable();
+
+    int getSpanRecyclePoolSize();
+
     int getProfileJvmCollectInterval();
 
     String getProfilerJvmVendorName();
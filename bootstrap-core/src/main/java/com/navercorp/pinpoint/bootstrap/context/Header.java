@@ -35,7 +35,9 @@ public enum Header {
     HTTP_FLAGS("Pinpoint-Flags"),
     HTTP_PARENT_APPLICATION_NAME("Pinpoint-pAppName"),
     HTTP_PARENT_APPLICATION_TYPE("Pinpoint-pAppType"),
-    HTTP_HOST("Pinpoint-Host");
+    HTTP_HOST("Pinpoint-Host"),
+    // every header above except HTTP_SAMPLED in one value. see plugin.http.CompactTraceHeaderCodec
+    HTTP_TRACE_CONTEXT("Pinpoint-Trace");
 
     private String name;
 
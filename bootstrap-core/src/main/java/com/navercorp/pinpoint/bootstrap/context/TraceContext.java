@@ -36,6 +36,11 @@ public interface TraceContext {
 
     Trace continueTraceObject(TraceId traceId);
 
+    /**
+     * Binds a trace handed over from another thread, e.g. on servlet 3.0 async dispatch.
+     * An unsampled trace is recycled by the thread that created it,
+     * so it must be handed over before that thread starts its next transaction.
+     */
     Trace continueTraceObject(Trace trace);
 
     Trace newTraceObject();
@@ -67,6 +72,11 @@ public interface TraceContext {
 
     TraceId createTraceId(String transactionId, long parentSpanID, long spanID, short flags);
 
+    /**
+     * Same as {@link #createTraceId(String, long, long, short)} for a transaction id already decoded into its fields.
+     */
+    TraceId createTraceId(String agentId, long agentStartTime, long transactionSequence, long parentSpanID, long spanID, short flags);
+
     Trace disableSampling();
 
     ProfilerConfig getProfilerConfig();
@@ -17,6 +17,7 @@
 package com.navercorp.pinpoint.bootstrap.instrument;
 
 import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.Matcher;
 import com.navercorp.pinpoint.bootstrap.instrument.transformer.TransformCallback;
 import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
 
@@ -39,6 +40,8 @@ public interface InstrumentContext {
 
     void addClassFileTransformer(String targetClassName, TransformCallback transformCallback);
 
+    void addClassFileTransformer(Matcher matcher, TransformCallback transformCallback);
+
     void retransform(Class<?> target, TransformCallback transformCallback);
 
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.instrument.matcher;
+
+public class DefaultAnnotationMatcher implements AnnotationMatcher {
+    private final String annotationName;
+
+    DefaultAnnotationMatcher(String annotationName) {
+        if (annotationName == null) {
+            throw new NullPointerException("annotationName must not be null");
+        }
+        this.annotationName = annotationName;
+    }
+
+    @Override
+    public String getAnnotationName() {
+        return annotationName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        DefaultAnnotationMatcher that = (DefaultAnnotationMatcher) o;
+
+        return annotationName.equals(that.annotationName);
+    }
+
+    @Override
+    public int hashCode() {
+        return annotationName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DefaultAnnotationMatcher{");
+        sb.append(annotationName);
+        sb.append('}');
+        return sb.toString();
+    }
+}
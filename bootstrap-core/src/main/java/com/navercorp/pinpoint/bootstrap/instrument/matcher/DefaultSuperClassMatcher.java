@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.instrument.matcher;
+
+public class DefaultSuperClassMatcher implements SuperClassMatcher {
+    private final String superClassName;
+    private final boolean considerHierarchy;
+
+    DefaultSuperClassMatcher(String superClassName, boolean considerHierarchy) {
+        if (superClassName == null) {
+            throw new NullPointerException("superClassName must not be null");
+        }
+        this.superClassName = superClassName;
+        this.considerHierarchy = considerHierarchy;
+    }
+
+    @Override
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    @Override
+    public boolean isConsiderHierarchy() {
+        return considerHierarchy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        DefaultSuperClassMatcher that = (DefaultSuperClassMatcher) o;
+
+        if (considerHierarchy != that.considerHierarchy) return false;
+        return superClassName.equals(that.superClassName);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = superClassName.hashCode();
+        result = 31 * result + (considerHierarchy ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DefaultSuperClassMatcher{");
+        sb.append(superClassName);
+        sb.append(", considerHierarchy=").append(considerHierarchy);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -46,4 +46,28 @@ public final class Matchers {
         return new DefaultMultiClassNameMatcher(Arrays.asList(classNameList));
     }
 
+    public static Matcher newInterfaceMatcher(String interfaceName) {
+        return newInterfaceMatcher(interfaceName, false);
+    }
+
+    public static Matcher newInterfaceMatcher(String interfaceName, boolean considerHierarchy) {
+        return new DefaultInterfaceMatcher(interfaceName, considerHierarchy);
+    }
+
+    public static Matcher newSuperClassMatcher(String superClassName) {
+        return newSuperClassMatcher(superClassName, false);
+    }
+
+    public static Matcher newSuperClassMatcher(String superClassName, boolean considerHierarchy) {
+        return new DefaultSuperClassMatcher(superClassName, considerHierarchy);
+    }
+
+    public static Matcher newAnnotationMatcher(String annotationName) {
+        return new DefaultAnnotationMatcher(annotationName);
+    }
+
+    public static Matcher newPackageMatcher(String packageName) {
+        return new DefaultPackageMatcher(packageName);
+    }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.http;
+
+/**
+ * Propagated trace context decoded from {@link com.navercorp.pinpoint.bootstrap.context.Header#HTTP_TRACE_CONTEXT}.
+ */
+public class CompactTraceContext {
+
+    private final String agentId;
+    private final long agentStartTime;
+    private final long transactionSequence;
+    private final long spanId;
+    private final long parentSpanId;
+    private final short flags;
+    private final String parentApplicationName;
+    private final short parentApplicationType;
+    private final String host;
+
+    public CompactTraceContext(String agentId, long agentStartTime, long transactionSequence, long spanId, long parentSpanId, short flags,
+                               String parentApplicationName, short parentApplicationType, String host) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        this.agentId = agentId;
+        this.agentStartTime = agentStartTime;
+        this.transactionSequence = transactionSequence;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.flags = flags;
+        this.parentApplicationName = parentApplicationName;
+        this.parentApplicationType = parentApplicationType;
+        this.host = host;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public long getAgentStartTime() {
+        return agentStartTime;
+    }
+
+    public long getTransactionSequence() {
+        return transactionSequence;
+    }
+
+    public long getSpanId() {
+        return spanId;
+    }
+
+    public long getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public short getFlags() {
+        return flags;
+    }
+
+    public String getParentApplicationName() {
+        return parentApplicationName;
+    }
+
+    public short getParentApplicationType() {
+        return parentApplicationType;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactTraceContext{" +
+                "agentId='" + agentId + '\'' +
+                ", agentStartTime=" + agentStartTime +
+                ", transactionSequence=" + transactionSequence +
+                ", spanId=" + spanId +
+                ", parentSpanId=" + parentSpanId +
+                ", flags=" + flags +
+                ", parentApplicationName='" + parentApplicationName + '\'' +
+                ", parentApplicationType=" + parentApplicationType +
+                ", host='" + host + '\'' +
+                '}';
+    }
+}
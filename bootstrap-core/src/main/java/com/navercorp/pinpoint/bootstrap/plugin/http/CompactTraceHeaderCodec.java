@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.http;
+
+import com.navercorp.pinpoint.bootstrap.context.TraceId;
+import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+
+/**
+ * Encodes the propagated trace context into a single base64url (no padding) header value.
+ * <pre>
+ * version(1) agentId(prefixed string) agentStartTime(VLong) transactionSequence(VLong)
+ * spanId(8) parentSpanId(8) flags(VInt) parentApplicationName(prefixed string) parentApplicationType(VInt) host(prefixed string)
+ * </pre>
+ * Span ids are random 64bit values and are written fixed length, a varint would take 9~10 bytes.
+ */
+public final class CompactTraceHeaderCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final char[] ENCODE_TABLE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final byte[] DECODE_TABLE = createDecodeTable();
+
+    private static byte[] createDecodeTable() {
+        final byte[] decodeTable = new byte[128];
+        for (int i = 0; i < decodeTable.length; i++) {
+            decodeTable[i] = -1;
+        }
+        for (int i = 0; i < ENCODE_TABLE.length; i++) {
+            decodeTable[ENCODE_TABLE[i]] = (byte) i;
+        }
+        return decodeTable;
+    }
+
+    private CompactTraceHeaderCodec() {
+    }
+
+    public static String encode(TraceId traceId, String parentApplicationName, short parentApplicationType, String host) {
+        if (traceId == null) {
+            throw new NullPointerException("traceId must not be null");
+        }
+        final Buffer buffer = new AutomaticBuffer(64);
+        buffer.putByte(VERSION);
+        buffer.putPrefixedString(traceId.getAgentId());
+        buffer.putVLong(traceId.getAgentStartTime());
+        buffer.putVLong(traceId.getTransactionSequence());
+        buffer.putLong(traceId.getSpanId());
+        buffer.putLong(traceId.getParentSpanId());
+        buffer.putVInt(traceId.getFlags());
+        buffer.putPrefixedString(parentApplicationName);
+        buffer.putVInt(parentApplicationType);
+        buffer.putPrefixedString(host);
+        return encodeBase64(buffer.getInternalBuffer(), buffer.getOffset());
+    }
+
+    /**
+     * @return null if the value is not a valid compact trace header
+     */
+    public static CompactTraceContext decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        final byte[] bytes = decodeBase64(value);
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            final Buffer buffer = new FixedBuffer(bytes);
+            if (buffer.readByte() != VERSION) {
+                return null;
+            }
+            final String agentId = buffer.readPrefixedString();
+            if (agentId == null) {
+                return null;
+            }
+            final long agentStartTime = buffer.readVLong();
+            final long transactionSequence = buffer.readVLong();
+            final long spanId = buffer.readLong();
+            final long parentSpanId = buffer.readLong();
+            final short flags = (short) buffer.readVInt();
+            final String parentApplicationName = buffer.readPrefixedString();
+            final short parentApplicationType = (short) buffer.readVInt();
+            final String host = buffer.readPrefixedString();
+            return new CompactTraceContext(agentId, agentStartTime, transactionSequence, spanId, parentSpanId, flags, parentApplicationName, parentApplicationType, host);
+        } catch (RuntimeException e) {
+            // truncated or corrupted
+            return null;
+        }
+    }
+
+    static String encodeBase64(byte[] bytes, int length) {
+        final char[] chars = new char[(length * 4 + 2) / 3];
+        int charIndex = 0;
+        int i = 0;
+        for (; i + 3 <= length; i += 3) {
+            final int bits = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff);
+            chars[charIndex++] = ENCODE_TABLE[(bits >>> 18) & 0x3f];
+            chars[charIndex++] = ENCODE_TABLE[(bits >>> 12) & 0x3f];
+            chars[charIndex++] = ENCODE_TABLE[(bits >>> 6) & 0x3f];
+            chars[charIndex++] = ENCODE_TABLE[bits & 0x3f];
+        }
+        final int remain = length - i;
+        if (remain == 1) {
+            final int bits = (bytes[i] & 0xff) << 16;
+            chars[charIndex++] = ENCODE_TABLE[(bits >>> 18) & 0x3f];
+            chars[charIndex++] = ENCODE_TABLE[(bits >>> 12) & 0x3f];
+        } else if (remain == 2) {
+            final int bits = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8;
+            chars[charIndex++] = ENCODE_TABLE[(bits >>> 18) & 0x3f];
+            chars[charIndex++] = ENCODE_TABLE[(bits >>> 12) & 0x3f];
+            chars[charIndex++] = ENCODE_TABLE[(bits >>> 6) & 0x3f];
+        }
+        return new String(chars, 0, charIndex);
+    }
+
+    /**
+     * @return null if the value contains an invalid character
+     */
+    static byte[] decodeBase64(String value) {
+        final int length = value.length();
+        if (length % 4 == 1) {
+            return null;
+        }
+        final byte[] bytes = new byte[length * 3 / 4];
+        int byteIndex = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= DECODE_TABLE.length || DECODE_TABLE[c] == -1) {
+                return null;
+            }
+            bits = (bits << 6) | DECODE_TABLE[c];
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                bytes[byteIndex++] = (byte) (bits >>> bitCount);
+            }
+        }
+        return bytes;
+    }
+}
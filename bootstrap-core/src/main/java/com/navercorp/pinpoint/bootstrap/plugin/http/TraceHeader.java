@@ -0,0 +1,230 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.http;
+
+import com.navercorp.pinpoint.bootstrap.context.Header;
+import com.navercorp.pinpoint.bootstrap.context.SpanId;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.context.TraceId;
+import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
+import com.navercorp.pinpoint.bootstrap.util.NumberUtils;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+
+/**
+ * Pinpoint headers of a single request, read once and shared by the whole server interceptor.
+ */
+public class TraceHeader {
+
+    public static final String PINPOINT_HEADER_PREFIX = "Pinpoint-";
+
+    // Header.values() clones the array on every call
+    private static final Header[] HEADERS = Header.values();
+
+    /**
+     * Read-only. Shared by the requests that carry no Pinpoint header, which is every unsampled root request.
+     */
+    public static final TraceHeader EMPTY = new TraceHeader(true);
+
+    private final String[] values = new String[HEADERS.length];
+    private final boolean readOnly;
+
+    private boolean compactTraceContextDecoded;
+    private CompactTraceContext compactTraceContext;
+
+    public TraceHeader() {
+        this(false);
+    }
+
+    private TraceHeader(boolean readOnly) {
+        this.readOnly = readOnly;
+        // nothing to decode, so a shared instance is never written after construction
+        this.compactTraceContextDecoded = readOnly;
+    }
+
+    /**
+     * @return the Pinpoint header of the given name. null if the name is not a Pinpoint header. (case insensitive)
+     */
+    public static Header findHeader(String name) {
+        if (name == null) {
+            return null;
+        }
+        if (!name.regionMatches(true, 0, PINPOINT_HEADER_PREFIX, 0, PINPOINT_HEADER_PREFIX.length())) {
+            return null;
+        }
+        final int length = name.length();
+        for (Header header : HEADERS) {
+            final String headerName = header.toString();
+            if (headerName.length() == length && headerName.equalsIgnoreCase(name)) {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * For containers exposing every header in one pass. Non Pinpoint headers are ignored.
+     * The first value wins, same as HttpServletRequest.getHeader().
+     *
+     * @return true if the name is a Pinpoint header
+     */
+    public boolean put(String name, String value) {
+        final Header header = findHeader(name);
+        if (header == null) {
+            return false;
+        }
+        if (values[header.ordinal()] == null) {
+            set(header, value);
+        }
+        return true;
+    }
+
+    public void set(Header header, String value) {
+        if (header == null) {
+            throw new NullPointerException("header must not be null");
+        }
+        if (readOnly) {
+            throw new UnsupportedOperationException("read-only TraceHeader");
+        }
+        values[header.ordinal()] = value;
+        if (header == Header.HTTP_TRACE_CONTEXT) {
+            compactTraceContextDecoded = false;
+            compactTraceContext = null;
+        }
+    }
+
+    public String get(Header header) {
+        if (header == null) {
+            throw new NullPointerException("header must not be null");
+        }
+        return values[header.ordinal()];
+    }
+
+    /**
+     * Decodes {@link Header#HTTP_TRACE_CONTEXT} once.
+     * The legacy headers are used when the compact header is absent or invalid, so both formats are accepted during migration.
+     *
+     * @return null if the compact header is absent or invalid
+     */
+    public CompactTraceContext getCompactTraceContext() {
+        if (!compactTraceContextDecoded) {
+            compactTraceContext = CompactTraceHeaderCodec.decode(get(Header.HTTP_TRACE_CONTEXT));
+            compactTraceContextDecoded = true;
+        }
+        return compactTraceContext;
+    }
+
+    public String getSamplingFlag() {
+        return get(Header.HTTP_SAMPLED);
+    }
+
+    public boolean isSampled() {
+        return SamplingFlagUtils.isSamplingFlag(getSamplingFlag());
+    }
+
+    public String getTransactionId() {
+        final CompactTraceContext compact = getCompactTraceContext();
+        if (compact != null) {
+            return TransactionIdUtils.formatString(compact.getAgentId(), compact.getAgentStartTime(), compact.getTransactionSequence());
+        }
+        return get(Header.HTTP_TRACE_ID);
+    }
+
+    /**
+     * Creates the TraceId of the caller. The fields of the compact header are used as decoded,
+     * without formatting the transaction id to a string and parsing it back.
+     *
+     * @return null if the request carries no transaction id
+     */
+    public TraceId createTraceId(TraceContext traceContext) {
+        if (traceContext == null) {
+            throw new NullPointerException("traceContext must not be null");
+        }
+        final CompactTraceContext compact = getCompactTraceContext();
+        if (compact != null) {
+            return traceContext.createTraceId(compact.getAgentId(), compact.getAgentStartTime(), compact.getTransactionSequence(),
+                    compact.getParentSpanId(), compact.getSpanId(), compact.getFlags());
+        }
+        final String transactionId = get(Header.HTTP_TRACE_ID);
+        if (transactionId == null) {
+            return null;
+        }
+        return traceContext.createTraceId(transactionId, getParentSpanId(), getSpanId(), getFlags());
+    }
+
+    public long getParentSpanId() {
+        final CompactTraceContext compact = getCompactTraceContext();
+        if (compact != null) {
+            return compact.getParentSpanId();
+        }
+        return NumberUtils.parseLong(get(Header.HTTP_PARENT_SPAN_ID), SpanId.NULL);
+    }
+
+    public long getSpanId() {
+        final CompactTraceContext compact = getCompactTraceContext();
+        if (compact != null) {
+            return compact.getSpanId();
+        }
+        return NumberUtils.parseLong(get(Header.HTTP_SPAN_ID), SpanId.NULL);
+    }
+
+    public short getFlags() {
+        final CompactTraceContext compact = getCompactTraceContext();
+        if (compact != null) {
+            return compact.getFlags();
+        }
+        return NumberUtils.parseShort(get(Header.HTTP_FLAGS), (short) 0);
+    }
+
+    public String getParentApplicationName() {
+        final CompactTraceContext compact = getCompactTraceContext();
+        if (compact != null) {
+            return compact.getParentApplicationName();
+        }
+        return get(Header.HTTP_PARENT_APPLICATION_NAME);
+    }
+
+    public short getParentApplicationType() {
+        final CompactTraceContext compact = getCompactTraceContext();
+        if (compact != null) {
+            return compact.getParentApplicationType();
+        }
+        return NumberUtils.parseShort(get(Header.HTTP_PARENT_APPLICATION_TYPE), ServiceType.UNDEFINED.getCode());
+    }
+
+    public String getHost() {
+        final CompactTraceContext compact = getCompactTraceContext();
+        if (compact != null) {
+            return compact.getHost();
+        }
+        return get(Header.HTTP_HOST);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("TraceHeader{");
+        for (int i = 0; i < HEADERS.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(HEADERS[i]).append('=').append(values[i]);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+}
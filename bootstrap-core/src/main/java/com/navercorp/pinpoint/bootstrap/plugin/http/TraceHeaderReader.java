@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.http;
+
+import com.navercorp.pinpoint.bootstrap.context.Header;
+
+/**
+ * Reads Pinpoint headers through {@link RequestHeaderAdaptor#getHeader(Object, String)}.
+ * Headers depending on others are looked up only when needed,
+ * e.g. span ids and parent application are skipped if there is no transaction id.
+ */
+public class TraceHeaderReader<REQ> {
+
+    private final RequestHeaderAdaptor<REQ> requestHeaderAdaptor;
+
+    public TraceHeaderReader(RequestHeaderAdaptor<REQ> requestHeaderAdaptor) {
+        if (requestHeaderAdaptor == null) {
+            throw new NullPointerException("requestHeaderAdaptor must not be null");
+        }
+        this.requestHeaderAdaptor = requestHeaderAdaptor;
+    }
+
+    public TraceHeader read(REQ request) {
+        if (request == null) {
+            throw new NullPointerException("request must not be null");
+        }
+        final TraceHeader traceHeader = new TraceHeader();
+        read(request, traceHeader, Header.HTTP_SAMPLED);
+        if (!traceHeader.isSampled()) {
+            return traceHeader;
+        }
+
+        read(request, traceHeader, Header.HTTP_TRACE_CONTEXT);
+        if (traceHeader.getCompactTraceContext() != null) {
+            return traceHeader;
+        }
+        final String transactionId = read(request, traceHeader, Header.HTTP_TRACE_ID);
+        if (transactionId == null) {
+            return traceHeader;
+        }
+        read(request, traceHeader, Header.HTTP_PARENT_SPAN_ID);
+        read(request, traceHeader, Header.HTTP_SPAN_ID);
+        read(request, traceHeader, Header.HTTP_FLAGS);
+
+        final String parentApplicationName = read(request, traceHeader, Header.HTTP_PARENT_APPLICATION_NAME);
+        if (parentApplicationName != null) {
+            read(request, traceHeader, Header.HTTP_HOST);
+            read(request, traceHeader, Header.HTTP_PARENT_APPLICATION_TYPE);
+        }
+        return traceHeader;
+    }
+
+    private String read(REQ request, TraceHeader traceHeader, Header header) {
+        final String value = requestHeaderAdaptor.getHeader(request, header.toString());
+        traceHeader.set(header, value);
+        return value;
+    }
+
+}
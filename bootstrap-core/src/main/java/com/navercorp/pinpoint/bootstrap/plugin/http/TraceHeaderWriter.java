@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.http;
+
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
+import com.navercorp.pinpoint.bootstrap.context.Header;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.context.TraceId;
+import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
+
+/**
+ * Writes the trace context of an outgoing request.
+ * With {@link #COMPACT_HEADER_ENABLE} the context goes out as the single {@link Header#HTTP_TRACE_CONTEXT} header,
+ * otherwise as the legacy one-header-per-field format.
+ * Receivers accept both formats, so the compact header can be turned on once every receiving agent is upgraded.
+ */
+public class TraceHeaderWriter<REQ> {
+
+    public static final String COMPACT_HEADER_ENABLE = "profiler.tracecontext.header.compact";
+
+    private final TraceContext traceContext;
+    private final RequestHeaderSetter<REQ> requestHeaderSetter;
+    private final boolean compactHeader;
+
+    public TraceHeaderWriter(TraceContext traceContext, RequestHeaderSetter<REQ> requestHeaderSetter) {
+        if (traceContext == null) {
+            throw new NullPointerException("traceContext must not be null");
+        }
+        if (requestHeaderSetter == null) {
+            throw new NullPointerException("requestHeaderSetter must not be null");
+        }
+        this.traceContext = traceContext;
+        this.requestHeaderSetter = requestHeaderSetter;
+        this.compactHeader = isCompactHeader(traceContext.getProfilerConfig());
+    }
+
+    private static boolean isCompactHeader(ProfilerConfig profilerConfig) {
+        if (profilerConfig == null) {
+            return false;
+        }
+        return profilerConfig.readBoolean(COMPACT_HEADER_ENABLE, false);
+    }
+
+    public boolean isCompactHeader() {
+        return compactHeader;
+    }
+
+    public void writeSamplingFalse(REQ request) {
+        requestHeaderSetter.setHeader(request, Header.HTTP_SAMPLED.toString(), SamplingFlagUtils.SAMPLING_RATE_FALSE);
+    }
+
+    /**
+     * @param host destination host. not written if null
+     */
+    public void write(REQ request, TraceId nextId, String host) {
+        if (nextId == null) {
+            throw new NullPointerException("nextId must not be null");
+        }
+        if (compactHeader) {
+            final String value = CompactTraceHeaderCodec.encode(nextId, traceContext.getApplicationName(), traceContext.getServerTypeCode(), host);
+            requestHeaderSetter.setHeader(request, Header.HTTP_TRACE_CONTEXT.toString(), value);
+            return;
+        }
+        requestHeaderSetter.setHeader(request, Header.HTTP_TRACE_ID.toString(), nextId.getTransactionId());
+        requestHeaderSetter.setHeader(request, Header.HTTP_SPAN_ID.toString(), String.valueOf(nextId.getSpanId()));
+        requestHeaderSetter.setHeader(request, Header.HTTP_PARENT_SPAN_ID.toString(), String.valueOf(nextId.getParentSpanId()));
+        requestHeaderSetter.setHeader(request, Header.HTTP_FLAGS.toString(), String.valueOf(nextId.getFlags()));
+        requestHeaderSetter.setHeader(request, Header.HTTP_PARENT_APPLICATION_NAME.toString(), traceContext.getApplicationName());
+        requestHeaderSetter.setHeader(request, Header.HTTP_PARENT_APPLICATION_TYPE.toString(), Short.toString(traceContext.getServerTypeCode()));
+        if (host != null) {
+            requestHeaderSetter.setHeader(request, Header.HTTP_HOST.toString(), host);
+        }
+    }
+}
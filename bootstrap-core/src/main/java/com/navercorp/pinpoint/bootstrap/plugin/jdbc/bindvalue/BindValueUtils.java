@@ -36,6 +36,9 @@ public final class BindValueUtils {
         if (bindValueMap.isEmpty()) {
             return "";
         }
+        if (bindValueMap instanceof DeferredBindValueMap) {
+            return bindValueToString((DeferredBindValueMap) bindValueMap, limit);
+        }
         final int maxParameterIndex = getMaxParameterIndex(bindValueMap);
         if (maxParameterIndex <= 0) {
             return "";
@@ -55,6 +58,32 @@ public final class BindValueUtils {
         return bindValueToString(temp, limit);
     }
 
+    /**
+     * converts bind values only as far as the limit allows.
+     */
+    public static String bindValueToString(final DeferredBindValueMap bindValueMap, int limit) {
+        if (bindValueMap == null) {
+            return "";
+        }
+        final int length = bindValueMap.getMaxParameterIndex();
+        if (length <= 0) {
+            return "";
+        }
+        final StringBuilder sb = new StringBuilder(32);
+        for (int parameterIndex = 1; parameterIndex <= length; parameterIndex++) {
+            if (sb.length() >= limit) {
+                appendLength(sb, length);
+                break;
+            }
+            final String bindValue = StringUtils.defaultString(bindValueMap.getValue(parameterIndex), "");
+            StringUtils.appendDrop(sb, bindValue, limit);
+            if (parameterIndex < length) {
+                sb.append(", ");
+            }
+        }
+        return sb.toString();
+    }
+
     private static int getMaxParameterIndex(Map<Integer, String> bindValueMap) {
         int maxIndex = 0;
         for (Integer idx : bindValueMap.keySet()) {
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the arguments of PreparedStatement.setXxx() as they are, in a slot array indexed by parameterIndex.
+ * Converter dispatch and string conversion are deferred until the bind values are actually recorded.
+ * A statement reuses the same instance by calling {@link #clear()} after each execution.
+ * <p>
+ * Not thread safe. A statement is not supposed to be used by multiple threads at once.
+ */
+public class DeferredBindValueMap extends AbstractMap<Integer, String> {
+
+    // JDBC drivers do not accept more parameters than this.
+    public static final int MAX_PARAMETER_INDEX = 65535;
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    // null : converted value (String) or empty slot
+    private String[] methodNames;
+    // Object[] : raw arguments of setXxx(), String : converted value
+    private Object[] values;
+
+    private int maxParameterIndex;
+    private int size;
+
+    public DeferredBindValueMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DeferredBindValueMap(int initialCapacity) {
+        if (initialCapacity < 1) {
+            initialCapacity = 1;
+        }
+        this.methodNames = new String[initialCapacity];
+        this.values = new Object[initialCapacity];
+    }
+
+    /**
+     * @param parameterIndex first parameterIndex is 1
+     * @param methodName     setXxx method name, resolved to a {@link Converter} when the value is converted
+     * @param args           arguments of setXxx. the array must not be modified afterwards
+     */
+    public void putRaw(int parameterIndex, String methodName, Object[] args) {
+        if (methodName == null) {
+            throw new NullPointerException("methodName must not be null");
+        }
+        if (!ensureSlot(parameterIndex)) {
+            return;
+        }
+        set(parameterIndex, methodName, args);
+    }
+
+    @Override
+    public String put(Integer key, String value) {
+        if (key == null) {
+            throw new NullPointerException("key must not be null");
+        }
+        final int parameterIndex = key;
+        if (!ensureSlot(parameterIndex)) {
+            return null;
+        }
+        final String before = getValue(parameterIndex);
+        set(parameterIndex, null, value);
+        return before;
+    }
+
+    private void set(int parameterIndex, String methodName, Object value) {
+        final int slot = parameterIndex - 1;
+        if (values[slot] == null) {
+            if (value != null) {
+                size++;
+            }
+        } else if (value == null) {
+            size--;
+        }
+        methodNames[slot] = methodName;
+        values[slot] = value;
+        if (parameterIndex > maxParameterIndex) {
+            maxParameterIndex = parameterIndex;
+        }
+    }
+
+    private boolean ensureSlot(int parameterIndex) {
+        if (parameterIndex < 1 || parameterIndex > MAX_PARAMETER_INDEX) {
+            // invalid index. PreparedStatement first parameterIndex is 1
+            return false;
+        }
+        if (parameterIndex > values.length) {
+            final int newCapacity = Math.min(Math.max(values.length << 1, parameterIndex), MAX_PARAMETER_INDEX);
+            this.methodNames = Arrays.copyOf(methodNames, newCapacity);
+            this.values = Arrays.copyOf(values, newCapacity);
+        }
+        return true;
+    }
+
+    public int getMaxParameterIndex() {
+        return maxParameterIndex;
+    }
+
+    /**
+     * @param parameterIndex first parameterIndex is 1
+     * @return converted bind value. null if the slot is empty
+     */
+    public String getValue(int parameterIndex) {
+        if (parameterIndex < 1 || parameterIndex > maxParameterIndex) {
+            return null;
+        }
+        final int slot = parameterIndex - 1;
+        final Object value = values[slot];
+        if (value == null) {
+            return null;
+        }
+        final String methodName = methodNames[slot];
+        if (methodName == null) {
+            return (String) value;
+        }
+        return BindValueConverter.convert(methodName, (Object[]) value);
+    }
+
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        return getValue((Integer) key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof Integer)) {
+            return false;
+        }
+        final int parameterIndex = (Integer) key;
+        if (parameterIndex < 1 || parameterIndex > maxParameterIndex) {
+            return false;
+        }
+        return values[parameterIndex - 1] != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        // release references to the bound objects, keep the slot arrays
+        Arrays.fill(methodNames, 0, maxParameterIndex, null);
+        Arrays.fill(values, 0, maxParameterIndex, null);
+        this.maxParameterIndex = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Snapshot view with converted values. Prefer {@link #getValue(int)} to avoid converting every value.
+     */
+    @Override
+    public Set<Map.Entry<Integer, String>> entrySet() {
+        if (size == 0) {
+            return Collections.emptySet();
+        }
+        final Set<Map.Entry<Integer, String>> entrySet = new LinkedHashSet<Map.Entry<Integer, String>>(size);
+        for (int parameterIndex = 1; parameterIndex <= maxParameterIndex; parameterIndex++) {
+            if (values[parameterIndex - 1] != null) {
+                entrySet.add(new SimpleImmutableEntry<Integer, String>(parameterIndex, getValue(parameterIndex)));
+            }
+        }
+        return Collections.unmodifiableSet(entrySet);
+    }
+
+}
@@ -16,7 +16,6 @@
 
 package com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import com.navercorp.pinpoint.bootstrap.context.Trace;
@@ -27,6 +26,7 @@ import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.BindValueAccessor;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue.BindValueConverter;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue.DeferredBindValueMap;
 import com.navercorp.pinpoint.bootstrap.util.NumberUtils;
 
 /**
@@ -73,11 +73,16 @@ public class PreparedStatementBindVariableInterceptor implements StaticAroundInt
 
         Map<Integer, String> bindList = ((BindValueAccessor) target)._$PINPOINT$_getBindValue();
         if (bindList == null) {
-            bindList = new HashMap<Integer, String>();
+            bindList = new DeferredBindValueMap();
             ((BindValueAccessor) target)._$PINPOINT$_setBindValue(bindList);
         }
 
-        final String value = BindValueConverter.convert(methodName, args);
-        bindList.put(index, value);
+        if (bindList instanceof DeferredBindValueMap) {
+            // converted lazily when the span event is recorded
+            ((DeferredBindValueMap) bindList).putRaw(index, methodName, args);
+        } else {
+            final String value = BindValueConverter.convert(methodName, args);
+            bindList.put(index, value);
+        }
     }
 }
\ No newline at end of file
@@ -16,7 +16,6 @@
 
 package com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import com.navercorp.pinpoint.bootstrap.context.DatabaseInfo;
@@ -35,6 +34,7 @@ import com.navercorp.pinpoint.bootstrap.plugin.jdbc.DatabaseInfoAccessor;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.ParsingResultAccessor;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.UnKnownDatabaseInfo;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue.BindValueUtils;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue.DeferredBindValueMap;
 
 /**
  * @author emeroad
@@ -123,7 +123,13 @@ public class PreparedStatementExecuteQueryInterceptor implements AroundIntercept
 
     private void clean(Object target) {
         if (target instanceof BindValueAccessor) {
-            ((BindValueAccessor)target)._$PINPOINT$_setBindValue(new HashMap<Integer, String>());
+            final Map<Integer, String> bindValue = ((BindValueAccessor)target)._$PINPOINT$_getBindValue();
+            if (bindValue instanceof DeferredBindValueMap) {
+                // reuse slots of the statement
+                bindValue.clear();
+            } else {
+                ((BindValueAccessor)target)._$PINPOINT$_setBindValue(new DeferredBindValueMap());
+            }
         }
     }
 
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.http;
+
+import com.navercorp.pinpoint.bootstrap.context.TraceId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CompactTraceHeaderCodecTest {
+
+    @Test
+    public void encodeDecode() throws Exception {
+        TraceId traceId = newTraceId("agentId", 1462348000000L, 12345L, Long.MIN_VALUE, -1L, (short) 1);
+
+        String value = CompactTraceHeaderCodec.encode(traceId, "parentApp", (short) 1010, "localhost:8080");
+        Assert.assertTrue(value.matches("[A-Za-z0-9_-]+"));
+
+        CompactTraceContext decoded = CompactTraceHeaderCodec.decode(value);
+        Assert.assertEquals("agentId", decoded.getAgentId());
+        Assert.assertEquals(1462348000000L, decoded.getAgentStartTime());
+        Assert.assertEquals(12345L, decoded.getTransactionSequence());
+        Assert.assertEquals(Long.MIN_VALUE, decoded.getSpanId());
+        Assert.assertEquals(-1L, decoded.getParentSpanId());
+        Assert.assertEquals((short) 1, decoded.getFlags());
+        Assert.assertEquals("parentApp", decoded.getParentApplicationName());
+        Assert.assertEquals((short) 1010, decoded.getParentApplicationType());
+        Assert.assertEquals("localhost:8080", decoded.getHost());
+    }
+
+    @Test
+    public void encodeDecode_nullHost() throws Exception {
+        TraceId traceId = newTraceId("agentId", 1L, 0L, 10L, 9L, (short) 0);
+
+        CompactTraceContext decoded = CompactTraceHeaderCodec.decode(CompactTraceHeaderCodec.encode(traceId, "parentApp", (short) 1000, null));
+        Assert.assertEquals("agentId", decoded.getAgentId());
+        Assert.assertNull(decoded.getHost());
+    }
+
+    @Test
+    public void decode_invalid() throws Exception {
+        Assert.assertNull(CompactTraceHeaderCodec.decode(null));
+        Assert.assertNull(CompactTraceHeaderCodec.decode(""));
+        Assert.assertNull(CompactTraceHeaderCodec.decode("agentId^1^2"));
+        Assert.assertNull(CompactTraceHeaderCodec.decode("AAAA"));
+
+        TraceId traceId = newTraceId("agentId", 1L, 2L, 10L, 9L, (short) 0);
+        String value = CompactTraceHeaderCodec.encode(traceId, "parentApp", (short) 1000, "localhost");
+        // truncated
+        Assert.assertNull(CompactTraceHeaderCodec.decode(value.substring(0, value.length() / 2)));
+    }
+
+    @Test
+    public void base64() throws Exception {
+        Random random = new Random();
+        for (int length = 0; length < 64; length++) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            String encoded = CompactTraceHeaderCodec.encodeBase64(bytes, bytes.length);
+            Assert.assertEquals((length * 4 + 2) / 3, encoded.length());
+            Assert.assertArrayEquals(bytes, CompactTraceHeaderCodec.decodeBase64(encoded));
+        }
+        // RFC 4648 test vectors without padding
+        Assert.assertEquals("Zm9vYmFy", CompactTraceHeaderCodec.encodeBase64("foobar".getBytes("UTF-8"), 6));
+        Assert.assertEquals("Zm9vYg", CompactTraceHeaderCodec.encodeBase64("foobar".getBytes("UTF-8"), 4));
+        Assert.assertTrue(Arrays.equals(new byte[] {(byte) 0xfb, (byte) 0xff}, CompactTraceHeaderCodec.decodeBase64("-_8")));
+    }
+
+    private TraceId newTraceId(String agentId, long agentStartTime, long transactionSequence, long spanId, long parentSpanId, short flags) {
+        TraceId traceId = mock(TraceId.class);
+        when(traceId.getAgentId()).thenReturn(agentId);
+        when(traceId.getAgentStartTime()).thenReturn(agentStartTime);
+        when(traceId.getTransactionSequence()).thenReturn(transactionSequence);
+        when(traceId.getSpanId()).thenReturn(spanId);
+        when(traceId.getParentSpanId()).thenReturn(parentSpanId);
+        when(traceId.getFlags()).thenReturn(flags);
+        return traceId;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.http;
+
+import com.navercorp.pinpoint.bootstrap.context.Header;
+import com.navercorp.pinpoint.bootstrap.context.SpanId;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.context.TraceId;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyShort;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TraceHeaderTest {
+
+    @Test
+    public void testFindHeader() throws Exception {
+        for (Header header : Header.values()) {
+            Assert.assertSame(header, TraceHeader.findHeader(header.toString()));
+            Assert.assertSame(header, TraceHeader.findHeader(header.toString().toLowerCase()));
+            Assert.assertSame(header, TraceHeader.findHeader(header.toString().toUpperCase()));
+        }
+        Assert.assertNull(TraceHeader.findHeader(null));
+        Assert.assertNull(TraceHeader.findHeader("Pinpoint-"));
+        Assert.assertNull(TraceHeader.findHeader("Pinpoint-Unknown"));
+        Assert.assertNull(TraceHeader.findHeader("Content-Type"));
+    }
+
+    @Test
+    public void testPut() throws Exception {
+        TraceHeader traceHeader = new TraceHeader();
+        Assert.assertTrue(traceHeader.put("pinpoint-traceid", "agent^1^2"));
+        Assert.assertTrue(traceHeader.put("Pinpoint-TraceID", "agent^1^3"));
+        Assert.assertTrue(traceHeader.put("Pinpoint-SpanID", "10"));
+        Assert.assertFalse(traceHeader.put("Host", "localhost"));
+
+        // first value wins
+        Assert.assertEquals("agent^1^2", traceHeader.getTransactionId());
+        Assert.assertEquals(10L, traceHeader.getSpanId());
+        Assert.assertEquals(SpanId.NULL, traceHeader.getParentSpanId());
+        Assert.assertEquals((short) 0, traceHeader.getFlags());
+        Assert.assertEquals(ServiceType.UNDEFINED.getCode(), traceHeader.getParentApplicationType());
+        Assert.assertTrue(traceHeader.isSampled());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEmpty_readOnly() throws Exception {
+        TraceHeader.EMPTY.put("Pinpoint-TraceID", "agent^1^2");
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        final Map<String, String> headers = new HashMap<String, String>();
+        headers.put(Header.HTTP_TRACE_ID.toString(), "agent^1^2");
+        headers.put(Header.HTTP_SPAN_ID.toString(), "10");
+        headers.put(Header.HTTP_PARENT_SPAN_ID.toString(), "9");
+        headers.put(Header.HTTP_FLAGS.toString(), "1");
+        headers.put(Header.HTTP_PARENT_APPLICATION_NAME.toString(), "parent");
+        headers.put(Header.HTTP_PARENT_APPLICATION_TYPE.toString(), "1010");
+        headers.put(Header.HTTP_HOST.toString(), "localhost:8080");
+        final List<String> lookups = new ArrayList<String>();
+
+        TraceHeaderReader<Map<String, String>> reader = newReader(lookups);
+        TraceHeader traceHeader = reader.read(headers);
+
+        Assert.assertEquals(Header.values().length, lookups.size());
+        Assert.assertTrue(traceHeader.isSampled());
+        Assert.assertEquals("agent^1^2", traceHeader.getTransactionId());
+        Assert.assertEquals(10L, traceHeader.getSpanId());
+        Assert.assertEquals(9L, traceHeader.getParentSpanId());
+        Assert.assertEquals((short) 1, traceHeader.getFlags());
+        Assert.assertEquals("parent", traceHeader.getParentApplicationName());
+        Assert.assertEquals((short) 1010, traceHeader.getParentApplicationType());
+        Assert.assertEquals("localhost:8080", traceHeader.getHost());
+    }
+
+    @Test
+    public void testRead_skipDependentHeaders() throws Exception {
+        final List<String> lookups = new ArrayList<String>();
+        TraceHeaderReader<Map<String, String>> reader = newReader(lookups);
+
+        TraceHeader traceHeader = reader.read(new HashMap<String, String>());
+        Assert.assertNull(traceHeader.getTransactionId());
+        Assert.assertEquals(3, lookups.size());
+
+        lookups.clear();
+        Map<String, String> unsampled = new HashMap<String, String>();
+        unsampled.put(Header.HTTP_SAMPLED.toString(), "s0");
+        unsampled.put(Header.HTTP_TRACE_ID.toString(), "agent^1^2");
+        traceHeader = reader.read(unsampled);
+        Assert.assertFalse(traceHeader.isSampled());
+        Assert.assertEquals(1, lookups.size());
+    }
+
+    @Test
+    public void testRead_compact() throws Exception {
+        TraceId traceId = mock(TraceId.class);
+        when(traceId.getAgentId()).thenReturn("agent");
+        when(traceId.getAgentStartTime()).thenReturn(1L);
+        when(traceId.getTransactionSequence()).thenReturn(2L);
+        when(traceId.getSpanId()).thenReturn(10L);
+        when(traceId.getParentSpanId()).thenReturn(9L);
+        when(traceId.getFlags()).thenReturn((short) 1);
+
+        final Map<String, String> headers = new HashMap<String, String>();
+        headers.put(Header.HTTP_TRACE_CONTEXT.toString(), CompactTraceHeaderCodec.encode(traceId, "parent", (short) 1010, "localhost:8080"));
+        // the compact header wins over the legacy headers
+        headers.put(Header.HTTP_TRACE_ID.toString(), "legacy^1^2");
+        final List<String> lookups = new ArrayList<String>();
+
+        TraceHeader traceHeader = newReader(lookups).read(headers);
+
+        Assert.assertEquals(2, lookups.size());
+        Assert.assertTrue(traceHeader.isSampled());
+        Assert.assertEquals("agent^1^2", traceHeader.getTransactionId());
+        Assert.assertEquals(10L, traceHeader.getSpanId());
+        Assert.assertEquals(9L, traceHeader.getParentSpanId());
+        Assert.assertEquals((short) 1, traceHeader.getFlags());
+        Assert.assertEquals("parent", traceHeader.getParentApplicationName());
+        Assert.assertEquals((short) 1010, traceHeader.getParentApplicationType());
+        Assert.assertEquals("localhost:8080", traceHeader.getHost());
+    }
+
+    @Test
+    public void testCreateTraceId() throws Exception {
+        TraceId traceId = mock(TraceId.class);
+        when(traceId.getAgentId()).thenReturn("agent");
+        when(traceId.getAgentStartTime()).thenReturn(1L);
+        when(traceId.getTransactionSequence()).thenReturn(2L);
+        when(traceId.getSpanId()).thenReturn(10L);
+        when(traceId.getParentSpanId()).thenReturn(9L);
+        when(traceId.getFlags()).thenReturn((short) 1);
+        TraceContext traceContext = mock(TraceContext.class);
+
+        // compact: the decoded fields are passed as is
+        TraceHeader compact = new TraceHeader();
+        compact.put("Pinpoint-Trace", CompactTraceHeaderCodec.encode(traceId, "parent", (short) 1010, "localhost:8080"));
+        compact.createTraceId(traceContext);
+        verify(traceContext).createTraceId("agent", 1L, 2L, 9L, 10L, (short) 1);
+        verify(traceContext, never()).createTraceId(anyString(), anyLong(), anyLong(), anyShort());
+
+        TraceHeader legacy = new TraceHeader();
+        legacy.put("Pinpoint-TraceID", "agent^1^2");
+        legacy.put("Pinpoint-SpanID", "10");
+        legacy.createTraceId(traceContext);
+        verify(traceContext).createTraceId("agent^1^2", SpanId.NULL, 10L, (short) 0);
+
+        Assert.assertNull(new TraceHeader().createTraceId(traceContext));
+    }
+
+    @Test
+    public void testPut_invalidCompactFallback() throws Exception {
+        TraceHeader traceHeader = new TraceHeader();
+        traceHeader.put("Pinpoint-Trace", "invalid");
+        traceHeader.put("Pinpoint-TraceID", "agent^1^2");
+        traceHeader.put("Pinpoint-SpanID", "10");
+
+        Assert.assertNull(traceHeader.getCompactTraceContext());
+        Assert.assertEquals("agent^1^2", traceHeader.getTransactionId());
+        Assert.assertEquals(10L, traceHeader.getSpanId());
+    }
+
+    private TraceHeaderReader<Map<String, String>> newReader(final List<String> lookups) {
+        return new TraceHeaderReader<Map<String, String>>(new RequestHeaderAdaptor<Map<String, String>>() {
+            @Override
+            public String getHeader(Map<String, String> request, String name) {
+                lookups.add(name);
+                return request.get(name);
+            }
+        });
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class DeferredBindValueMapTest {
+
+    @Test
+    public void testBindValueToString() throws Exception {
+        DeferredBindValueMap bindValue = new DeferredBindValueMap(1);
+        bindValue.putRaw(1, "setInt", new Object[]{1, 10});
+        bindValue.putRaw(3, "setString", new Object[]{3, "abc"});
+        bindValue.putRaw(2, "setNull", new Object[]{2, java.sql.Types.VARCHAR});
+
+        Map<Integer, String> expected = new HashMap<Integer, String>();
+        expected.put(1, BindValueConverter.convert("setInt", new Object[]{1, 10}));
+        expected.put(3, BindValueConverter.convert("setString", new Object[]{3, "abc"}));
+        expected.put(2, BindValueConverter.convert("setNull", new Object[]{2, java.sql.Types.VARCHAR}));
+
+        Assert.assertEquals(3, bindValue.size());
+        Assert.assertEquals(expected, bindValue);
+        Assert.assertEquals(BindValueUtils.bindValueToString(expected, 1024), BindValueUtils.bindValueToString(bindValue, 1024));
+        Assert.assertEquals(BindValueUtils.bindValueToString(expected, 3), BindValueUtils.bindValueToString(bindValue, 3));
+    }
+
+    @Test
+    public void testBindValueToString_emptySlot() throws Exception {
+        DeferredBindValueMap bindValue = new DeferredBindValueMap();
+        bindValue.putRaw(3, "setLong", new Object[]{3, 5L});
+
+        Assert.assertEquals(", , 5", BindValueUtils.bindValueToString(bindValue, 1024));
+        Assert.assertNull(bindValue.get(1));
+        Assert.assertFalse(bindValue.containsKey(2));
+        Assert.assertEquals("5", bindValue.get(3));
+    }
+
+    @Test
+    public void testPut() throws Exception {
+        DeferredBindValueMap bindValue = new DeferredBindValueMap();
+        bindValue.put(1, "a");
+        bindValue.putRaw(1, "setString", new Object[]{1, "b"});
+        bindValue.put(2, "c");
+
+        Assert.assertEquals(2, bindValue.size());
+        Assert.assertEquals("b, c", BindValueUtils.bindValueToString(bindValue, 1024));
+    }
+
+    @Test
+    public void testInvalidIndex() throws Exception {
+        DeferredBindValueMap bindValue = new DeferredBindValueMap();
+        bindValue.putRaw(0, "setInt", new Object[]{0, 1});
+        bindValue.putRaw(-1, "setInt", new Object[]{-1, 1});
+        bindValue.putRaw(DeferredBindValueMap.MAX_PARAMETER_INDEX + 1, "setInt", new Object[]{0, 1});
+
+        Assert.assertTrue(bindValue.isEmpty());
+        Assert.assertEquals("", BindValueUtils.bindValueToString(bindValue, 1024));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        DeferredBindValueMap bindValue = new DeferredBindValueMap();
+        bindValue.putRaw(1, "setInt", new Object[]{1, 1});
+        bindValue.putRaw(2, "setInt", new Object[]{2, 2});
+        bindValue.clear();
+
+        Assert.assertTrue(bindValue.isEmpty());
+        Assert.assertEquals(0, bindValue.getMaxParameterIndex());
+        Assert.assertNull(bindValue.get(1));
+
+        bindValue.putRaw(1, "setInt", new Object[]{1, 3});
+        Assert.assertEquals("3", BindValueUtils.bindValueToString(bindValue, 1024));
+    }
+
+    @Test
+    public void testDeferredConversion() throws Exception {
+        final java.sql.Date value = new java.sql.Date(0);
+        DeferredBindValueMap bindValue = new DeferredBindValueMap();
+        bindValue.putRaw(1, "setDate", new Object[]{1, value});
+        value.setTime(System.currentTimeMillis());
+
+        // converted when recorded
+        Assert.assertEquals(value.toString(), BindValueUtils.bindValueToString(bindValue, 1024));
+    }
+
+}
@@ -62,6 +62,7 @@ public class CollectorConfiguration implements InitializingBean {
     private String udpStatListenIp = DEFAULT_LISTEN_IP;
     private int udpStatListenPort;
 
+    private String udpStatReceiverType;
     private String udpStatWorkerType;
     private int udpStatWorkerThread;
     private int udpStatWorkerQueueSize;
@@ -70,6 +71,7 @@ public class CollectorConfiguration implements InitializingBean {
     private String udpSpanListenIp = DEFAULT_LISTEN_IP;
     private int udpSpanListenPort;
 
+    private String udpSpanReceiverType;
     private String udpSpanWorkerType;
     private int udpSpanWorkerThread;
     private int udpSpanWorkerQueueSize;
@@ -77,6 +79,10 @@ public class CollectorConfiguration implements InitializingBean {
     
     private int agentEventWorkerThreadSize;
     private int agentEventWorkerQueueSize;
+    private int agentPingWriteInterval;
+
+    private boolean agentStatBucketEnable;
+    private boolean agentStatRollupEnable;
     
     private List<String> l4IpList = Collections.emptyList();
 
@@ -134,6 +140,14 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpStatListenPort = udpStatListenPort;
     }
 
+    public String getUdpStatReceiverType() {
+        return udpStatReceiverType;
+    }
+
+    public void setUdpStatReceiverType(String udpStatReceiverType) {
+        this.udpStatReceiverType = udpStatReceiverType;
+    }
+
     public String getUdpStatWorkerType() {
         return udpStatWorkerType;
     }
@@ -182,6 +196,14 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpSpanListenPort = udpSpanListenPort;
     }
 
+    public String getUdpSpanReceiverType() {
+        return udpSpanReceiverType;
+    }
+
+    public void setUdpSpanReceiverType(String udpSpanReceiverType) {
+        this.udpSpanReceiverType = udpSpanReceiverType;
+    }
+
     public String getUdpSpanWorkerType() {
         return udpSpanWorkerType;
     }
@@ -230,6 +252,30 @@ public class CollectorConfiguration implements InitializingBean {
         this.agentEventWorkerQueueSize = agentEventWorkerQueueSize;
     }
 
+    public int getAgentPingWriteInterval() {
+        return agentPingWriteInterval;
+    }
+
+    public void setAgentPingWriteInterval(int agentPingWriteInterval) {
+        this.agentPingWriteInterval = agentPingWriteInterval;
+    }
+
+    public boolean isAgentStatBucketEnable() {
+        return agentStatBucketEnable;
+    }
+
+    public void setAgentStatBucketEnable(boolean agentStatBucketEnable) {
+        this.agentStatBucketEnable = agentStatBucketEnable;
+    }
+
+    public boolean isAgentStatRollupEnable() {
+        return agentStatRollupEnable;
+    }
+
+    public void setAgentStatRollupEnable(boolean agentStatRollupEnable) {
+        this.agentStatRollupEnable = agentStatRollupEnable;
+    }
+
     public List<String> getL4IpList() {
         return l4IpList;
     }
@@ -315,6 +361,7 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpStatListenIp = readString(properties, "collector.udpStatListenIp", DEFAULT_LISTEN_IP);
         this.udpStatListenPort = readInt(properties, "collector.udpStatListenPort", 9995);
 
+        this.udpStatReceiverType = readString(properties, "collector.udpStatReceiverType", "OIO");
         this.udpStatWorkerType = readString(properties, "collector.udpStatWorkerType", "DEFAULT_EXECUTOR");
         this.udpStatWorkerThread = readInt(properties, "collector.udpStatWorkerThread", 128);
         this.udpStatWorkerQueueSize = readInt(properties, "collector.udpStatWorkerQueueSize", 1024);
@@ -323,6 +370,7 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpSpanListenIp = readString(properties, "collector.udpSpanListenIp", DEFAULT_LISTEN_IP);
         this.udpSpanListenPort = readInt(properties, "collector.udpSpanListenPort", udpSpanListenPort);
 
+        this.udpSpanReceiverType = readString(properties, "collector.udpSpanReceiverType", "OIO");
         this.udpSpanWorkerType = readString(properties, "collector.udpSpanWorkerType", "DEFAULT_EXECUTOR");
         this.udpSpanWorkerThread = readInt(properties, "collector.udpSpanWorkerThread", 256);
         this.udpSpanWorkerQueueSize = readInt(properties, "collector.udpSpanWorkerQueueSize", 1024 * 5);
@@ -330,6 +378,10 @@ public class CollectorConfiguration implements InitializingBean {
         
         this.agentEventWorkerThreadSize = readInt(properties, "collector.agentEventWorker.threadSize", 32);
         this.agentEventWorkerQueueSize = readInt(properties, "collector.agentEventWorker.queueSize", 1024 * 5);
+        this.agentPingWriteInterval = readInt(properties, "collector.agentPing.writeInterval", 300000);
+
+        this.agentStatBucketEnable = readBoolean(properties, "collector.agentStat.bucket.enable");
+        this.agentStatRollupEnable = readBoolean(properties, "collector.agentStat.rollup.enable");
         
         String[] l4Ips = StringUtils.split(readString(properties, "collector.l4.ip", null), ",");
         if (l4Ips == null) {
@@ -391,18 +443,23 @@ public class CollectorConfiguration implements InitializingBean {
         sb.append(", tcpWorkerQueueSize=").append(tcpWorkerQueueSize);
         sb.append(", udpStatListenIp='").append(udpStatListenIp).append('\'');
         sb.append(", udpStatListenPort=").append(udpStatListenPort);
+        sb.append(", udpStatReceiverType=").append(udpStatReceiverType);
         sb.append(", udpStatWorkerType=").append(udpStatWorkerType);
         sb.append(", udpStatWorkerThread=").append(udpStatWorkerThread);
         sb.append(", udpStatWorkerQueueSize=").append(udpStatWorkerQueueSize);
         sb.append(", udpStatSocketReceiveBufferSize=").append(udpStatSocketReceiveBufferSize);
         sb.append(", udpSpanListenIp='").append(udpSpanListenIp).append('\'');
         sb.append(", udpSpanListenPort=").append(udpSpanListenPort);
+        sb.append(", udpSpanReceiverType=").append(udpSpanReceiverType);
         sb.append(", udpSpanWorkerType=").append(udpSpanWorkerType);
         sb.append(", udpSpanWorkerThread=").append(udpSpanWorkerThread);
         sb.append(", udpSpanWorkerQueueSize=").append(udpSpanWorkerQueueSize);
         sb.append(", udpSpanSocketReceiveBufferSize=").append(udpSpanSocketReceiveBufferSize);
         sb.append(", agentEventWorkerThreadSize=").append(agentEventWorkerThreadSize);
         sb.append(", agentEventWorkerQueueSize=").append(agentEventWorkerQueueSize);
+        sb.append(", agentPingWriteInterval=").append(agentPingWriteInterval);
+        sb.append(", agentStatBucketEnable=").append(agentStatBucketEnable);
+        sb.append(", agentStatRollupEnable=").append(agentStatRollupEnable);
         sb.append(", l4IpList=").append(l4IpList);
         sb.append(", clusterEnable=").append(clusterEnable);
         sb.append(", clusterAddress=").append(clusterAddress);
@@ -18,10 +18,14 @@ package com.navercorp.pinpoint.collector.dao;
 
 import com.navercorp.pinpoint.thrift.dto.TAgentStat;
 
+import java.util.List;
+
 /**
  * @author emeroad
  * @author hyungil.jeong
  */
 public interface AgentStatDao {
     void insert(TAgentStat agentStat);
+
+    void insert(List<TAgentStat> agentStats);
 }
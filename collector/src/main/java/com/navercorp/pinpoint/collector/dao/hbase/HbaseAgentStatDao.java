@@ -18,8 +18,10 @@ package com.navercorp.pinpoint.collector.dao.hbase;
 
 import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
 
+import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
 import com.navercorp.pinpoint.collector.mapper.thrift.ActiveTraceHistogramBoMapper;
 import com.navercorp.pinpoint.common.server.bo.ActiveTraceHistogramBo;
+import com.navercorp.pinpoint.common.server.bo.AgentStatBucketCodec;
 import com.navercorp.pinpoint.thrift.dto.TActiveTrace;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.util.Bytes;
@@ -39,6 +41,9 @@ import com.navercorp.pinpoint.thrift.dto.TJvmGcType;
 import com.navercorp.pinpoint.thrift.dto.TTransaction;
 import com.sematext.hbase.wd.AbstractRowKeyDistributor;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author harebox
  * @author emeroad
@@ -57,18 +62,53 @@ public class HbaseAgentStatDao implements AgentStatDao {
     @Autowired
     private ActiveTraceHistogramBoMapper activeTraceHistogramBoMapper;
 
+    @Autowired
+    private CollectorConfiguration collectorConfiguration;
+
+    private final AgentStatBucketCodec agentStatBucketCodec = new AgentStatBucketCodec();
+
     public void insert(final TAgentStat agentStat) {
         if (agentStat == null) {
             throw new NullPointerException("agentStat must not be null");
         }
-        Put put = createPut(agentStat);
+        insert(Collections.singletonList(agentStat));
+    }
 
+    @Override
+    public void insert(final List<TAgentStat> agentStats) {
+        if (agentStats == null) {
+            throw new NullPointerException("agentStats must not be null");
+        }
+        if (collectorConfiguration.isAgentStatBucketEnable()) {
+            for (List<TAgentStat> bucket : agentStatBucketCodec.split(agentStats)) {
+                put(createBucketPut(bucket));
+            }
+        } else {
+            for (TAgentStat agentStat : agentStats) {
+                put(createPut(agentStat));
+            }
+        }
+    }
+
+    private void put(Put put) {
         boolean success = hbaseTemplate.asyncPut(AGENT_STAT, put);
         if (!success) {
             hbaseTemplate.put(AGENT_STAT, put);
         }
     }
 
+    /**
+     * all samples of the bucket go into a single cell of the row keyed by the first sample's timestamp
+     */
+    private Put createBucketPut(List<TAgentStat> bucket) {
+        final TAgentStat first = bucket.get(0);
+        byte[] key = getDistributedRowKey(first, first.getTimestamp());
+
+        Put put = new Put(key);
+        put.addColumn(AGENT_STAT_CF_STATISTICS, AGENT_STAT_COL_BUCKET, agentStatBucketCodec.encode(bucket));
+        return put;
+    }
+
     private Put createPut(TAgentStat agentStat) {
         long timestamp = agentStat.getTimestamp();
         byte[] key = getDistributedRowKey(agentStat, timestamp);
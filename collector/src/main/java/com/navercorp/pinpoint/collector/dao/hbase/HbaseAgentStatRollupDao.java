@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase;
+
+import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
+
+import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
+import com.navercorp.pinpoint.collector.dao.AgentStatRollupDao;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.server.bo.AgentStatRollupBo;
+import com.navercorp.pinpoint.common.server.bo.AgentStatRollupType;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the open rollup windows of every agent in memory and writes a window again on every flush that follows new samples.
+ * Samples arriving later than {@link #FLUSH_DELAY} after their window closed are left out of the rollup.
+ * <p>
+ * A window is written to its own column, named after this collector and the window, so a row holds one part per collector
+ * and the web merges the parts on read. The stats of an agent may therefore be spread over several collectors.
+ * A window opened again after it was evicted, or by a restarted collector, gets a new column
+ * instead of overwriting the part written before.
+ * The last flush on shutdown writes the open windows, so a restart only loses the samples of a collector that died.
+ * The web reads rollups only with web.agentStat.rollup.enable.
+ */
+@Repository
+public class HbaseAgentStatRollupDao implements AgentStatRollupDao {
+
+    static final long FLUSH_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private HbaseOperations2 hbaseTemplate;
+
+    @Autowired
+    @Qualifier("agentStatRowKeyDistributor")
+    private AbstractRowKeyDistributor rowKeyDistributor;
+
+    @Autowired
+    private CollectorConfiguration collectorConfiguration;
+
+    private final ConcurrentMap<RollupKey, RollupWindow> rollups = new ConcurrentHashMap<>();
+
+    // tells the columns of this collector apart from those of other collectors and of earlier runs
+    private final long writerId = UUID.randomUUID().getMostSignificantBits();
+    private final AtomicLong windowSequence = new AtomicLong();
+
+    @Override
+    public void insert(List<TAgentStat> agentStats) {
+        if (agentStats == null) {
+            throw new NullPointerException("agentStats must not be null");
+        }
+        if (!collectorConfiguration.isAgentStatRollupEnable()) {
+            return;
+        }
+        final long currentTime = currentTimeMillis();
+        for (TAgentStat agentStat : agentStats) {
+            for (AgentStatRollupType type : AgentStatRollupType.values()) {
+                final long windowStart = type.getWindowStart(agentStat.getTimestamp());
+                if (isClosed(type, windowStart, currentTime)) {
+                    continue;
+                }
+                final RollupWindow window = getWindow(new RollupKey(agentStat.getAgentId(), type, windowStart));
+                synchronized (window) {
+                    // flushAll() evicted the window after the isClosed() check
+                    if (window.evicted) {
+                        continue;
+                    }
+                    window.rollup.add(agentStat);
+                    window.dirty = true;
+                }
+            }
+        }
+    }
+
+    private RollupWindow getWindow(RollupKey key) {
+        final RollupWindow window = rollups.get(key);
+        if (window != null) {
+            return window;
+        }
+        final AgentStatRollupBo rollup = new AgentStatRollupBo(key.agentId, key.type, key.windowStart);
+        final RollupWindow newWindow = new RollupWindow(rollup, createQualifier());
+        final RollupWindow before = rollups.putIfAbsent(key, newWindow);
+        if (before != null) {
+            return before;
+        }
+        return newWindow;
+    }
+
+    private byte[] createQualifier() {
+        final byte[] qualifier = new byte[AGENT_STAT_ROLLUP_COL_VALUE.length + BytesUtils.LONG_BYTE_LENGTH * 2];
+        System.arraycopy(AGENT_STAT_ROLLUP_COL_VALUE, 0, qualifier, 0, AGENT_STAT_ROLLUP_COL_VALUE.length);
+        BytesUtils.writeLong(writerId, qualifier, AGENT_STAT_ROLLUP_COL_VALUE.length);
+        BytesUtils.writeLong(windowSequence.incrementAndGet(), qualifier, AGENT_STAT_ROLLUP_COL_VALUE.length + BytesUtils.LONG_BYTE_LENGTH);
+        return qualifier;
+    }
+
+    private boolean isClosed(AgentStatRollupType type, long windowStart, long currentTime) {
+        return windowStart + type.getResolution() + FLUSH_DELAY <= currentTime;
+    }
+
+    @Override
+    public void flushAll() {
+        if (rollups.isEmpty()) {
+            return;
+        }
+        final long currentTime = currentTimeMillis();
+        final List<Put> puts = new ArrayList<>();
+        final Iterator<Map.Entry<RollupKey, RollupWindow>> iterator = rollups.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<RollupKey, RollupWindow> entry = iterator.next();
+            final RollupKey key = entry.getKey();
+            final RollupWindow window = entry.getValue();
+            final byte[] value;
+            synchronized (window) {
+                if (!window.dirty) {
+                    if (isClosed(key.type, key.windowStart, currentTime)) {
+                        window.evicted = true;
+                        iterator.remove();
+                    }
+                    continue;
+                }
+                window.dirty = false;
+                value = window.rollup.writeValue();
+            }
+            final Put put = new Put(rowKeyDistributor.getDistributedKey(window.rollup.writeRowKey()));
+            put.addColumn(AGENT_STAT_CF_STATISTICS, window.qualifier, value);
+            puts.add(put);
+        }
+        if (!puts.isEmpty()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("flush {} Put:{}", this.getClass().getSimpleName(), puts.size());
+            }
+            hbaseTemplate.put(AGENT_STAT_ROLLUP, puts);
+        }
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private static final class RollupWindow {
+        private final AgentStatRollupBo rollup;
+        private final byte[] qualifier;
+        // guarded by this
+        private boolean dirty;
+        private boolean evicted;
+
+        private RollupWindow(AgentStatRollupBo rollup, byte[] qualifier) {
+            this.rollup = rollup;
+            this.qualifier = qualifier;
+        }
+    }
+
+    private static final class RollupKey {
+        private final String agentId;
+        private final AgentStatRollupType type;
+        private final long windowStart;
+
+        private RollupKey(String agentId, AgentStatRollupType type, long windowStart) {
+            if (agentId == null) {
+                throw new NullPointerException("agentId must not be null");
+            }
+            this.agentId = agentId;
+            this.type = type;
+            this.windowStart = windowStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            RollupKey that = (RollupKey) o;
+
+            if (windowStart != that.windowStart) return false;
+            if (type != that.type) return false;
+            return agentId.equals(that.agentId);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = agentId.hashCode();
+            result = 31 * result + type.hashCode();
+            result = 31 * result + (int) (windowStart ^ (windowStart >>> 32));
+            return result;
+        }
+    }
+}
@@ -16,6 +16,9 @@
 
 package com.navercorp.pinpoint.collector.handler;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.thrift.TBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +26,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.navercorp.pinpoint.collector.dao.AgentStatDao;
+import com.navercorp.pinpoint.collector.dao.AgentStatRollupDao;
 import com.navercorp.pinpoint.thrift.dto.TAgentStat;
 import com.navercorp.pinpoint.thrift.dto.TAgentStatBatch;
 
@@ -38,6 +42,9 @@ public class AgentStatHandler implements Handler {
     @Autowired
     private AgentStatDao agentStatDao;
 
+    @Autowired
+    private AgentStatRollupDao agentStatRollupDao;
+
     public void handle(TBase<?, ?> tbase) {
         // FIXME (2014.08) Legacy - TAgentStats should not be sent over the wire.
         if (tbase instanceof TAgentStat) {
@@ -57,6 +64,7 @@ public class AgentStatHandler implements Handler {
             agentStat.setAgentId(agentId);
             agentStat.setStartTimestamp(startTimestamp);
             agentStatDao.insert(agentStat);
+            agentStatRollupDao.insert(Collections.<TAgentStat>singletonList(agentStat));
         } catch (Exception e) {
             logger.warn("AgentStat handle error. Caused:{}", e.getMessage());
         }
@@ -68,8 +76,19 @@ public class AgentStatHandler implements Handler {
         }
         String agentId = agentStatBatch.getAgentId();
         long startTimestamp = agentStatBatch.getStartTimestamp();
-        for (TAgentStat agentStat : agentStatBatch.getAgentStats()) {
-            handleAgentStat(agentId, startTimestamp, agentStat);
+        List<TAgentStat> agentStats = agentStatBatch.getAgentStats();
+        if (agentStats == null) {
+            return;
+        }
+        try {
+            for (TAgentStat agentStat : agentStats) {
+                agentStat.setAgentId(agentId);
+                agentStat.setStartTimestamp(startTimestamp);
+            }
+            agentStatDao.insert(agentStats);
+            agentStatRollupDao.insert(agentStats);
+        } catch (Exception e) {
+            logger.warn("AgentStatBatch handle error. Caused:{}", e.getMessage(), e);
         }
     }
 }
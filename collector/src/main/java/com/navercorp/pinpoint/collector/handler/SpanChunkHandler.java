@@ -70,7 +70,7 @@ public class SpanChunkHandler implements SimpleHandler {
             List<TSpanEvent> spanEventList = spanChunk.getSpanEventList();
             if (spanEventList != null) {
                 logger.debug("SpanChunk Size:{}", spanEventList.size());
-                // TODO need to batch update later.
+                final SpanEventStatisticsAggregator aggregator = new SpanEventStatisticsAggregator();
                 for (TSpanEvent spanEvent : spanEventList) {
                     final ServiceType spanEventType = registry.findServiceType(spanEvent.getServiceType());
 
@@ -81,15 +81,20 @@ public class SpanChunkHandler implements SimpleHandler {
                     // if terminal update statistics
                     final int elapsed = spanEvent.getEndElapsed();
                     final boolean hasException = SpanEventUtils.hasException(spanEvent);
+                    aggregator.add(spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+                }
 
+                for (SpanEventStatisticsAggregator.SpanEventStatistics statistics : aggregator.getStatistics()) {
                     /**
                      * save information to draw a server map based on statistics
                      */
                     // save the information of caller (the spanevent that span called)
-                    statisticsHandler.updateCaller(spanChunk.getApplicationName(), applicationServiceType, spanChunk.getAgentId(), spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+                    statisticsHandler.updateCaller(spanChunk.getApplicationName(), applicationServiceType, spanChunk.getAgentId(), statistics.getDestinationId(), statistics.getServiceType(), statistics.getEndPoint(),
+                            statistics.getElapsed(), statistics.isError(), statistics.getCount());
 
                     // save the information of callee (the span that called spanevent)
-                    statisticsHandler.updateCallee(spanEvent.getDestinationId(), spanEventType, spanChunk.getApplicationName(), applicationServiceType, spanChunk.getEndPoint(), elapsed, hasException);
+                    statisticsHandler.updateCallee(statistics.getDestinationId(), statistics.getServiceType(), spanChunk.getApplicationName(), applicationServiceType, spanChunk.getEndPoint(),
+                            statistics.getElapsed(), statistics.isError(), statistics.getCount());
                 }
             }
         } catch (Exception e) {
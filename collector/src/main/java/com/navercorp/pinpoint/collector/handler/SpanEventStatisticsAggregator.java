@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.handler;
+
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Groups the span events of a span (or span chunk) by destination, service type, endpoint and histogram slot,
+ * so that each group updates the shared statistics counters only once.
+ * not thread safe.
+ */
+public class SpanEventStatisticsAggregator {
+
+    private final Map<SpanEventStatistics, SpanEventStatistics> statisticsMap = new HashMap<>();
+
+    public void add(String destinationId, ServiceType serviceType, String endPoint, int elapsed, boolean isError) {
+        if (serviceType == null) {
+            throw new NullPointerException("serviceType must not be null");
+        }
+        final short slotNumber = ApplicationMapStatisticsUtils.getSlotNumber(serviceType, elapsed, isError);
+        final SpanEventStatistics statistics = new SpanEventStatistics(destinationId, serviceType, endPoint, slotNumber, elapsed, isError);
+        final SpanEventStatistics old = statisticsMap.get(statistics);
+        if (old == null) {
+            statisticsMap.put(statistics, statistics);
+        } else {
+            old.increment();
+        }
+    }
+
+    public Collection<SpanEventStatistics> getStatistics() {
+        return statisticsMap.values();
+    }
+
+    public static class SpanEventStatistics {
+        private final String destinationId;
+        private final ServiceType serviceType;
+        private final String endPoint;
+        private final short slotNumber;
+        // elapsed and isError of the first span event. every span event of this group has the same slotNumber
+        private final int elapsed;
+        private final boolean isError;
+        private long count = 1;
+
+        private SpanEventStatistics(String destinationId, ServiceType serviceType, String endPoint, short slotNumber, int elapsed, boolean isError) {
+            this.destinationId = destinationId;
+            this.serviceType = serviceType;
+            this.endPoint = endPoint;
+            this.slotNumber = slotNumber;
+            this.elapsed = elapsed;
+            this.isError = isError;
+        }
+
+        private void increment() {
+            count++;
+        }
+
+        public String getDestinationId() {
+            return destinationId;
+        }
+
+        public ServiceType getServiceType() {
+            return serviceType;
+        }
+
+        public String getEndPoint() {
+            return endPoint;
+        }
+
+        public int getElapsed() {
+            return elapsed;
+        }
+
+        public boolean isError() {
+            return isError;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            SpanEventStatistics that = (SpanEventStatistics) o;
+
+            if (slotNumber != that.slotNumber) return false;
+            if (serviceType.getCode() != that.serviceType.getCode()) return false;
+            if (destinationId != null ? !destinationId.equals(that.destinationId) : that.destinationId != null) return false;
+            return endPoint != null ? endPoint.equals(that.endPoint) : that.endPoint == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = destinationId != null ? destinationId.hashCode() : 0;
+            result = 31 * result + serviceType.getCode();
+            result = 31 * result + (endPoint != null ? endPoint.hashCode() : 0);
+            result = 31 * result + (int) slotNumber;
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "SpanEventStatistics{" +
+                    "destinationId='" + destinationId + '\'' +
+                    ", serviceType=" + serviceType +
+                    ", endPoint='" + endPoint + '\'' +
+                    ", slotNumber=" + slotNumber +
+                    ", count=" + count +
+                    '}';
+        }
+    }
+}
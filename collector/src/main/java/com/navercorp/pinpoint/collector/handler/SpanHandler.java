@@ -155,7 +155,7 @@ public class SpanHandler implements SimpleHandler {
         final ServiceType applicationServiceType = getApplicationServiceType(span);
 
         logger.debug("handle spanEvent size:{}", spanEventList.size());
-        // TODO need to batch update later.
+        final SpanEventStatisticsAggregator aggregator = new SpanEventStatisticsAggregator();
         for (TSpanEvent spanEvent : spanEventList) {
             final ServiceType spanEventType = registry.findServiceType(spanEvent.getServiceType());
             if (!spanEventType.isRecordStatistics()) {
@@ -165,15 +165,20 @@ public class SpanHandler implements SimpleHandler {
             // if terminal update statistics
             final int elapsed = spanEvent.getEndElapsed();
             final boolean hasException = SpanEventUtils.hasException(spanEvent);
+            aggregator.add(spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+        }
 
+        for (SpanEventStatisticsAggregator.SpanEventStatistics statistics : aggregator.getStatistics()) {
             /**
              * save information to draw a server map based on statistics
              */
             // save the information of caller (the spanevent that called span)
-            statisticsHandler.updateCaller(span.getApplicationName(), applicationServiceType, span.getAgentId(), spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+            statisticsHandler.updateCaller(span.getApplicationName(), applicationServiceType, span.getAgentId(), statistics.getDestinationId(), statistics.getServiceType(), statistics.getEndPoint(),
+                    statistics.getElapsed(), statistics.isError(), statistics.getCount());
 
             // save the information of callee (the span that spanevent called)
-            statisticsHandler.updateCallee(spanEvent.getDestinationId(), spanEventType, span.getApplicationName(), applicationServiceType, span.getEndPoint(), elapsed, hasException);
+            statisticsHandler.updateCallee(statistics.getDestinationId(), statistics.getServiceType(), span.getApplicationName(), applicationServiceType, span.getEndPoint(),
+                    statistics.getElapsed(), statistics.isError(), statistics.getCount());
         }
     }
 
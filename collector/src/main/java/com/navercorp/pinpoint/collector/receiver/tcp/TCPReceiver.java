@@ -19,11 +19,8 @@ package com.navercorp.pinpoint.collector.receiver.tcp;
 import com.navercorp.pinpoint.collector.cluster.zookeeper.ZookeeperClusterService;
 import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
 import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
-import com.navercorp.pinpoint.collector.rpc.handler.AgentEventHandler;
-import com.navercorp.pinpoint.collector.rpc.handler.AgentLifeCycleHandler;
+import com.navercorp.pinpoint.collector.rpc.handler.AgentPingHandler;
 import com.navercorp.pinpoint.collector.util.PacketUtils;
-import com.navercorp.pinpoint.common.server.util.AgentEventType;
-import com.navercorp.pinpoint.common.server.util.AgentLifeCycleState;
 import com.navercorp.pinpoint.common.util.ExecutorFactory;
 import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
 import com.navercorp.pinpoint.rpc.PinpointSocket;
@@ -77,11 +74,8 @@ public class TCPReceiver {
     @Resource(name="agentEventWorker")
     private ExecutorService agentEventWorker;
     
-    @Resource(name="agentEventHandler")
-    private AgentEventHandler agentEventHandler;
-    
-    @Resource(name="agentLifeCycleHandler")
-    private AgentLifeCycleHandler agentLifeCycleHandler;
+    @Resource(name="agentPingHandler")
+    private AgentPingHandler agentPingHandler;
     
     @Resource(name="channelStateChangeEventHandlers")
     private List<ServerStateChangeEventHandler> channelStateChangeEventHandlers = Collections.emptyList();
@@ -206,10 +200,7 @@ public class TCPReceiver {
         final int eventCounter = pingPacket.getPingId();
         long pingTimestamp = System.currentTimeMillis();
         try {
-            if (!(eventCounter < 0)) {
-                agentLifeCycleHandler.handleLifeCycleEvent(pinpointServer, pingTimestamp, AgentLifeCycleState.RUNNING, eventCounter);
-            }
-            agentEventHandler.handleEvent(pinpointServer, pingTimestamp, AgentEventType.AGENT_PING);
+            agentPingHandler.handlePing(pinpointServer, pingTimestamp, eventCounter, pingPacket.getStateCode());
         } catch (Exception e) {
             logger.warn("Error handling ping event", e);
         }
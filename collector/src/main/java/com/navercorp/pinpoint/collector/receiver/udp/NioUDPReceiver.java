@@ -0,0 +1,443 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.navercorp.pinpoint.collector.receiver.DataReceiver;
+import com.navercorp.pinpoint.collector.util.DatagramPacketFactory;
+import com.navercorp.pinpoint.collector.util.DefaultObjectPool;
+import com.navercorp.pinpoint.collector.util.ObjectPool;
+import com.navercorp.pinpoint.collector.util.PacketUtils;
+import com.navercorp.pinpoint.collector.util.PooledObject;
+import com.navercorp.pinpoint.common.server.util.concurrent.DisruptorExecutors;
+import com.navercorp.pinpoint.common.server.util.concurrent.PinpointExecutorType;
+import com.navercorp.pinpoint.common.util.ExecutorFactory;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.Assert;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * UDP receiver based on a non-blocking {@link DatagramChannel}.
+ * <p>
+ * A single io thread waits on the Selector and drains up to {@code batchSize} datagrams at once
+ * into pooled DatagramPackets. The whole batch is handed to the worker as a single task,
+ * so there is no Runnable and executor hand-off per packet.
+ * <p>
+ * Only one thread reads, on purpose. Every Selector registered on the channel would wake up for each datagram,
+ * and DatagramChannel.receive() serializes on the channel's read lock, so more io threads add wake-ups but no parallelism.
+ * Reading a datagram is cheap compared to handling it; the handling runs in parallel on the workers.
+ * <p>
+ * Metrics (when enabled) : {@code <receiverName>-read-timer} for draining a batch from the socket,
+ * {@code <receiverName>-queue-timer} for the time from submitting a batch to the worker until it runs and
+ * {@code <receiverName>-timer} for handling each packet as {@link UDPReceiver} does.
+ */
+public class NioUDPReceiver implements DataReceiver {
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final Logger logger;
+
+    private final String bindAddress;
+    private final int port;
+
+    private final String receiverName;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    private final boolean enableCollectorMetric;
+
+    private Timer timer;
+    private Timer readTimer;
+    private Timer queueTimer;
+    private Counter rejectedCounter;
+
+    private ExecutorService io;
+
+    private ExecutorService worker;
+    private final PinpointExecutorType workerType;
+    private final int workerThreadSize;
+    private final int workerThreadQueueSize;
+
+    private final int batchSize;
+
+    private ObjectPool<DatagramPacket> datagramPacketPool;
+
+    private final DatagramChannel channel;
+
+    private final PacketHandlerFactory<DatagramPacket> packetHandlerFactory;
+
+    private final AtomicInteger rejectedExecutionCount = new AtomicInteger(0);
+
+    private final AtomicBoolean state = new AtomicBoolean(true);
+
+    public NioUDPReceiver(String receiverName, PacketHandlerFactory<DatagramPacket> packetHandlerFactory, String bindAddress, int port, int receiverBufferSize, String workerType, int workerThreadSize, int workerThreadQueueSize, boolean enableCollectorMetric) {
+        this(receiverName, packetHandlerFactory, bindAddress, port, receiverBufferSize, workerType, workerThreadSize, workerThreadQueueSize, DEFAULT_BATCH_SIZE, enableCollectorMetric);
+    }
+
+    public NioUDPReceiver(String receiverName, PacketHandlerFactory<DatagramPacket> packetHandlerFactory, String bindAddress, int port, int receiverBufferSize, String workerType, int workerThreadSize, int workerThreadQueueSize, int batchSize, boolean enableCollectorMetric) {
+        if (receiverName != null) {
+            this.logger = LoggerFactory.getLogger(receiverName);
+        } else {
+            this.logger = LoggerFactory.getLogger(this.getClass());
+        }
+        if (packetHandlerFactory == null) {
+            throw new NullPointerException("packetHandlerFactory must not be null");
+        }
+        if (bindAddress == null) {
+            throw new NullPointerException("bindAddress must not be null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive. batchSize:" + batchSize);
+        }
+
+        this.receiverName = receiverName;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.channel = createChannel(receiverBufferSize);
+
+        this.workerType = PinpointExecutorType.getValue(workerType);
+        this.workerThreadSize = workerThreadSize;
+        this.workerThreadQueueSize = adaptQueueSize(this.workerType, workerThreadQueueSize);
+        this.batchSize = batchSize;
+        this.packetHandlerFactory = packetHandlerFactory;
+        this.enableCollectorMetric = enableCollectorMetric;
+    }
+
+    private int adaptQueueSize(PinpointExecutorType workerType, int workerThreadQueueSize) {
+        if (workerType == PinpointExecutorType.DISRUPTOR_EXECUTOR) {
+            int adaptedQueueSize = DisruptorExecutors.nextPowerOfTwo(workerThreadQueueSize);
+            logger.info("queueSize changed {} -> {}(DisruptorExecutor only support power of 2).", workerThreadQueueSize, adaptedQueueSize);
+            return adaptedQueueSize;
+        }
+        return workerThreadQueueSize;
+    }
+
+    public void afterPropertiesSet() {
+        Assert.notNull(metricRegistry, "metricRegistry must not be null");
+        Assert.notNull(packetHandlerFactory, "packetHandlerFactory must not be null");
+
+        this.worker = createWorker(workerType, workerThreadSize, workerThreadQueueSize, receiverName);
+        // the worker queue holds batches, but most batches are much smaller than batchSize.
+        // the pool creates a packet dynamically when it is empty.
+        final int packetPoolSize = workerThreadSize + workerThreadQueueSize + batchSize;
+        this.datagramPacketPool = new DefaultObjectPool<>(new DatagramPacketFactory(), packetPoolSize);
+
+        this.timer = metricRegistry.timer(receiverName + "-timer");
+        this.readTimer = metricRegistry.timer(receiverName + "-read-timer");
+        this.queueTimer = metricRegistry.timer(receiverName + "-queue-timer");
+        this.rejectedCounter = metricRegistry.counter(receiverName + "-rejected");
+        this.io = Executors.newSingleThreadExecutor(new PinpointThreadFactory(receiverName + "-Io", true));
+    }
+
+    private ExecutorService createWorker(PinpointExecutorType workerType, int workerThreadSize, int workerThreadQueueSize, String receiverName) {
+        if (workerType == PinpointExecutorType.DISRUPTOR_EXECUTOR) {
+            PinpointThreadFactory threadFactory = new PinpointThreadFactory(receiverName + "-Worker", true);
+            return DisruptorExecutors.newMultiProducerExecutor(workerThreadSize, workerThreadQueueSize, threadFactory);
+        } else {
+            return ExecutorFactory.newFixedThreadPool(workerThreadSize, workerThreadQueueSize, receiverName + "-Worker", true);
+        }
+    }
+
+    private void receive() {
+        if (logger.isInfoEnabled()) {
+            logger.info("start ioThread localAddress:{}, IoThread:{}", getLocalAddress(), Thread.currentThread().getName());
+        }
+        Selector selector = null;
+        try {
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
+
+            while (state.get()) {
+                final int selected = selector.select(1000);
+                if (selected == 0) {
+                    continue;
+                }
+                selector.selectedKeys().clear();
+                drain();
+            }
+        } catch (ClosedChannelException e) {
+            // shutdown
+        } catch (IOException e) {
+            if (state.get()) {
+                logger.error("IoError, Caused:{}", e.getMessage(), e);
+            }
+        } finally {
+            closeSelector(selector);
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("stop ioThread IoThread:{}", Thread.currentThread().getName());
+        }
+    }
+
+    private void drain() throws IOException {
+        while (state.get()) {
+            final Timer.Context readTime = enableCollectorMetric ? readTimer.time() : null;
+            final PacketBatch batch = read();
+            if (readTime != null) {
+                readTime.stop();
+            }
+            if (batch == null) {
+                return;
+            }
+            dispatch(batch);
+            if (batch.size() < batchSize) {
+                // socket buffer drained
+                return;
+            }
+        }
+    }
+
+    private PacketBatch read() throws IOException {
+        PacketBatch batch = null;
+        while (batch == null || batch.size() < batchSize) {
+            final PooledObject<DatagramPacket> pooledPacket = datagramPacketPool.getObject();
+            final DatagramPacket packet = pooledPacket.getObject();
+            final ByteBuffer buffer = ByteBuffer.wrap(packet.getData(), packet.getOffset(), packet.getData().length - packet.getOffset());
+            final SocketAddress socketAddress;
+            try {
+                socketAddress = channel.receive(buffer);
+            } catch (ClosedChannelException e) {
+                pooledPacket.returnObject();
+                throw e;
+            } catch (IOException e) {
+                pooledPacket.returnObject();
+                // keep the io thread alive, the next select() retries the channel
+                if (state.get()) {
+                    logger.error("IoError, Caused:{}", e.getMessage(), e);
+                }
+                break;
+            }
+            if (socketAddress == null) {
+                // no more datagram
+                pooledPacket.returnObject();
+                break;
+            }
+            final int length = buffer.position() - packet.getOffset();
+            if (length == 0) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("length is 0 address:{}", socketAddress);
+                }
+                pooledPacket.returnObject();
+                continue;
+            }
+            packet.setLength(length);
+            packet.setSocketAddress(socketAddress);
+            if (logger.isDebugEnabled()) {
+                logger.debug("DatagramPacket SocketAddress:{} read size:{}", socketAddress, length);
+                if (logger.isTraceEnabled()) {
+                    // use trace as packet dump may be large
+                    logger.trace("dump packet:{}", PacketUtils.dumpDatagramPacket(packet));
+                }
+            }
+            if (batch == null) {
+                batch = new PacketBatch(batchSize);
+            }
+            batch.add(pooledPacket);
+        }
+        return batch;
+    }
+
+    private void dispatch(PacketBatch batch) {
+        try {
+            batch.submitTime = System.nanoTime();
+            worker.execute(batch);
+        } catch (RejectedExecutionException ree) {
+            batch.returnAll();
+            handleRejectedExecutionException(batch.size());
+        }
+    }
+
+    private void handleRejectedExecutionException(int packetCount) {
+        rejectedCounter.inc(packetCount);
+        final int error = rejectedExecutionCount.incrementAndGet();
+        final int mod = 100;
+        if ((error % mod) == 0) {
+            logger.warn("RejectedExecutionCount={}", error);
+        }
+    }
+
+    private class PacketBatch implements Runnable {
+        private final PooledObject<DatagramPacket>[] packets;
+        private int size = 0;
+        private long submitTime;
+
+        @SuppressWarnings("unchecked")
+        private PacketBatch(int batchSize) {
+            this.packets = new PooledObject[batchSize];
+        }
+
+        private void add(PooledObject<DatagramPacket> packet) {
+            packets[size++] = packet;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        @Override
+        public void run() {
+            if (enableCollectorMetric) {
+                queueTimer.update(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+            }
+            // handlers are stateless, one per batch is enough
+            final PacketHandler<DatagramPacket> packetHandler = packetHandlerFactory.createPacketHandler();
+            for (int i = 0; i < size; i++) {
+                final PooledObject<DatagramPacket> pooledPacket = packets[i];
+                packets[i] = null;
+                final Timer.Context time = enableCollectorMetric ? timer.time() : null;
+                try {
+                    packetHandler.receive(pooledPacket.getObject());
+                } catch (Throwable th) {
+                    // keep handling the rest of the batch
+                    logger.warn("packet handle error. Caused:{}", th.getMessage(), th);
+                } finally {
+                    if (time != null) {
+                        time.stop();
+                    }
+                    pooledPacket.returnObject();
+                }
+            }
+        }
+
+        private void returnAll() {
+            for (int i = 0; i < size; i++) {
+                packets[i].returnObject();
+                packets[i] = null;
+            }
+        }
+    }
+
+    private DatagramChannel createChannel(int receiveBufferSize) {
+        DatagramChannel channel = null;
+        try {
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setReceiveBufferSize(receiveBufferSize);
+            if (logger.isWarnEnabled()) {
+                final int checkReceiveBufferSize = channel.socket().getReceiveBufferSize();
+                if (receiveBufferSize != checkReceiveBufferSize) {
+                    logger.warn("DatagramChannel.setReceiveBufferSize() error. {}!={}", receiveBufferSize, checkReceiveBufferSize);
+                }
+            }
+            return channel;
+        } catch (IOException ex) {
+            closeChannel(channel);
+            throw new RuntimeException("DatagramChannel create Fail. Caused:" + ex.getMessage(), ex);
+        }
+    }
+
+    private void bindChannel(DatagramChannel channel, String bindAddress, int port) {
+        try {
+            logger.info("DatagramChannel.bind() {}/{}", bindAddress, port);
+            channel.socket().bind(new InetSocketAddress(bindAddress, port));
+        } catch (IOException ex) {
+            throw new IllegalStateException("DatagramChannel bind Fail. port:" + port + " Caused:" + ex.getMessage(), ex);
+        }
+    }
+
+    private SocketAddress getLocalAddress() {
+        return channel.socket().getLocalSocketAddress();
+    }
+
+    private void closeSelector(Selector selector) {
+        if (selector == null) {
+            return;
+        }
+        try {
+            selector.close();
+        } catch (IOException ignore) {
+            // skip
+        }
+    }
+
+    private void closeChannel(DatagramChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+            // skip
+        }
+    }
+
+    @PostConstruct
+    @Override
+    public void start() {
+        logger.info("{} start.", receiverName);
+        afterPropertiesSet();
+        bindChannel(channel, bindAddress, port);
+
+        logger.info("UDP Packet reader started. batchSize:{}", batchSize);
+        io.execute(new Runnable() {
+            @Override
+            public void run() {
+                receive();
+            }
+        });
+    }
+
+    @PreDestroy
+    @Override
+    public void shutdown() {
+        logger.info("{} shutdown.", this.receiverName);
+        state.set(false);
+        closeChannel(channel);
+        if (io != null) {
+            shutdownExecutor(io, "IoExecutor");
+        }
+        if (worker != null) {
+            shutdownExecutor(worker, "WorkerExecutor");
+        }
+    }
+
+    private void shutdownExecutor(ExecutorService executor, String executorName) {
+        logger.info("{} shutdown.", executorName);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1000 * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            logger.info("{}.shutdown() Interrupted", executorName, e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
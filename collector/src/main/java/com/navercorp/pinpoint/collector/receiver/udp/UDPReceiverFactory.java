@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.navercorp.pinpoint.collector.receiver.DataReceiver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.DatagramPacket;
+
+public final class UDPReceiverFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(UDPReceiverFactory.class);
+
+    private UDPReceiverFactory() {
+    }
+
+    public static DataReceiver create(String receiverType, String receiverName, PacketHandlerFactory<DatagramPacket> packetHandlerFactory, String bindAddress, int port, int receiverBufferSize, String workerType, int workerThreadSize, int workerThreadQueueSize, boolean enableCollectorMetric) {
+        final UDPReceiverType type = getReceiverType(receiverType);
+        if (type == UDPReceiverType.NIO) {
+            return new NioUDPReceiver(receiverName, packetHandlerFactory, bindAddress, port, receiverBufferSize, workerType, workerThreadSize, workerThreadQueueSize, enableCollectorMetric);
+        }
+        return new UDPReceiver(receiverName, packetHandlerFactory, bindAddress, port, receiverBufferSize, workerType, workerThreadSize, workerThreadQueueSize, enableCollectorMetric);
+    }
+
+    static UDPReceiverType getReceiverType(String receiverTypeName) {
+        if (receiverTypeName != null) {
+            final String normalized = receiverTypeName.trim().toUpperCase();
+            for (UDPReceiverType receiverType : UDPReceiverType.values()) {
+                if (receiverType.name().equals(normalized)) {
+                    return receiverType;
+                }
+            }
+        }
+        logger.warn("unknown udp receiver type:{}. use {}", receiverTypeName, UDPReceiverType.OIO);
+        return UDPReceiverType.OIO;
+    }
+}
@@ -41,6 +41,9 @@ public class AgentLifeCycleChangeEventHandler implements ServerStateChangeEventH
     @Autowired
     private AgentEventHandler agentEventHandler;
 
+    @Autowired
+    private AgentPingHandler agentPingHandler;
+
     @Override
     public void eventPerformed(PinpointServer pinpointServer, SocketStateCode stateCode) throws Exception {
         ManagedAgentLifeCycle managedAgentLifeCycle = ManagedAgentLifeCycle.getManagedAgentLifeCycleByStateCode(stateCode);
@@ -49,6 +52,11 @@ public class AgentLifeCycleChangeEventHandler implements ServerStateChangeEventH
         } else {
             logger.info("{} eventPerformed(). pinpointServer:{}, code:{}", this.getClass().getSimpleName(), pinpointServer, stateCode);
             
+            if (managedAgentLifeCycle != ManagedAgentLifeCycle.RUNNING) {
+                // write the last ping absorbed for this connection before it is marked closed
+                this.agentPingHandler.release(pinpointServer);
+            }
+
             long eventTimestamp = System.currentTimeMillis();
 
             AgentLifeCycleState agentLifeCycleState = managedAgentLifeCycle.getMappedState();
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.rpc.handler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.navercorp.pinpoint.common.server.util.AgentEventType;
+import com.navercorp.pinpoint.common.server.util.AgentLifeCycleState;
+import com.navercorp.pinpoint.rpc.server.PinpointServer;
+
+/**
+ * Absorbs agent pings into an in-memory state table so that the AgentLifeCycle and AgentEvent tables are written
+ * only when an agent's socket state changes, or at most once per write interval while it stays the same.
+ * The last absorbed ping of a connection is written when the connection closes or the collector shuts down,
+ * so the latest RUNNING event in storage is never older than the write interval.
+ */
+public class AgentPingHandler {
+
+    private static final long NOT_WRITTEN = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    private AgentLifeCycleHandler agentLifeCycleHandler;
+
+    @Autowired
+    private AgentEventHandler agentEventHandler;
+
+    private final ConcurrentMap<PinpointServer, PingState> pingStateTable = new ConcurrentHashMap<>();
+
+    private long writeIntervalMillis;
+
+    public void setWriteIntervalMillis(long writeIntervalMillis) {
+        this.writeIntervalMillis = writeIntervalMillis;
+    }
+
+    public void handlePing(PinpointServer pinpointServer, long pingTimestamp, int eventCounter, byte stateCode) {
+        if (pinpointServer == null) {
+            throw new NullPointerException("pinpointServer may not be null");
+        }
+        if (writeIntervalMillis <= 0) {
+            writePing(pinpointServer, pingTimestamp, eventCounter);
+            return;
+        }
+
+        PingState pingState = pingStateTable.get(pinpointServer);
+        if (pingState == null) {
+            final PingState newPingState = new PingState();
+            final PingState old = pingStateTable.putIfAbsent(pinpointServer, newPingState);
+            pingState = old == null ? newPingState : old;
+        }
+
+        final boolean write;
+        synchronized (pingState) {
+            write = pingState.update(pingTimestamp, eventCounter, stateCode, writeIntervalMillis);
+        }
+        if (write) {
+            writePing(pinpointServer, pingTimestamp, eventCounter);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("ping absorbed - pinpointServer:{}, eventCounter:{}", pinpointServer, eventCounter);
+        }
+    }
+
+    /**
+     * drops the state of a closed connection, writing its last absorbed ping first
+     */
+    public void release(PinpointServer pinpointServer) {
+        if (pinpointServer == null) {
+            return;
+        }
+        final PingState pingState = pingStateTable.remove(pinpointServer);
+        if (pingState != null) {
+            flush(pinpointServer, pingState);
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        for (Map.Entry<PinpointServer, PingState> entry : pingStateTable.entrySet()) {
+            flush(entry.getKey(), entry.getValue());
+        }
+        pingStateTable.clear();
+    }
+
+    int getPingStateTableSize() {
+        return pingStateTable.size();
+    }
+
+    private void flush(PinpointServer pinpointServer, PingState pingState) {
+        final long pingTimestamp;
+        final int eventCounter;
+        synchronized (pingState) {
+            if (!pingState.hasPending()) {
+                return;
+            }
+            pingTimestamp = pingState.lastPingTimestamp;
+            eventCounter = pingState.lastEventCounter;
+            pingState.lastWriteTimestamp = pingTimestamp;
+        }
+        try {
+            writePing(pinpointServer, pingTimestamp, eventCounter);
+        } catch (Exception e) {
+            logger.warn("Error flushing ping event - pinpointServer:{}", pinpointServer, e);
+        }
+    }
+
+    private void writePing(PinpointServer pinpointServer, long pingTimestamp, int eventCounter) {
+        if (!(eventCounter < 0)) {
+            agentLifeCycleHandler.handleLifeCycleEvent(pinpointServer, pingTimestamp, AgentLifeCycleState.RUNNING, eventCounter);
+        }
+        agentEventHandler.handleEvent(pinpointServer, pingTimestamp, AgentEventType.AGENT_PING);
+    }
+
+    private static class PingState {
+
+        private long lastWriteTimestamp = NOT_WRITTEN;
+        private long lastPingTimestamp;
+        private int lastEventCounter;
+        private byte lastStateCode;
+
+        /**
+         * @return true if this ping must be written
+         */
+        private boolean update(long pingTimestamp, int eventCounter, byte stateCode, long writeIntervalMillis) {
+            final boolean stateChanged = lastWriteTimestamp == NOT_WRITTEN || stateCode != lastStateCode;
+            this.lastPingTimestamp = pingTimestamp;
+            this.lastEventCounter = eventCounter;
+            this.lastStateCode = stateCode;
+            if (stateChanged || pingTimestamp - lastWriteTimestamp >= writeIntervalMillis) {
+                this.lastWriteTimestamp = pingTimestamp;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean hasPending() {
+            return lastWriteTimestamp != NOT_WRITTEN && lastPingTimestamp > lastWriteTimestamp;
+        }
+    }
+
+}
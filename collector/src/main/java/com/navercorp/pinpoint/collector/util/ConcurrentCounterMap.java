@@ -62,38 +62,32 @@ public class ConcurrentCounterMap<T> {
         return entryArray[mod];
     }
 
-    public void increment(T key, Long increment) {
+    public void increment(T key, long increment) {
         Entry<T> entry = getEntry();
         entry.increment(key, increment);
     }
 
     public Map<T, LongAdder> remove() {
         // make a copy of the current snapshot of the entries for consistency
-        final List<Map<T, LongAdder>> copy = removeAll();
+        final List<LongCounterTable<T>> copy = removeAll();
 
         // merge
         final Map<T, LongAdder> mergeMap = new HashMap<>();
-        for (Map<T, LongAdder> mutableLongMap : copy) {
-            for (Map.Entry<T, LongAdder> entry : mutableLongMap.entrySet()) {
-                final T key = entry.getKey();
-                LongAdder longAdder = mergeMap.get(key);
-                if (longAdder == null) {
-                    mergeMap.put(key, entry.getValue());
-                } else {
-                    longAdder.increment(entry.getValue().get());
-                }
-            }
+        for (LongCounterTable<T> counterTable : copy) {
+            counterTable.mergeTo(mergeMap);
         }
         return mergeMap;
     }
 
-    private List<Map<T, LongAdder>> removeAll() {
-        final List<Map<T, LongAdder>> copy = new ArrayList<>(entryArray.length);
+    private List<LongCounterTable<T>> removeAll() {
+        final List<LongCounterTable<T>> copy = new ArrayList<>(entryArray.length);
         final int entryArrayLength = entryArray.length;
         for (int i = 0; i < entryArrayLength; i++ ) {
             Entry<T> tEntry = entryArray[i];
-            Map<T, LongAdder> remove = tEntry.remove();
-            copy.add(remove);
+            LongCounterTable<T> remove = tEntry.remove();
+            if (remove != null) {
+                copy.add(remove);
+            }
         }
         return copy;
     }
@@ -116,30 +110,142 @@ public class ConcurrentCounterMap<T> {
     }
 
     private static class Entry<T> {
-        private static final Map EMPTY = Collections.emptyMap();
-
 
-        private Map<T, LongAdder> map = new HashMap<>();
+        private LongCounterTable<T> table = new LongCounterTable<>();
 
-        public synchronized void increment(T key, Long increment) {
-            LongAdder longAdder = map.get(key);
-            if (longAdder == null) {
-                map.put(key, new LongAdder(increment));
-            } else {
-                longAdder.increment(increment);
-            }
+        public synchronized void increment(T key, long increment) {
+            table.increment(key, increment);
         }
 
-        public Map<T, LongAdder> remove() {
-            Map<T, LongAdder> old;
+        public LongCounterTable<T> remove() {
             synchronized (this) {
-                old = this.map;
+                final LongCounterTable<T> old = this.table;
                 if (old.isEmpty()) {
-                    return EMPTY;
+                    return null;
+                }
+                this.table = new LongCounterTable<>();
+                return old;
+            }
+        }
+    }
+
+    /**
+     * open addressing hash table of key -> primitive long.
+     * counts are kept in a long[] so no counter object is allocated per key until the table is merged.
+     * not thread safe.
+     */
+    static class LongCounterTable<T> {
+        private static final int DEFAULT_CAPACITY = 64;
+
+        private Object[] keys;
+        private long[] values;
+        private int size;
+
+        LongCounterTable() {
+            this(DEFAULT_CAPACITY);
+        }
+
+        LongCounterTable(int capacity) {
+            // power of 2
+            final int tableSize = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+            this.keys = new Object[tableSize];
+            this.values = new long[tableSize];
+        }
+
+        void increment(T key, long increment) {
+            if (key == null) {
+                throw new NullPointerException("key must not be null");
+            }
+            final Object[] keys = this.keys;
+            final int mask = keys.length - 1;
+            int index = hash(key) & mask;
+            while (true) {
+                final Object oldKey = keys[index];
+                if (oldKey == null) {
+                    keys[index] = key;
+                    values[index] = increment;
+                    if (++size > (keys.length >> 1)) {
+                        resize();
+                    }
+                    return;
+                }
+                if (oldKey.equals(key)) {
+                    values[index] += increment;
+                    return;
                 }
-                this.map = new HashMap<>();
+                index = (index + 1) & mask;
             }
-            return old;
+        }
+
+        long get(T key) {
+            final Object[] keys = this.keys;
+            final int mask = keys.length - 1;
+            int index = hash(key) & mask;
+            while (true) {
+                final Object oldKey = keys[index];
+                if (oldKey == null) {
+                    return 0;
+                }
+                if (oldKey.equals(key)) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        private void resize() {
+            final Object[] oldKeys = this.keys;
+            final long[] oldValues = this.values;
+
+            final int newLength = oldKeys.length << 1;
+            final Object[] newKeys = new Object[newLength];
+            final long[] newValues = new long[newLength];
+            final int mask = newLength - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                final Object key = oldKeys[i];
+                if (key == null) {
+                    continue;
+                }
+                int index = hash(key) & mask;
+                while (newKeys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                newKeys[index] = key;
+                newValues[index] = oldValues[i];
+            }
+            this.keys = newKeys;
+            this.values = newValues;
+        }
+
+        private static int hash(Object key) {
+            final int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+
+        @SuppressWarnings("unchecked")
+        void mergeTo(Map<T, LongAdder> mergeMap) {
+            final Object[] keys = this.keys;
+            final long[] values = this.values;
+            for (int i = 0; i < keys.length; i++) {
+                final T key = (T) keys[i];
+                if (key == null) {
+                    continue;
+                }
+                final LongAdder longAdder = mergeMap.get(key);
+                if (longAdder == null) {
+                    mergeMap.put(key, new LongAdder(values[i]));
+                } else {
+                    longAdder.increment(values[i]);
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
         }
     }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
+import com.navercorp.pinpoint.common.hbase.HBaseTables;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.server.bo.AgentStatRollupBo;
+import com.navercorp.pinpoint.common.server.bo.AgentStatRollupType;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Put;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class HbaseAgentStatRollupDaoTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final long startTime = HOUR * 400000;
+
+    private long currentTime;
+
+    private HbaseOperations2 hbaseTemplate;
+
+    private CollectorConfiguration collectorConfiguration;
+
+    private HbaseAgentStatRollupDao dao;
+
+    @Before
+    public void setUp() {
+        currentTime = startTime;
+        hbaseTemplate = mock(HbaseOperations2.class);
+        collectorConfiguration = new CollectorConfiguration();
+        collectorConfiguration.setAgentStatRollupEnable(true);
+        dao = createDao(hbaseTemplate);
+    }
+
+    private HbaseAgentStatRollupDao createDao(HbaseOperations2 hbaseTemplate) {
+        HbaseAgentStatRollupDao dao = new HbaseAgentStatRollupDao() {
+            @Override
+            long currentTimeMillis() {
+                return currentTime;
+            }
+        };
+        AbstractRowKeyDistributor rowKeyDistributor = mock(AbstractRowKeyDistributor.class);
+        when(rowKeyDistributor.getDistributedKey(Matchers.any(byte[].class))).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                return (byte[]) invocation.getArguments()[0];
+            }
+        });
+        ReflectionTestUtils.setField(dao, "hbaseTemplate", hbaseTemplate);
+        ReflectionTestUtils.setField(dao, "rowKeyDistributor", rowKeyDistributor);
+        ReflectionTestUtils.setField(dao, "collectorConfiguration", collectorConfiguration);
+        return dao;
+    }
+
+    @Test
+    public void flushWindowsWithNewSamples() {
+        List<TAgentStat> agentStats = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            agentStats.add(createAgentStat("agent", startTime + i * 5000, 100 + i));
+        }
+        dao.insert(agentStats);
+
+        dao.flushAll();
+        List<Put> puts = capturePuts(1);
+        assertEquals(2, puts.size());
+        AgentStatRollupBo minute = toRollup(findPut(puts, AgentStatRollupType.MINUTE));
+        assertEquals("agent", minute.getAgentId());
+        assertEquals(startTime, minute.getTimestamp());
+        assertEquals(12, minute.getHeapUsed().getCount());
+        assertEquals(100, minute.getHeapUsed().getMin(), 0);
+        assertEquals(111, minute.getHeapUsed().getMax(), 0);
+
+        // nothing new to write
+        dao.flushAll();
+        capturePuts(1);
+
+        // the whole window is written again to the same column
+        dao.insert(Arrays.asList(createAgentStat("agent", startTime + 57000, 1)));
+        dao.flushAll();
+        List<Put> rewrittenPuts = capturePuts(2);
+        assertEquals(2, rewrittenPuts.size());
+        Put rewritten = findPut(rewrittenPuts, AgentStatRollupType.MINUTE);
+        assertEquals(13, toRollup(rewritten).getHeapUsed().getCount());
+        assertArrayEquals(getQualifier(findPut(puts, AgentStatRollupType.MINUTE)), getQualifier(rewritten));
+
+        // late sample of a closed window is dropped
+        currentTime = startTime + TimeUnit.MINUTES.toMillis(1) + HbaseAgentStatRollupDao.FLUSH_DELAY;
+        dao.flushAll();
+        dao.insert(Arrays.asList(createAgentStat("agent", startTime, 1)));
+        dao.flushAll();
+        List<Put> latePuts = capturePuts(3);
+        assertEquals(1, latePuts.size());
+        AgentStatRollupBo hour = toRollup(latePuts.get(0));
+        assertEquals(AgentStatRollupType.HOUR, hour.getType());
+        assertEquals(14, hour.getHeapUsed().getCount());
+    }
+
+    @Test
+    public void windowOpenedAgainWritesNewColumn() {
+        final long staleTime = startTime + 10000;
+        currentTime = staleTime;
+        dao.insert(Arrays.asList(createAgentStat("agent", startTime, 100), createAgentStat("agent", startTime + 5000, 200)));
+        dao.flushAll();
+        Put minutePut = findPut(capturePuts(1), AgentStatRollupType.MINUTE);
+        assertEquals(2, toRollup(minutePut).getHeapUsed().getCount());
+
+        // the minute window is evicted
+        currentTime = startTime + TimeUnit.MINUTES.toMillis(1) + HbaseAgentStatRollupDao.FLUSH_DELAY;
+        dao.flushAll();
+
+        // insert() read the clock before flushAll() and opens the window again
+        currentTime = staleTime;
+        dao.insert(Arrays.asList(createAgentStat("agent", startTime + 6000, 1)));
+        dao.flushAll();
+        Put reopenedPut = findPut(capturePuts(2), AgentStatRollupType.MINUTE);
+        AgentStatRollupBo reopened = toRollup(reopenedPut);
+        assertEquals(AgentStatRollupType.MINUTE, reopened.getType());
+        assertEquals(1, reopened.getHeapUsed().getCount());
+        // the part written before is not overwritten
+        assertFalse(Arrays.equals(getQualifier(minutePut), getQualifier(reopenedPut)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void collectorsWriteOwnColumns() {
+        HbaseOperations2 otherHbaseTemplate = mock(HbaseOperations2.class);
+        HbaseAgentStatRollupDao otherDao = createDao(otherHbaseTemplate);
+
+        dao.insert(Arrays.asList(createAgentStat("agent", startTime, 100)));
+        dao.flushAll();
+        otherDao.insert(Arrays.asList(createAgentStat("agent", startTime + 5000, 200)));
+        otherDao.flushAll();
+
+        Put put = findPut(capturePuts(1), AgentStatRollupType.MINUTE);
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(otherHbaseTemplate).put(Matchers.eq(HBaseTables.AGENT_STAT_ROLLUP), captor.capture());
+        Put otherPut = findPut(captor.getValue(), AgentStatRollupType.MINUTE);
+
+        assertArrayEquals(put.getRow(), otherPut.getRow());
+        assertFalse(Arrays.equals(getQualifier(put), getQualifier(otherPut)));
+
+        AgentStatRollupBo merged = toRollup(put);
+        merged.merge(toRollup(otherPut));
+        assertEquals(2, merged.getHeapUsed().getCount());
+        assertEquals(150, merged.getHeapUsed().getAvg(), 0);
+    }
+
+    @Test
+    public void disabled() {
+        collectorConfiguration.setAgentStatRollupEnable(false);
+        dao.insert(Arrays.asList(createAgentStat("agent", startTime, 100)));
+
+        currentTime = startTime + HOUR * 2;
+        dao.flushAll();
+        verifyZeroInteractions(hbaseTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Put> capturePuts(int times) {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(hbaseTemplate, times(times)).put(Matchers.eq(HBaseTables.AGENT_STAT_ROLLUP), captor.capture());
+        return captor.getValue();
+    }
+
+    private Put findPut(List<Put> puts, AgentStatRollupType type) {
+        for (Put put : puts) {
+            if (toRollup(put).getType() == type) {
+                return put;
+            }
+        }
+        throw new AssertionError("no " + type + " put");
+    }
+
+    private AgentStatRollupBo toRollup(Put put) {
+        byte[] value = CellUtil.cloneValue(getCell(put));
+        return new AgentStatRollupBo(put.getRow(), value);
+    }
+
+    private byte[] getQualifier(Put put) {
+        return CellUtil.cloneQualifier(getCell(put));
+    }
+
+    private Cell getCell(Put put) {
+        List<Cell> cells = put.getFamilyCellMap().get(HBaseTables.AGENT_STAT_CF_STATISTICS);
+        assertEquals(1, cells.size());
+        return cells.get(0);
+    }
+
+    private TAgentStat createAgentStat(String agentId, long timestamp, long heapUsed) {
+        TAgentStat agentStat = new TAgentStat();
+        agentStat.setAgentId(agentId);
+        agentStat.setTimestamp(timestamp);
+        TJvmGc gc = new TJvmGc();
+        gc.setJvmMemoryHeapUsed(heapUsed);
+        agentStat.setGc(gc);
+        return agentStat;
+    }
+}
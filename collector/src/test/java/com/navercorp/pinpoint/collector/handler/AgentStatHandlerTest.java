@@ -24,11 +24,13 @@ import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentMatcher;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import com.navercorp.pinpoint.collector.dao.AgentStatDao;
+import com.navercorp.pinpoint.collector.dao.AgentStatRollupDao;
 import com.navercorp.pinpoint.collector.handler.AgentStatHandler;
 import com.navercorp.pinpoint.thrift.dto.TAgentInfo;
 import com.navercorp.pinpoint.thrift.dto.TAgentStat;
@@ -44,6 +46,9 @@ public class AgentStatHandlerTest {
     @Mock
     private AgentStatDao agentStatDao;
 
+    @Mock
+    private AgentStatRollupDao agentStatRollupDao;
+
     @InjectMocks
     private AgentStatHandler agentStatHandler = new AgentStatHandler();
 
@@ -74,7 +79,22 @@ public class AgentStatHandlerTest {
         // When
         agentStatHandler.handle(agentStatBatch);
         // Then
-        verify(agentStatDao, times(numBatches)).insert(any(TAgentStat.class));
+        verify(agentStatDao).insert(argThat(new ArgumentMatcher<List<TAgentStat>>() {
+            @Override
+            public boolean matches(Object argument) {
+                List<?> agentStats = (List<?>) argument;
+                if (agentStats.size() != numBatches) {
+                    return false;
+                }
+                for (Object agentStat : agentStats) {
+                    if (!agentId.equals(((TAgentStat) agentStat).getAgentId())) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }));
+        verify(agentStatDao, never()).insert(any(TAgentStat.class));
     }
 
     @Test(expected=IllegalArgumentException.class)
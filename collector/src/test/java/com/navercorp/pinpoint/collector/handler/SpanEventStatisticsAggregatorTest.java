@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.handler;
+
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SpanEventStatisticsAggregatorTest {
+
+    @Test
+    public void aggregate() {
+        SpanEventStatisticsAggregator aggregator = new SpanEventStatisticsAggregator();
+        aggregator.add("mysql", ServiceType.STAND_ALONE, "localhost:3306", 10, false);
+        aggregator.add("mysql", ServiceType.STAND_ALONE, "localhost:3306", 20, false);
+        // another slot
+        aggregator.add("mysql", ServiceType.STAND_ALONE, "localhost:3306", 20, true);
+        // another endpoint
+        aggregator.add("mysql", ServiceType.STAND_ALONE, "localhost:3307", 10, false);
+        aggregator.add(null, ServiceType.STAND_ALONE, null, 10, false);
+        aggregator.add(null, ServiceType.STAND_ALONE, null, 10, false);
+
+        List<SpanEventStatisticsAggregator.SpanEventStatistics> statisticsList = new ArrayList<>(aggregator.getStatistics());
+        Assert.assertEquals(4, statisticsList.size());
+
+        long totalCount = 0;
+        for (SpanEventStatisticsAggregator.SpanEventStatistics statistics : statisticsList) {
+            totalCount += statistics.getCount();
+            if ("localhost:3306".equals(statistics.getEndPoint()) && !statistics.isError()) {
+                Assert.assertEquals(2, statistics.getCount());
+                Assert.assertEquals(10, statistics.getElapsed());
+            }
+            if (statistics.getDestinationId() == null) {
+                Assert.assertEquals(2, statistics.getCount());
+            }
+        }
+        Assert.assertEquals(6, totalCount);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.SocketUtils;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NioUDPReceiverTest {
+
+    private final int PORT = SocketUtils.findAvailableUdpPort(11999);
+
+    @Test
+    public void receive() throws Exception {
+        final int packetCount = 100;
+        final CountDownLatch latch = new CountDownLatch(packetCount);
+        final AtomicInteger receivedBytes = new AtomicInteger();
+        PacketHandlerFactory<DatagramPacket> packetHandlerFactory = new PacketHandlerFactory<DatagramPacket>() {
+            @Override
+            public PacketHandler<DatagramPacket> createPacketHandler() {
+                return new PacketHandler<DatagramPacket>() {
+                    @Override
+                    public void receive(DatagramPacket packet) {
+                        receivedBytes.addAndGet(packet.getLength());
+                        latch.countDown();
+                    }
+                };
+            }
+        };
+
+        MetricRegistry metricRegistry = new MetricRegistry();
+        NioUDPReceiver receiver = new NioUDPReceiver("test", packetHandlerFactory, "127.0.0.1", PORT, 1024 * 1024, "DEFAULT_EXECUTOR", 2, 100, 8, true);
+        ReflectionTestUtils.setField(receiver, "metricRegistry", metricRegistry);
+        receiver.start();
+
+        DatagramSocket socket = new DatagramSocket();
+        try {
+            socket.connect(new InetSocketAddress("127.0.0.1", PORT));
+            for (int i = 0; i < packetCount; i++) {
+                byte[] data = new byte[10];
+                socket.send(new DatagramPacket(data, data.length));
+            }
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(packetCount * 10, receivedBytes.get());
+        } finally {
+            socket.close();
+            receiver.shutdown();
+        }
+        // timer is stopped after the handler returns
+        Assert.assertEquals(packetCount, metricRegistry.timer("test-timer").getCount());
+        Assert.assertTrue(metricRegistry.timer("test-read-timer").getCount() > 0);
+    }
+
+    @Test
+    public void receiverType() {
+        Assert.assertEquals(UDPReceiverType.NIO, UDPReceiverFactory.getReceiverType(" nio "));
+        Assert.assertEquals(UDPReceiverType.OIO, UDPReceiverFactory.getReceiverType("OIO"));
+        Assert.assertEquals(UDPReceiverType.OIO, UDPReceiverFactory.getReceiverType("epoll"));
+        Assert.assertEquals(UDPReceiverType.OIO, UDPReceiverFactory.getReceiverType(null));
+    }
+}
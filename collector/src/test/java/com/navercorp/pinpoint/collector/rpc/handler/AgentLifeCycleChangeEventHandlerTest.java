@@ -46,6 +46,9 @@ public class AgentLifeCycleChangeEventHandlerTest {
     @Mock
     private AgentEventHandler eventHandler;
 
+    @Mock
+    private AgentPingHandler pingHandler;
+
     @Mock
     private PinpointServer server;
 
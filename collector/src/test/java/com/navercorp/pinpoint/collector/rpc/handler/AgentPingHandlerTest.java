@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.rpc.handler;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.navercorp.pinpoint.common.server.util.AgentEventType;
+import com.navercorp.pinpoint.common.server.util.AgentLifeCycleState;
+import com.navercorp.pinpoint.rpc.common.SocketStateCode;
+import com.navercorp.pinpoint.rpc.server.PinpointServer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AgentPingHandlerTest {
+
+    private static final long WRITE_INTERVAL = 1000;
+    private static final byte RUN_DUPLEX = SocketStateCode.RUN_DUPLEX.getId();
+    private static final byte RUN_SIMPLEX = SocketStateCode.RUN_SIMPLEX.getId();
+
+    @Mock
+    private AgentLifeCycleHandler agentLifeCycleHandler;
+
+    @Mock
+    private AgentEventHandler agentEventHandler;
+
+    @Mock
+    private PinpointServer pinpointServer;
+
+    @InjectMocks
+    private AgentPingHandler agentPingHandler = new AgentPingHandler();
+
+    @Before
+    public void setUp() throws Exception {
+        agentPingHandler.setWriteIntervalMillis(WRITE_INTERVAL);
+    }
+
+    @Test
+    public void pingsWithinIntervalShouldBeAbsorbed() {
+        agentPingHandler.handlePing(pinpointServer, 1000, 1, RUN_DUPLEX);
+        agentPingHandler.handlePing(pinpointServer, 1500, 2, RUN_DUPLEX);
+        agentPingHandler.handlePing(pinpointServer, 1999, 3, RUN_DUPLEX);
+        agentPingHandler.handlePing(pinpointServer, 2000, 4, RUN_DUPLEX);
+
+        verify(agentLifeCycleHandler).handleLifeCycleEvent(pinpointServer, 1000, AgentLifeCycleState.RUNNING, 1);
+        verify(agentLifeCycleHandler).handleLifeCycleEvent(pinpointServer, 2000, AgentLifeCycleState.RUNNING, 4);
+        verify(agentLifeCycleHandler, times(2)).handleLifeCycleEvent(any(PinpointServer.class), anyLong(), any(AgentLifeCycleState.class), anyInt());
+        verify(agentEventHandler, times(2)).handleEvent(eq(pinpointServer), anyLong(), eq(AgentEventType.AGENT_PING));
+    }
+
+    @Test
+    public void stateChangeShouldBeWritten() {
+        agentPingHandler.handlePing(pinpointServer, 1000, 1, RUN_SIMPLEX);
+        agentPingHandler.handlePing(pinpointServer, 1100, 2, RUN_DUPLEX);
+
+        verify(agentLifeCycleHandler).handleLifeCycleEvent(pinpointServer, 1100, AgentLifeCycleState.RUNNING, 2);
+        verify(agentEventHandler, times(2)).handleEvent(eq(pinpointServer), anyLong(), eq(AgentEventType.AGENT_PING));
+    }
+
+    @Test
+    public void releaseShouldWriteLastAbsorbedPing() {
+        agentPingHandler.handlePing(pinpointServer, 1000, 1, RUN_DUPLEX);
+        agentPingHandler.handlePing(pinpointServer, 1300, 2, RUN_DUPLEX);
+        agentPingHandler.handlePing(pinpointServer, 1600, 3, RUN_DUPLEX);
+
+        agentPingHandler.release(pinpointServer);
+        assertEquals(0, agentPingHandler.getPingStateTableSize());
+
+        verify(agentLifeCycleHandler).handleLifeCycleEvent(pinpointServer, 1600, AgentLifeCycleState.RUNNING, 3);
+        verify(agentLifeCycleHandler, times(2)).handleLifeCycleEvent(any(PinpointServer.class), anyLong(), any(AgentLifeCycleState.class), anyInt());
+
+        // nothing left to write
+        agentPingHandler.flushAll();
+        verify(agentLifeCycleHandler, times(2)).handleLifeCycleEvent(any(PinpointServer.class), anyLong(), any(AgentLifeCycleState.class), anyInt());
+    }
+
+    @Test
+    public void flushAllShouldWritePendingPings() {
+        agentPingHandler.handlePing(pinpointServer, 1000, 1, RUN_DUPLEX);
+        agentPingHandler.flushAll();
+        // first ping already written
+        verify(agentLifeCycleHandler, times(1)).handleLifeCycleEvent(any(PinpointServer.class), anyLong(), any(AgentLifeCycleState.class), anyInt());
+
+        agentPingHandler.handlePing(pinpointServer, 3000, 2, RUN_DUPLEX);
+        agentPingHandler.handlePing(pinpointServer, 3500, 3, RUN_DUPLEX);
+        agentPingHandler.flushAll();
+        verify(agentLifeCycleHandler).handleLifeCycleEvent(pinpointServer, 3500, AgentLifeCycleState.RUNNING, 3);
+        assertEquals(0, agentPingHandler.getPingStateTableSize());
+    }
+
+    @Test
+    public void everyPingShouldBeWrittenIfDisabled() {
+        agentPingHandler.setWriteIntervalMillis(0);
+        agentPingHandler.handlePing(pinpointServer, 1000, 1, RUN_DUPLEX);
+        agentPingHandler.handlePing(pinpointServer, 1001, 2, RUN_DUPLEX);
+        agentPingHandler.handlePing(pinpointServer, 1002, -1, RUN_DUPLEX);
+
+        verify(agentLifeCycleHandler, times(2)).handleLifeCycleEvent(any(PinpointServer.class), anyLong(), any(AgentLifeCycleState.class), anyInt());
+        verify(agentEventHandler, times(3)).handleEvent(eq(pinpointServer), anyLong(), eq(AgentEventType.AGENT_PING));
+        assertEquals(0, agentPingHandler.getPingStateTableSize());
+    }
+}
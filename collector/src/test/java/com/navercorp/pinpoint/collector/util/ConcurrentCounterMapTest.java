@@ -63,4 +63,34 @@ public class ConcurrentCounterMapTest {
 
     }
 
+    @Test
+    public void testResize() throws Exception {
+        ConcurrentCounterMap<String> cache = new ConcurrentCounterMap<>(2);
+        for (int i = 0; i < 1000; i++) {
+            cache.increment("key" + (i % 500), 1L);
+        }
+
+        Map<String, ConcurrentCounterMap.LongAdder> remove = cache.remove();
+        Assert.assertEquals(500, remove.size());
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals(2L, remove.get("key" + i).get());
+        }
+        Assert.assertTrue(cache.remove().isEmpty());
+    }
+
+    @Test
+    public void testLongCounterTable() throws Exception {
+        ConcurrentCounterMap.LongCounterTable<String> table = new ConcurrentCounterMap.LongCounterTable<>(2);
+        Assert.assertTrue(table.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            table.increment("key" + i, i);
+            table.increment("key" + i, 1);
+        }
+        Assert.assertEquals(100, table.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i + 1, table.get("key" + i));
+        }
+        Assert.assertEquals(0, table.get("none"));
+    }
+
 }
@@ -36,6 +36,7 @@ public final class HBaseTables {
 
     public static final TableName AGENT_STAT = TableName.valueOf("AgentStat");
     public static final TableName AGENT_STAT_AGGR = TableName.valueOf("AgentStatAggr");
+    public static final TableName AGENT_STAT_ROLLUP = TableName.valueOf("AgentStatRollup");
     public static final byte[] AGENT_STAT_CF_STATISTICS = Bytes.toBytes("S"); // agent statistics column family
     // FIXME (2014.08) Legacy column for storing serialzied TAgentStat Thrift DTO.
     @Deprecated public static final byte[] AGENT_STAT_CF_STATISTICS_V1 = Bytes.toBytes("V1"); // qualifier
@@ -57,7 +58,9 @@ public final class HBaseTables {
     public static final byte[] AGENT_STAT_COL_TRANSACTION_UNSAMPLED_NEW = Bytes.toBytes("tUnSN"); // qualifier for unsampled new count
     public static final byte[] AGENT_STAT_COL_TRANSACTION_UNSAMPLED_CONTINUATION = Bytes.toBytes("tUnSC"); // qualifier for unsampled continuation count
     public static final byte[] AGENT_STAT_COL_ACTIVE_TRACE_HISTOGRAM = Bytes.toBytes("aH"); // qualifier for active trace histogram
+    public static final byte[] AGENT_STAT_COL_BUCKET = Bytes.toBytes("b"); // qualifier for delta-encoded bucket of samples
     public static final int AGENT_STAT_ROW_DISTRIBUTE_SIZE = 1; // agent statistics hash size
+    public static final byte[] AGENT_STAT_ROLLUP_COL_VALUE = Bytes.toBytes("v"); // qualifier prefix for a collector's serialized part of a rollup window
 
     public static final TableName TRACES = TableName.valueOf("Traces");
     public static final byte[] TRACES_CF_SPAN = Bytes.toBytes("S");  //Span
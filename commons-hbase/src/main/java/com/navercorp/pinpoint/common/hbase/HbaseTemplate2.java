@@ -534,13 +534,13 @@ public class HbaseTemplate2 extends HbaseAccessor implements HbaseOperations2, I
     @Override
     public <T> List<T> find(TableName tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, final int limit, final RowMapper<T> action) {
         final ResultsExtractor<List<T>> resultsExtractor = new LimitRowMapperResultsExtractor<>(action, limit);
-        return executeDistributedScan(tableName, scan, rowKeyDistributor, resultsExtractor);
+        return executeDistributedScan(tableName, limitCaching(scan, limit), rowKeyDistributor, resultsExtractor);
     }
 
     @Override
     public <T> List<T> find(TableName tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, int limit, final RowMapper<T> action, final LimitEventHandler limitEventHandler) {
         final LimitRowMapperResultsExtractor<T> resultsExtractor = new LimitRowMapperResultsExtractor<>(action, limit, limitEventHandler);
-        return executeDistributedScan(tableName, scan, rowKeyDistributor, resultsExtractor);
+        return executeDistributedScan(tableName, limitCaching(scan, limit), rowKeyDistributor, resultsExtractor);
     }
 
     @Override
@@ -576,6 +576,25 @@ public class HbaseTemplate2 extends HbaseAccessor implements HbaseOperations2, I
         });
     }
 
+    /**
+     * every salt bucket is scanned separately and the merged result stops at the limit,
+     * so a single rpc of a bucket scan does not need to fetch more rows than the limit.
+     */
+    private Scan limitCaching(Scan scan, int limit) {
+        if (limit <= 0 || scan.getCaching() <= limit) {
+            return scan;
+        }
+        final Scan limitedScan;
+        try {
+            limitedScan = new Scan(scan);
+        } catch (IOException e) {
+            logger.warn("Scan copy failed. Caused:{}", e.getMessage(), e);
+            return scan;
+        }
+        limitedScan.setCaching(limit);
+        return limitedScan;
+    }
+
     private ResultScanner[] splitScan(Table table, Scan originalScan, AbstractRowKeyDistributor rowKeyDistributor) throws IOException {
         Scan[] scans = rowKeyDistributor.getDistributedScans(originalScan);
         final int length = scans.length;
@@ -613,12 +632,20 @@ public class HbaseTemplate2 extends HbaseAccessor implements HbaseOperations2, I
     }
 
     @Override
-    public <T> List<T> findParallel(TableName tableName, Scan scan, AbstractRowKeyDistributor rowKeyDistributor, RowMapper<T> action, int numParallelThreads) {
+    public int getParallelScanThreads(int numParallelThreads) {
         if (!this.enableParallelScan || numParallelThreads <= 1) {
+            return 1;
+        }
+        return numParallelThreads < this.maxThreadsPerParallelScan ? numParallelThreads : this.maxThreadsPerParallelScan;
+    }
+
+    @Override
+    public <T> List<T> findParallel(TableName tableName, Scan scan, AbstractRowKeyDistributor rowKeyDistributor, RowMapper<T> action, int numParallelThreads) {
+        final int numThreadsUsed = getParallelScanThreads(numParallelThreads);
+        if (numThreadsUsed <= 1) {
             // use DistributedScanner if parallel scan is disabled or if called to use a single thread
             return find(tableName, scan, rowKeyDistributor, action);
         } else {
-            int numThreadsUsed = numParallelThreads < this.maxThreadsPerParallelScan ? numParallelThreads : this.maxThreadsPerParallelScan;
             final ResultsExtractor<List<T>> resultsExtractor = new RowMapperResultsExtractor<>(action);
             return executeParallelDistributedScan(tableName, scan, rowKeyDistributor, resultsExtractor, numThreadsUsed);
         }
@@ -626,35 +653,35 @@ public class HbaseTemplate2 extends HbaseAccessor implements HbaseOperations2, I
 
     @Override
     public <T> List<T> findParallel(TableName tableName, Scan scan, AbstractRowKeyDistributor rowKeyDistributor, int limit, RowMapper<T> action, int numParallelThreads) {
-        if (!this.enableParallelScan || numParallelThreads <= 1) {
+        final int numThreadsUsed = getParallelScanThreads(numParallelThreads);
+        if (numThreadsUsed <= 1) {
             // use DistributedScanner if parallel scan is disabled or if called to use a single thread
             return find(tableName, scan, rowKeyDistributor, limit, action);
         } else {
-            int numThreadsUsed = numParallelThreads < this.maxThreadsPerParallelScan ? numParallelThreads : this.maxThreadsPerParallelScan;
             final ResultsExtractor<List<T>> resultsExtractor = new LimitRowMapperResultsExtractor<>(action, limit);
-            return executeParallelDistributedScan(tableName, scan, rowKeyDistributor, resultsExtractor, numThreadsUsed);
+            return executeParallelDistributedScan(tableName, limitCaching(scan, limit), rowKeyDistributor, resultsExtractor, numThreadsUsed);
         }
     }
 
     @Override
     public <T> List<T> findParallel(TableName tableName, Scan scan, AbstractRowKeyDistributor rowKeyDistributor, int limit, RowMapper<T> action, LimitEventHandler limitEventHandler, int numParallelThreads) {
-        if (!this.enableParallelScan || numParallelThreads <= 1) {
+        final int numThreadsUsed = getParallelScanThreads(numParallelThreads);
+        if (numThreadsUsed <= 1) {
             // use DistributedScanner if parallel scan is disabled or if called to use a single thread
             return find(tableName, scan, rowKeyDistributor, limit, action, limitEventHandler);
         } else {
-            int numThreadsUsed = numParallelThreads < this.maxThreadsPerParallelScan ? numParallelThreads : this.maxThreadsPerParallelScan;
             final LimitRowMapperResultsExtractor<T> resultsExtractor = new LimitRowMapperResultsExtractor<>(action, limit, limitEventHandler);
-            return executeParallelDistributedScan(tableName, scan, rowKeyDistributor, resultsExtractor, numThreadsUsed);
+            return executeParallelDistributedScan(tableName, limitCaching(scan, limit), rowKeyDistributor, resultsExtractor, numThreadsUsed);
         }
     }
 
     @Override
     public <T> T findParallel(TableName tableName, Scan scan, AbstractRowKeyDistributor rowKeyDistributor, ResultsExtractor<T> action, int numParallelThreads) {
-        if (!this.enableParallelScan || numParallelThreads <= 1) {
+        final int numThreadsUsed = getParallelScanThreads(numParallelThreads);
+        if (numThreadsUsed <= 1) {
             // use DistributedScanner if parallel scan is disabled or if called to use a single thread
             return find(tableName, scan, rowKeyDistributor, action);
         } else {
-            int numThreadsUsed = numParallelThreads < this.maxThreadsPerParallelScan ? numParallelThreads : this.maxThreadsPerParallelScan;
             return executeParallelDistributedScan(tableName, scan, rowKeyDistributor, action, numThreadsUsed);
         }
     }
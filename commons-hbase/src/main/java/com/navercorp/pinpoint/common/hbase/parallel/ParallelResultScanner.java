@@ -27,8 +27,10 @@ import org.apache.hadoop.hbase.util.Bytes;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -38,7 +40,11 @@ public class ParallelResultScanner implements ResultScanner {
 
     private final AbstractRowKeyDistributor keyDistributor;
     private final List<ScanTask> scanTasks;
-    private final Result[] nextResults;
+    // k-way merge of the head results of each task, ordered by their original row key
+    private final PriorityQueue<TaskResult> mergeQueue;
+    private boolean mergeQueueInitialized = false;
+    // the task whose head was returned last, refilled lazily so that a limited scan does not wait for rows it will not read
+    private int refillTaskIndex = -1;
     private Result next = null;
 
     public ParallelResultScanner(TableName tableName, HbaseAccessor hbaseAccessor, ExecutorService executor, Scan originalScan, AbstractRowKeyDistributor keyDistributor, int numParallelThreads) throws IOException {
@@ -60,7 +66,7 @@ public class ParallelResultScanner implements ResultScanner {
         final Scan[] splitScans = splitScans(originalScan);
 
         this.scanTasks = createScanTasks(scanTaskConfig, splitScans, numParallelThreads);
-        this.nextResults = new Result[scanTasks.size()];
+        this.mergeQueue = new PriorityQueue<>(scanTasks.size(), TaskResult.ROW_KEY_COMPARATOR);
         for (ScanTask scanTask : scanTasks) {
             executor.execute(scanTask);
         }
@@ -119,33 +125,49 @@ public class ParallelResultScanner implements ResultScanner {
     }
 
     private Result nextInternal() throws IOException {
-        Result result = null;
-        int indexOfResultToUse = -1;
-        for (int i = 0; i < this.scanTasks.size(); ++i) {
-            ScanTask scanTask = this.scanTasks.get(i);
-            // fail fast in case of errors
-            checkTask(scanTask);
-            if (nextResults[i] == null) {
-                try {
-                    nextResults[i] = scanTask.getResult();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+        if (!mergeQueueInitialized) {
+            for (int i = 0; i < this.scanTasks.size(); ++i) {
+                if (!fetchNextResult(i)) {
                     return null;
                 }
-                if (nextResults[i] == null) {
-                    continue;
-                }
             }
-            if (result == null || Bytes.compareTo(keyDistributor.getOriginalKey(nextResults[i].getRow()),
-                    keyDistributor.getOriginalKey(result.getRow())) < 0) {
-                result = nextResults[i];
-                indexOfResultToUse = i;
+            mergeQueueInitialized = true;
+        }
+        if (refillTaskIndex != -1) {
+            if (!fetchNextResult(refillTaskIndex)) {
+                return null;
             }
+            refillTaskIndex = -1;
         }
-        if (indexOfResultToUse >= 0) {
-            nextResults[indexOfResultToUse] = null;
+        final TaskResult taskResult = mergeQueue.poll();
+        if (taskResult == null) {
+            return null;
+        }
+        refillTaskIndex = taskResult.taskIndex;
+        return taskResult.result;
+    }
+
+    /**
+     * @return false if interrupted
+     */
+    private boolean fetchNextResult(int taskIndex) {
+        final ScanTask scanTask = this.scanTasks.get(taskIndex);
+        // fail fast in case of errors
+        checkTask(scanTask);
+        final Result result;
+        try {
+            result = scanTask.getResult();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (result == null) {
+            // a failed task is closed with an end marker, do not mistake it for the end of its results
+            checkTask(scanTask);
+            return true;
         }
-        return result;
+        mergeQueue.offer(new TaskResult(taskIndex, keyDistributor.getOriginalKey(result.getRow()), result));
+        return true;
     }
 
     private void checkTask(ScanTask scanTask) {
@@ -223,4 +245,28 @@ public class ParallelResultScanner implements ResultScanner {
             }
         };
     }
+
+    private static final class TaskResult {
+
+        private static final Comparator<TaskResult> ROW_KEY_COMPARATOR = new Comparator<TaskResult>() {
+            @Override
+            public int compare(TaskResult o1, TaskResult o2) {
+                final int compare = Bytes.compareTo(o1.originalRowKey, o2.originalRowKey);
+                if (compare != 0) {
+                    return compare;
+                }
+                return o1.taskIndex < o2.taskIndex ? -1 : (o1.taskIndex == o2.taskIndex ? 0 : 1);
+            }
+        };
+
+        private final int taskIndex;
+        private final byte[] originalRowKey;
+        private final Result result;
+
+        private TaskResult(int taskIndex, byte[] originalRowKey, Result result) {
+            this.taskIndex = taskIndex;
+            this.originalRowKey = originalRowKey;
+            this.result = result;
+        }
+    }
 }
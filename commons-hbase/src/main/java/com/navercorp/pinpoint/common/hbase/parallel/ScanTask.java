@@ -28,6 +28,7 @@ import org.apache.hadoop.hbase.client.Table;
 import java.io.IOException;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author HyunGil Jeong
@@ -35,6 +36,7 @@ import java.util.concurrent.BlockingQueue;
 public class ScanTask implements Runnable {
 
     private static final Result END_RESULT = new Result();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
 
     private final TableName tableName;
     private final TableFactory tableFactory;
@@ -46,6 +48,7 @@ public class ScanTask implements Runnable {
     private volatile Throwable throwable;
     private volatile boolean isQueueClosed = false;
     private volatile boolean isDone = false;
+    private volatile boolean isClosed = false;
 
     public ScanTask(ScanTaskConfig scanTaskConfig, Scan... scans) {
         if (scanTaskConfig == null) {
@@ -72,14 +75,13 @@ public class ScanTask implements Runnable {
             ResultScanner scanner = createResultScanner(table);
             try {
                 for (Result result : scanner) {
-                    this.resultQueue.put(result);
-                    if (this.isDone) {
+                    if (!enqueue(result) || this.isDone) {
                         break;
                     }
                 }
             } finally {
                 this.isDone = true;
-                this.resultQueue.put(END_RESULT);
+                enqueue(END_RESULT);
                 scanner.close();
             }
         } catch (Throwable th) {
@@ -91,6 +93,19 @@ public class ScanTask implements Runnable {
         }
     }
 
+    /**
+     * @return false if the task was closed before the result could be queued
+     */
+    private boolean enqueue(Result result) throws InterruptedException {
+        // nobody reads the queue after close(), so a full queue must not block this thread forever
+        while (!this.isClosed) {
+            if (this.resultQueue.offer(result, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private ResultScanner createResultScanner(Table table) throws IOException {
         if (scans.length == 1) {
             Scan scan = scans[0];
@@ -118,9 +133,11 @@ public class ScanTask implements Runnable {
 
     public void close() {
         this.isDone = true;
+        this.isClosed = true;
         // signal threads blocked on resultQueue
         this.resultQueue.clear();
-        this.resultQueue.add(END_RESULT);
+        // the scan thread may have refilled the queue in the meantime, it gives up its pending offer once closed
+        this.resultQueue.offer(END_RESULT);
     }
 
     public Throwable getThrowable() {
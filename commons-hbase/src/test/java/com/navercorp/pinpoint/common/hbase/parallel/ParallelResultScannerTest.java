@@ -0,0 +1,402 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase.parallel;
+
+import com.navercorp.pinpoint.common.hbase.HbaseTemplate2;
+import com.navercorp.pinpoint.common.hbase.LimitRowMapperResultsExtractor;
+import com.navercorp.pinpoint.common.hbase.RowMapper;
+import com.navercorp.pinpoint.common.hbase.TableFactory;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import com.sematext.hbase.wd.RowKeyDistributorByOneBytePrefix;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Each salt bucket is backed by a mocked {@link ResultScanner}, so the merge of {@link ParallelResultScanner}
+ * and the hand-off of {@link ScanTask} run on real threads without HBase.
+ */
+public class ParallelResultScannerTest {
+
+    private static final TableName TABLE_NAME = TableName.valueOf("PARALLEL_SCAN_TEST");
+    private static final byte[] FAMILY = Bytes.toBytes("F");
+    private static final byte[] QUALIFIER = Bytes.toBytes("Q");
+    private static final int BUCKETS = 4;
+
+    private static final RowMapper<Integer> ORIGINAL_KEY_MAPPER = new RowMapper<Integer>() {
+        @Override
+        public Integer mapRow(Result result, int rowNum) throws Exception {
+            return originalKey(result);
+        }
+    };
+
+    private final AbstractRowKeyDistributor keyDistributor = new RowKeyDistributorByOneBytePrefix((byte) BUCKETS);
+
+    private final BucketScanner[] bucketScanners = new BucketScanner[BUCKETS];
+    private final List<Scan> requestedScans = new CopyOnWriteArrayList<>();
+
+    private HbaseTemplate2 hbaseTemplate;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        final Table table = mock(Table.class);
+        when(table.getScanner(any(Scan.class))).thenAnswer(new Answer<ResultScanner>() {
+            @Override
+            public ResultScanner answer(InvocationOnMock invocation) throws Throwable {
+                final Scan scan = (Scan) invocation.getArguments()[0];
+                requestedScans.add(scan);
+                final BucketScanner bucketScanner = bucketScanners[scan.getStartRow()[0]];
+                if (bucketScanner.failure != null) {
+                    throw bucketScanner.failure;
+                }
+                return bucketScanner.scanner;
+            }
+        });
+        final TableFactory tableFactory = mock(TableFactory.class);
+        when(tableFactory.getTable(TABLE_NAME)).thenReturn(table);
+
+        hbaseTemplate = new HbaseTemplate2();
+        hbaseTemplate.setConfiguration(new Configuration(false));
+        hbaseTemplate.setTableFactory(tableFactory);
+
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        hbaseTemplate.destroy();
+    }
+
+    @Test
+    public void mergeByOriginalRowKey() throws Exception {
+        // bucket i holds the keys i, i + 4, i + 8 ...
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketScanners[bucket] = new BucketScanner(bucket, keys(bucket, 20, BUCKETS));
+        }
+
+        final ParallelResultScanner scanner = newScanner(10, BUCKETS);
+        try {
+            for (int expected = 0; expected < 20; expected++) {
+                final Result result = scanner.next();
+                Assert.assertNotNull("row " + expected, result);
+                Assert.assertEquals(expected, originalKey(result));
+            }
+            Assert.assertNull(scanner.next());
+        } finally {
+            scanner.close();
+        }
+    }
+
+    @Test
+    public void mergeByOriginalRowKey_tasksWithSeveralBuckets() throws Exception {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketScanners[bucket] = new BucketScanner(bucket, keys(bucket, 20, BUCKETS));
+        }
+
+        // two tasks, each merges two buckets with a DistributedScanner
+        final ParallelResultScanner scanner = newScanner(10, 2);
+        try {
+            final List<Integer> keys = new ArrayList<>();
+            for (Result result : scanner) {
+                keys.add(originalKey(result));
+            }
+            Assert.assertEquals(keys(0, 20, 1), keys);
+        } finally {
+            scanner.close();
+        }
+    }
+
+    @Test
+    public void stopAtLimit() throws Exception {
+        final int rowsPerBucket = 1000;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketScanners[bucket] = new BucketScanner(bucket, keys(bucket, rowsPerBucket * BUCKETS, BUCKETS));
+        }
+
+        final int limit = 10;
+        final ParallelResultScanner scanner = newScanner(limit, BUCKETS);
+        final List<Integer> keys;
+        try {
+            keys = new LimitRowMapperResultsExtractor<>(ORIGINAL_KEY_MAPPER, limit).extractData(scanner);
+        } finally {
+            scanner.close();
+        }
+        Assert.assertEquals(keys(0, limit, 1), keys);
+
+        for (BucketScanner bucketScanner : bucketScanners) {
+            // close() releases a task blocked on its full queue, so every scan thread finishes
+            verify(bucketScanner.scanner, timeout(5000)).close();
+            Assert.assertTrue("bucket " + bucketScanner.bucket + " read " + bucketScanner.consumed.get(), bucketScanner.consumed.get() < rowsPerBucket);
+        }
+    }
+
+    @Test
+    public void endMarker() throws Exception {
+        bucketScanners[0] = new BucketScanner(0, keys(0, 8, BUCKETS));
+        bucketScanners[1] = new BucketScanner(1, new ArrayList<Integer>());
+        bucketScanners[2] = new BucketScanner(2, keys(2, 8, BUCKETS));
+        bucketScanners[3] = new BucketScanner(3, new ArrayList<Integer>());
+
+        final ParallelResultScanner scanner = newScanner(10, BUCKETS);
+        try {
+            Assert.assertEquals(0, originalKey(scanner.next()));
+            Assert.assertEquals(2, originalKey(scanner.next()));
+            Assert.assertEquals(4, originalKey(scanner.next()));
+            Assert.assertEquals(6, originalKey(scanner.next()));
+            Assert.assertNull(scanner.next());
+            // every task returned its end marker, asking again must not block
+            Assert.assertNull(scanner.next());
+            Assert.assertEquals(0, scanner.next(10).length);
+        } finally {
+            scanner.close();
+        }
+        for (BucketScanner bucketScanner : bucketScanners) {
+            verify(bucketScanner.scanner, timeout(5000)).close();
+        }
+    }
+
+    @Test
+    public void failedScanTask() throws Exception {
+        final IOException failure = new IOException("bucket 2 failed");
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketScanners[bucket] = new BucketScanner(bucket, keys(bucket, 20, BUCKETS));
+        }
+        bucketScanners[2].failure = failure;
+
+        final ParallelResultScanner scanner = newScanner(10, BUCKETS);
+        try {
+            // the failed task ends with an end marker as well, it must not pass for a bucket without rows
+            for (int i = 0; i < 20; i++) {
+                scanner.next();
+            }
+            Assert.fail("ScanTaskException expected");
+        } catch (ScanTaskException e) {
+            Assert.assertSame(failure, e.getCause());
+        } finally {
+            scanner.close();
+        }
+    }
+
+    @Test
+    public void failedScanTask_hbaseTemplate() throws Exception {
+        final IOException failure = new IOException("bucket 1 failed");
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketScanners[bucket] = new BucketScanner(bucket, keys(bucket, 20, BUCKETS));
+        }
+        bucketScanners[1].failure = failure;
+        hbaseTemplate.setEnableParallelScan(true);
+        hbaseTemplate.setMaxThreadsPerParallelScan(BUCKETS);
+        hbaseTemplate.afterPropertiesSet();
+
+        try {
+            hbaseTemplate.findParallel(TABLE_NAME, newScan(10), keyDistributor, 5, ORIGINAL_KEY_MAPPER, BUCKETS);
+            Assert.fail("HbaseSystemException expected");
+        } catch (RuntimeException e) {
+            Assert.assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void limitCaching() throws Exception {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketScanners[bucket] = new BucketScanner(bucket, keys(bucket, 400, BUCKETS));
+        }
+        hbaseTemplate.setEnableParallelScan(true);
+        hbaseTemplate.setMaxThreadsPerParallelScan(BUCKETS);
+        hbaseTemplate.afterPropertiesSet();
+
+        Assert.assertEquals(BUCKETS, hbaseTemplate.getParallelScanThreads(16));
+        Assert.assertEquals(2, hbaseTemplate.getParallelScanThreads(2));
+        Assert.assertEquals(1, hbaseTemplate.getParallelScanThreads(1));
+
+        final Scan scan = newScan(256);
+        final List<Integer> keys = hbaseTemplate.findParallel(TABLE_NAME, scan, keyDistributor, 5, ORIGINAL_KEY_MAPPER, 16);
+        Assert.assertEquals(keys(0, 5, 1), keys);
+        // the caller's scan is left alone
+        Assert.assertEquals(256, scan.getCaching());
+        Assert.assertEquals(BUCKETS, requestedScans.size());
+        for (Scan bucketScan : requestedScans) {
+            Assert.assertEquals(5, bucketScan.getCaching());
+        }
+
+        requestedScans.clear();
+        final Scan smallCachingScan = newScan(3);
+        hbaseTemplate.findParallel(TABLE_NAME, smallCachingScan, keyDistributor, 5, ORIGINAL_KEY_MAPPER, 16);
+        for (Scan bucketScan : requestedScans) {
+            Assert.assertEquals(3, bucketScan.getCaching());
+        }
+    }
+
+    @Test
+    public void parallelScanDisabled() throws Exception {
+        hbaseTemplate.setEnableParallelScan(false);
+        hbaseTemplate.setMaxThreadsPerParallelScan(BUCKETS);
+        hbaseTemplate.afterPropertiesSet();
+
+        Assert.assertEquals(1, hbaseTemplate.getParallelScanThreads(16));
+    }
+
+    @Test(timeout = 10000)
+    public void closeReleasesBlockedScanTask() throws Exception {
+        bucketScanners[0] = new BucketScanner(0, keys(0, 100, 1));
+        final ScanTaskConfig scanTaskConfig = new ScanTaskConfig(TABLE_NAME, hbaseTemplate, keyDistributor, 1);
+        final Scan scan = newScan(1);
+        scan.setStartRow(new byte[] {0});
+        final ScanTask scanTask = new ScanTask(scanTaskConfig, scan);
+        executor.execute(scanTask);
+
+        Assert.assertEquals(0, originalKey(scanTask.getResult()));
+        // the queue holds a single result, the scan thread is blocked on the next one
+        scanTask.close();
+
+        verify(bucketScanners[0].scanner, timeout(5000)).close();
+        Assert.assertNull(scanTask.getThrowable());
+    }
+
+    private ParallelResultScanner newScanner(int caching, int numParallelThreads) throws IOException {
+        return new ParallelResultScanner(TABLE_NAME, hbaseTemplate, executor, newScan(caching), keyDistributor, numParallelThreads);
+    }
+
+    private Scan newScan(int caching) {
+        final Scan scan = new Scan();
+        scan.setCaching(caching);
+        scan.setId("ParallelResultScannerTest");
+        return scan;
+    }
+
+    private static List<Integer> keys(int from, int to, int step) {
+        final List<Integer> keys = new ArrayList<>();
+        for (int key = from; key < to; key += step) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    private static int originalKey(Result result) {
+        return Bytes.toInt(result.getRow(), 1);
+    }
+
+    private static Result newResult(int bucket, int originalKey) {
+        final byte[] row = Bytes.add(new byte[] {(byte) bucket}, Bytes.toBytes(originalKey));
+        return Result.create(new Cell[] {new KeyValue(row, FAMILY, QUALIFIER, Bytes.toBytes(originalKey))});
+    }
+
+    private static class BucketScanner {
+        private final int bucket;
+        private final ResultScanner scanner = mock(ResultScanner.class);
+        private final AtomicInteger consumed = new AtomicInteger();
+        private volatile IOException failure;
+
+        private BucketScanner(int bucket, List<Integer> originalKeys) throws IOException {
+            this.bucket = bucket;
+            final List<Result> results = new ArrayList<>(originalKeys.size());
+            for (Integer originalKey : originalKeys) {
+                results.add(newResult(bucket, originalKey));
+            }
+            final Iterator<Result> iterator = results.iterator();
+            final Answer<Result> nextAnswer = new Answer<Result>() {
+                @Override
+                public Result answer(InvocationOnMock invocation) throws Throwable {
+                    if (!iterator.hasNext()) {
+                        return null;
+                    }
+                    consumed.incrementAndGet();
+                    return iterator.next();
+                }
+            };
+            when(scanner.next()).thenAnswer(nextAnswer);
+            // DistributedScanner reads in chunks
+            when(scanner.next(anyInt())).thenAnswer(new Answer<Result[]>() {
+                @Override
+                public Result[] answer(InvocationOnMock invocation) throws Throwable {
+                    final int nbRows = (Integer) invocation.getArguments()[0];
+                    final List<Result> chunk = new ArrayList<>(nbRows);
+                    while (chunk.size() < nbRows && iterator.hasNext()) {
+                        consumed.incrementAndGet();
+                        chunk.add(iterator.next());
+                    }
+                    return chunk.toArray(new Result[chunk.size()]);
+                }
+            });
+            when(scanner.iterator()).thenAnswer(new Answer<Iterator<Result>>() {
+                @Override
+                public Iterator<Result> answer(InvocationOnMock invocation) throws Throwable {
+                    return new Iterator<Result>() {
+                        private Result next;
+
+                        @Override
+                        public boolean hasNext() {
+                            if (next == null) {
+                                try {
+                                    next = scanner.next();
+                                } catch (IOException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                            return next != null;
+                        }
+
+                        @Override
+                        public Result next() {
+                            if (!hasNext()) {
+                                return null;
+                            }
+                            final Result result = next;
+                            next = null;
+                            return result;
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo;
+
+import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.thrift.dto.TActiveTrace;
+import com.navercorp.pinpoint.thrift.dto.TActiveTraceHistogram;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
+import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+import com.navercorp.pinpoint.thrift.dto.TJvmGcType;
+import com.navercorp.pinpoint.thrift.dto.TTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packs a bucket of agent stat samples into a single cell.
+ * Values are stored column by column so that each column can be delta encoded against the previous sample,
+ * which keeps slowly changing values such as heap max or gc count down to a byte or two.
+ *
+ * <pre>
+ * version(1) | count(vint) | timestamp(vlong, svlong deltas...) | collectInterval(svlong deltas...) | flags(1 per sample)
+ * | gc columns | cpu columns | transaction columns | active trace histograms
+ * </pre>
+ */
+public class AgentStatBucketCodec {
+
+    public static final byte VERSION = 1;
+
+    /**
+     * the largest time span a single bucket may cover. readers should widen their scan by this amount.
+     */
+    public static final long MAX_BUCKET_SPAN = TimeUnit.MINUTES.toMillis(1);
+
+    private static final int FLAG_GC = 1;
+    private static final int FLAG_CPU_LOAD = 1 << 1;
+    private static final int FLAG_TRANSACTION = 1 << 2;
+    private static final int FLAG_ACTIVE_TRACE_HISTOGRAM = 1 << 3;
+
+    /**
+     * Splits time ordered samples into buckets, each starting at its first sample and spanning less than {@link #MAX_BUCKET_SPAN}.
+     */
+    public List<List<TAgentStat>> split(List<TAgentStat> agentStats) {
+        if (agentStats == null) {
+            throw new NullPointerException("agentStats must not be null");
+        }
+        final List<List<TAgentStat>> buckets = new ArrayList<List<TAgentStat>>();
+        List<TAgentStat> bucket = null;
+        long bucketTimestamp = 0;
+        for (TAgentStat agentStat : agentStats) {
+            final long timestamp = agentStat.getTimestamp();
+            if (bucket == null || timestamp < bucketTimestamp || timestamp - bucketTimestamp >= MAX_BUCKET_SPAN) {
+                bucket = new ArrayList<TAgentStat>();
+                buckets.add(bucket);
+                bucketTimestamp = timestamp;
+            }
+            bucket.add(agentStat);
+        }
+        return buckets;
+    }
+
+    public byte[] encode(List<TAgentStat> agentStats) {
+        if (agentStats == null) {
+            throw new NullPointerException("agentStats must not be null");
+        }
+        final int size = agentStats.size();
+        final Buffer buffer = new AutomaticBuffer(16 + size * 32);
+        buffer.putByte(VERSION);
+        buffer.putVInt(size);
+        if (size == 0) {
+            return buffer.getBuffer();
+        }
+
+        final long[] timestamps = new long[size];
+        final long[] collectIntervals = new long[size];
+        for (int i = 0; i < size; i++) {
+            final TAgentStat agentStat = agentStats.get(i);
+            timestamps[i] = agentStat.getTimestamp();
+            collectIntervals[i] = agentStat.getCollectInterval();
+        }
+        buffer.putVLong(timestamps[0]);
+        putDeltaColumn(buffer, timestamps, 1, size - 1, timestamps[0]);
+        putDeltaColumn(buffer, collectIntervals, 0, size, 0);
+
+        int gcCount = 0;
+        int cpuLoadCount = 0;
+        int transactionCount = 0;
+        for (TAgentStat agentStat : agentStats) {
+            final int flags = getFlags(agentStat);
+            buffer.putByte((byte) flags);
+            if ((flags & FLAG_GC) != 0) {
+                gcCount++;
+            }
+            if ((flags & FLAG_CPU_LOAD) != 0) {
+                cpuLoadCount++;
+            }
+            if ((flags & FLAG_TRANSACTION) != 0) {
+                transactionCount++;
+            }
+        }
+
+        if (gcCount > 0) {
+            final long[][] gcColumns = new long[6][gcCount];
+            int index = 0;
+            for (TAgentStat agentStat : agentStats) {
+                if (!agentStat.isSetGc()) {
+                    continue;
+                }
+                final TJvmGc gc = agentStat.getGc();
+                final TJvmGcType gcType = gc.getType() == null ? TJvmGcType.UNKNOWN : gc.getType();
+                buffer.putVInt(gcType.getValue());
+                gcColumns[0][index] = gc.getJvmGcOldCount();
+                gcColumns[1][index] = gc.getJvmGcOldTime();
+                gcColumns[2][index] = gc.getJvmMemoryHeapUsed();
+                gcColumns[3][index] = gc.getJvmMemoryHeapMax();
+                gcColumns[4][index] = gc.getJvmMemoryNonHeapUsed();
+                gcColumns[5][index] = gc.getJvmMemoryNonHeapMax();
+                index++;
+            }
+            for (long[] gcColumn : gcColumns) {
+                putDeltaColumn(buffer, gcColumn, 0, gcCount, 0);
+            }
+        }
+
+        if (cpuLoadCount > 0) {
+            final long[][] cpuLoadColumns = new long[2][cpuLoadCount];
+            int index = 0;
+            for (TAgentStat agentStat : agentStats) {
+                if (!agentStat.isSetCpuLoad()) {
+                    continue;
+                }
+                final TCpuLoad cpuLoad = agentStat.getCpuLoad();
+                cpuLoadColumns[0][index] = Double.doubleToLongBits(cpuLoad.getJvmCpuLoad());
+                cpuLoadColumns[1][index] = Double.doubleToLongBits(cpuLoad.getSystemCpuLoad());
+                index++;
+            }
+            for (long[] cpuLoadColumn : cpuLoadColumns) {
+                putXorColumn(buffer, cpuLoadColumn, cpuLoadCount);
+            }
+        }
+
+        if (transactionCount > 0) {
+            final long[][] transactionColumns = new long[4][transactionCount];
+            int index = 0;
+            for (TAgentStat agentStat : agentStats) {
+                if (!agentStat.isSetTransaction()) {
+                    continue;
+                }
+                final TTransaction transaction = agentStat.getTransaction();
+                transactionColumns[0][index] = transaction.getSampledNewCount();
+                transactionColumns[1][index] = transaction.getSampledContinuationCount();
+                transactionColumns[2][index] = transaction.getUnsampledNewCount();
+                transactionColumns[3][index] = transaction.getUnsampledContinuationCount();
+                index++;
+            }
+            for (long[] transactionColumn : transactionColumns) {
+                putDeltaColumn(buffer, transactionColumn, 0, transactionCount, 0);
+            }
+        }
+
+        for (TAgentStat agentStat : agentStats) {
+            if (!isSetActiveTraceHistogram(agentStat)) {
+                continue;
+            }
+            final TActiveTraceHistogram histogram = agentStat.getActiveTrace().getHistogram();
+            buffer.putVInt(histogram.getVersion());
+            buffer.putSVInt(histogram.getHistogramSchemaType());
+            if (histogram.isSetActiveTraceCount()) {
+                final List<Integer> activeTraceCounts = histogram.getActiveTraceCount();
+                buffer.putSVInt(activeTraceCounts.size());
+                for (Integer activeTraceCount : activeTraceCounts) {
+                    buffer.putVInt(activeTraceCount == null ? 0 : activeTraceCount);
+                }
+            } else {
+                buffer.putSVInt(-1);
+            }
+        }
+        return buffer.getBuffer();
+    }
+
+    public List<TAgentStat> decode(byte[] value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        final Buffer buffer = new FixedBuffer(value);
+        final byte version = buffer.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported agent stat bucket version:" + version);
+        }
+        final int size = buffer.readVInt();
+        final List<TAgentStat> agentStats = new ArrayList<TAgentStat>(size);
+        if (size == 0) {
+            return agentStats;
+        }
+
+        final long[] timestamps = new long[size];
+        timestamps[0] = buffer.readVLong();
+        readDeltaColumn(buffer, timestamps, 1, size - 1, timestamps[0]);
+        final long[] collectIntervals = new long[size];
+        readDeltaColumn(buffer, collectIntervals, 0, size, 0);
+
+        final int[] flags = new int[size];
+        int gcCount = 0;
+        int cpuLoadCount = 0;
+        int transactionCount = 0;
+        for (int i = 0; i < size; i++) {
+            flags[i] = buffer.readByte();
+            if ((flags[i] & FLAG_GC) != 0) {
+                gcCount++;
+            }
+            if ((flags[i] & FLAG_CPU_LOAD) != 0) {
+                cpuLoadCount++;
+            }
+            if ((flags[i] & FLAG_TRANSACTION) != 0) {
+                transactionCount++;
+            }
+        }
+
+        final int[] gcTypes = new int[gcCount];
+        final long[][] gcColumns = new long[6][gcCount];
+        if (gcCount > 0) {
+            for (int i = 0; i < gcCount; i++) {
+                gcTypes[i] = buffer.readVInt();
+            }
+            for (long[] gcColumn : gcColumns) {
+                readDeltaColumn(buffer, gcColumn, 0, gcCount, 0);
+            }
+        }
+        final long[][] cpuLoadColumns = new long[2][cpuLoadCount];
+        if (cpuLoadCount > 0) {
+            for (long[] cpuLoadColumn : cpuLoadColumns) {
+                readXorColumn(buffer, cpuLoadColumn, cpuLoadCount);
+            }
+        }
+        final long[][] transactionColumns = new long[4][transactionCount];
+        if (transactionCount > 0) {
+            for (long[] transactionColumn : transactionColumns) {
+                readDeltaColumn(buffer, transactionColumn, 0, transactionCount, 0);
+            }
+        }
+
+        int gcIndex = 0;
+        int cpuLoadIndex = 0;
+        int transactionIndex = 0;
+        for (int i = 0; i < size; i++) {
+            final TAgentStat agentStat = new TAgentStat();
+            agentStat.setTimestamp(timestamps[i]);
+            agentStat.setCollectInterval(collectIntervals[i]);
+            if ((flags[i] & FLAG_GC) != 0) {
+                final TJvmGc gc = new TJvmGc();
+                final TJvmGcType gcType = TJvmGcType.findByValue(gcTypes[gcIndex]);
+                gc.setType(gcType == null ? TJvmGcType.UNKNOWN : gcType);
+                gc.setJvmGcOldCount(gcColumns[0][gcIndex]);
+                gc.setJvmGcOldTime(gcColumns[1][gcIndex]);
+                gc.setJvmMemoryHeapUsed(gcColumns[2][gcIndex]);
+                gc.setJvmMemoryHeapMax(gcColumns[3][gcIndex]);
+                gc.setJvmMemoryNonHeapUsed(gcColumns[4][gcIndex]);
+                gc.setJvmMemoryNonHeapMax(gcColumns[5][gcIndex]);
+                agentStat.setGc(gc);
+                gcIndex++;
+            }
+            if ((flags[i] & FLAG_CPU_LOAD) != 0) {
+                final TCpuLoad cpuLoad = new TCpuLoad();
+                cpuLoad.setJvmCpuLoad(Double.longBitsToDouble(cpuLoadColumns[0][cpuLoadIndex]));
+                cpuLoad.setSystemCpuLoad(Double.longBitsToDouble(cpuLoadColumns[1][cpuLoadIndex]));
+                agentStat.setCpuLoad(cpuLoad);
+                cpuLoadIndex++;
+            }
+            if ((flags[i] & FLAG_TRANSACTION) != 0) {
+                final TTransaction transaction = new TTransaction();
+                transaction.setSampledNewCount(transactionColumns[0][transactionIndex]);
+                transaction.setSampledContinuationCount(transactionColumns[1][transactionIndex]);
+                transaction.setUnsampledNewCount(transactionColumns[2][transactionIndex]);
+                transaction.setUnsampledContinuationCount(transactionColumns[3][transactionIndex]);
+                agentStat.setTransaction(transaction);
+                transactionIndex++;
+            }
+            agentStats.add(agentStat);
+        }
+
+        for (int i = 0; i < size; i++) {
+            if ((flags[i] & FLAG_ACTIVE_TRACE_HISTOGRAM) == 0) {
+                continue;
+            }
+            final TActiveTraceHistogram histogram = new TActiveTraceHistogram();
+            histogram.setVersion((short) buffer.readVInt());
+            histogram.setHistogramSchemaType(buffer.readSVInt());
+            final int activeTraceCountSize = buffer.readSVInt();
+            if (activeTraceCountSize >= 0) {
+                final List<Integer> activeTraceCounts = new ArrayList<Integer>(activeTraceCountSize);
+                for (int j = 0; j < activeTraceCountSize; j++) {
+                    activeTraceCounts.add(buffer.readVInt());
+                }
+                histogram.setActiveTraceCount(activeTraceCounts);
+            }
+            final TActiveTrace activeTrace = new TActiveTrace();
+            activeTrace.setHistogram(histogram);
+            agentStats.get(i).setActiveTrace(activeTrace);
+        }
+        return agentStats;
+    }
+
+    private int getFlags(TAgentStat agentStat) {
+        int flags = 0;
+        if (agentStat.isSetGc()) {
+            flags |= FLAG_GC;
+        }
+        if (agentStat.isSetCpuLoad()) {
+            flags |= FLAG_CPU_LOAD;
+        }
+        if (agentStat.isSetTransaction()) {
+            flags |= FLAG_TRANSACTION;
+        }
+        if (isSetActiveTraceHistogram(agentStat)) {
+            flags |= FLAG_ACTIVE_TRACE_HISTOGRAM;
+        }
+        return flags;
+    }
+
+    private boolean isSetActiveTraceHistogram(TAgentStat agentStat) {
+        return agentStat.isSetActiveTrace() && agentStat.getActiveTrace().isSetHistogram();
+    }
+
+    private void putDeltaColumn(Buffer buffer, long[] column, int offset, int length, long previous) {
+        for (int i = offset; i < offset + length; i++) {
+            buffer.putSVLong(column[i] - previous);
+            previous = column[i];
+        }
+    }
+
+    private void readDeltaColumn(Buffer buffer, long[] column, int offset, int length, long previous) {
+        for (int i = offset; i < offset + length; i++) {
+            previous += buffer.readSVLong();
+            column[i] = previous;
+        }
+    }
+
+    /**
+     * doubles that are close to each other share their sign, exponent and leading mantissa bits,
+     * so xor-ing them with the previous value leaves only the low bits set.
+     */
+    private void putXorColumn(Buffer buffer, long[] column, int length) {
+        long previous = 0;
+        for (int i = 0; i < length; i++) {
+            buffer.putVLong(column[i] ^ previous);
+            previous = column[i];
+        }
+    }
+
+    private void readXorColumn(Buffer buffer, long[] column, int length) {
+        long previous = 0;
+        for (int i = 0; i < length; i++) {
+            previous ^= buffer.readVLong();
+            column[i] = previous;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo;
+
+import com.navercorp.pinpoint.common.PinpointConstants;
+import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.common.trace.SlotType;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.navercorp.pinpoint.thrift.dto.TActiveTraceHistogram;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
+import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+import com.navercorp.pinpoint.thrift.dto.TTransaction;
+
+import java.util.Map;
+
+/**
+ * min/max/sum/count of every agent stat metric collected within one rollup window.
+ * Each collector writes its own part of a window, and the parts are combined with {@link #merge(AgentStatRollupBo)} on read.
+ * Not thread-safe.
+ */
+public class AgentStatRollupBo {
+
+    private static final byte VERSION = 0;
+
+    private static final int NO_HISTOGRAM_SCHEMA = -1;
+
+    private final String agentId;
+    private final AgentStatRollupType type;
+    private final long timestamp;
+
+    private String gcType;
+    private int histogramSchemaType = NO_HISTOGRAM_SCHEMA;
+    private long lastSampleTimestamp = Long.MIN_VALUE;
+
+    private final Metric heapUsed = new Metric();
+    private final Metric heapMax = new Metric();
+    private final Metric nonHeapUsed = new Metric();
+    private final Metric nonHeapMax = new Metric();
+    private final Metric gcOldCount = new Metric();
+    private final Metric gcOldTime = new Metric();
+    private final Metric jvmCpuLoad = new Metric();
+    private final Metric systemCpuLoad = new Metric();
+    private final Metric sampledNewCount = new Metric();
+    private final Metric sampledContinuationCount = new Metric();
+    private final Metric unsampledNewCount = new Metric();
+    private final Metric unsampledContinuationCount = new Metric();
+    private final Metric activeTraceFast = new Metric();
+    private final Metric activeTraceNormal = new Metric();
+    private final Metric activeTraceSlow = new Metric();
+    private final Metric activeTraceVerySlow = new Metric();
+
+    public AgentStatRollupBo(String agentId, AgentStatRollupType type, long timestamp) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type must not be null");
+        }
+        this.agentId = agentId;
+        this.type = type;
+        this.timestamp = type.getWindowStart(timestamp);
+    }
+
+    public AgentStatRollupBo(byte[] rowKey, byte[] value) {
+        if (rowKey == null) {
+            throw new NullPointerException("rowKey must not be null");
+        }
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        final Buffer keyBuffer = new FixedBuffer(rowKey);
+        this.agentId = keyBuffer.readPadStringAndRightTrim(PinpointConstants.AGENT_NAME_MAX_LEN);
+        final byte typeCode = keyBuffer.readByte();
+        this.type = AgentStatRollupType.findByCode(typeCode);
+        if (this.type == null) {
+            throw new IllegalArgumentException("unknown agent stat rollup type:" + typeCode);
+        }
+        this.timestamp = TimeUtils.recoveryTimeMillis(keyBuffer.readLong());
+
+        final Buffer buffer = new FixedBuffer(value);
+        final byte version = buffer.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported agent stat rollup version:" + version);
+        }
+        this.lastSampleTimestamp = buffer.readLong();
+        this.gcType = buffer.readPrefixedString();
+        this.histogramSchemaType = buffer.readSVInt();
+        for (Metric metric : metrics()) {
+            metric.read(buffer);
+        }
+    }
+
+    /**
+     * agentId + rollup type + reversed window start, so that one agent's windows of the same resolution are scanned latest first
+     */
+    public static byte[] createRowKey(String agentId, AgentStatRollupType type, long timestamp) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        if (type == null) {
+            throw new NullPointerException("type must not be null");
+        }
+        final Buffer buffer = new FixedBuffer(PinpointConstants.AGENT_NAME_MAX_LEN + 1 + 8);
+        buffer.putPadBytes(BytesUtils.toBytes(agentId), PinpointConstants.AGENT_NAME_MAX_LEN);
+        buffer.putByte(type.getCode());
+        buffer.putLong(TimeUtils.reverseTimeMillis(timestamp));
+        return buffer.getBuffer();
+    }
+
+    public byte[] writeRowKey() {
+        return createRowKey(agentId, type, timestamp);
+    }
+
+    public void add(TAgentStat agentStat) {
+        if (agentStat == null) {
+            throw new NullPointerException("agentStat must not be null");
+        }
+        final boolean latest = agentStat.getTimestamp() >= lastSampleTimestamp;
+        if (latest) {
+            lastSampleTimestamp = agentStat.getTimestamp();
+        }
+        if (agentStat.isSetGc()) {
+            final TJvmGc gc = agentStat.getGc();
+            if (latest && gc.getType() != null) {
+                gcType = gc.getType().name();
+            }
+            heapUsed.add(gc.getJvmMemoryHeapUsed());
+            heapMax.add(gc.getJvmMemoryHeapMax());
+            nonHeapUsed.add(gc.getJvmMemoryNonHeapUsed());
+            nonHeapMax.add(gc.getJvmMemoryNonHeapMax());
+            gcOldCount.add(gc.getJvmGcOldCount());
+            gcOldTime.add(gc.getJvmGcOldTime());
+        }
+        if (agentStat.isSetCpuLoad()) {
+            final TCpuLoad cpuLoad = agentStat.getCpuLoad();
+            // negative load means the agent could not measure it
+            if (cpuLoad.isSetJvmCpuLoad() && cpuLoad.getJvmCpuLoad() >= 0) {
+                jvmCpuLoad.add(cpuLoad.getJvmCpuLoad());
+            }
+            if (cpuLoad.isSetSystemCpuLoad() && cpuLoad.getSystemCpuLoad() >= 0) {
+                systemCpuLoad.add(cpuLoad.getSystemCpuLoad());
+            }
+        }
+        if (agentStat.isSetTransaction()) {
+            final TTransaction transaction = agentStat.getTransaction();
+            sampledNewCount.add(transaction.getSampledNewCount());
+            sampledContinuationCount.add(transaction.getSampledContinuationCount());
+            unsampledNewCount.add(transaction.getUnsampledNewCount());
+            unsampledContinuationCount.add(transaction.getUnsampledContinuationCount());
+        }
+        if (agentStat.isSetActiveTrace() && agentStat.getActiveTrace().isSetHistogram()) {
+            final TActiveTraceHistogram histogram = agentStat.getActiveTrace().getHistogram();
+            final ActiveTraceHistogramBo activeTraceHistogramBo = new ActiveTraceHistogramBo(histogram.getVersion(), histogram.getHistogramSchemaType(), histogram.getActiveTraceCount());
+            final Map<SlotType, Integer> activeTraceCountMap = activeTraceHistogramBo.getActiveTraceCountMap();
+            if (!activeTraceCountMap.isEmpty()) {
+                if (latest) {
+                    histogramSchemaType = activeTraceHistogramBo.getHistogramSchemaType();
+                }
+                activeTraceFast.add(activeTraceCountMap.get(SlotType.FAST));
+                activeTraceNormal.add(activeTraceCountMap.get(SlotType.NORMAL));
+                activeTraceSlow.add(activeTraceCountMap.get(SlotType.SLOW));
+                activeTraceVerySlow.add(activeTraceCountMap.get(SlotType.VERY_SLOW));
+            }
+        }
+    }
+
+    /**
+     * adds the samples of another part of the same window. gc type and histogram schema are taken from the part with the latest sample
+     */
+    public void merge(AgentStatRollupBo other) {
+        if (other == null) {
+            throw new NullPointerException("other must not be null");
+        }
+        if (!agentId.equals(other.agentId) || type != other.type || timestamp != other.timestamp) {
+            throw new IllegalArgumentException("different rollup window. " + this + " " + other);
+        }
+        if (other.lastSampleTimestamp >= lastSampleTimestamp) {
+            lastSampleTimestamp = other.lastSampleTimestamp;
+            if (other.gcType != null) {
+                gcType = other.gcType;
+            }
+            if (other.histogramSchemaType != NO_HISTOGRAM_SCHEMA) {
+                histogramSchemaType = other.histogramSchemaType;
+            }
+        }
+        final Metric[] metrics = metrics();
+        final Metric[] otherMetrics = other.metrics();
+        for (int i = 0; i < metrics.length; i++) {
+            metrics[i].merge(otherMetrics[i]);
+        }
+    }
+
+    public byte[] writeValue() {
+        final Buffer buffer = new AutomaticBuffer(256);
+        buffer.putByte(VERSION);
+        buffer.putLong(lastSampleTimestamp);
+        buffer.putPrefixedString(gcType);
+        buffer.putSVInt(histogramSchemaType);
+        for (Metric metric : metrics()) {
+            metric.write(buffer);
+        }
+        return buffer.getBuffer();
+    }
+
+    private Metric[] metrics() {
+        return new Metric[] {
+                heapUsed, heapMax, nonHeapUsed, nonHeapMax, gcOldCount, gcOldTime,
+                jvmCpuLoad, systemCpuLoad,
+                sampledNewCount, sampledContinuationCount, unsampledNewCount, unsampledContinuationCount,
+                activeTraceFast, activeTraceNormal, activeTraceSlow, activeTraceVerySlow
+        };
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public AgentStatRollupType getType() {
+        return type;
+    }
+
+    /**
+     * @return start of the rollup window
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getGcType() {
+        return gcType;
+    }
+
+    /**
+     * @return histogram schema type code of the active trace metrics, or -1 if none were collected
+     */
+    public int getHistogramSchemaType() {
+        return histogramSchemaType;
+    }
+
+    public Metric getHeapUsed() {
+        return heapUsed;
+    }
+
+    public Metric getHeapMax() {
+        return heapMax;
+    }
+
+    public Metric getNonHeapUsed() {
+        return nonHeapUsed;
+    }
+
+    public Metric getNonHeapMax() {
+        return nonHeapMax;
+    }
+
+    public Metric getGcOldCount() {
+        return gcOldCount;
+    }
+
+    public Metric getGcOldTime() {
+        return gcOldTime;
+    }
+
+    public Metric getJvmCpuLoad() {
+        return jvmCpuLoad;
+    }
+
+    public Metric getSystemCpuLoad() {
+        return systemCpuLoad;
+    }
+
+    public Metric getSampledNewCount() {
+        return sampledNewCount;
+    }
+
+    public Metric getSampledContinuationCount() {
+        return sampledContinuationCount;
+    }
+
+    public Metric getUnsampledNewCount() {
+        return unsampledNewCount;
+    }
+
+    public Metric getUnsampledContinuationCount() {
+        return unsampledContinuationCount;
+    }
+
+    public Metric getActiveTraceFast() {
+        return activeTraceFast;
+    }
+
+    public Metric getActiveTraceNormal() {
+        return activeTraceNormal;
+    }
+
+    public Metric getActiveTraceSlow() {
+        return activeTraceSlow;
+    }
+
+    public Metric getActiveTraceVerySlow() {
+        return activeTraceVerySlow;
+    }
+
+    @Override
+    public String toString() {
+        return "AgentStatRollupBo{" +
+                "agentId='" + agentId + '\'' +
+                ", type=" + type +
+                ", timestamp=" + timestamp +
+                ", gcType='" + gcType + '\'' +
+                ", heapUsed=" + heapUsed +
+                ", jvmCpuLoad=" + jvmCpuLoad +
+                ", sampledNewCount=" + sampledNewCount +
+                '}';
+    }
+
+    public static class Metric {
+
+        private long count;
+        private double min;
+        private double max;
+        private double sum;
+
+        void add(double value) {
+            if (count == 0) {
+                min = value;
+                max = value;
+            } else {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            sum += value;
+            count++;
+        }
+
+        void merge(Metric other) {
+            if (other.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                min = other.min;
+                max = other.max;
+            } else {
+                min = Math.min(min, other.min);
+                max = Math.max(max, other.max);
+            }
+            sum += other.sum;
+            count += other.count;
+        }
+
+        void write(Buffer buffer) {
+            buffer.putVLong(count);
+            if (count > 0) {
+                buffer.putDouble(min);
+                buffer.putDouble(max);
+                buffer.putDouble(sum);
+            }
+        }
+
+        void read(Buffer buffer) {
+            count = buffer.readVLong();
+            if (count > 0) {
+                min = buffer.readDouble();
+                max = buffer.readDouble();
+                sum = buffer.readDouble();
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        public double getAvg() {
+            if (count == 0) {
+                return 0;
+            }
+            return sum / count;
+        }
+
+        @Override
+        public String toString() {
+            return "{count=" + count + ", min=" + min + ", max=" + max + ", sum=" + sum + '}';
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolutions at which agent stats are rolled up, finest first.
+ */
+public enum AgentStatRollupType {
+
+    MINUTE((byte) 1, TimeUnit.MINUTES.toMillis(1)),
+    HOUR((byte) 2, TimeUnit.HOURS.toMillis(1));
+
+    private final byte code;
+    private final long resolution;
+
+    AgentStatRollupType(byte code, long resolution) {
+        this.code = code;
+        this.resolution = resolution;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public long getResolution() {
+        return resolution;
+    }
+
+    public long getWindowStart(long timestamp) {
+        return timestamp - (timestamp % resolution);
+    }
+
+    public static AgentStatRollupType findByCode(byte code) {
+        for (AgentStatRollupType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the coarsest resolution that still gives every slot of {@code slotSize} at least one sample,
+     * or null if even the finest rollup is too coarse.
+     */
+    public static AgentStatRollupType getCoarsest(long slotSize) {
+        AgentStatRollupType coarsest = null;
+        for (AgentStatRollupType type : values()) {
+            if (type.resolution <= slotSize) {
+                coarsest = type;
+            }
+        }
+        return coarsest;
+    }
+}
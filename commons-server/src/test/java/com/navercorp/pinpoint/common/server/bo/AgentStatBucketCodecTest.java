@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo;
+
+import static org.junit.Assert.*;
+
+import com.navercorp.pinpoint.thrift.dto.TActiveTrace;
+import com.navercorp.pinpoint.thrift.dto.TActiveTraceHistogram;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
+import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+import com.navercorp.pinpoint.thrift.dto.TJvmGcType;
+import com.navercorp.pinpoint.thrift.dto.TTransaction;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class AgentStatBucketCodecTest {
+
+    private final AgentStatBucketCodec codec = new AgentStatBucketCodec();
+
+    @Test
+    public void encodeDecode() {
+        final long timestamp = System.currentTimeMillis();
+        final List<TAgentStat> agentStats = new ArrayList<TAgentStat>();
+        for (int i = 0; i < 6; i++) {
+            TAgentStat agentStat = new TAgentStat();
+            agentStat.setTimestamp(timestamp + i * 5000 + i % 2);
+            agentStat.setCollectInterval(5000);
+            if (i != 2) {
+                TJvmGc gc = new TJvmGc(TJvmGcType.CMS, 1024 * 1024 * (100 + i), 1024 * 1024 * 1024, 1024 * (50 - i), -1, i / 3, 100 * i);
+                agentStat.setGc(gc);
+            }
+            if (i != 3) {
+                agentStat.setCpuLoad(createCpuLoad(0.1 + i * 0.01, 0.5 - i * 0.02));
+            }
+            agentStat.setTransaction(createTransaction(10 * i, 20, 30 - i, 0));
+            if (i % 2 == 0) {
+                TActiveTraceHistogram histogram = new TActiveTraceHistogram();
+                histogram.setHistogramSchemaType(2);
+                histogram.setActiveTraceCount(Arrays.asList(i, 1, 0, 3));
+                TActiveTrace activeTrace = new TActiveTrace();
+                activeTrace.setHistogram(histogram);
+                agentStat.setActiveTrace(activeTrace);
+            }
+            agentStats.add(agentStat);
+        }
+
+        byte[] value = codec.encode(agentStats);
+        List<TAgentStat> decoded = codec.decode(value);
+
+        assertEquals(agentStats, decoded);
+    }
+
+    @Test
+    public void encodeDecode_empty() {
+        byte[] value = codec.encode(Collections.<TAgentStat>emptyList());
+        assertTrue(codec.decode(value).isEmpty());
+    }
+
+    @Test
+    public void encode_smallerThanColumns() {
+        final List<TAgentStat> agentStats = new ArrayList<TAgentStat>();
+        for (int i = 0; i < 6; i++) {
+            TAgentStat agentStat = new TAgentStat();
+            agentStat.setTimestamp(1460000000000L + i * 5000);
+            agentStat.setCollectInterval(5000);
+            agentStat.setGc(new TJvmGc(TJvmGcType.G1, 300000000 + i * 1000, 1000000000, 80000000, -1, 10, 2000));
+            agentStat.setCpuLoad(createCpuLoad(0.25, 0.5));
+            agentStat.setTransaction(createTransaction(100, 20, 30, 40));
+            agentStats.add(agentStat);
+        }
+        byte[] value = codec.encode(agentStats);
+        // 8 byte long/double per column
+        int legacySize = agentStats.size() * (8 * 13);
+        assertTrue("size:" + value.length, value.length < legacySize / 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_unsupportedVersion() {
+        codec.decode(new byte[] {(byte) (AgentStatBucketCodec.VERSION + 1), 0});
+    }
+
+    @Test
+    public void split() {
+        final long timestamp = 1460000000000L;
+        final List<TAgentStat> agentStats = new ArrayList<TAgentStat>();
+        for (long offset : new long[] {0, 5000, AgentStatBucketCodec.MAX_BUCKET_SPAN, AgentStatBucketCodec.MAX_BUCKET_SPAN + 5000, 1000}) {
+            TAgentStat agentStat = new TAgentStat();
+            agentStat.setTimestamp(timestamp + offset);
+            agentStats.add(agentStat);
+        }
+
+        List<List<TAgentStat>> buckets = codec.split(agentStats);
+
+        assertEquals(3, buckets.size());
+        assertEquals(agentStats.subList(0, 2), buckets.get(0));
+        assertEquals(agentStats.subList(2, 4), buckets.get(1));
+        assertEquals(agentStats.subList(4, 5), buckets.get(2));
+    }
+
+    private TCpuLoad createCpuLoad(double jvmCpuLoad, double systemCpuLoad) {
+        TCpuLoad cpuLoad = new TCpuLoad();
+        cpuLoad.setJvmCpuLoad(jvmCpuLoad);
+        cpuLoad.setSystemCpuLoad(systemCpuLoad);
+        return cpuLoad;
+    }
+
+    private TTransaction createTransaction(long sampledNewCount, long sampledContinuationCount, long unsampledNewCount, long unsampledContinuationCount) {
+        TTransaction transaction = new TTransaction();
+        transaction.setSampledNewCount(sampledNewCount);
+        transaction.setSampledContinuationCount(sampledContinuationCount);
+        transaction.setUnsampledNewCount(unsampledNewCount);
+        transaction.setUnsampledContinuationCount(unsampledContinuationCount);
+        return transaction;
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.server.bo;
+
+import static org.junit.Assert.*;
+
+import com.navercorp.pinpoint.thrift.dto.TActiveTrace;
+import com.navercorp.pinpoint.thrift.dto.TActiveTraceHistogram;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
+import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+import com.navercorp.pinpoint.thrift.dto.TJvmGcType;
+import com.navercorp.pinpoint.thrift.dto.TTransaction;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class AgentStatRollupBoTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void addAndSerialize() {
+        final long windowStart = TimeUnit.HOURS.toMillis(400000);
+        final AgentStatRollupBo rollup = new AgentStatRollupBo("agentId", AgentStatRollupType.MINUTE, windowStart + 1234);
+        assertEquals(windowStart, rollup.getTimestamp());
+
+        rollup.add(createAgentStat(windowStart + 10000, TJvmGcType.CMS, 300, 0.2, 10, 3));
+        rollup.add(createAgentStat(windowStart + 20000, TJvmGcType.G1, 100, -1, 20, 1));
+        rollup.add(createAgentStat(windowStart + 5000, TJvmGcType.SERIAL, 200, 0.4, 30, 2));
+
+        final AgentStatRollupBo read = new AgentStatRollupBo(rollup.writeRowKey(), rollup.writeValue());
+
+        assertEquals("agentId", read.getAgentId());
+        assertEquals(AgentStatRollupType.MINUTE, read.getType());
+        assertEquals(windowStart, read.getTimestamp());
+        assertEquals(TJvmGcType.G1.name(), read.getGcType());
+        assertEquals(1, read.getHistogramSchemaType());
+
+        assertEquals(3, read.getHeapUsed().getCount());
+        assertEquals(100, read.getHeapUsed().getMin(), DELTA);
+        assertEquals(300, read.getHeapUsed().getMax(), DELTA);
+        assertEquals(200, read.getHeapUsed().getAvg(), DELTA);
+
+        // uncollectable cpu load is not counted
+        assertEquals(2, read.getJvmCpuLoad().getCount());
+        assertEquals(0.3, read.getJvmCpuLoad().getAvg(), DELTA);
+
+        assertEquals(60, read.getSampledNewCount().getSum(), DELTA);
+        assertEquals(0, read.getUnsampledNewCount().getSum(), DELTA);
+
+        assertEquals(3, read.getActiveTraceFast().getMax(), DELTA);
+        assertEquals(1, read.getActiveTraceFast().getMin(), DELTA);
+    }
+
+    @Test
+    public void merge() {
+        final long windowStart = TimeUnit.HOURS.toMillis(400000);
+        final AgentStatRollupBo first = new AgentStatRollupBo("agentId", AgentStatRollupType.MINUTE, windowStart);
+        first.add(createAgentStat(windowStart + 20000, TJvmGcType.G1, 100, 0.2, 10, 3));
+        final AgentStatRollupBo second = new AgentStatRollupBo("agentId", AgentStatRollupType.MINUTE, windowStart);
+        second.add(createAgentStat(windowStart + 10000, TJvmGcType.CMS, 300, 0.4, 20, 1));
+        final AgentStatRollupBo empty = new AgentStatRollupBo("agentId", AgentStatRollupType.MINUTE, windowStart);
+
+        final AgentStatRollupBo merged = new AgentStatRollupBo(first.writeRowKey(), second.writeValue());
+        merged.merge(new AgentStatRollupBo(first.writeRowKey(), first.writeValue()));
+        merged.merge(new AgentStatRollupBo(empty.writeRowKey(), empty.writeValue()));
+
+        // taken from the part with the latest sample
+        assertEquals(TJvmGcType.G1.name(), merged.getGcType());
+        assertEquals(2, merged.getHeapUsed().getCount());
+        assertEquals(100, merged.getHeapUsed().getMin(), DELTA);
+        assertEquals(300, merged.getHeapUsed().getMax(), DELTA);
+        assertEquals(0.3, merged.getJvmCpuLoad().getAvg(), DELTA);
+        assertEquals(30, merged.getSampledNewCount().getSum(), DELTA);
+        assertEquals(1, merged.getActiveTraceFast().getMin(), DELTA);
+        assertEquals(3, merged.getActiveTraceFast().getMax(), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeDifferentWindow() {
+        final AgentStatRollupBo minute = new AgentStatRollupBo("agentId", AgentStatRollupType.MINUTE, 0);
+        minute.merge(new AgentStatRollupBo("agentId", AgentStatRollupType.HOUR, 0));
+    }
+
+    @Test
+    public void emptyRollup() {
+        final AgentStatRollupBo rollup = new AgentStatRollupBo("agentId", AgentStatRollupType.HOUR, 0);
+        final AgentStatRollupBo read = new AgentStatRollupBo(rollup.writeRowKey(), rollup.writeValue());
+        assertNull(read.getGcType());
+        assertEquals(-1, read.getHistogramSchemaType());
+        assertEquals(0, read.getHeapUsed().getCount());
+        assertEquals(0, read.getHeapUsed().getAvg(), DELTA);
+    }
+
+    @Test
+    public void getCoarsest() {
+        assertNull(AgentStatRollupType.getCoarsest(TimeUnit.SECONDS.toMillis(30)));
+        assertEquals(AgentStatRollupType.MINUTE, AgentStatRollupType.getCoarsest(TimeUnit.MINUTES.toMillis(1)));
+        assertEquals(AgentStatRollupType.MINUTE, AgentStatRollupType.getCoarsest(TimeUnit.MINUTES.toMillis(50)));
+        assertEquals(AgentStatRollupType.HOUR, AgentStatRollupType.getCoarsest(TimeUnit.HOURS.toMillis(3)));
+    }
+
+    private TAgentStat createAgentStat(long timestamp, TJvmGcType gcType, long heapUsed, double jvmCpuLoad, long sampledNewCount, int fastCount) {
+        final TAgentStat agentStat = new TAgentStat();
+        agentStat.setTimestamp(timestamp);
+        final TJvmGc gc = new TJvmGc();
+        gc.setType(gcType);
+        gc.setJvmMemoryHeapUsed(heapUsed);
+        agentStat.setGc(gc);
+        final TCpuLoad cpuLoad = new TCpuLoad();
+        cpuLoad.setJvmCpuLoad(jvmCpuLoad);
+        cpuLoad.setSystemCpuLoad(0.5);
+        agentStat.setCpuLoad(cpuLoad);
+        final TTransaction transaction = new TTransaction();
+        transaction.setSampledNewCount(sampledNewCount);
+        agentStat.setTransaction(transaction);
+        final TActiveTraceHistogram histogram = new TActiveTraceHistogram();
+        histogram.setHistogramSchemaType(1);
+        histogram.setActiveTraceCount(Arrays.asList(fastCount, 0, 0, 0));
+        final TActiveTrace activeTrace = new TActiveTrace();
+        activeTrace.setHistogram(histogram);
+        agentStat.setActiveTrace(activeTrace);
+        return agentStat;
+    }
+}
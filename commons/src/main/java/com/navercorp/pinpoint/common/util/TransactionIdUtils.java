@@ -106,12 +106,46 @@ public final class TransactionIdUtils {
         return transactionId.indexOf(TRANSACTION_ID_DELIMITER, fromIndex);
     }
 
+    /**
+     * same as Long.parseLong(transactionId.substring(beginIndex, endIndex)) without creating the substring
+     */
     private static long parseLong(String transactionId, int beginIndex, int endIndex) {
-        final String longString = transactionId.substring(beginIndex, endIndex);
-        try {
-            return Long.parseLong(longString);
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("parseLong Error. " + longString + " transactionId:" + transactionId);
+        if (beginIndex >= endIndex) {
+            throw parseLongError(transactionId, beginIndex, endIndex);
+        }
+        int index = beginIndex;
+        boolean negative = false;
+        long limit = -Long.MAX_VALUE;
+        final char firstChar = transactionId.charAt(index);
+        if (firstChar == '-') {
+            negative = true;
+            limit = Long.MIN_VALUE;
+            index++;
+        } else if (firstChar == '+') {
+            index++;
+        }
+        if (index == endIndex) {
+            throw parseLongError(transactionId, beginIndex, endIndex);
+        }
+        // accumulate negatively to handle Long.MIN_VALUE
+        final long multiplyMin = limit / 10;
+        long result = 0;
+        while (index < endIndex) {
+            final int digit = Character.digit(transactionId.charAt(index++), 10);
+            if (digit < 0 || result < multiplyMin) {
+                throw parseLongError(transactionId, beginIndex, endIndex);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw parseLongError(transactionId, beginIndex, endIndex);
+            }
+            result -= digit;
         }
+        return negative ? result : -result;
+    }
+
+    private static IllegalArgumentException parseLongError(String transactionId, int beginIndex, int endIndex) {
+        final String longString = transactionId.substring(beginIndex, endIndex);
+        return new IllegalArgumentException("parseLong Error. " + longString + " transactionId:" + transactionId);
     }
 }
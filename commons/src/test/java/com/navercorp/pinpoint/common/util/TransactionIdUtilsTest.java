@@ -55,6 +55,27 @@ public class TransactionIdUtilsTest {
     }
 
 
+    @Test
+    public void testParseTransactionId_longBoundary() {
+        final String delimiter = TransactionIdUtils.TRANSACTION_ID_DELIMITER;
+        TransactionId transactionId = TransactionIdUtils.parseTransactionId("test" + delimiter + Long.MAX_VALUE + delimiter + Long.MIN_VALUE);
+        Assert.assertEquals(transactionId.getAgentStartTime(), Long.MAX_VALUE);
+        Assert.assertEquals(transactionId.getTransactionSequence(), Long.MIN_VALUE);
+    }
+
+    @Test
+    public void testParseTransactionId_invalidNumber() {
+        final String delimiter = TransactionIdUtils.TRANSACTION_ID_DELIMITER;
+        final String[] invalidNumbers = {"", "-", "+", "1a", "9223372036854775808", "-9223372036854775809"};
+        for (String invalidNumber : invalidNumbers) {
+            try {
+                TransactionIdUtils.parseTransactionId("test" + delimiter + invalidNumber + delimiter + "2");
+                Assert.fail("invalidNumber:" + invalidNumber);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
     @Test
     public void testParseTransactionIdByte() {
         long time = System.currentTimeMillis();
@@ -16,7 +16,6 @@
 
 package com.navercorp.pinpoint.plugin.cassandra.interceptor;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import com.datastax.driver.core.BoundStatement;
@@ -37,6 +36,7 @@ import com.navercorp.pinpoint.bootstrap.plugin.jdbc.DatabaseInfoAccessor;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.ParsingResultAccessor;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.UnKnownDatabaseInfo;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue.BindValueUtils;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue.DeferredBindValueMap;
 
 /**
  * @author dawidmalina
@@ -133,7 +133,13 @@ public class CassandraStatementExecuteQueryInterceptor implements AroundIntercep
 
     private void clean(Object target) {
         if (target instanceof BindValueAccessor) {
-            ((BindValueAccessor) target)._$PINPOINT$_setBindValue(new HashMap<Integer, String>());
+            final Map<Integer, String> bindValue = ((BindValueAccessor) target)._$PINPOINT$_getBindValue();
+            if (bindValue instanceof DeferredBindValueMap) {
+                // reuse slots of the statement
+                bindValue.clear();
+            } else {
+                ((BindValueAccessor) target)._$PINPOINT$_setBindValue(new DeferredBindValueMap());
+            }
         }
     }
 
@@ -31,7 +31,6 @@ import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.commons.httpclient.protocol.Protocol;
 
 import com.navercorp.pinpoint.bootstrap.config.DumpType;
-import com.navercorp.pinpoint.bootstrap.context.Header;
 import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
 import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
 import com.navercorp.pinpoint.bootstrap.context.Trace;
@@ -44,7 +43,8 @@ import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
 import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScopeInvocation;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
-import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderSetter;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderWriter;
 import com.navercorp.pinpoint.bootstrap.util.FixedByteArrayOutputStream;
 import com.navercorp.pinpoint.bootstrap.util.InterceptorUtils;
 import com.navercorp.pinpoint.bootstrap.util.SimpleSampler;
@@ -75,9 +75,17 @@ public class HttpMethodBaseExecuteMethodInterceptor implements AroundInterceptor
         httpMethod_Index.put(3, 1);
     }
 
+    private static final RequestHeaderSetter<HttpMethod> REQUEST_HEADER_SETTER = new RequestHeaderSetter<HttpMethod>() {
+        @Override
+        public void setHeader(HttpMethod httpMethod, String name, String value) {
+            httpMethod.setRequestHeader(name, value);
+        }
+    };
+
     private TraceContext traceContext;
     private MethodDescriptor descriptor;
     private InterceptorScope interceptorScope;
+    private TraceHeaderWriter<HttpMethod> traceHeaderWriter;
 
     private boolean param;
     private boolean cookie;
@@ -94,6 +102,7 @@ public class HttpMethodBaseExecuteMethodInterceptor implements AroundInterceptor
         this.traceContext = traceContext;
         this.descriptor = methodDescriptor;
         this.interceptorScope = interceptorScope;
+        this.traceHeaderWriter = new TraceHeaderWriter<HttpMethod>(traceContext, REQUEST_HEADER_SETTER);
 
         final HttpClient3PluginConfig config = new HttpClient3PluginConfig(traceContext.getProfilerConfig());
         this.param = config.isParam();
@@ -186,23 +195,15 @@ public class HttpMethodBaseExecuteMethodInterceptor implements AroundInterceptor
         }
         if (target instanceof HttpMethod) {
             final HttpMethod httpMethod = (HttpMethod) target;
-            httpMethod.setRequestHeader(Header.HTTP_SAMPLED.toString(), SamplingFlagUtils.SAMPLING_RATE_FALSE);
+            traceHeaderWriter.writeSamplingFalse(httpMethod);
         }
     }
 
     private void setHttpTraceHeader(final Object target, final Object[] args, TraceId nextId) {
         if (target instanceof HttpMethod) {
             final HttpMethod httpMethod = (HttpMethod) target;
-            httpMethod.setRequestHeader(Header.HTTP_TRACE_ID.toString(), nextId.getTransactionId());
-            httpMethod.setRequestHeader(Header.HTTP_SPAN_ID.toString(), String.valueOf(nextId.getSpanId()));
-            httpMethod.setRequestHeader(Header.HTTP_PARENT_SPAN_ID.toString(), String.valueOf(nextId.getParentSpanId()));
-            httpMethod.setRequestHeader(Header.HTTP_FLAGS.toString(), String.valueOf(nextId.getFlags()));
-            httpMethod.setRequestHeader(Header.HTTP_PARENT_APPLICATION_NAME.toString(), traceContext.getApplicationName());
-            httpMethod.setRequestHeader(Header.HTTP_PARENT_APPLICATION_TYPE.toString(), Short.toString(traceContext.getServerTypeCode()));
             final String host = getHost(httpMethod, args);
-            if (host != null) {
-                httpMethod.setRequestHeader(Header.HTTP_HOST.toString(), host);
-            }
+            traceHeaderWriter.write(httpMethod, nextId, host);
         }
     }
 
@@ -26,6 +26,7 @@ import org.apache.http.HttpMessage;
 import org.apache.http.HttpRequest;
 import org.apache.http.NameValuePair;
 import org.apache.http.ParseException;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.concurrent.BasicFuture;
 import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
 import org.apache.http.protocol.HTTP;
@@ -42,6 +43,8 @@ import com.navercorp.pinpoint.bootstrap.context.TraceId;
 import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderSetter;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderWriter;
 import com.navercorp.pinpoint.bootstrap.pair.NameIntValuePair;
 import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
 import com.navercorp.pinpoint.bootstrap.util.FixedByteArrayOutputStream;
@@ -65,8 +68,18 @@ public class DefaultClientExchangeHandlerImplStartMethodInterceptor implements A
     private final PLogger logger = PLoggerFactory.getLogger(this.getClass());
     private final boolean isDebug = logger.isDebugEnabled();
 
+    private static final RequestHeaderSetter<HttpRequest> REQUEST_HEADER_SETTER = new RequestHeaderSetter<HttpRequest>() {
+        @Override
+        public void setHeader(HttpRequest httpRequest, String name, String value) {
+            httpRequest.setHeader(name, value);
+        }
+    };
+    // see HttpRequestExecutorExecuteMethodInterceptor
+    private static final BasicHeader SAMPLING_FALSE_HEADER = new BasicHeader(Header.HTTP_SAMPLED.toString(), SamplingFlagUtils.SAMPLING_RATE_FALSE);
+
     private TraceContext traceContext;
     private MethodDescriptor methodDescriptor;
+    private TraceHeaderWriter<HttpRequest> traceHeaderWriter;
 
     private boolean param;
     protected boolean cookie;
@@ -82,6 +95,7 @@ public class DefaultClientExchangeHandlerImplStartMethodInterceptor implements A
     public DefaultClientExchangeHandlerImplStartMethodInterceptor(TraceContext traceContext, MethodDescriptor methodDescriptor) {
         this.traceContext = traceContext;
         this.methodDescriptor = methodDescriptor;
+        this.traceHeaderWriter = new TraceHeaderWriter<HttpRequest>(traceContext, REQUEST_HEADER_SETTER);
 
         final HttpClient4PluginConfig config = new HttpClient4PluginConfig(traceContext.getProfilerConfig());
         this.param = config.isParam();
@@ -116,7 +130,7 @@ public class DefaultClientExchangeHandlerImplStartMethodInterceptor implements A
                 logger.debug("set Sampling flag=false");
             }
             if (httpRequest != null) {
-                httpRequest.setHeader(Header.HTTP_SAMPLED.toString(), SamplingFlagUtils.SAMPLING_RATE_FALSE);
+                httpRequest.setHeader(SAMPLING_FALSE_HEADER);
             }
             return;
         }
@@ -129,20 +143,13 @@ public class DefaultClientExchangeHandlerImplStartMethodInterceptor implements A
         recorder.recordServiceType(HttpClient4Constants.HTTP_CLIENT_4);
 
         if (httpRequest != null) {
-            httpRequest.setHeader(Header.HTTP_TRACE_ID.toString(), nextId.getTransactionId());
-            httpRequest.setHeader(Header.HTTP_SPAN_ID.toString(), String.valueOf(nextId.getSpanId()));
-
-            httpRequest.setHeader(Header.HTTP_PARENT_SPAN_ID.toString(), String.valueOf(nextId.getParentSpanId()));
-
-            httpRequest.setHeader(Header.HTTP_FLAGS.toString(), String.valueOf(nextId.getFlags()));
-            httpRequest.setHeader(Header.HTTP_PARENT_APPLICATION_NAME.toString(), traceContext.getApplicationName());
-            httpRequest.setHeader(Header.HTTP_PARENT_APPLICATION_TYPE.toString(), Short.toString(traceContext.getServerTypeCode()));
+            String endpoint = null;
             final NameIntValuePair<String> host = getHost(target);
             if (host != null) {
-                final String endpoint = getEndpoint(host.getName(), host.getValue());
+                endpoint = getEndpoint(host.getName(), host.getValue());
                 logger.debug("Get host {}", endpoint);
-                httpRequest.setHeader(Header.HTTP_HOST.toString(), endpoint);
             }
+            traceHeaderWriter.write(httpRequest, nextId, endpoint);
         }
 
         try {
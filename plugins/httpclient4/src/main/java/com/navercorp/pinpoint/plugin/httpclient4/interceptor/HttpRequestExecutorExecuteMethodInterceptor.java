@@ -31,6 +31,7 @@ import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
 import org.apache.http.ParseException;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.StatusLine;
 import org.apache.http.protocol.HTTP;
 
@@ -46,6 +47,8 @@ import com.navercorp.pinpoint.bootstrap.interceptor.annotation.Scope;
 import com.navercorp.pinpoint.bootstrap.interceptor.scope.ExecutionPolicy;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderSetter;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderWriter;
 import com.navercorp.pinpoint.bootstrap.pair.NameIntValuePair;
 import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
 import com.navercorp.pinpoint.bootstrap.util.FixedByteArrayOutputStream;
@@ -67,8 +70,18 @@ public class HttpRequestExecutorExecuteMethodInterceptor implements AroundInterc
     private final PLogger logger = PLoggerFactory.getLogger(this.getClass());
     private final boolean isDebug = logger.isDebugEnabled();
 
+    private static final RequestHeaderSetter<HttpRequest> REQUEST_HEADER_SETTER = new RequestHeaderSetter<HttpRequest>() {
+        @Override
+        public void setHeader(HttpRequest httpRequest, String name, String value) {
+            httpRequest.setHeader(name, value);
+        }
+    };
+    // BasicHeader is immutable, so every unsampled request shares one instance instead of a new header per call
+    private static final BasicHeader SAMPLING_FALSE_HEADER = new BasicHeader(Header.HTTP_SAMPLED.toString(), SamplingFlagUtils.SAMPLING_RATE_FALSE);
+
     private final TraceContext traceContext;
     private final MethodDescriptor methodDescriptor;
+    private final TraceHeaderWriter<HttpRequest> traceHeaderWriter;
 
     private final boolean param;
     private final boolean cookie;
@@ -87,6 +100,7 @@ public class HttpRequestExecutorExecuteMethodInterceptor implements AroundInterc
     public HttpRequestExecutorExecuteMethodInterceptor(TraceContext traceContext, MethodDescriptor methodDescriptor, InterceptorScope interceptorScope) {
         this.traceContext = traceContext;
         this.methodDescriptor = methodDescriptor;
+        this.traceHeaderWriter = new TraceHeaderWriter<HttpRequest>(traceContext, REQUEST_HEADER_SETTER);
         this.interceptorScope = interceptorScope;
 
         final HttpClient4PluginConfig profilerConfig = new HttpClient4PluginConfig(traceContext.getProfilerConfig());
@@ -128,7 +142,7 @@ public class HttpRequestExecutorExecuteMethodInterceptor implements AroundInterc
                 logger.debug("set Sampling flag=false");
             }
             if (httpRequest != null) {
-                httpRequest.setHeader(Header.HTTP_SAMPLED.toString(), SamplingFlagUtils.SAMPLING_RATE_FALSE);
+                httpRequest.setHeader(SAMPLING_FALSE_HEADER);
             }
             return;
         }
@@ -139,20 +153,13 @@ public class HttpRequestExecutorExecuteMethodInterceptor implements AroundInterc
         recorder.recordServiceType(HttpClient4Constants.HTTP_CLIENT_4);
 
         if (httpRequest != null) {
-            httpRequest.setHeader(Header.HTTP_TRACE_ID.toString(), nextId.getTransactionId());
-            httpRequest.setHeader(Header.HTTP_SPAN_ID.toString(), String.valueOf(nextId.getSpanId()));
-
-            httpRequest.setHeader(Header.HTTP_PARENT_SPAN_ID.toString(), String.valueOf(nextId.getParentSpanId()));
-
-            httpRequest.setHeader(Header.HTTP_FLAGS.toString(), String.valueOf(nextId.getFlags()));
-            httpRequest.setHeader(Header.HTTP_PARENT_APPLICATION_NAME.toString(), traceContext.getApplicationName());
-            httpRequest.setHeader(Header.HTTP_PARENT_APPLICATION_TYPE.toString(), Short.toString(traceContext.getServerTypeCode()));
+            String endpoint = null;
             final NameIntValuePair<String> host = getHost();
             if (host != null) {
-                final String endpoint = getEndpoint(host.getName(), host.getValue());
+                endpoint = getEndpoint(host.getName(), host.getValue());
                 logger.debug("Get host {}", endpoint);
-                httpRequest.setHeader(Header.HTTP_HOST.toString(), endpoint);
             }
+            traceHeaderWriter.write(httpRequest, nextId, endpoint);
         }
 
         InterceptorScopeInvocation invocation = interceptorScope.getCurrentInvocation();
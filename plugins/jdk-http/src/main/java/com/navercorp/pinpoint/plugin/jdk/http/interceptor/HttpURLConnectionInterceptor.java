@@ -19,7 +19,6 @@ package com.navercorp.pinpoint.plugin.jdk.http.interceptor;
 import java.net.HttpURLConnection;
 import java.net.URL;
 
-import com.navercorp.pinpoint.bootstrap.context.Header;
 import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
 import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
 import com.navercorp.pinpoint.bootstrap.context.Trace;
@@ -32,7 +31,8 @@ import com.navercorp.pinpoint.bootstrap.interceptor.annotation.TargetMethods;
 import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
-import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderSetter;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderWriter;
 import com.navercorp.pinpoint.bootstrap.util.InterceptorUtils;
 import com.navercorp.pinpoint.common.trace.AnnotationKey;
 import com.navercorp.pinpoint.plugin.jdk.http.ConnectedGetter;
@@ -52,6 +52,12 @@ import com.navercorp.pinpoint.plugin.jdk.http.JdkHttpPluginConfig;
 })
 public class HttpURLConnectionInterceptor implements AroundInterceptor {
     private static final Object TRACE_BLOCK_BEGIN_MARKER = new Object();
+    private static final RequestHeaderSetter<HttpURLConnection> REQUEST_HEADER_SETTER = new RequestHeaderSetter<HttpURLConnection>() {
+        @Override
+        public void setHeader(HttpURLConnection request, String name, String value) {
+            request.setRequestProperty(name, value);
+        }
+    };
     private final PLogger logger = PLoggerFactory.getLogger(this.getClass());
     private final boolean isDebug = logger.isDebugEnabled();
 
@@ -59,11 +65,13 @@ public class HttpURLConnectionInterceptor implements AroundInterceptor {
     private final MethodDescriptor descriptor;
     private final InterceptorScope scope;
     private final boolean param;
-    
+    private final TraceHeaderWriter<HttpURLConnection> traceHeaderWriter;
+
     public HttpURLConnectionInterceptor(TraceContext traceContext, MethodDescriptor descriptor, InterceptorScope scope) {
         this.traceContext = traceContext;
         this.descriptor = descriptor;
         this.scope = scope;
+        this.traceHeaderWriter = new TraceHeaderWriter<HttpURLConnection>(traceContext, REQUEST_HEADER_SETTER);
 
         final JdkHttpPluginConfig config = new JdkHttpPluginConfig(traceContext.getProfilerConfig());
         this.param = config.isParam();
@@ -96,7 +104,7 @@ public class HttpURLConnectionInterceptor implements AroundInterceptor {
         
         final boolean sampling = trace.canSampled();
         if (!sampling) {
-            request.setRequestProperty(Header.HTTP_SAMPLED.toString(), SamplingFlagUtils.SAMPLING_RATE_FALSE);
+            traceHeaderWriter.writeSamplingFalse(request);
             return;
         }
 
@@ -112,16 +120,7 @@ public class HttpURLConnectionInterceptor implements AroundInterceptor {
         // TODO How to represent protocol?
         String endpoint = getEndpoint(host, port);
 
-        request.setRequestProperty(Header.HTTP_TRACE_ID.toString(), nextId.getTransactionId());
-        request.setRequestProperty(Header.HTTP_SPAN_ID.toString(), String.valueOf(nextId.getSpanId()));
-        request.setRequestProperty(Header.HTTP_PARENT_SPAN_ID.toString(), String.valueOf(nextId.getParentSpanId()));
-
-        request.setRequestProperty(Header.HTTP_FLAGS.toString(), String.valueOf(nextId.getFlags()));
-        request.setRequestProperty(Header.HTTP_PARENT_APPLICATION_NAME.toString(), traceContext.getApplicationName());
-        request.setRequestProperty(Header.HTTP_PARENT_APPLICATION_TYPE.toString(), Short.toString(traceContext.getServerTypeCode()));
-        if(host != null) {
-            request.setRequestProperty(Header.HTTP_HOST.toString(), endpoint);
-        }
+        traceHeaderWriter.write(request, nextId, host != null ? endpoint : null);
 
         recorder.recordServiceType(JdkHttpConstants.SERVICE_TYPE);
         
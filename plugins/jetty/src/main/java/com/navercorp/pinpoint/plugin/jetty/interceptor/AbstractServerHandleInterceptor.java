@@ -19,12 +19,12 @@ import com.navercorp.pinpoint.bootstrap.context.*;
 import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
-import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderAdaptor;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeader;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderReader;
 import com.navercorp.pinpoint.bootstrap.util.NetworkUtils;
-import com.navercorp.pinpoint.bootstrap.util.NumberUtils;
 import com.navercorp.pinpoint.bootstrap.util.StringUtils;
 import com.navercorp.pinpoint.common.trace.AnnotationKey;
-import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.plugin.jetty.JettyConstants;
 import com.navercorp.pinpoint.plugin.jetty.JettySyncMethodDescriptor;
 import org.eclipse.jetty.server.Request;
@@ -35,6 +35,13 @@ public abstract class AbstractServerHandleInterceptor implements AroundIntercept
 
     public static final JettySyncMethodDescriptor JETTY_SYNC_API_TAG = new JettySyncMethodDescriptor();
 
+    private static final TraceHeaderReader<Request> TRACE_HEADER_READER = new TraceHeaderReader<Request>(new RequestHeaderAdaptor<Request>() {
+        @Override
+        public String getHeader(Request request, String name) {
+            return request.getHeader(name);
+        }
+    });
+
     protected PLogger logger = PLoggerFactory.getLogger(this.getClass());
     private final boolean isDebug = logger.isDebugEnabled();
     private final boolean isTrace = logger.isTraceEnabled();
@@ -90,8 +97,9 @@ public abstract class AbstractServerHandleInterceptor implements AroundIntercept
             }
             return null;
         }
+        final TraceHeader traceHeader = TRACE_HEADER_READER.read(request);
         // check sampling flag from client. If the flag is false, do not sample this request.
-        final boolean sampling = samplingEnable(request);
+        final boolean sampling = samplingEnable(traceHeader);
         if (!sampling) {
             // Even if this transaction is not a sampling target, we have to create Trace object to mark 'not sampling'.
             // For example, if this transaction invokes rpc call, we can add parameter to tell remote node 'don't sample this transaction'
@@ -102,12 +110,12 @@ public abstract class AbstractServerHandleInterceptor implements AroundIntercept
             return trace;
         }
 
-        final TraceId traceId = populateTraceIdFromRequest(request);
+        final TraceId traceId = populateTraceIdFromRequest(traceHeader);
         if (traceId != null) {
             final Trace trace = traceContext.continueTraceObject(traceId);
             if (trace.canSampled()) {
                 SpanRecorder recorder = trace.getSpanRecorder();
-                recordRootSpan(recorder, request);
+                recordRootSpan(recorder, request, traceHeader);
                 if (isDebug) {
                     logger.debug("TraceID exist. continue trace. traceId:{}, requestUrl:{}, remoteAddr:{}", traceId, request.getRequestURI(), request.getRemoteAddr());
                 }
@@ -121,7 +129,7 @@ public abstract class AbstractServerHandleInterceptor implements AroundIntercept
             final Trace trace = traceContext.newTraceObject();
             if (trace.canSampled()) {
                 SpanRecorder recorder = trace.getSpanRecorder();
-                recordRootSpan(recorder, request);
+                recordRootSpan(recorder, request, traceHeader);
                 if (isDebug) {
                     logger.debug("TraceID not exist. start new trace. requestUrl:{}, remoteAddr:{}", request.getRequestURI(), request.getRemoteAddr());
                 }
@@ -170,13 +178,12 @@ public abstract class AbstractServerHandleInterceptor implements AroundIntercept
         }
     }
 
-    private boolean samplingEnable(Request request) {
+    private boolean samplingEnable(TraceHeader traceHeader) {
         // optional value
-        final String samplingFlag = request.getHeader(Header.HTTP_SAMPLED.toString());
         if (isDebug) {
-            logger.debug("SamplingFlag:{}", samplingFlag);
+            logger.debug("SamplingFlag:{}", traceHeader.getSamplingFlag());
         }
-        return SamplingFlagUtils.isSamplingFlag(samplingFlag);
+        return traceHeader.isSampled();
     }
 
     private String getRequestParameter(Request request, int eachLimit, int totalLimit) {
@@ -202,22 +209,21 @@ public abstract class AbstractServerHandleInterceptor implements AroundIntercept
         return params.toString();
     }
 
-    private void recordParentInfo(SpanRecorder recorder, Request request) {
-        String parentApplicationName = request.getHeader(Header.HTTP_PARENT_APPLICATION_NAME.toString());
+    private void recordParentInfo(SpanRecorder recorder, Request request, TraceHeader traceHeader) {
+        String parentApplicationName = traceHeader.getParentApplicationName();
         if (parentApplicationName != null) {
-            final String host = request.getHeader(Header.HTTP_HOST.toString());
+            final String host = traceHeader.getHost();
             if (host != null) {
                 recorder.recordAcceptorHost(host);
             } else {
                 recorder.recordAcceptorHost(NetworkUtils.getHostFromURL(request.getRequestURL().toString()));
             }
-            final String type = request.getHeader(Header.HTTP_PARENT_APPLICATION_TYPE.toString());
-            final short parentApplicationType = NumberUtils.parseShort(type, ServiceType.UNDEFINED.getCode());
+            final short parentApplicationType = traceHeader.getParentApplicationType();
             recorder.recordParentApplication(parentApplicationName, parentApplicationType);
         }
     }
 
-    private void recordRootSpan(final SpanRecorder recorder, final Request request) {
+    private void recordRootSpan(final SpanRecorder recorder, final Request request, final TraceHeader traceHeader) {
         // root
         recorder.recordServiceType(JettyConstants.JETTY);
 
@@ -232,7 +238,7 @@ public abstract class AbstractServerHandleInterceptor implements AroundIntercept
         recorder.recordRemoteAddress(remoteAddr);
 
         if (!recorder.isRoot()) {
-            recordParentInfo(recorder, request);
+            recordParentInfo(recorder, request, traceHeader);
         }
         recorder.recordApi(JETTY_SYNC_API_TAG);
     }
@@ -240,18 +246,13 @@ public abstract class AbstractServerHandleInterceptor implements AroundIntercept
     /**
      * Populate source trace from HTTP Header.
      *
-     * @param request
+     * @param traceHeader
      * @return TraceId when it is possible to get a transactionId from Http header. if not possible return null
      */
-    private TraceId populateTraceIdFromRequest(Request request) {
-
-        String transactionId = request.getHeader(Header.HTTP_TRACE_ID.toString());
-        if (transactionId != null) {
-            long parentSpanID = NumberUtils.parseLong(request.getHeader(Header.HTTP_PARENT_SPAN_ID.toString()), SpanId.NULL);
-            long spanID = NumberUtils.parseLong(request.getHeader(Header.HTTP_SPAN_ID.toString()), SpanId.NULL);
-            short flags = NumberUtils.parseShort(request.getHeader(Header.HTTP_FLAGS.toString()), (short) 0);
+    private TraceId populateTraceIdFromRequest(TraceHeader traceHeader) {
 
-            final TraceId id = traceContext.createTraceId(transactionId, parentSpanID, spanID, flags);
+        final TraceId id = traceHeader.createTraceId(traceContext);
+        if (id != null) {
             if (isDebug) {
                 logger.debug("TraceID exist. continue trace. {}", id);
             }
@@ -23,7 +23,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-import com.navercorp.pinpoint.bootstrap.context.Header;
 import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
 import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
 import com.navercorp.pinpoint.bootstrap.context.Trace;
@@ -33,7 +32,8 @@ import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
 import com.navercorp.pinpoint.bootstrap.interceptor.annotation.TargetMethod;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
-import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderSetter;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderWriter;
 import com.navercorp.pinpoint.bootstrap.util.InterceptorUtils;
 import com.navercorp.pinpoint.bootstrap.util.SimpleSampler;
 import com.navercorp.pinpoint.bootstrap.util.SimpleSamplerFactory;
@@ -60,9 +60,19 @@ public class ExecuteRequestInterceptor implements AroundInterceptor {
     private final PLogger logger = PLoggerFactory.getLogger(ExecuteRequestInterceptor.class);
     private final boolean isDebug = logger.isDebugEnabled();
 
+    private static final RequestHeaderSetter<FluentCaseInsensitiveStringsMap> REQUEST_HEADER_SETTER = new RequestHeaderSetter<FluentCaseInsensitiveStringsMap>() {
+        @Override
+        public void setHeader(FluentCaseInsensitiveStringsMap httpRequestHeaders, String name, String value) {
+            final List<String> valueList = new ArrayList<String>();
+            valueList.add(value);
+            httpRequestHeaders.put(name, valueList);
+        }
+    };
+
     private final TraceContext traceContext;
     private final MethodDescriptor descriptor;
     private final NingAsyncHttpClientPluginConfig config;
+    private final TraceHeaderWriter<FluentCaseInsensitiveStringsMap> traceHeaderWriter;
     
     private final SimpleSampler cookieSampler;
     private final SimpleSampler entitySampler;
@@ -72,6 +82,7 @@ public class ExecuteRequestInterceptor implements AroundInterceptor {
         this.traceContext = traceContext;
         this.descriptor = descriptor;
         this.config = new NingAsyncHttpClientPluginConfig(traceContext.getProfilerConfig());
+        this.traceHeaderWriter = new TraceHeaderWriter<FluentCaseInsensitiveStringsMap>(traceContext, REQUEST_HEADER_SETTER);
         
         this.cookieSampler = config.isProfileCookie() ? SimpleSamplerFactory.createSampler(true, config.getCookieSamplingRate()) : null;
         this.entitySampler = config.isProfileEntity() ? SimpleSamplerFactory.createSampler(true, config.getEntitySamplingRate()) : null;
@@ -102,8 +113,7 @@ public class ExecuteRequestInterceptor implements AroundInterceptor {
                 logger.debug("set Sampling flag=false");
             }
             if (httpRequest != null) {
-                final FluentCaseInsensitiveStringsMap httpRequestHeaders = httpRequest.getHeaders();
-                httpRequestHeaders.add(Header.HTTP_SAMPLED.toString(), SamplingFlagUtils.SAMPLING_RATE_FALSE);
+                traceHeaderWriter.writeSamplingFalse(httpRequest.getHeaders());
             }
             return;
         }
@@ -116,25 +126,11 @@ public class ExecuteRequestInterceptor implements AroundInterceptor {
 
         if (httpRequest != null) {
             final FluentCaseInsensitiveStringsMap httpRequestHeaders = httpRequest.getHeaders();
-            putHeader(httpRequestHeaders, Header.HTTP_TRACE_ID.toString(), nextId.getTransactionId());
-            putHeader(httpRequestHeaders, Header.HTTP_SPAN_ID.toString(), String.valueOf(nextId.getSpanId()));
-            putHeader(httpRequestHeaders, Header.HTTP_PARENT_SPAN_ID.toString(), String.valueOf(nextId.getParentSpanId()));
-            putHeader(httpRequestHeaders, Header.HTTP_FLAGS.toString(), String.valueOf(nextId.getFlags()));
-            putHeader(httpRequestHeaders, Header.HTTP_PARENT_APPLICATION_NAME.toString(), traceContext.getApplicationName());
-            putHeader(httpRequestHeaders, Header.HTTP_PARENT_APPLICATION_TYPE.toString(), Short.toString(traceContext.getServerTypeCode()));
             final String hostString = getEndpoint(httpRequest.getURI().getHost(), httpRequest.getURI().getPort());
-            if(hostString != null) {
-                putHeader(httpRequestHeaders, Header.HTTP_HOST.toString(), hostString);
-            }
+            traceHeaderWriter.write(httpRequestHeaders, nextId, hostString);
         }
     }
 
-    private void putHeader(FluentCaseInsensitiveStringsMap httpRequestHeaders, String key, String value) {
-        final List<String> valueList = new ArrayList<String>();
-        valueList.add(value);
-        httpRequestHeaders.put(key, valueList);
-    }
-
     @Override
     public void after(Object target, Object[] args, Object result, Throwable throwable) {
         if (isDebug) {
@@ -23,7 +23,8 @@ import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
 import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScopeInvocation;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
-import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderSetter;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderWriter;
 import com.navercorp.pinpoint.plugin.okhttp.*;
 import com.squareup.okhttp.HttpUrl;
 import com.squareup.okhttp.Request;
@@ -36,14 +37,23 @@ public class RequestBuilderBuildMethodInterceptor implements AroundInterceptor {
     private final PLogger logger = PLoggerFactory.getLogger(this.getClass());
     private final boolean isDebug = logger.isDebugEnabled();
 
+    private static final RequestHeaderSetter<Request.Builder> REQUEST_HEADER_SETTER = new RequestHeaderSetter<Request.Builder>() {
+        @Override
+        public void setHeader(Request.Builder builder, String name, String value) {
+            builder.header(name, value);
+        }
+    };
+
     private TraceContext traceContext;
     private MethodDescriptor methodDescriptor;
     private InterceptorScope interceptorScope;
+    private TraceHeaderWriter<Request.Builder> traceHeaderWriter;
 
     public RequestBuilderBuildMethodInterceptor(TraceContext traceContext, MethodDescriptor methodDescriptor, InterceptorScope interceptorScope) {
         this.traceContext = traceContext;
         this.methodDescriptor = methodDescriptor;
         this.interceptorScope = interceptorScope;
+        this.traceHeaderWriter = new TraceHeaderWriter<Request.Builder>(traceContext, REQUEST_HEADER_SETTER);
     }
 
     @Override
@@ -66,7 +76,7 @@ public class RequestBuilderBuildMethodInterceptor implements AroundInterceptor {
                 if (isDebug) {
                     logger.debug("set Sampling flag=false");
                 }
-                ((Request.Builder) target).header(Header.HTTP_SAMPLED.toString(), SamplingFlagUtils.SAMPLING_RATE_FALSE);
+                traceHeaderWriter.writeSamplingFalse(builder);
                 return;
             }
 
@@ -77,23 +87,15 @@ public class RequestBuilderBuildMethodInterceptor implements AroundInterceptor {
             }
 
             final TraceId nextId = (TraceId) invocation.getAttachment();
-            builder.header(Header.HTTP_TRACE_ID.toString(), nextId.getTransactionId());
-            builder.header(Header.HTTP_SPAN_ID.toString(), String.valueOf(nextId.getSpanId()));
-
-            builder.header(Header.HTTP_PARENT_SPAN_ID.toString(), String.valueOf(nextId.getParentSpanId()));
-
-            builder.header(Header.HTTP_FLAGS.toString(), String.valueOf(nextId.getFlags()));
-            builder.header(Header.HTTP_PARENT_APPLICATION_NAME.toString(), traceContext.getApplicationName());
-            builder.header(Header.HTTP_PARENT_APPLICATION_TYPE.toString(), Short.toString(traceContext.getServerTypeCode()));
-
+            String host = null;
             if (target instanceof HttpUrlGetter) {
                 final HttpUrl url = ((HttpUrlGetter) target)._$PINPOINT$_getHttpUrl();
                 if (url != null) {
-                    final String endpoint = getDestinationId(url);
-                    logger.debug("Set HTTP_HOST {}", endpoint);
-                    builder.header(Header.HTTP_HOST.toString(), endpoint);
+                    host = getDestinationId(url);
+                    logger.debug("Set HTTP_HOST {}", host);
                 }
             }
+            traceHeaderWriter.write(builder, nextId, host);
         } catch (Throwable t) {
             logger.warn("Failed to BEFORE process. {}", t.getMessage(), t);
         }
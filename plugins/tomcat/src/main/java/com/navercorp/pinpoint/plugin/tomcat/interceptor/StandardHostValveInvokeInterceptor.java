@@ -28,12 +28,10 @@ import com.navercorp.pinpoint.bootstrap.config.Filter;
 import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
-import com.navercorp.pinpoint.bootstrap.sampler.SamplingFlagUtils;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeader;
 import com.navercorp.pinpoint.bootstrap.util.NetworkUtils;
-import com.navercorp.pinpoint.bootstrap.util.NumberUtils;
 import com.navercorp.pinpoint.bootstrap.util.StringUtils;
 import com.navercorp.pinpoint.common.trace.AnnotationKey;
-import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.plugin.tomcat.AsyncAccessor;
 import com.navercorp.pinpoint.plugin.tomcat.ServletAsyncMethodDescriptor;
 import com.navercorp.pinpoint.plugin.tomcat.ServletSyncMethodDescriptor;
@@ -56,6 +54,7 @@ public class StandardHostValveInvokeInterceptor implements AroundInterceptor {
     private final Filter<String> excludeUrlFilter;
     private final Filter<String> excludeProfileMethodFilter;
     private final RemoteAddressResolver<HttpServletRequest> remoteAddressResolver;
+    private final TomcatTraceHeaderReader traceHeaderReader = new TomcatTraceHeaderReader();
 
     private MethodDescriptor methodDescriptor;
     private TraceContext traceContext;
@@ -180,8 +179,9 @@ public class StandardHostValveInvokeInterceptor implements AroundInterceptor {
             return null;
         }
 
+        final TraceHeader traceHeader = traceHeaderReader.read(request);
         // check sampling flag from client. If the flag is false, do not sample this request.
-        final boolean sampling = samplingEnable(request);
+        final boolean sampling = samplingEnable(traceHeader);
         if (!sampling) {
             // Even if this transaction is not a sampling target, we have to create Trace object to mark 'not sampling'.
             // For example, if this transaction invokes rpc call, we can add parameter to tell remote node 'don't sample this transaction'
@@ -192,13 +192,13 @@ public class StandardHostValveInvokeInterceptor implements AroundInterceptor {
             return trace;
         }
 
-        final TraceId traceId = populateTraceIdFromRequest(request);
+        final TraceId traceId = populateTraceIdFromRequest(traceHeader);
         if (traceId != null) {
             // TODO Maybe we should decide to trace or not even if the sampling flag is true to prevent too many requests are traced.
             final Trace trace = traceContext.continueTraceObject(traceId);
             if (trace.canSampled()) {
                 SpanRecorder recorder = trace.getSpanRecorder();
-                recordRootSpan(recorder, request);
+                recordRootSpan(recorder, request, traceHeader);
                 setTraceMetadata(request, trace);
                 if (isDebug) {
                     logger.debug("TraceID exist. continue trace. traceId:{}, requestUrl:{}, remoteAddr:{}", traceId, request.getRequestURI(), request.getRemoteAddr());
@@ -213,7 +213,7 @@ public class StandardHostValveInvokeInterceptor implements AroundInterceptor {
             final Trace trace = traceContext.newTraceObject();
             if (trace.canSampled()) {
                 SpanRecorder recorder = trace.getSpanRecorder();
-                recordRootSpan(recorder, request);
+                recordRootSpan(recorder, request, traceHeader);
                 setTraceMetadata(request, trace);
                 if (isDebug) {
                     logger.debug("TraceID not exist. start new trace. requestUrl:{}, remoteAddr:{}", request.getRequestURI(), request.getRemoteAddr());
@@ -257,7 +257,7 @@ public class StandardHostValveInvokeInterceptor implements AroundInterceptor {
         return getAsyncMetadata(request);
     }
 
-    private void recordRootSpan(final SpanRecorder recorder, final HttpServletRequest request) {
+    private void recordRootSpan(final SpanRecorder recorder, final HttpServletRequest request, final TraceHeader traceHeader) {
         // root
         recorder.recordServiceType(TomcatConstants.TOMCAT);
 
@@ -272,22 +272,21 @@ public class StandardHostValveInvokeInterceptor implements AroundInterceptor {
         recorder.recordRemoteAddress(remoteAddr);
 
         if (!recorder.isRoot()) {
-            recordParentInfo(recorder, request);
+            recordParentInfo(recorder, request, traceHeader);
         }
         recorder.recordApi(SERVLET_SYNCHRONOUS_API_TAG);
     }
 
-    private void recordParentInfo(SpanRecorder recorder, HttpServletRequest request) {
-        String parentApplicationName = request.getHeader(Header.HTTP_PARENT_APPLICATION_NAME.toString());
+    private void recordParentInfo(SpanRecorder recorder, HttpServletRequest request, TraceHeader traceHeader) {
+        String parentApplicationName = traceHeader.getParentApplicationName();
         if (parentApplicationName != null) {
-            final String host = request.getHeader(Header.HTTP_HOST.toString());
+            final String host = traceHeader.getHost();
             if (host != null) {
                 recorder.recordAcceptorHost(host);
             } else {
                 recorder.recordAcceptorHost(NetworkUtils.getHostFromURL(request.getRequestURL().toString()));
             }
-            final String type = request.getHeader(Header.HTTP_PARENT_APPLICATION_TYPE.toString());
-            final short parentApplicationType = NumberUtils.parseShort(type, ServiceType.UNDEFINED.getCode());
+            final short parentApplicationType = traceHeader.getParentApplicationType();
             recorder.recordParentApplication(parentApplicationName, parentApplicationType);
         }
     }
@@ -337,19 +336,13 @@ public class StandardHostValveInvokeInterceptor implements AroundInterceptor {
     /**
      * Populate source trace from HTTP Header.
      *
-     * @param request
+     * @param traceHeader
      * @return TraceId when it is possible to get a transactionId from Http header. if not possible return null
      */
-    private TraceId populateTraceIdFromRequest(HttpServletRequest request) {
+    private TraceId populateTraceIdFromRequest(TraceHeader traceHeader) {
 
-        String transactionId = request.getHeader(Header.HTTP_TRACE_ID.toString());
-        if (transactionId != null) {
-
-            long parentSpanID = NumberUtils.parseLong(request.getHeader(Header.HTTP_PARENT_SPAN_ID.toString()), SpanId.NULL);
-            long spanID = NumberUtils.parseLong(request.getHeader(Header.HTTP_SPAN_ID.toString()), SpanId.NULL);
-            short flags = NumberUtils.parseShort(request.getHeader(Header.HTTP_FLAGS.toString()), (short) 0);
-
-            final TraceId id = traceContext.createTraceId(transactionId, parentSpanID, spanID, flags);
+        final TraceId id = traceHeader.createTraceId(traceContext);
+        if (id != null) {
             if (isDebug) {
                 logger.debug("TraceID exist. continue trace. {}", id);
             }
@@ -359,13 +352,12 @@ public class StandardHostValveInvokeInterceptor implements AroundInterceptor {
         }
     }
 
-    private boolean samplingEnable(HttpServletRequest request) {
+    private boolean samplingEnable(TraceHeader traceHeader) {
         // optional value
-        final String samplingFlag = request.getHeader(Header.HTTP_SAMPLED.toString());
         if (isDebug) {
-            logger.debug("SamplingFlag:{}", samplingFlag);
+            logger.debug("SamplingFlag:{}", traceHeader.getSamplingFlag());
         }
-        return SamplingFlagUtils.isSamplingFlag(samplingFlag);
+        return traceHeader.isSampled();
     }
 
     private String getRequestParameter(HttpServletRequest request, int eachLimit, int totalLimit) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.plugin.tomcat.interceptor;
+
+import com.navercorp.pinpoint.bootstrap.plugin.http.RequestHeaderAdaptor;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeader;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeaderReader;
+import org.apache.catalina.connector.Request;
+import org.apache.tomcat.util.buf.MessageBytes;
+import org.apache.tomcat.util.http.MimeHeaders;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Reads every Pinpoint header in a single pass over the coyote {@link MimeHeaders}
+ * instead of one linear header lookup per Pinpoint header.
+ * Header names are converted to String only if they start with "Pinpoint-".
+ * A request without Pinpoint headers gets {@link TraceHeader#EMPTY}, so unsampled root requests allocate nothing here.
+ */
+public class TomcatTraceHeaderReader {
+
+    private static final TraceHeaderReader<HttpServletRequest> SERVLET_TRACE_HEADER_READER = new TraceHeaderReader<HttpServletRequest>(new RequestHeaderAdaptor<HttpServletRequest>() {
+        @Override
+        public String getHeader(HttpServletRequest request, String name) {
+            return request.getHeader(name);
+        }
+    });
+
+    public TraceHeader read(HttpServletRequest request) {
+        if (request == null) {
+            throw new NullPointerException("request must not be null");
+        }
+        final MimeHeaders mimeHeaders = getMimeHeaders(request);
+        if (mimeHeaders == null) {
+            return SERVLET_TRACE_HEADER_READER.read(request);
+        }
+
+        TraceHeader traceHeader = null;
+        final int size = mimeHeaders.size();
+        for (int i = 0; i < size; i++) {
+            final MessageBytes name = mimeHeaders.getName(i);
+            if (name.startsWithIgnoreCase(TraceHeader.PINPOINT_HEADER_PREFIX, 0)) {
+                if (traceHeader == null) {
+                    traceHeader = new TraceHeader();
+                }
+                traceHeader.put(name.toString(), mimeHeaders.getValue(i).toString());
+            }
+        }
+        if (traceHeader == null) {
+            return TraceHeader.EMPTY;
+        }
+        return traceHeader;
+    }
+
+    private MimeHeaders getMimeHeaders(HttpServletRequest request) {
+        if (!(request instanceof Request)) {
+            return null;
+        }
+        final org.apache.coyote.Request coyoteRequest = ((Request) request).getCoyoteRequest();
+        if (coyoteRequest == null) {
+            return null;
+        }
+        return coyoteRequest.getMimeHeaders();
+    }
+}
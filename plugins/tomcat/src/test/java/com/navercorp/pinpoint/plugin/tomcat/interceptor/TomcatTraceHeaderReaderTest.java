@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.plugin.tomcat.interceptor;
+
+import com.navercorp.pinpoint.bootstrap.context.Header;
+import com.navercorp.pinpoint.bootstrap.plugin.http.TraceHeader;
+import org.apache.catalina.connector.Request;
+import org.apache.tomcat.util.http.MimeHeaders;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TomcatTraceHeaderReaderTest {
+
+    @Test
+    public void testRead_mimeHeaders() {
+        org.apache.coyote.Request coyoteRequest = new org.apache.coyote.Request();
+        MimeHeaders mimeHeaders = coyoteRequest.getMimeHeaders();
+        mimeHeaders.addValue("Host").setString("localhost");
+        mimeHeaders.addValue("pinpoint-traceid").setString("agent^1^2");
+        mimeHeaders.addValue(Header.HTTP_SPAN_ID.toString()).setString("10");
+        mimeHeaders.addValue(Header.HTTP_PARENT_SPAN_ID.toString()).setString("9");
+        mimeHeaders.addValue(Header.HTTP_TRACE_ID.toString()).setString("agent^1^3");
+
+        Request request = new Request();
+        request.setCoyoteRequest(coyoteRequest);
+
+        TraceHeader traceHeader = new TomcatTraceHeaderReader().read(request);
+        Assert.assertEquals("agent^1^2", traceHeader.getTransactionId());
+        Assert.assertEquals(10L, traceHeader.getSpanId());
+        Assert.assertEquals(9L, traceHeader.getParentSpanId());
+        Assert.assertTrue(traceHeader.isSampled());
+        Assert.assertNull(traceHeader.getParentApplicationName());
+    }
+
+    @Test
+    public void testRead_noPinpointHeader() {
+        org.apache.coyote.Request coyoteRequest = new org.apache.coyote.Request();
+        coyoteRequest.getMimeHeaders().addValue("Host").setString("localhost");
+
+        Request request = new Request();
+        request.setCoyoteRequest(coyoteRequest);
+
+        TraceHeader traceHeader = new TomcatTraceHeaderReader().read(request);
+        Assert.assertSame(TraceHeader.EMPTY, traceHeader);
+        Assert.assertTrue(traceHeader.isSampled());
+        Assert.assertNull(traceHeader.getTransactionId());
+    }
+
+    @Test
+    public void testRead_servletRequest() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(Header.HTTP_TRACE_ID.toString())).thenReturn("agent^1^2");
+        when(request.getHeader(Header.HTTP_SPAN_ID.toString())).thenReturn("10");
+
+        TraceHeader traceHeader = new TomcatTraceHeaderReader().read(request);
+        Assert.assertEquals("agent^1^2", traceHeader.getTransactionId());
+        Assert.assertEquals(10L, traceHeader.getSpanId());
+    }
+}
@@ -19,9 +19,11 @@ package com.navercorp.pinpoint.profiler;
 import com.navercorp.pinpoint.ProductInfo;
 import com.navercorp.pinpoint.bootstrap.Agent;
 import com.navercorp.pinpoint.bootstrap.AgentOption;
+import com.navercorp.pinpoint.bootstrap.config.DefaultProfilerConfig;
 import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
 import com.navercorp.pinpoint.bootstrap.context.ServerMetaDataHolder;
 import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClassPool;
 import com.navercorp.pinpoint.bootstrap.interceptor.InterceptorInvokerHelper;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerBinder;
@@ -30,13 +32,17 @@ import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
 import com.navercorp.pinpoint.common.service.ServiceTypeRegistryService;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.profiler.context.DefaultServerMetaDataHolder;
+import com.navercorp.pinpoint.profiler.context.DefaultSpanFactory;
 import com.navercorp.pinpoint.profiler.context.DefaultTraceContext;
+import com.navercorp.pinpoint.profiler.context.RecyclingSpanFactory;
+import com.navercorp.pinpoint.profiler.context.SpanFactory;
 import com.navercorp.pinpoint.profiler.context.TransactionCounter;
 import com.navercorp.pinpoint.profiler.context.active.ActiveTraceLocator;
 import com.navercorp.pinpoint.profiler.context.storage.BufferedStorageFactory;
 import com.navercorp.pinpoint.profiler.context.storage.SpanStorageFactory;
 import com.navercorp.pinpoint.profiler.context.storage.StorageFactory;
 import com.navercorp.pinpoint.profiler.instrument.ASMBytecodeDumpService;
+import com.navercorp.pinpoint.profiler.instrument.ASMClassPool;
 import com.navercorp.pinpoint.profiler.instrument.BytecodeDumpTransformer;
 import com.navercorp.pinpoint.profiler.instrument.JavassistClassPool;
 import com.navercorp.pinpoint.profiler.interceptor.registry.DefaultInterceptorRegistryBinder;
@@ -51,8 +57,10 @@ import com.navercorp.pinpoint.profiler.receiver.service.ActiveThreadService;
 import com.navercorp.pinpoint.profiler.receiver.service.EchoService;
 import com.navercorp.pinpoint.profiler.receiver.service.ThreadDumpService;
 import com.navercorp.pinpoint.profiler.sampler.SamplerFactory;
+import com.navercorp.pinpoint.profiler.sender.AsyncQueueingExecutorFactory;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
 import com.navercorp.pinpoint.profiler.sender.EnhancedDataSender;
+import com.navercorp.pinpoint.profiler.sender.SpillStorage;
 import com.navercorp.pinpoint.profiler.sender.TcpDataSender;
 import com.navercorp.pinpoint.profiler.sender.UdpDataSenderFactory;
 import com.navercorp.pinpoint.profiler.util.ApplicationServerTypeResolver;
@@ -64,6 +72,7 @@ import com.navercorp.pinpoint.rpc.util.ClientFactoryUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
 import java.util.List;
@@ -97,6 +106,7 @@ public class DefaultAgent implements Agent {
 
     private final DataSender statDataSender;
     private final DataSender spanDataSender;
+    private final SpanFactory spanFactory;
 
     private final AgentInformation agentInformation;
     private final ServerMetaDataHolder serverMetaDataHolder;
@@ -109,6 +119,7 @@ public class DefaultAgent implements Agent {
     
     private final Instrumentation instrumentation;
     private final JavassistClassPool classPool;
+    private final InstrumentClassPool instrumentClassPool;
     private final DynamicTransformService dynamicTransformService;
     private final List<DefaultProfilerPluginContext> pluginContexts;
     
@@ -169,6 +180,7 @@ public class DefaultAgent implements Agent {
         this.instrumentation = agentOption.getInstrumentation();
         this.agentOption = agentOption;
         this.classPool = new JavassistClassPool(interceptorRegistryBinder, agentOption.getBootStrapCoreJarPath());
+        this.instrumentClassPool = createInstrumentClassPool(profilerConfig, interceptorRegistryBinder, classPool, agentOption.getBootStrapCoreJarPath());
         
         if (logger.isInfoEnabled()) {
             logger.info("DefaultAgent classLoader:{}", this.getClass().getClassLoader());
@@ -204,6 +216,7 @@ public class DefaultAgent implements Agent {
                 this.profilerConfig.getStatDataSenderWriteQueueSize(), this.profilerConfig.getStatDataSenderSocketTimeout(),
                 this.profilerConfig.getStatDataSenderSocketSendBufferSize());
 
+        this.spanFactory = createSpanFactory();
         this.traceContext = createTraceContext();
 
         addCommandService(commandDispatcher, traceContext);
@@ -272,6 +285,23 @@ public class DefaultAgent implements Agent {
         return classPool;
     }
 
+    public InstrumentClassPool getInstrumentClassPool() {
+        return instrumentClassPool;
+    }
+
+    private InstrumentClassPool createInstrumentClassPool(ProfilerConfig profilerConfig, InterceptorRegistryBinder interceptorRegistryBinder, JavassistClassPool javassistClassPool, String bootStrapCoreJarPath) {
+        final String instrumentEngine = profilerConfig.getProfileInstrumentEngine();
+        if (DefaultProfilerConfig.INSTRUMENT_ENGINE_ASM.equals(instrumentEngine)) {
+            logger.info("ASM instrument engine");
+            return new ASMClassPool(interceptorRegistryBinder, javassistClassPool, bootStrapCoreJarPath);
+        }
+        if (!DefaultProfilerConfig.INSTRUMENT_ENGINE_JAVASSIST.equals(instrumentEngine)) {
+            logger.warn("unknown instrument engine:{}. use JAVASSIST", instrumentEngine);
+        }
+        logger.info("JAVASSIST instrument engine");
+        return javassistClassPool;
+    }
+
     private void dumpSystemProperties() {
         if (logger.isInfoEnabled()) {
             Properties properties = System.getProperties();
@@ -318,18 +348,27 @@ public class DefaultAgent implements Agent {
         
         final int jdbcSqlCacheSize = profilerConfig.getJdbcSqlCacheSize();
         final boolean traceActiveThread = profilerConfig.isTraceAgentActiveThread();
-        final DefaultTraceContext traceContext = new DefaultTraceContext(jdbcSqlCacheSize, this.agentInformation, storageFactory, sampler, this.serverMetaDataHolder, traceActiveThread);
+        final DefaultTraceContext traceContext = new DefaultTraceContext(jdbcSqlCacheSize, this.agentInformation, storageFactory, sampler, this.serverMetaDataHolder, traceActiveThread, this.spanFactory);
         traceContext.setPriorityDataSender(this.tcpDataSender);
         traceContext.setProfilerConfig(profilerConfig);
 
         return traceContext;
     }
 
+    private SpanFactory createSpanFactory() {
+        if (profilerConfig.isSpanRecycleEnable()) {
+            final SpanFactory spanFactory = new RecyclingSpanFactory(profilerConfig.getSpanRecyclePoolSize());
+            logger.info("SpanFactoryType:{}", spanFactory);
+            return spanFactory;
+        }
+        return DefaultSpanFactory.INSTANCE;
+    }
+
     protected StorageFactory createStorageFactory() {
         if (profilerConfig.isIoBufferingEnable()) {
-            return new BufferedStorageFactory(this.spanDataSender, this.profilerConfig, this.agentInformation);
+            return new BufferedStorageFactory(this.spanDataSender, this.profilerConfig, this.agentInformation, this.spanFactory);
         } else {
-            return new SpanStorageFactory(spanDataSender);
+            return new SpanStorageFactory(spanDataSender, this.spanFactory);
 
         }
     }
@@ -372,19 +411,43 @@ public class DefaultAgent implements Agent {
     protected EnhancedDataSender createTcpDataSender(CommandDispatcher commandDispatcher) {
         this.clientFactory = createPinpointClientFactory(commandDispatcher);
         this.client = ClientFactoryUtils.createPinpointClient(this.profilerConfig.getCollectorTcpServerIp(), this.profilerConfig.getCollectorTcpServerPort(), clientFactory);
-        return new TcpDataSender(client);
+        return new TcpDataSender(client, createSpillStorage());
+    }
+
+    private SpillStorage createSpillStorage() {
+        if (!this.profilerConfig.isTcpDataSenderSpillEnable()) {
+            return null;
+        }
+        try {
+            final SpillStorage spillStorage = SpillStorage.create(profilerConfig.getTcpDataSenderSpillDir(), agentInformation.getAgentId(),
+                    profilerConfig.getTcpDataSenderSpillMetadataSize(), profilerConfig.getTcpDataSenderSpillDataSize(), profilerConfig.getTcpDataSenderSpillReplaySize());
+            logger.info("tcp data sender spill enabled. {}", spillStorage);
+            return spillStorage;
+        } catch (IOException e) {
+            logger.warn("spill storage create fail. spill disabled. Caused:{}", e.getMessage(), e);
+            return null;
+        }
     }
 
     protected DataSender createUdpStatDataSender(int port, String threadName, int writeQueueSize, int timeout, int sendBufferSize) {
-        UdpDataSenderFactory factory = new UdpDataSenderFactory(this.profilerConfig.getCollectorStatServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize);
+        AsyncQueueingExecutorFactory executorFactory = createAsyncQueueingExecutorFactory();
+        UdpDataSenderFactory factory = new UdpDataSenderFactory(this.profilerConfig.getCollectorStatServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize, executorFactory);
         return factory.create(profilerConfig.getStatDataSenderSocketType());
     }
     
     protected DataSender createUdpSpanDataSender(int port, String threadName, int writeQueueSize, int timeout, int sendBufferSize) {
-        UdpDataSenderFactory factory = new UdpDataSenderFactory(this.profilerConfig.getCollectorSpanServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize);
+        AsyncQueueingExecutorFactory executorFactory = createAsyncQueueingExecutorFactory();
+        UdpDataSenderFactory factory = new UdpDataSenderFactory(this.profilerConfig.getCollectorSpanServerIp(), port, threadName, writeQueueSize, timeout, sendBufferSize, executorFactory);
         return factory.create(profilerConfig.getSpanDataSenderSocketType());
     }
 
+    private AsyncQueueingExecutorFactory createAsyncQueueingExecutorFactory() {
+        String queueType = this.profilerConfig.getDataSenderExecutorQueueType();
+        String waitStrategy = this.profilerConfig.getDataSenderExecutorWaitStrategy();
+        int drainSize = this.profilerConfig.getDataSenderExecutorDrainSize();
+        return new AsyncQueueingExecutorFactory(queueType, waitStrategy, drainSize);
+    }
+
     protected EnhancedDataSender getTcpDataSender() {
         return tcpDataSender;
     }
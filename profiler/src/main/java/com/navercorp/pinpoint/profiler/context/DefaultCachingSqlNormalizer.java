@@ -20,9 +20,12 @@ import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
 import com.navercorp.pinpoint.common.util.*;
 import com.navercorp.pinpoint.profiler.metadata.Result;
 import com.navercorp.pinpoint.profiler.metadata.SimpleCache;
+import com.navercorp.pinpoint.profiler.util.jdk.LongAdder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * @author emeroad
  */
@@ -32,12 +35,41 @@ public class DefaultCachingSqlNormalizer implements CachingSqlNormalizer {
 
     private static final DefaultParsingResult EMPTY_OBJECT = new DefaultParsingResult("");
 
+    // longer sql bypasses the front cache so that a few huge statements can not pin the memory
+    static final int MAX_FRONT_CACHE_SQL_LENGTH = 4096;
+
     private final SimpleCache<String> sqlCache;
     private final SqlParser sqlParser;
 
+    // direct mapped cache keyed by the original sql. skips parsing for repeated sql instances.
+    private final AtomicReferenceArray<FrontCacheEntry> frontCache;
+    private final int frontCacheMask;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
     public DefaultCachingSqlNormalizer(int cacheSize) {
+        this(cacheSize, cacheSize);
+    }
+
+    public DefaultCachingSqlNormalizer(int cacheSize, int frontCacheSize) {
         this.sqlCache = new SimpleCache<String>(cacheSize);
         this.sqlParser = new DefaultSqlParser();
+
+        final int frontCacheCapacity = powerOfTwo(frontCacheSize);
+        this.frontCache = new AtomicReferenceArray<FrontCacheEntry>(frontCacheCapacity);
+        this.frontCacheMask = frontCacheCapacity - 1;
+    }
+
+    private static int powerOfTwo(int size) {
+        if (size <= 1) {
+            return 1;
+        }
+        if (size >= (1 << 30)) {
+            return 1 << 30;
+        }
+        return Integer.highestOneBit(size - 1) << 1;
     }
 
     @Override
@@ -71,24 +103,98 @@ public class DefaultCachingSqlNormalizer implements CachingSqlNormalizer {
         final ParsingResultInternal parsingResultInternal = (ParsingResultInternal) parsingResult;
 
         final String originalSql = parsingResultInternal.getOriginalSql();
+        final boolean frontCacheable = originalSql.length() <= MAX_FRONT_CACHE_SQL_LENGTH;
+        final int frontCacheIndex = frontCacheable ? frontCacheIndex(originalSql) : -1;
+
+        if (frontCacheable) {
+            final FrontCacheEntry entry = this.frontCache.get(frontCacheIndex);
+            if (entry != null && entry.match(originalSql)) {
+                hitCount.increment();
+                // sqlMetaData of entry.id has already been sent
+                setParsingResult(parsingResultInternal, entry.id, entry.sql, entry.output);
+                return false;
+            }
+        }
+        missCount.increment();
+
         final NormalizedSql normalizedSql = this.sqlParser.normalizedSql(originalSql);
 
         final Result cachingResult = this.sqlCache.put(normalizedSql.getNormalizedSql());
 
+        setParsingResult(parsingResultInternal, cachingResult.getId(), normalizedSql.getNormalizedSql(), normalizedSql.getParseParameter());
+
+        if (frontCacheable) {
+            final FrontCacheEntry newEntry = new FrontCacheEntry(originalSql, cachingResult.getId(), normalizedSql.getNormalizedSql(), normalizedSql.getParseParameter());
+            final FrontCacheEntry evicted = this.frontCache.getAndSet(frontCacheIndex, newEntry);
+            if (evicted != null && !evicted.match(originalSql)) {
+                evictionCount.increment();
+            }
+        }
+
+        return cachingResult.isNewValue();
+    }
+
+    private void setParsingResult(ParsingResultInternal parsingResultInternal, int id, String sql, String output) {
         // set normalizedSql
         // set sqlId
-        final boolean success = parsingResultInternal.setId(cachingResult.getId());
+        final boolean success = parsingResultInternal.setId(id);
         if (!success) {
             if (logger.isWarnEnabled()) {
-                logger.warn("invalid state. setSqlId fail setId:{}, ParsingResultInternal:{}", cachingResult.getId(), parsingResultInternal);
+                logger.warn("invalid state. setSqlId fail setId:{}, ParsingResultInternal:{}", id, parsingResultInternal);
             }
         }
 
-        parsingResultInternal.setSql(normalizedSql.getNormalizedSql());
-        parsingResultInternal.setOutput(normalizedSql.getParseParameter());
+        parsingResultInternal.setSql(sql);
+        parsingResultInternal.setOutput(output);
+    }
 
-        return cachingResult.isNewValue();
+    private int frontCacheIndex(String sql) {
+        // String caches its hashCode, repeated sql instances pay for hashing only once
+        // sql statements of an application differ in a few characters only, String.hashCode() of them
+        // shares most of the low bits. murmur3 fmix32 spreads every bit before masking.
+        int hash = sql.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash & frontCacheMask;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
     }
 
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private static final class FrontCacheEntry {
+        private final String originalSql;
+        private final int id;
+        private final String sql;
+        private final String output;
+
+        private FrontCacheEntry(String originalSql, int id, String sql, String output) {
+            this.originalSql = originalSql;
+            this.id = id;
+            this.sql = sql;
+            this.output = output;
+        }
+
+        private boolean match(String sql) {
+            if (this.originalSql == sql) {
+                return true;
+            }
+            if (this.originalSql.length() != sql.length()) {
+                return false;
+            }
+            return this.originalSql.equals(sql);
+        }
+    }
 
 }
@@ -33,7 +33,8 @@ public class DefaultSpanRecorder extends AbstractRecorder implements SpanRecorde
     private final Logger logger = LoggerFactory.getLogger(DefaultTrace.class.getName());
     private final boolean isDebug = logger.isDebugEnabled();
     
-    private final Span span;
+    // volatile : read by other threads through Trace.getStartTime()
+    private volatile Span span;
     private final TraceId traceId;
     private final boolean sampling;
     
@@ -48,6 +49,18 @@ public class DefaultSpanRecorder extends AbstractRecorder implements SpanRecorde
     public Span getSpan() {
         return span;
     }
+
+    /**
+     * Moves the recorder off a pooled Span before it is handed to the storage.
+     * The DataSender recycles a pooled Span once it is sent, so a late record call would
+     * otherwise write into a Span that may already belong to another transaction.
+     */
+    void detach() {
+        final Span span = this.span;
+        final Span detached = new Span();
+        detached.setStartTime(span.getStartTime());
+        this.span = detached;
+    }
     
     public void recordTraceId(TraceId traceId) {
         span.recordTraceId(traceId);
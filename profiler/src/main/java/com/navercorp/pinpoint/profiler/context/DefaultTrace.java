@@ -46,6 +46,7 @@ public final class DefaultTrace implements Trace {
     private Storage storage;
 
     private final TraceContext traceContext;
+    private final SpanFactory spanFactory;
     private final WrappedSpanEventRecorder spanEventRecorder;
     private final DefaultSpanRecorder spanRecorder;
     private boolean closed = false;
@@ -54,10 +55,18 @@ public final class DefaultTrace implements Trace {
     private final DefaultTraceScopePool scopePool = new DefaultTraceScopePool();
 
     public DefaultTrace(final TraceContext traceContext, long transactionId, boolean sampling) {
+        this(traceContext, transactionId, sampling, DefaultSpanFactory.INSTANCE);
+    }
+
+    public DefaultTrace(final TraceContext traceContext, long transactionId, boolean sampling, SpanFactory spanFactory) {
         if (traceContext == null) {
             throw new NullPointerException("traceContext must not be null");
         }
+        if (spanFactory == null) {
+            throw new NullPointerException("spanFactory must not be null");
+        }
         this.traceContext = traceContext;
+        this.spanFactory = spanFactory;
         this.traceId = new DefaultTraceId(traceContext.getAgentId(), traceContext.getAgentStartTime(), transactionId);
         this.id = this.traceId.getTransactionSequence();
         this.sampling = sampling;
@@ -71,13 +80,21 @@ public final class DefaultTrace implements Trace {
     }
 
     public DefaultTrace(TraceContext traceContext, TraceId continueTraceId, long transactionId, boolean sampling) {
+        this(traceContext, continueTraceId, transactionId, sampling, DefaultSpanFactory.INSTANCE);
+    }
+
+    public DefaultTrace(TraceContext traceContext, TraceId continueTraceId, long transactionId, boolean sampling, SpanFactory spanFactory) {
         if (traceContext == null) {
             throw new NullPointerException("traceContext must not be null");
         }
         if (continueTraceId == null) {
             throw new NullPointerException("continueTraceId must not be null");
         }
+        if (spanFactory == null) {
+            throw new NullPointerException("spanFactory must not be null");
+        }
         this.traceContext = traceContext;
+        this.spanFactory = spanFactory;
         this.traceId = continueTraceId;
         this.id = transactionId;
         this.sampling = sampling;
@@ -100,7 +117,7 @@ public final class DefaultTrace implements Trace {
     }
 
     private Span createSpan() {
-        Span span = new Span();
+        Span span = spanFactory.newSpan();
         span.setAgentId(traceContext.getAgentId());
         span.setApplicationName(traceContext.getApplicationName());
         span.setAgentStartTime(traceContext.getAgentStartTime());
@@ -128,7 +145,7 @@ public final class DefaultTrace implements Trace {
     @Override
     public SpanEventRecorder traceBlockBegin(final int stackId) {
         // Set properties for the case when stackFrame is not used as part of Span.
-        final SpanEvent spanEvent = new SpanEvent(spanRecorder.getSpan());
+        final SpanEvent spanEvent = spanFactory.newSpanEvent(spanRecorder.getSpan());
         spanEvent.markStartTime();
         spanEvent.setStackId(stackId);
 
@@ -179,6 +196,8 @@ public final class DefaultTrace implements Trace {
         if (spanEvent.isTimeRecording()) {
             spanEvent.markAfterTime();
         }
+        // the storage may send and recycle a pooled SpanEvent right away
+        spanEventRecorder.detach(spanEvent);
         logSpan(spanEvent);
     }
 
@@ -190,6 +209,13 @@ public final class DefaultTrace implements Trace {
         }
         closed = true;
 
+        final Span span = spanRecorder.getSpan();
+        if (span.isPooled()) {
+            // the storage may send and recycle a pooled Span right away, keep late record calls away from it
+            spanRecorder.detach();
+            spanEventRecorder.detach(spanRecorder.getSpan());
+        }
+
         if (!callStack.empty()) {
             if (isWarn) {
                 PinpointException exception = new PinpointException("not empty call stack.");
@@ -197,7 +223,6 @@ public final class DefaultTrace implements Trace {
             }
             // skip
         } else {
-            Span span = spanRecorder.getSpan();
             if (span.isTimeRecording()) {
                 span.markAfterTime();
             }
@@ -84,6 +84,10 @@ public class DefaultTraceContext implements TraceContext {
     }
 
     public DefaultTraceContext(final int sqlCacheSize, final AgentInformation agentInformation, StorageFactory storageFactory, Sampler sampler, ServerMetaDataHolder serverMetaDataHolder, final boolean traceActiveThread) {
+        this(sqlCacheSize, agentInformation, storageFactory, sampler, serverMetaDataHolder, traceActiveThread, DefaultSpanFactory.INSTANCE);
+    }
+
+    public DefaultTraceContext(final int sqlCacheSize, final AgentInformation agentInformation, StorageFactory storageFactory, Sampler sampler, ServerMetaDataHolder serverMetaDataHolder, final boolean traceActiveThread, SpanFactory spanFactory) {
         if (agentInformation == null) {
             throw new NullPointerException("agentInformation must not be null");
         }
@@ -93,18 +97,21 @@ public class DefaultTraceContext implements TraceContext {
         if (sampler == null) {
             throw new NullPointerException("sampler must not be null");
         }
+        if (spanFactory == null) {
+            throw new NullPointerException("spanFactory must not be null");
+        }
         this.agentInformation = agentInformation;
 
         this.cachingSqlNormalizer = new DefaultCachingSqlNormalizer(sqlCacheSize);
 
-        this.traceFactory = createTraceFactory(storageFactory, sampler, traceActiveThread);
+        this.traceFactory = createTraceFactory(storageFactory, sampler, traceActiveThread, spanFactory);
 
         this.serverMetaDataHolder = serverMetaDataHolder;
     }
 
-    private TraceFactory createTraceFactory(StorageFactory storageFactory, Sampler sampler, boolean recordActiveThread) {
+    private TraceFactory createTraceFactory(StorageFactory storageFactory, Sampler sampler, boolean recordActiveThread, SpanFactory spanFactory) {
         // TODO extract chain TraceFactory??
-        final TraceFactory threadLocalTraceFactory = new ThreadLocalTraceFactory(this, storageFactory, sampler, this.idGenerator);
+        final TraceFactory threadLocalTraceFactory = new ThreadLocalTraceFactory(this, storageFactory, sampler, this.idGenerator, spanFactory);
         if (recordActiveThread) {
             ActiveTraceFactory activeTraceFactory = (ActiveTraceFactory) ActiveTraceFactory.wrap(threadLocalTraceFactory);
             return activeTraceFactory;
@@ -258,6 +265,14 @@ public class DefaultTraceContext implements TraceContext {
         return DefaultTraceId.parse(transactionId, parentSpanID, spanID, flags);
     }
 
+    @Override
+    public TraceId createTraceId(final String agentId, final long agentStartTime, final long transactionSequence, final long parentSpanID, final long spanID, final short flags) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        return new DefaultTraceId(agentId, agentStartTime, transactionSequence, parentSpanID, spanID, flags);
+    }
+
     @Override
     public ParsingResult parseSql(final String sql) {
         // lazy sql normalization
@@ -30,17 +30,48 @@ public class DisableTrace implements Trace {
     public static final String UNSUPPORTED_OPERATION  = "disable trace";
     public static final long DISABLE_TRACE_OBJECT_ID = -1;
 
-    private final long id;
-    private final long startTime;
+    private long id;
+    private long startTime;
     private final Thread bindThread;
-    private final DefaultTraceScopePool scopePool = new DefaultTraceScopePool();
-    
+    // most unsampled transactions never touch a scope.
+    private DefaultTraceScopePool scopePool;
+    // written by the thread the trace is handed over to, read by the bind thread
+    private volatile boolean reusable = true;
+
     public DisableTrace(long id) {
         this.id = id;
         this.startTime = System.currentTimeMillis();
         this.bindThread = Thread.currentThread();
     }
 
+    /**
+     * Recycles this trace for the next unsampled transaction of the bind thread.
+     * Must be called only by the bind thread after the trace has been removed from it.
+     *
+     * @return false if the trace may still be referenced by another thread
+     */
+    boolean reuse(long id) {
+        if (!reusable) {
+            return false;
+        }
+        if (bindThread != Thread.currentThread()) {
+            return false;
+        }
+        this.id = id;
+        this.startTime = System.currentTimeMillis();
+        if (scopePool != null) {
+            scopePool.clear();
+        }
+        return true;
+    }
+
+    /**
+     * Excludes this trace from recycling, for a trace that is referenced from a thread other than the one that created it.
+     */
+    void disableReuse() {
+        this.reusable = false;
+    }
+
     @Override
     public long getId() {
         return id;
@@ -128,11 +159,20 @@ public class DisableTrace implements Trace {
 
     @Override
     public TraceScope getScope(String name) {
+        if (scopePool == null) {
+            if (name == null) {
+                throw new IllegalArgumentException("name must not be null");
+            }
+            return null;
+        }
         return scopePool.get(name);
     }
 
     @Override
     public TraceScope addScope(String name) {
+        if (scopePool == null) {
+            scopePool = new DefaultTraceScopePool();
+        }
         return scopePool.add(name);
     }
 }
\ No newline at end of file
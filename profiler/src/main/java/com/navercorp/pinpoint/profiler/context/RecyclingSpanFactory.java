@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.profiler.util.Recycler;
+
+import java.util.List;
+
+/**
+ * Takes Span, SpanEvent and SpanEvent lists from per-thread pools.
+ * They are returned to the pool by the DataSender once serialized. see {@link Recyclable}
+ */
+public class RecyclingSpanFactory implements SpanFactory {
+
+    private static final int DEFAULT_SPAN_EVENT_LIST_SIZE = 20;
+
+    private final Recycler<Span> spanRecycler;
+    private final Recycler<SpanEvent> spanEventRecycler;
+    private final Recycler<SpanEventList> spanEventListRecycler;
+
+    public RecyclingSpanFactory(int maxCapacityPerThread) {
+        this.spanRecycler = new Recycler<Span>(maxCapacityPerThread) {
+            @Override
+            protected Span newObject(Handle<Span> handle) {
+                return new Span(handle);
+            }
+        };
+        this.spanEventRecycler = new Recycler<SpanEvent>(maxCapacityPerThread) {
+            @Override
+            protected SpanEvent newObject(Handle<SpanEvent> handle) {
+                return new SpanEvent(handle);
+            }
+        };
+        this.spanEventListRecycler = new Recycler<SpanEventList>(maxCapacityPerThread) {
+            @Override
+            protected SpanEventList newObject(Handle<SpanEventList> handle) {
+                return new SpanEventList(DEFAULT_SPAN_EVENT_LIST_SIZE, handle);
+            }
+        };
+    }
+
+    @Override
+    public Span newSpan() {
+        return spanRecycler.get();
+    }
+
+    @Override
+    public SpanEvent newSpanEvent(Span span) {
+        final SpanEvent spanEvent = spanEventRecycler.get();
+        spanEvent.setSpan(span);
+        return spanEvent;
+    }
+
+    @Override
+    public List<SpanEvent> newSpanEventList(int initialCapacity) {
+        final SpanEventList spanEventList = spanEventListRecycler.get();
+        spanEventList.ensureCapacity(initialCapacity);
+        return spanEventList;
+    }
+
+    @Override
+    public String toString() {
+        return "RecyclingSpanFactory";
+    }
+}
@@ -20,8 +20,13 @@ import com.navercorp.pinpoint.bootstrap.context.FrameAttachment;
 import com.navercorp.pinpoint.bootstrap.context.SpanId;
 import com.navercorp.pinpoint.bootstrap.context.TraceId;
 import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.profiler.util.Recycler;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
 import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
 import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+
+import java.util.List;
 
 /**
  * Span represent RPC
@@ -29,11 +34,23 @@ import com.navercorp.pinpoint.thrift.dto.TSpan;
  * @author netspider
  * @author emeroad
  */
-public class Span extends TSpan implements FrameAttachment {
+public class Span extends TSpan implements FrameAttachment, Recyclable {
     private boolean timeRecording = true;
     private Object frameObject;
-    
+
+    // null if not pooled
+    private final Recycler.Handle<Span> handle;
+    private List<TAnnotation> recycledAnnotations;
+
     public Span() {
+        this.handle = null;
+    }
+
+    Span(Recycler.Handle<Span> handle) {
+        if (handle == null) {
+            throw new NullPointerException("handle must not be null");
+        }
+        this.handle = handle;
     }
 
     public void recordTraceId(final TraceId traceId) {
@@ -79,6 +96,10 @@ public class Span extends TSpan implements FrameAttachment {
 
 
     public void addAnnotation(Annotation annotation) {
+        if (this.recycledAnnotations != null && !isSetAnnotations()) {
+            this.setAnnotations(this.recycledAnnotations);
+            this.recycledAnnotations = null;
+        }
         this.addToAnnotations(annotation);
     }
 
@@ -128,4 +149,35 @@ public class Span extends TSpan implements FrameAttachment {
         this.frameObject = null;
         return delete;
     }
+
+    boolean isPooled() {
+        return handle != null;
+    }
+
+    @Override
+    public void recycle() {
+        if (handle == null) {
+            return;
+        }
+        final List<TSpanEvent> spanEventList = this.getSpanEventList();
+        if (spanEventList != null) {
+            SpanEventList.recycle(spanEventList);
+        }
+        final List<TAnnotation> annotations = this.getAnnotations();
+
+        this.clear();
+        // clear() does not reset the isSet flag of fields with default value.
+        this.unsetParentSpanId();
+        this.unsetElapsed();
+        this.unsetFlag();
+
+        if (annotations != null) {
+            annotations.clear();
+            this.recycledAnnotations = annotations;
+        }
+        this.timeRecording = true;
+        this.frameObject = null;
+
+        handle.recycle(this);
+    }
 }
\ No newline at end of file
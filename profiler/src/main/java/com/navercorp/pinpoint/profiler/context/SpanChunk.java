@@ -20,11 +20,12 @@ package com.navercorp.pinpoint.profiler.context;
 import java.util.List;
 
 import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
 
 /**
  * @author emeroad
  */
-public class SpanChunk extends TSpanChunk {
+public class SpanChunk extends TSpanChunk implements Recyclable {
 
     public SpanChunk(List<SpanEvent> spanEventList) {
         if (spanEventList == null) {
@@ -32,4 +33,12 @@ public class SpanChunk extends TSpanChunk {
         }
         setSpanEventList((List) spanEventList);
     }
+
+    @Override
+    public void recycle() {
+        final List<TSpanEvent> spanEventList = this.getSpanEventList();
+        if (spanEventList != null) {
+            SpanEventList.recycle(spanEventList);
+        }
+    }
 }
@@ -17,27 +17,51 @@
 package com.navercorp.pinpoint.profiler.context;
 
 import com.navercorp.pinpoint.bootstrap.context.FrameAttachment;
+import com.navercorp.pinpoint.profiler.util.Recycler;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
 import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
 import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
 
+import java.util.List;
+
 /**
  * Span represent RPC
  *
  * @author netspider
  * @author emeroad
  */
-public class SpanEvent extends TSpanEvent implements FrameAttachment {
+public class SpanEvent extends TSpanEvent implements FrameAttachment, Recyclable {
 
-    private final Span span;
+    private Span span;
     private int stackId;
     private boolean timeRecording = true;
     private Object frameObject;
 
+    // null if not pooled
+    private final Recycler.Handle<SpanEvent> handle;
+    // annotation list of the previous use. reused only when an annotation is added, so the wire format stays the same.
+    private List<TAnnotation> recycledAnnotations;
+
     public SpanEvent(Span span) {
         if (span == null) {
             throw new NullPointerException("span must not be null");
         }
         this.span = span;
+        this.handle = null;
+    }
+
+    SpanEvent(Recycler.Handle<SpanEvent> handle) {
+        if (handle == null) {
+            throw new NullPointerException("handle must not be null");
+        }
+        this.handle = handle;
+    }
+
+    void setSpan(Span span) {
+        if (span == null) {
+            throw new NullPointerException("span must not be null");
+        }
+        this.span = span;
     }
 
     public Span getSpan() {
@@ -45,6 +69,10 @@ public class SpanEvent extends TSpanEvent implements FrameAttachment {
     }
 
     public void addAnnotation(Annotation annotation) {
+        if (this.recycledAnnotations != null && !isSetAnnotations()) {
+            this.setAnnotations(this.recycledAnnotations);
+            this.recycledAnnotations = null;
+        }
         this.addToAnnotations(annotation);
     }
 
@@ -115,4 +143,33 @@ public class SpanEvent extends TSpanEvent implements FrameAttachment {
         this.frameObject = null;
         return delete;
     }
+
+    boolean isPooled() {
+        return handle != null;
+    }
+
+    @Override
+    public void recycle() {
+        if (handle == null) {
+            return;
+        }
+        final List<TAnnotation> annotations = this.getAnnotations();
+
+        this.clear();
+        // clear() does not reset the isSet flag of fields with default value.
+        this.unsetEndElapsed();
+        this.unsetDepth();
+        this.unsetNextSpanId();
+
+        if (annotations != null) {
+            annotations.clear();
+            this.recycledAnnotations = annotations;
+        }
+        this.span = null;
+        this.stackId = 0;
+        this.timeRecording = true;
+        this.frameObject = null;
+
+        handle.recycle(this);
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context;
+
+import com.navercorp.pinpoint.profiler.util.Recycler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pooled SpanEvent list of Span and SpanChunk.
+ */
+public class SpanEventList extends ArrayList<SpanEvent> {
+
+    private final Recycler.Handle<SpanEventList> handle;
+
+    SpanEventList(int initialCapacity, Recycler.Handle<SpanEventList> handle) {
+        super(initialCapacity);
+        if (handle == null) {
+            throw new NullPointerException("handle must not be null");
+        }
+        this.handle = handle;
+    }
+
+    /**
+     * Recycles every SpanEvent of a pooled list, and the list itself.
+     * A list that is not pooled holds no pooled SpanEvent, so it is left as is.
+     */
+    static void recycle(List<?> spanEventList) {
+        if (!(spanEventList instanceof SpanEventList)) {
+            return;
+        }
+        final int size = spanEventList.size();
+        for (int i = 0; i < size; i++) {
+            final Object spanEvent = spanEventList.get(i);
+            if (spanEvent instanceof Recyclable) {
+                ((Recyclable) spanEvent).recycle();
+            }
+        }
+        final SpanEventList pooledList = (SpanEventList) spanEventList;
+        pooledList.clear();
+        pooledList.handle.recycle(pooledList);
+    }
+}
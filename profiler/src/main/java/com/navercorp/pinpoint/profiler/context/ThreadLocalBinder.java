@@ -38,7 +38,8 @@ public class ThreadLocalBinder<T> implements Binder<T> {
     @Override
     public T remove() {
         final T value = threadLocal.get();
-        threadLocal.remove();
+        // keep the ThreadLocalMap entry so that the next bind does not allocate a new one.
+        threadLocal.set(null);
         return value;
     }
 }
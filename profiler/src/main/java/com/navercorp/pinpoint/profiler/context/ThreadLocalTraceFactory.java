@@ -25,6 +25,7 @@ import com.navercorp.pinpoint.exception.PinpointException;
 import com.navercorp.pinpoint.profiler.context.storage.AsyncStorage;
 import com.navercorp.pinpoint.profiler.context.storage.Storage;
 import com.navercorp.pinpoint.profiler.context.storage.StorageFactory;
+import com.navercorp.pinpoint.profiler.util.NamedThreadLocal;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +40,8 @@ public class ThreadLocalTraceFactory implements TraceFactory {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final Binder<Trace> threadLocalBinder = new ThreadLocalBinder<Trace>();
+    // unsampled transactions reuse the DisableTrace of the previous unsampled transaction on the same thread
+    private final ThreadLocal<DisableTrace> disableTraceCache = new NamedThreadLocal<DisableTrace>("DisableTraceCache");
 
     private final TraceContext traceContext;
 
@@ -47,7 +50,13 @@ public class ThreadLocalTraceFactory implements TraceFactory {
 
     private final IdGenerator idGenerator;
 
+    private final SpanFactory spanFactory;
+
     public ThreadLocalTraceFactory(TraceContext traceContext, StorageFactory storageFactory, Sampler sampler, IdGenerator idGenerator) {
+        this(traceContext, storageFactory, sampler, idGenerator, DefaultSpanFactory.INSTANCE);
+    }
+
+    public ThreadLocalTraceFactory(TraceContext traceContext, StorageFactory storageFactory, Sampler sampler, IdGenerator idGenerator, SpanFactory spanFactory) {
         if (traceContext == null) {
             throw new NullPointerException("traceContext must not be null");
         }
@@ -60,10 +69,14 @@ public class ThreadLocalTraceFactory implements TraceFactory {
         if (idGenerator == null) {
             throw new NullPointerException("idGenerator must not be null");
         }
+        if (spanFactory == null) {
+            throw new NullPointerException("spanFactory must not be null");
+        }
         this.traceContext = traceContext;
         this.storageFactory = storageFactory;
         this.sampler = sampler;
         this.idGenerator = idGenerator;
+        this.spanFactory = spanFactory;
     }
 
 
@@ -104,7 +117,7 @@ public class ThreadLocalTraceFactory implements TraceFactory {
     @Override
     public Trace disableSampling() {
         checkBeforeTraceObject();
-        final Trace metricTrace = new DisableTrace(this.idGenerator.nextContinuedDisabledId());
+        final Trace metricTrace = newDisableTrace(this.idGenerator.nextContinuedDisabledId());
         bind(metricTrace);
 
         return metricTrace;
@@ -119,7 +132,7 @@ public class ThreadLocalTraceFactory implements TraceFactory {
         // always set true because the decision of sampling has been  made on previous nodes
         // TODO need to consider as a target to sample in case Trace object has a sampling flag (true) marked on previous node.
         final boolean sampling = true;
-        final DefaultTrace trace = new DefaultTrace(traceContext, traceId, this.idGenerator.nextContinuedTransactionId(), sampling);
+        final DefaultTrace trace = new DefaultTrace(traceContext, traceId, this.idGenerator.nextContinuedTransactionId(), sampling, spanFactory);
         // final Storage storage = storageFactory.createStorage();
         final Storage storage = storageFactory.createStorage();
         trace.setStorage(storage);
@@ -131,6 +144,10 @@ public class ThreadLocalTraceFactory implements TraceFactory {
     @Override
     public Trace continueTraceObject(Trace trace) {
         checkBeforeTraceObject();
+        if (trace instanceof DisableTrace) {
+            // the trace has escaped its thread and may outlive the transaction
+            ((DisableTrace) trace).disableReuse();
+        }
 
         bind(trace);
         return trace;
@@ -153,18 +170,29 @@ public class ThreadLocalTraceFactory implements TraceFactory {
         // TODO need to modify how to inject a datasender
         final boolean sampling = sampler.isSampling();
         if (sampling) {
-            final DefaultTrace trace = new DefaultTrace(traceContext, idGenerator.nextTransactionId(), sampling);
+            final DefaultTrace trace = new DefaultTrace(traceContext, idGenerator.nextTransactionId(), sampling, spanFactory);
             final Storage storage = storageFactory.createStorage();
             trace.setStorage(storage);
             bind(trace);
             return trace;
         } else {
-            final DisableTrace disableTrace = new DisableTrace(this.idGenerator.nextDisabledId());
+            final DisableTrace disableTrace = newDisableTrace(this.idGenerator.nextDisabledId());
             bind(disableTrace);
             return disableTrace;
         }
     }
 
+    private DisableTrace newDisableTrace(long id) {
+        // no trace is bound at this point, so the cached trace of this thread is not in use.
+        final DisableTrace cached = disableTraceCache.get();
+        if (cached != null && cached.reuse(id)) {
+            return cached;
+        }
+        final DisableTrace disableTrace = new DisableTrace(id);
+        disableTraceCache.set(disableTrace);
+        return disableTrace;
+    }
+
     private void bind(Trace trace) {
         threadLocalBinder.set(trace);
 
@@ -196,7 +224,7 @@ public class ThreadLocalTraceFactory implements TraceFactory {
         
         final TraceId parentTraceId = traceId.getParentTraceId();
         final boolean sampling = true;
-        final DefaultTrace trace = new DefaultTrace(traceContext, parentTraceId, IdGenerator.UNTRACKED_ID, sampling);
+        final DefaultTrace trace = new DefaultTrace(traceContext, parentTraceId, IdGenerator.UNTRACKED_ID, sampling, spanFactory);
         final Storage storage = storageFactory.createStorage();
         trace.setStorage(new AsyncStorage(storage));
 
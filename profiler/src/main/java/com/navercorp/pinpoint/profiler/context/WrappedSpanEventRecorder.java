@@ -35,6 +35,8 @@ public class WrappedSpanEventRecorder extends AbstractRecorder implements SpanEv
     private final boolean isDebug = logger.isDebugEnabled();
 
     private SpanEvent spanEvent;
+    // takes the late writes after a pooled SpanEvent has been handed to the storage
+    private SpanEvent detachedSpanEvent;
 
     public WrappedSpanEventRecorder(final TraceContext traceContext) {
         super(traceContext);
@@ -44,6 +46,33 @@ public class WrappedSpanEventRecorder extends AbstractRecorder implements SpanEv
         this.spanEvent = spanEvent;
     }
 
+    /**
+     * Stops writing into the given SpanEvent if it is pooled, as it may be recycled once the storage sends it.
+     * see {@link DefaultSpanRecorder#detach()}
+     */
+    void detach(final SpanEvent spanEvent) {
+        if (this.spanEvent != spanEvent || !spanEvent.isPooled()) {
+            return;
+        }
+        if (detachedSpanEvent == null) {
+            detachedSpanEvent = new SpanEvent(spanEvent.getSpan());
+        }
+        this.spanEvent = detachedSpanEvent;
+    }
+
+    /**
+     * Sends the late writes of a closed trace to a SpanEvent of the given detached Span.
+     * see {@link DefaultSpanRecorder#detach()}
+     */
+    void detach(final Span span) {
+        if (detachedSpanEvent == null) {
+            detachedSpanEvent = new SpanEvent(span);
+        } else {
+            detachedSpanEvent.setSpan(span);
+        }
+        this.spanEvent = detachedSpanEvent;
+    }
+
     @Override
     public ParsingResult recordSqlInfo(String sql) {
         if (sql == null) {
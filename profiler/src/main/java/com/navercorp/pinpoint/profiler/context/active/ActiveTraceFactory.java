@@ -19,9 +19,9 @@ package com.navercorp.pinpoint.profiler.context.active;
 import com.navercorp.pinpoint.bootstrap.context.AsyncTraceId;
 import com.navercorp.pinpoint.bootstrap.context.Trace;
 import com.navercorp.pinpoint.bootstrap.context.TraceId;
-import com.navercorp.pinpoint.profiler.context.ActiveTrace;
 import com.navercorp.pinpoint.profiler.context.TraceFactory;
 import com.navercorp.pinpoint.profiler.context.TraceFactoryWrapper;
+import com.navercorp.pinpoint.profiler.util.NamedThreadLocal;
 
 /**
  * @author Taejin Koo
@@ -32,6 +32,13 @@ public class ActiveTraceFactory implements TraceFactory, TraceFactoryWrapper {
 
     private final TraceFactory delegate;
     private final ActiveTraceRepository activeTraceRepository = new ActiveTraceRepository();
+    // a thread has at most one attached trace. see ThreadLocalTraceFactory
+    private final ThreadLocal<ActiveTraceHandle> activeTraceHandle = new NamedThreadLocal<ActiveTraceHandle>("ActiveTraceHandle") {
+        @Override
+        protected ActiveTraceHandle initialValue() {
+            return new ActiveTraceHandle();
+        }
+    };
 
     private ActiveTraceFactory(TraceFactory delegate) {
         if (delegate == null) {
@@ -113,19 +120,27 @@ public class ActiveTraceFactory implements TraceFactory, TraceFactoryWrapper {
         if (trace == null) {
             return;
         }
-        this.activeTraceRepository.put(new ActiveTrace(trace));
+        final ActiveTraceHandle handle = this.activeTraceHandle.get();
+        // defense for a trace that was not removed
+        this.activeTraceRepository.remove(handle.value);
+        handle.value = this.activeTraceRepository.put(trace.getId(), trace.getStartTime(), trace.getBindThread());
     }
 
     private void detachTrace(Trace trace) {
         if (trace == null) {
             return;
         }
-        final long id = trace.getId();
-        this.activeTraceRepository.remove(id);
+        final ActiveTraceHandle handle = this.activeTraceHandle.get();
+        this.activeTraceRepository.remove(handle.value);
+        handle.value = ActiveTraceRepository.NOT_TRACKED;
     }
 
     public ActiveTraceLocator getActiveTraceLocator() {
         return activeTraceRepository;
     }
 
+    private static class ActiveTraceHandle {
+        private int value = ActiveTraceRepository.NOT_TRACKED;
+    }
+
 }
@@ -62,9 +62,9 @@ public class ActiveTraceHistogramFactory {
 
         long currentTime = System.currentTimeMillis();
 
-        List<ActiveTraceInfo> collectedActiveTraceInfo = activeTraceLocator.collect();
-        for (ActiveTraceInfo activeTraceInfo : collectedActiveTraceInfo) {
-            HistogramSlot slot = histogramSchema.findHistogramSlot((int) (currentTime - activeTraceInfo.getStartTime()), false);
+        final long[] startTimes = activeTraceLocator.collectStartTime();
+        for (long startTime : startTimes) {
+            HistogramSlot slot = histogramSchema.findHistogramSlot((int) (currentTime - startTime), false);
             mappedSlot.get(slot.getSlotType()).incrementAndGet();
         }
 
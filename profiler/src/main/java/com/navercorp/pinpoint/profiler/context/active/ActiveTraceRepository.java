@@ -16,97 +16,254 @@
 
 package com.navercorp.pinpoint.profiler.context.active;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.navercorp.pinpoint.profiler.context.ActiveTrace;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ConcurrentMap;
 
 /**
+ * Active traces are kept in primitive slot arrays split into stripes, so starting and ending a trace neither boxes the id
+ * nor allocates a map entry. A put returns a handle, which the caller passes back on remove.
+ * Each stripe keeps its entries packed, so a snapshot visits only the active traces.
+ * A trace that is never removed must not pin its thread, so snapshots drop the slots of dead threads.
+ *
  * @author Taejin Koo
  */
 public class ActiveTraceRepository implements ActiveTraceLocator {
 
-    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    public static final int NOT_TRACKED = -1;
 
     // memory leak defense threshold
     private static final int DEFAULT_MAX_ACTIVE_TRACE_SIZE = 1024 * 10;
-    // oom safe cache
-    private final ConcurrentMap<Long, ActiveTrace> activeTraceInfoMap;
+    private static final int DEFAULT_STRIPE_SIZE = 64;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int stripeCapacity;
 
     public ActiveTraceRepository() {
         this(DEFAULT_MAX_ACTIVE_TRACE_SIZE);
     }
+
     public ActiveTraceRepository(int maxActiveTraceSize) {
-        this.activeTraceInfoMap = createCache(maxActiveTraceSize);
+        this(maxActiveTraceSize, DEFAULT_STRIPE_SIZE);
     }
 
-    private ConcurrentMap<Long, ActiveTrace> createCache(int maxActiveTraceSize) {
-        final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
-        cacheBuilder.concurrencyLevel(64);
-        cacheBuilder.initialCapacity(maxActiveTraceSize);
-        cacheBuilder.maximumSize(maxActiveTraceSize);
-        // OOM defense
-        cacheBuilder.weakValues();
+    public ActiveTraceRepository(int maxActiveTraceSize, int stripeSize) {
+        if (maxActiveTraceSize <= 0) {
+            throw new IllegalArgumentException("maxActiveTraceSize must be positive");
+        }
+        if (stripeSize <= 0) {
+            throw new IllegalArgumentException("stripeSize must be positive");
+        }
+        final int stripeCount = Math.min(powerOfTwo(stripeSize), powerOfTwo(maxActiveTraceSize));
+        this.stripeMask = stripeCount - 1;
+        this.stripeCapacity = (maxActiveTraceSize + stripeCount - 1) / stripeCount;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
 
-        final Cache<Long, ActiveTrace> localCache = cacheBuilder.build();
-        return localCache.asMap();
+    private static int powerOfTwo(int value) {
+        int powerOfTwo = 1;
+        while (powerOfTwo < value && powerOfTwo < (1 << 30)) {
+            powerOfTwo <<= 1;
+        }
+        return powerOfTwo;
     }
 
-    public void put(ActiveTrace activeTrace) {
-        this.activeTraceInfoMap.put(activeTrace.getId(), activeTrace);
+    public int put(ActiveTrace activeTrace) {
+        if (activeTrace == null) {
+            throw new NullPointerException("activeTrace must not be null");
+        }
+        return put(activeTrace.getId(), activeTrace.getStartTime(), activeTrace.getBindThread());
     }
 
-    private ActiveTrace get(Long key) {
-        return this.activeTraceInfoMap.get(key);
+    /**
+     * @return handle of the slot, or {@link #NOT_TRACKED} if the repository is full
+     */
+    public int put(long id, long startTime, Thread thread) {
+        // threads are spread over the stripes. falls through to the next stripe when full.
+        final int hash = spread(Thread.currentThread().getId());
+        for (int i = 0; i < stripes.length; i++) {
+            final int stripeIndex = (hash + i) & stripeMask;
+            final int localHandle = stripes[stripeIndex].put(id, startTime, thread);
+            if (localHandle != NOT_TRACKED) {
+                return stripeIndex * stripeCapacity + localHandle;
+            }
+        }
+        return NOT_TRACKED;
     }
 
+    private static int spread(long threadId) {
+        final int hash = (int) (threadId ^ (threadId >>> 32));
+        return hash ^ (hash >>> 16);
+    }
 
-    // @ThreadSafe
-    public Object getStackTrace(Long key) {
-        final ActiveTrace trace = get(key);
-        if (trace == null) {
-            return null;
+    public void remove(int handle) {
+        if (handle == NOT_TRACKED) {
+            return;
         }
-
-        final Thread bindThread = trace.getBindThread();
-        if (bindThread == null) {
-            return null;
+        final int stripeIndex = handle / stripeCapacity;
+        if (stripeIndex < 0 || stripeIndex >= stripes.length) {
+            throw new IllegalArgumentException("invalid handle:" + handle);
         }
-        // TODO sudo code
-        StackTraceElement[] stackTrace = bindThread.getStackTrace();
-        logger.info("stackTrace:{}", Arrays.toString(stackTrace));
-
-//      copy TraceCallStack data
-//        CallStack callStack = trace.copyCallStack();
-        return null;
+        stripes[stripeIndex].remove(handle - stripeIndex * stripeCapacity);
     }
 
-    public ActiveTrace remove(Long key) {
-        return this.activeTraceInfoMap.remove(key);
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
     }
 
     // @ThreadSafe
     @Override
     public List<ActiveTraceInfo> collect() {
-        List<ActiveTraceInfo> collectData = new ArrayList<ActiveTraceInfo>();
-        final Collection<ActiveTrace> copied = this.activeTraceInfoMap.values();
-        for (ActiveTrace trace : copied) {
-            final long startTime = trace.getStartTime();
-            // not started
-            if (startTime > 0) {
-                // clear Trace reference
-                ActiveTraceInfo activeTraceInfo = new ActiveTraceInfo(trace.getId(), startTime, trace.getBindThread());
-                collectData.add(activeTraceInfo);
-            }
+        final List<ActiveTraceInfo> collectData = new ArrayList<ActiveTraceInfo>();
+        for (Stripe stripe : stripes) {
+            stripe.collect(collectData);
         }
         return collectData;
     }
+
+    // @ThreadSafe
+    @Override
+    public long[] collectStartTime() {
+        final int size = size();
+        long[] startTimes = new long[size];
+        int index = 0;
+        for (Stripe stripe : stripes) {
+            // active traces may have been added after size()
+            index = stripe.collectStartTime(startTimes, index);
+            if (index == startTimes.length) {
+                break;
+            }
+        }
+        if (index < startTimes.length) {
+            final long[] copy = new long[index];
+            System.arraycopy(startTimes, 0, copy, 0, index);
+            startTimes = copy;
+        }
+        return startTimes;
+    }
+
+    /**
+     * Sparse set of slots. entries are packed in [0, size), handles are mapped to their position.
+     */
+    private static final class Stripe {
+
+        private final long[] ids;
+        private final long[] startTimes;
+        private final Thread[] threads;
+        private final int[] handleOfPosition;
+        private final int[] positionOfHandle;
+        private final int[] freeHandles;
+        private int freeHandleCount;
+        private int size;
+
+        private Stripe(int capacity) {
+            this.ids = new long[capacity];
+            this.startTimes = new long[capacity];
+            this.threads = new Thread[capacity];
+            this.handleOfPosition = new int[capacity];
+            this.positionOfHandle = new int[capacity];
+            this.freeHandles = new int[capacity];
+            // handles are handed out in ascending order
+            for (int i = 0; i < capacity; i++) {
+                freeHandles[i] = capacity - 1 - i;
+            }
+            this.freeHandleCount = capacity;
+        }
+
+        private synchronized int put(long id, long startTime, Thread thread) {
+            if (freeHandleCount == 0) {
+                return NOT_TRACKED;
+            }
+            final int handle = freeHandles[--freeHandleCount];
+            final int position = size++;
+            ids[position] = id;
+            startTimes[position] = startTime;
+            threads[position] = thread;
+            handleOfPosition[position] = handle;
+            positionOfHandle[handle] = position;
+            return handle;
+        }
+
+        private synchronized void remove(int handle) {
+            final int position = positionOfHandle[handle];
+            if (position >= size || handleOfPosition[position] != handle) {
+                // already removed
+                return;
+            }
+            removeAt(position);
+        }
+
+        private void removeAt(int position) {
+            final int handle = handleOfPosition[position];
+            final int last = --size;
+            if (position != last) {
+                ids[position] = ids[last];
+                startTimes[position] = startTimes[last];
+                threads[position] = threads[last];
+                final int movedHandle = handleOfPosition[last];
+                handleOfPosition[position] = movedHandle;
+                positionOfHandle[movedHandle] = position;
+            }
+            threads[last] = null;
+            handleOfPosition[last] = NOT_TRACKED;
+            freeHandles[freeHandleCount++] = handle;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Removes the slot at position if its thread died without removing it. The last slot moves into position.
+         * The handle of a dropped slot may be handed out again, which is safe since no live thread holds it.
+         */
+        private boolean removeIfDead(int position) {
+            final Thread thread = threads[position];
+            if (thread == null || thread.isAlive()) {
+                return false;
+            }
+            removeAt(position);
+            return true;
+        }
+
+        private synchronized void collect(List<ActiveTraceInfo> collectData) {
+            for (int i = 0; i < size; i++) {
+                if (removeIfDead(i)) {
+                    // visit the moved slot
+                    i--;
+                    continue;
+                }
+                final long startTime = startTimes[i];
+                // not started
+                if (startTime > 0) {
+                    collectData.add(new ActiveTraceInfo(ids[i], startTime, threads[i]));
+                }
+            }
+        }
+
+        private synchronized int collectStartTime(long[] startTimes, int index) {
+            for (int i = 0; i < size && index < startTimes.length; i++) {
+                if (removeIfDead(i)) {
+                    // visit the moved slot
+                    i--;
+                    continue;
+                }
+                final long startTime = this.startTimes[i];
+                // not started
+                if (startTime > 0) {
+                    startTimes[index++] = startTime;
+                }
+            }
+            return index;
+        }
+    }
 }
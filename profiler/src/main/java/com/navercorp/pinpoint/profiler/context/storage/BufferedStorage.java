@@ -22,7 +22,6 @@ import com.navercorp.pinpoint.profiler.sender.DataSender;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -34,38 +33,68 @@ public class BufferedStorage implements Storage {
     private static final boolean isDebug = logger.isDebugEnabled();
 
     private static final int DEFAULT_BUFFER_SIZE = 20;
+    // a quarter of the max UDP packet, so a span chunk of large SQL or annotations still fits when the estimate is low
+    public static final int DEFAULT_FLUSH_BYTES = 16384;
+    private static final SpanEventSizeEstimator SIZE_ESTIMATOR = new SpanEventSizeEstimator();
 
     private final int bufferSize;
+    private final int flushBytes;
+    private int storageBytes = 0;
 
+    // allocated on the first SpanEvent, so a trace without SpanEvents never takes a list from the pool
     private List<SpanEvent> storage;
     private final DataSender dataSender;
     private final SpanChunkFactory spanChunkFactory;
+    private final SpanFactory spanFactory;
 
     public BufferedStorage(DataSender dataSender, SpanChunkFactory spanChunkFactory) {
         this(dataSender, spanChunkFactory, DEFAULT_BUFFER_SIZE);
     }
 
     public BufferedStorage(DataSender dataSender, SpanChunkFactory spanChunkFactory, int bufferSize) {
+        this(dataSender, spanChunkFactory, bufferSize, DefaultSpanFactory.INSTANCE);
+    }
+
+    public BufferedStorage(DataSender dataSender, SpanChunkFactory spanChunkFactory, int bufferSize, SpanFactory spanFactory) {
+        this(dataSender, spanChunkFactory, bufferSize, DEFAULT_FLUSH_BYTES, spanFactory);
+    }
+
+    /**
+     * @param bufferSize max number of SpanEvents in a span chunk
+     * @param flushBytes flush when the estimated encoded size of the buffered SpanEvents reaches this size. disabled if <= 0
+     */
+    public BufferedStorage(DataSender dataSender, SpanChunkFactory spanChunkFactory, int bufferSize, int flushBytes, SpanFactory spanFactory) {
         if (dataSender == null) {
             throw new NullPointerException("dataSender must not be null");
         }
         if (spanChunkFactory == null) {
             throw new NullPointerException("spanChunkFactory must not be null");
         }
+        if (spanFactory == null) {
+            throw new NullPointerException("spanFactory must not be null");
+        }
         this.dataSender = dataSender;
         this.spanChunkFactory = spanChunkFactory;
         this.bufferSize = bufferSize;
-        this.storage = new ArrayList<SpanEvent>(bufferSize);
+        this.flushBytes = flushBytes;
+        this.spanFactory = spanFactory;
     }
 
     @Override
     public void store(SpanEvent spanEvent) {
         List<SpanEvent> flushData = null;
+        if (storage == null) {
+            storage = spanFactory.newSpanEventList(bufferSize);
+        }
         storage.add(spanEvent);
-        if (storage.size() >= bufferSize) {
+        if (flushBytes > 0) {
+            storageBytes += SIZE_ESTIMATOR.estimate(spanEvent);
+        }
+        if (storage.size() >= bufferSize || (flushBytes > 0 && storageBytes >= flushBytes)) {
             // data copy
             flushData = storage;
-            storage = new ArrayList<SpanEvent>(bufferSize);
+            storage = null;
+            storageBytes = 0;
         }
 
         if (flushData != null) {
@@ -79,11 +108,11 @@ public class BufferedStorage implements Storage {
 
     @Override
     public void store(Span span) {
-        List<SpanEvent> spanEventList;
-        spanEventList = storage;
-        this.storage = new ArrayList<SpanEvent>(bufferSize);
+        final List<SpanEvent> spanEventList = storage;
+        this.storage = null;
+        this.storageBytes = 0;
 
-        if (spanEventList != null && !spanEventList.isEmpty()) {
+        if (spanEventList != null) {
             span.setSpanEventList((List) spanEventList);
         }
         dataSender.send(span);
@@ -94,11 +123,11 @@ public class BufferedStorage implements Storage {
     }
 
     public void flush() {
-        List<SpanEvent> spanEventList;
-        spanEventList = storage;
-        this.storage = new ArrayList<SpanEvent>(bufferSize);
+        final List<SpanEvent> spanEventList = storage;
+        this.storage = null;
+        this.storageBytes = 0;
 
-        if (spanEventList != null && !spanEventList.isEmpty()) {
+        if (spanEventList != null) {
             final SpanChunk spanChunk = spanChunkFactory.create(spanEventList);
             dataSender.send(spanChunk);
             if (isDebug) {
@@ -113,6 +142,6 @@ public class BufferedStorage implements Storage {
 
     @Override
     public String toString() {
-        return "BufferedStorage{" + "bufferSize=" + bufferSize + ", dataSender=" + dataSender + '}';
+        return "BufferedStorage{" + "bufferSize=" + bufferSize + ", flushBytes=" + flushBytes + ", dataSender=" + dataSender + '}';
     }
 }
\ No newline at end of file
@@ -18,7 +18,9 @@ package com.navercorp.pinpoint.profiler.context.storage;
 
 import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
 import com.navercorp.pinpoint.profiler.AgentInformation;
+import com.navercorp.pinpoint.profiler.context.DefaultSpanFactory;
 import com.navercorp.pinpoint.profiler.context.SpanChunkFactory;
+import com.navercorp.pinpoint.profiler.context.SpanFactory;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
 
 /**
@@ -28,18 +30,29 @@ public class BufferedStorageFactory implements StorageFactory {
 
     private final DataSender dataSender;
     private final int bufferSize;
+    private final int flushBytes;
     private final SpanChunkFactory spanChunkFactory;
+    private final SpanFactory spanFactory;
 
     public BufferedStorageFactory(DataSender dataSender, ProfilerConfig config, AgentInformation agentInformation) {
+        this(dataSender, config, agentInformation, DefaultSpanFactory.INSTANCE);
+    }
+
+    public BufferedStorageFactory(DataSender dataSender, ProfilerConfig config, AgentInformation agentInformation, SpanFactory spanFactory) {
         if (dataSender == null) {
             throw new NullPointerException("dataSender must not be null");
         }
         if (config == null) {
             throw new NullPointerException("config must not be null");
         }
+        if (spanFactory == null) {
+            throw new NullPointerException("spanFactory must not be null");
+        }
         this.dataSender = dataSender;
+        this.spanFactory = spanFactory;
 
         this.bufferSize = config.getIoBufferingBufferSize();
+        this.flushBytes = config.getIoBufferingFlushBytes();
 
         this.spanChunkFactory = new SpanChunkFactory(agentInformation);
     }
@@ -47,7 +60,7 @@ public class BufferedStorageFactory implements StorageFactory {
 
     @Override
     public Storage createStorage() {
-        BufferedStorage bufferedStorage = new BufferedStorage(this.dataSender, spanChunkFactory, this.bufferSize);
+        BufferedStorage bufferedStorage = new BufferedStorage(this.dataSender, spanChunkFactory, this.bufferSize, this.flushBytes, spanFactory);
         return bufferedStorage;
     }
 
@@ -55,7 +68,9 @@ public class BufferedStorageFactory implements StorageFactory {
     public String toString() {
         return "BufferedStorageFactory{" +
                 "bufferSize=" + bufferSize +
+                ", flushBytes=" + flushBytes +
                 ", dataSender=" + dataSender +
+                ", spanFactory=" + spanFactory +
                 '}';
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
+import com.navercorp.pinpoint.thrift.dto.TAnnotationValue;
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+
+import java.util.List;
+
+/**
+ * Cheap estimate of the TCompactProtocol encoded size of a TSpanEvent.
+ * Numeric fields are counted with their maximum varint length and strings with their UTF-8 length,
+ * so the result is not exact but close enough to decide when a span chunk should be flushed
+ * without serializing on the application thread.
+ */
+public class SpanEventSizeEstimator {
+
+    // field header(1~3) + max varint length
+    private static final int FIELD_HEADER_SIZE = 3;
+    private static final int I16_SIZE = FIELD_HEADER_SIZE + 3;
+    private static final int I32_SIZE = FIELD_HEADER_SIZE + 5;
+    private static final int I64_SIZE = FIELD_HEADER_SIZE + 10;
+    // field header + length varint
+    private static final int BINARY_HEADER_SIZE = FIELD_HEADER_SIZE + 5;
+    private static final int STRUCT_STOP_SIZE = 1;
+
+    // spanId, sequence, startElapsed, endElapsed, serviceType, depth, nextSpanId, apiId, asyncId, nextAsyncId, asyncSequence
+    private static final int SPAN_EVENT_FIXED_SIZE = I64_SIZE + I16_SIZE + I32_SIZE + I32_SIZE + I16_SIZE + I32_SIZE + I64_SIZE
+            + I32_SIZE + I32_SIZE + I32_SIZE + I16_SIZE + STRUCT_STOP_SIZE;
+
+    // key + value union header + stop bytes of annotation and union
+    private static final int ANNOTATION_FIXED_SIZE = I32_SIZE + FIELD_HEADER_SIZE + STRUCT_STOP_SIZE + STRUCT_STOP_SIZE;
+
+    public int estimate(TSpanEvent spanEvent) {
+        if (spanEvent == null) {
+            throw new NullPointerException("spanEvent must not be null");
+        }
+        int size = SPAN_EVENT_FIXED_SIZE;
+        size += stringSize(spanEvent.getRpc());
+        size += stringSize(spanEvent.getEndPoint());
+        size += stringSize(spanEvent.getDestinationId());
+
+        final TIntStringValue exceptionInfo = spanEvent.getExceptionInfo();
+        if (exceptionInfo != null) {
+            size += intStringValueSize(exceptionInfo);
+        }
+
+        final List<TAnnotation> annotations = spanEvent.getAnnotations();
+        if (annotations != null) {
+            // list header
+            size += BINARY_HEADER_SIZE;
+            for (int i = 0; i < annotations.size(); i++) {
+                size += annotationSize(annotations.get(i));
+            }
+        }
+        return size;
+    }
+
+    private int annotationSize(TAnnotation annotation) {
+        if (annotation == null) {
+            return 0;
+        }
+        final TAnnotationValue value = annotation.getValue();
+        if (value == null) {
+            return ANNOTATION_FIXED_SIZE;
+        }
+        return ANNOTATION_FIXED_SIZE + valueSize(value.getFieldValue());
+    }
+
+    private int valueSize(Object value) {
+        if (value instanceof String) {
+            return stringSize((String) value);
+        }
+        if (value instanceof byte[]) {
+            return BINARY_HEADER_SIZE + ((byte[]) value).length;
+        }
+        if (value instanceof TIntStringValue) {
+            return intStringValueSize((TIntStringValue) value);
+        }
+        if (value instanceof TIntStringStringValue) {
+            final TIntStringStringValue intStringStringValue = (TIntStringStringValue) value;
+            return FIELD_HEADER_SIZE + I32_SIZE + stringSize(intStringStringValue.getStringValue1())
+                    + stringSize(intStringStringValue.getStringValue2()) + STRUCT_STOP_SIZE;
+        }
+        // primitive
+        return I64_SIZE;
+    }
+
+    private int intStringValueSize(TIntStringValue value) {
+        return FIELD_HEADER_SIZE + I32_SIZE + stringSize(value.getStringValue()) + STRUCT_STOP_SIZE;
+    }
+
+    private int stringSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return BINARY_HEADER_SIZE + utf8Length(value);
+    }
+
+    static int utf8Length(String value) {
+        final int length = value.length();
+        int utf8Length = length;
+        for (int i = 0; i < length; i++) {
+            final char ch = value.charAt(i);
+            if (ch >= 0x80) {
+                // 2 bytes up to U+07FF, 3 bytes above. a surrogate pair is 4 bytes, 2 per char.
+                utf8Length += (ch < 0x800 || (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE)) ? 1 : 2;
+            }
+        }
+        return utf8Length;
+    }
+}
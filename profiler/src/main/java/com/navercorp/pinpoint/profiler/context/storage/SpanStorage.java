@@ -16,12 +16,12 @@
 
 package com.navercorp.pinpoint.profiler.context.storage;
 
+import com.navercorp.pinpoint.profiler.context.DefaultSpanFactory;
 import com.navercorp.pinpoint.profiler.context.Span;
 import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.context.SpanFactory;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
-import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,14 +29,23 @@ import java.util.List;
  */
 public class SpanStorage implements Storage {
 
-    protected List<TSpanEvent> spanEventList = new ArrayList<TSpanEvent>(10);
+    protected List<SpanEvent> spanEventList;
     private final DataSender dataSender;
 
     public SpanStorage(DataSender dataSender) {
+        this(dataSender, DefaultSpanFactory.INSTANCE);
+    }
+
+    public SpanStorage(DataSender dataSender, SpanFactory spanFactory) {
         if (dataSender == null) {
             throw new NullPointerException("dataSender must not be null");
         }
+        if (spanFactory == null) {
+            throw new NullPointerException("spanFactory must not be null");
+        }
         this.dataSender = dataSender;
+        // a pooled list, so that Span.recycle() gives the SpanEvents back
+        this.spanEventList = spanFactory.newSpanEventList(10);
     }
 
     @Override
@@ -44,7 +53,7 @@ public class SpanStorage implements Storage {
         if (spanEvent == null) {
             throw new NullPointerException("spanEvent must not be null");
         }
-        final List<TSpanEvent> spanEventList = this.spanEventList;
+        final List<SpanEvent> spanEventList = this.spanEventList;
         if (spanEventList != null) {
             spanEventList.add(spanEvent);
         } else {
@@ -57,7 +66,7 @@ public class SpanStorage implements Storage {
         if (span == null) {
             throw new NullPointerException("span must not be null");
         }
-        span.setSpanEventList(spanEventList);
+        span.setSpanEventList((List) spanEventList);
         spanEventList = null;
         this.dataSender.send(span);
     }
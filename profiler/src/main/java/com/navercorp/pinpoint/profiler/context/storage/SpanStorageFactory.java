@@ -16,6 +16,8 @@
 
 package com.navercorp.pinpoint.profiler.context.storage;
 
+import com.navercorp.pinpoint.profiler.context.DefaultSpanFactory;
+import com.navercorp.pinpoint.profiler.context.SpanFactory;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
 
 /**
@@ -24,16 +26,25 @@ import com.navercorp.pinpoint.profiler.sender.DataSender;
 public class SpanStorageFactory implements StorageFactory {
 
     protected final DataSender dataSender;
+    private final SpanFactory spanFactory;
 
     public SpanStorageFactory(DataSender dataSender) {
+        this(dataSender, DefaultSpanFactory.INSTANCE);
+    }
+
+    public SpanStorageFactory(DataSender dataSender, SpanFactory spanFactory) {
         if (dataSender == null) {
             throw new NullPointerException("dataSender must not be null");
         }
+        if (spanFactory == null) {
+            throw new NullPointerException("spanFactory must not be null");
+        }
         this.dataSender = dataSender;
+        this.spanFactory = spanFactory;
     }
 
     @Override
     public Storage createStorage() {
-        return new SpanStorage(this.dataSender);
+        return new SpanStorage(this.dataSender, this.spanFactory);
     }
 }
@@ -0,0 +1,792 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.instrument;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.instrument.ClassFilter;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClass;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentContext;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentException;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentMethod;
+import com.navercorp.pinpoint.bootstrap.instrument.MethodFilter;
+import com.navercorp.pinpoint.bootstrap.instrument.MethodFilters;
+import com.navercorp.pinpoint.bootstrap.instrument.NotFoundInstrumentException;
+import com.navercorp.pinpoint.bootstrap.interceptor.annotation.TargetConstructor;
+import com.navercorp.pinpoint.bootstrap.interceptor.annotation.TargetConstructors;
+import com.navercorp.pinpoint.bootstrap.interceptor.annotation.TargetFilter;
+import com.navercorp.pinpoint.bootstrap.interceptor.annotation.TargetMethod;
+import com.navercorp.pinpoint.bootstrap.interceptor.annotation.TargetMethods;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ExecutionPolicy;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
+import com.navercorp.pinpoint.bootstrap.plugin.ObjectFactory;
+import com.navercorp.pinpoint.common.util.Asserts;
+import com.navercorp.pinpoint.exception.PinpointException;
+import com.navercorp.pinpoint.profiler.instrument.AccessorAnalyzer.AccessorDetails;
+import com.navercorp.pinpoint.profiler.instrument.GetterAnalyzer.GetterDetails;
+import com.navercorp.pinpoint.profiler.instrument.SetterAnalyzer.SetterDetails;
+import com.navercorp.pinpoint.profiler.interceptor.registry.InterceptorRegistryBinder;
+import com.navercorp.pinpoint.profiler.objectfactory.AutoBindingObjectFactory;
+import com.navercorp.pinpoint.profiler.objectfactory.InterceptorArgumentProvider;
+import com.navercorp.pinpoint.profiler.util.JavaAssistUtils;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InnerClassNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ASMClass implements InstrumentClass {
+
+    static final int ASM_API_VERSION = Opcodes.ASM5;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final boolean isDebug = logger.isDebugEnabled();
+
+    private final InstrumentContext pluginContext;
+    private final InterceptorRegistryBinder interceptorRegistryBinder;
+    private final ASMClassPool classPool;
+    private final ClassLoader classLoader;
+    private ClassNode classNode;
+    private boolean modified = false;
+
+    private static final String FIELD_PREFIX = "_$PINPOINT$_";
+    private static final String CONSTRUCTOR_NAME = "<init>";
+
+    public ASMClass(InstrumentContext pluginContext, InterceptorRegistryBinder interceptorRegistryBinder, ASMClassPool classPool, ClassLoader classLoader, ClassNode classNode) {
+        this.pluginContext = pluginContext;
+        this.interceptorRegistryBinder = interceptorRegistryBinder;
+        this.classPool = classPool;
+        this.classLoader = classLoader;
+        this.classNode = classNode;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    void setModified() {
+        this.modified = true;
+    }
+
+    @Override
+    public boolean isInterceptable() {
+        return !isInterface() && !isAnnotation() && !modified;
+    }
+
+    @Override
+    public boolean isInterface() {
+        return (classNode.access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    private boolean isAnnotation() {
+        return (classNode.access & Opcodes.ACC_ANNOTATION) != 0;
+    }
+
+    @Override
+    public String getName() {
+        return JavaAssistUtils.jvmNameToJavaName(classNode.name);
+    }
+
+    String getSimpleName() {
+        final String name = getName();
+        final int index = name.lastIndexOf('.');
+        if (index == -1) {
+            return name;
+        }
+        return name.substring(index + 1);
+    }
+
+    @Override
+    public String getSuperClass() {
+        if (classNode.superName == null) {
+            return null;
+        }
+        return JavaAssistUtils.jvmNameToJavaName(classNode.superName);
+    }
+
+    @Override
+    public String[] getInterfaces() {
+        final List<String> interfaces = classNode.interfaces;
+        final String[] interfaceNames = new String[interfaces.size()];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaceNames[i] = JavaAssistUtils.jvmNameToJavaName(interfaces.get(i));
+        }
+        return interfaceNames;
+    }
+
+    private static MethodNode getMethodNode0(ClassNode classNode, String methodName, String[] parameterTypes) {
+        final String jvmSignature = JavaAssistUtils.javaTypeToJvmSignature(parameterTypes);
+
+        for (MethodNode methodNode : classNode.methods) {
+            if (!methodNode.name.equals(methodName)) {
+                continue;
+            }
+            if (methodNode.desc.startsWith(jvmSignature)) {
+                return methodNode;
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isMethod(MethodNode methodNode) {
+        return !CONSTRUCTOR_NAME.equals(methodNode.name) && !"<clinit>".equals(methodNode.name);
+    }
+
+    @Override
+    public InstrumentMethod getDeclaredMethod(String name, String... parameterTypes) {
+        MethodNode methodNode = getMethodNode0(classNode, name, parameterTypes);
+        return methodNode == null ? null : new ASMMethod(pluginContext, interceptorRegistryBinder, this, methodNode);
+    }
+
+    @Override
+    public List<InstrumentMethod> getDeclaredMethods() {
+        return getDeclaredMethods(MethodFilters.ACCEPT_ALL);
+    }
+
+    @Override
+    public List<InstrumentMethod> getDeclaredMethods(MethodFilter methodFilter) {
+        if (methodFilter == null) {
+            throw new NullPointerException("methodFilter must not be null");
+        }
+        final List<MethodNode> declaredMethod = classNode.methods;
+        final List<InstrumentMethod> candidateList = new ArrayList<InstrumentMethod>(declaredMethod.size());
+        // copy. interceptor may add methods while iterating.
+        for (MethodNode methodNode : declaredMethod.toArray(new MethodNode[0])) {
+            if (!isMethod(methodNode)) {
+                continue;
+            }
+            final InstrumentMethod method = new ASMMethod(pluginContext, interceptorRegistryBinder, this, methodNode);
+            if (methodFilter.accept(method)) {
+                candidateList.add(method);
+            }
+        }
+
+        return candidateList;
+    }
+
+    private MethodNode getConstructorNode0(String[] parameterTypes) {
+        final String jvmSignature = JavaAssistUtils.javaTypeToJvmSignature(parameterTypes);
+        // constructor return type is void
+        for (MethodNode methodNode : classNode.methods) {
+            // skip return type check
+            if (CONSTRUCTOR_NAME.equals(methodNode.name) && methodNode.desc.startsWith(jvmSignature)) {
+                return methodNode;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public InstrumentMethod getConstructor(String... parameterTypes) {
+        MethodNode constructor = getConstructorNode0(parameterTypes);
+        return constructor == null ? null : new ASMMethod(pluginContext, interceptorRegistryBinder, this, constructor);
+    }
+
+    @Override
+    public boolean hasDeclaredMethod(String methodName, String... args) {
+        return getMethodNode0(classNode, methodName, args) != null;
+    }
+
+    @Override
+    public boolean hasMethod(String methodName, String... parameterTypes) {
+        // the class itself, super classes and interfaces
+        final LinkedList<ClassNode> candidates = new LinkedList<ClassNode>();
+        final Set<String> visited = new HashSet<String>();
+        candidates.add(classNode);
+        while (!candidates.isEmpty()) {
+            final ClassNode candidate = candidates.removeFirst();
+            if (!visited.add(candidate.name)) {
+                continue;
+            }
+            if (getMethodNode0(candidate, methodName, parameterTypes) != null) {
+                return true;
+            }
+            if (candidate.superName != null) {
+                addClassNode(candidates, candidate.superName);
+            }
+            for (String interfaceName : candidate.interfaces) {
+                addClassNode(candidates, interfaceName);
+            }
+        }
+
+        return false;
+    }
+
+    private void addClassNode(List<ClassNode> classNodeList, String jvmClassName) {
+        final ClassNode classNode = classPool.getClassNodeForRead(classLoader, jvmClassName);
+        if (classNode != null) {
+            classNodeList.add(classNode);
+        }
+    }
+
+    @Override
+    public boolean hasEnclosingMethod(String methodName, String... parameterTypes) {
+        if (classNode.outerMethod == null) {
+            return false;
+        }
+        if (!classNode.outerMethod.equals(methodName)) {
+            return false;
+        }
+
+        final String jvmSignature = JavaAssistUtils.javaTypeToJvmSignature(parameterTypes);
+        return classNode.outerMethodDesc != null && classNode.outerMethodDesc.startsWith(jvmSignature);
+    }
+
+    @Override
+    public boolean hasConstructor(String... parameterTypeArray) {
+        final String signature = JavaAssistUtils.javaTypeToJvmSignature(parameterTypeArray, "void");
+        for (MethodNode methodNode : classNode.methods) {
+            if (CONSTRUCTOR_NAME.equals(methodNode.name) && methodNode.desc.equals(signature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasField(String name, String type) {
+        final String vmType = type == null ? null : JavaAssistUtils.toJvmSignature(type);
+        return findField(name, vmType) != null;
+    }
+
+    @Override
+    public boolean hasField(String name) {
+        return hasField(name, null);
+    }
+
+    /**
+     * search the declared fields and then the fields of super classes.
+     */
+    private FieldNode findField(String name, String desc) {
+        ClassNode current = classNode;
+        while (current != null) {
+            for (FieldNode fieldNode : current.fields) {
+                if (fieldNode.name.equals(name) && (desc == null || fieldNode.desc.equals(desc))) {
+                    return fieldNode;
+                }
+            }
+            if (current.superName == null) {
+                return null;
+            }
+            current = classPool.getClassNodeForRead(classLoader, current.superName);
+        }
+        return null;
+    }
+
+    private boolean isDeclaredField(FieldNode fieldNode) {
+        return classNode.fields.contains(fieldNode);
+    }
+
+    /**
+     * Aspect weaving copies the javassist compiled advice methods, so it is delegated to {@link JavassistClass}.
+     * The class model is rebuilt from the woven class file. Methods obtained before weaving must be looked up again.
+     */
+    @Override
+    public void weave(String adviceClassName) throws InstrumentException {
+        final byte[] classFileBuffer = toBytecode0();
+        final InstrumentClass weaveClass = classPool.getWeaveClassPool().getClass(pluginContext, classLoader, classNode.name, classFileBuffer);
+        weaveClass.weave(adviceClassName);
+
+        final byte[] wovenClassFileBuffer = weaveClass.toBytecode();
+        if (wovenClassFileBuffer == null) {
+            throw new InstrumentException("weaving fail. sourceClassName:" + getName() + " adviceClassName:" + adviceClassName);
+        }
+        this.classNode = ASMClassPool.readClassNode(wovenClassFileBuffer, 0);
+        this.modified = true;
+    }
+
+    @Override
+    public InstrumentMethod addDelegatorMethod(String methodName, String... paramTypes) throws InstrumentException {
+        if (getMethodNode0(classNode, methodName, paramTypes) != null) {
+            throw new InstrumentException(getName() + "already have method(" + methodName + ").");
+        }
+
+        final ClassNode superClassNode = classNode.superName == null ? null : classPool.getClassNodeForRead(classLoader, classNode.superName);
+        if (superClassNode == null) {
+            throw new InstrumentException(getName() + "don't have super class(" + getSuperClass() + ").");
+        }
+        final MethodNode superMethod = getMethodNode0(superClassNode, methodName, paramTypes);
+        if (superMethod == null) {
+            throw new NotFoundInstrumentException(methodName + Arrays.toString(paramTypes) + " is not found in " + getSuperClass());
+        }
+
+        final int access = superMethod.access & ~(Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE);
+        final String[] exceptions = superMethod.exceptions == null ? null : superMethod.exceptions.toArray(new String[0]);
+        final MethodNode delegatorMethod = new MethodNode(ASM_API_VERSION, access, superMethod.name, superMethod.desc, superMethod.signature, exceptions);
+
+        final boolean isStatic = (access & Opcodes.ACC_STATIC) != 0;
+        final InsnList instructions = delegatorMethod.instructions;
+        int slot = 0;
+        if (!isStatic) {
+            instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+            slot++;
+        }
+        for (Type argumentType : Type.getArgumentTypes(superMethod.desc)) {
+            instructions.add(new VarInsnNode(argumentType.getOpcode(Opcodes.ILOAD), slot));
+            slot += argumentType.getSize();
+        }
+        final int opcode = isStatic ? Opcodes.INVOKESTATIC : Opcodes.INVOKESPECIAL;
+        instructions.add(new MethodInsnNode(opcode, classNode.superName, superMethod.name, superMethod.desc, false));
+        instructions.add(new InsnNode(Type.getReturnType(superMethod.desc).getOpcode(Opcodes.IRETURN)));
+        delegatorMethod.maxLocals = slot;
+        delegatorMethod.maxStack = Math.max(slot, Type.getReturnType(superMethod.desc).getSize());
+
+        classNode.methods.add(delegatorMethod);
+        setModified();
+
+        return new ASMMethod(pluginContext, interceptorRegistryBinder, this, delegatorMethod);
+    }
+
+    @Override
+    public byte[] toBytecode() {
+        try {
+            return toBytecode0();
+        } catch (InstrumentException e) {
+            logger.info("toBytecode fail class:{} Caused:{}", getName(), e.getMessage(), e);
+        }
+        return null;
+    }
+
+    private byte[] toBytecode0() throws InstrumentException {
+        // stack map frames are required from 1.7. 1.6 class files may have them.
+        final int flags = (classNode.version & 0xFFFF) >= Opcodes.V1_6 ? ClassWriter.COMPUTE_FRAMES : ClassWriter.COMPUTE_MAXS;
+        final ClassWriter classWriter = new ASMClassWriter(classPool, classLoader, classNode.name, classNode.superName, flags);
+        try {
+            classNode.accept(classWriter);
+            return classWriter.toByteArray();
+        } catch (RuntimeException e) {
+            throw new InstrumentException("class write fail. class:" + getName() + " Caused:" + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void addField(String accessorTypeName) throws InstrumentException {
+        try {
+            Class<?> accessorType = pluginContext.injectClass(classLoader, accessorTypeName);
+            final AccessorAnalyzer accessorAnalyzer = new AccessorAnalyzer();
+            final AccessorDetails accessorDetails = accessorAnalyzer.analyze(accessorType);
+
+            final String fieldName = FIELD_PREFIX + accessorTypeName.replace('.', '_').replace('$', '_');
+            final String fieldDesc = Type.getDescriptor(accessorDetails.getFieldType());
+            final FieldNode newField = new FieldNode(ASM_API_VERSION, Opcodes.ACC_PRIVATE, fieldName, fieldDesc, null, null);
+            classNode.fields.add(newField);
+
+            addInterface(accessorTypeName);
+            addGetterMethod(accessorDetails.getGetter(), newField);
+            addSetterMethod(accessorDetails.getSetter(), newField);
+            setModified();
+        } catch (Exception e) {
+            throw new InstrumentException("Failed to add field with accessor [" + accessorTypeName + "]. Cause:" + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void addGetter(String getterTypeName, String fieldName) throws InstrumentException {
+        try {
+            Class<?> getterType = pluginContext.injectClass(classLoader, getterTypeName);
+
+            GetterDetails getterDetails = new GetterAnalyzer().analyze(getterType);
+
+            final FieldNode field = findField(fieldName, null);
+            if (field == null) {
+                throw new NotFoundInstrumentException("field not found. fieldName:" + fieldName);
+            }
+            final String fieldDesc = Type.getDescriptor(getterDetails.getFieldType());
+            if (!field.desc.equals(fieldDesc)) {
+                throw new IllegalArgumentException("Return type of the getter is different with the field type. getterMethod: " + getterDetails.getGetter() + ", fieldType: " + Type.getType(field.desc).getClassName());
+            }
+
+            addGetterMethod(getterDetails.getGetter(), field);
+            addInterface(getterTypeName);
+            setModified();
+        } catch (Exception e) {
+            throw new InstrumentException("Failed to add getter: " + getterTypeName, e);
+        }
+    }
+
+    @Override
+    public void addSetter(String setterTypeName, String fieldName) throws InstrumentException {
+        this.addSetter(setterTypeName, fieldName, false);
+    }
+
+    @Override
+    public void addSetter(String setterTypeName, String fieldName, boolean removeFinalFlag) throws InstrumentException {
+        try {
+            Class<?> setterType = pluginContext.injectClass(classLoader, setterTypeName);
+
+            SetterDetails setterDetails = new SetterAnalyzer().analyze(setterType);
+
+            final FieldNode field = findField(fieldName, null);
+            if (field == null) {
+                throw new NotFoundInstrumentException("field not found. fieldName:" + fieldName);
+            }
+            final String fieldDesc = Type.getDescriptor(setterDetails.getFieldType());
+            if (!field.desc.equals(fieldDesc)) {
+                throw new IllegalArgumentException("Argument type of the setter is different with the field type. setterMethod: " + setterDetails.getSetter() + ", fieldType: " + Type.getType(field.desc).getClassName());
+            }
+
+            if ((field.access & Opcodes.ACC_STATIC) != 0) {
+                throw new IllegalArgumentException("Cannot add setter to static fields. setterMethod: " + setterDetails.getSetter().getName() + ", fieldName: " + fieldName);
+            }
+
+            if ((field.access & Opcodes.ACC_FINAL) != 0) {
+                if (!removeFinalFlag) {
+                    throw new IllegalArgumentException("Cannot add setter to final field. setterMethod: " + setterDetails.getSetter().getName() + ", fieldName: " + fieldName);
+                }
+                if (!isDeclaredField(field)) {
+                    throw new IllegalArgumentException("Cannot remove final flag of the field declared in super class. setterMethod: " + setterDetails.getSetter().getName() + ", fieldName: " + fieldName);
+                }
+                field.access &= ~Opcodes.ACC_FINAL;
+            }
+
+            addSetterMethod(setterDetails.getSetter(), field);
+            addInterface(setterTypeName);
+            setModified();
+        } catch (Exception e) {
+            throw new InstrumentException("Failed to add setter: " + setterTypeName, e);
+        }
+    }
+
+    private void addInterface(String interfaceName) {
+        final String jvmInterfaceName = JavaAssistUtils.javaNameToJvmName(interfaceName);
+        if (!classNode.interfaces.contains(jvmInterfaceName)) {
+            classNode.interfaces.add(jvmInterfaceName);
+        }
+    }
+
+    private void addGetterMethod(Method getter, FieldNode field) {
+        final MethodNode getterMethod = new MethodNode(ASM_API_VERSION, Opcodes.ACC_PUBLIC, getter.getName(), Type.getMethodDescriptor(getter), null, null);
+        final InsnList instructions = getterMethod.instructions;
+        final Type fieldType = Type.getType(field.desc);
+        if ((field.access & Opcodes.ACC_STATIC) != 0) {
+            instructions.add(new FieldInsnNode(Opcodes.GETSTATIC, classNode.name, field.name, field.desc));
+        } else {
+            instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+            instructions.add(new FieldInsnNode(Opcodes.GETFIELD, classNode.name, field.name, field.desc));
+        }
+        instructions.add(new InsnNode(fieldType.getOpcode(Opcodes.IRETURN)));
+        getterMethod.maxLocals = 1;
+        getterMethod.maxStack = fieldType.getSize();
+        classNode.methods.add(getterMethod);
+    }
+
+    private void addSetterMethod(Method setter, FieldNode field) {
+        final MethodNode setterMethod = new MethodNode(ASM_API_VERSION, Opcodes.ACC_PUBLIC, setter.getName(), Type.getMethodDescriptor(setter), null, null);
+        final InsnList instructions = setterMethod.instructions;
+        final Type fieldType = Type.getType(field.desc);
+        instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+        instructions.add(new VarInsnNode(fieldType.getOpcode(Opcodes.ILOAD), 1));
+        instructions.add(new FieldInsnNode(Opcodes.PUTFIELD, classNode.name, field.name, field.desc));
+        instructions.add(new InsnNode(Opcodes.RETURN));
+        setterMethod.maxLocals = 1 + fieldType.getSize();
+        setterMethod.maxStack = 1 + fieldType.getSize();
+        classNode.methods.add(setterMethod);
+    }
+
+    @Override
+    public int addInterceptor(String interceptorClassName) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        return addInterceptor0(interceptorClassName, null, null, null);
+    }
+
+    @Override
+    public int addInterceptor(String interceptorClassName, Object[] constructorArgs) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        return addInterceptor0(interceptorClassName, constructorArgs, null, null);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, String scopeName) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scopeName, "scopeName");
+        final InterceptorScope interceptorScope = pluginContext.getInterceptorScope(scopeName);
+        return addInterceptor0(interceptorClassName, null, interceptorScope, ExecutionPolicy.BOUNDARY);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, InterceptorScope scope) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scope, "scope");
+        return addInterceptor0(interceptorClassName, null, scope, ExecutionPolicy.BOUNDARY);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, Object[] constructorArgs, String scopeName) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scopeName, "scopeName");
+        final InterceptorScope interceptorScope = pluginContext.getInterceptorScope(scopeName);
+        return addInterceptor0(interceptorClassName, constructorArgs, interceptorScope, ExecutionPolicy.BOUNDARY);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, Object[] constructorArgs, InterceptorScope scope) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scope, "scope");
+        return addInterceptor0(interceptorClassName, constructorArgs, scope, ExecutionPolicy.BOUNDARY);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, String scopeName, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scopeName, "scopeName");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        final InterceptorScope interceptorScope = pluginContext.getInterceptorScope(scopeName);
+        return addInterceptor0(interceptorClassName, null, interceptorScope, executionPolicy);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scope, "scope");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        return addInterceptor0(interceptorClassName, null, scope, executionPolicy);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, Object[] constructorArgs, String scopeName, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scopeName, "scopeName");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        final InterceptorScope interceptorScope = pluginContext.getInterceptorScope(scopeName);
+        return addInterceptor0(interceptorClassName, constructorArgs, interceptorScope, executionPolicy);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, Object[] constructorArgs, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scope, "scope");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        return addInterceptor0(interceptorClassName, constructorArgs, scope, executionPolicy);
+    }
+
+    private int addInterceptor0(String interceptorClassName, Object[] constructorArgs, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+
+        int interceptorId = -1;
+        final Class<?> interceptorType = pluginContext.injectClass(classLoader, interceptorClassName);
+
+        final TargetMethods targetMethods = interceptorType.getAnnotation(TargetMethods.class);
+        if (targetMethods != null) {
+            for (TargetMethod m : targetMethods.value()) {
+                interceptorId = addInterceptor0(m, interceptorClassName, constructorArgs, scope, executionPolicy);
+            }
+        }
+
+        final TargetMethod targetMethod = interceptorType.getAnnotation(TargetMethod.class);
+        if (targetMethod != null) {
+            interceptorId = addInterceptor0(targetMethod, interceptorClassName, constructorArgs, scope, executionPolicy);
+        }
+
+        final TargetConstructors targetConstructors = interceptorType.getAnnotation(TargetConstructors.class);
+        if (targetConstructors != null) {
+            for (TargetConstructor c : targetConstructors.value()) {
+                interceptorId = addInterceptor0(c, interceptorClassName, scope, executionPolicy, constructorArgs);
+            }
+        }
+
+        final TargetConstructor targetConstructor = interceptorType.getAnnotation(TargetConstructor.class);
+        if (targetConstructor != null) {
+            interceptorId = addInterceptor0(targetConstructor, interceptorClassName, scope, executionPolicy, constructorArgs);
+        }
+
+        final TargetFilter targetFilter = interceptorType.getAnnotation(TargetFilter.class);
+        if (targetFilter != null) {
+            interceptorId = addInterceptor0(targetFilter, interceptorClassName, scope, executionPolicy, constructorArgs);
+        }
+
+        if (interceptorId == -1) {
+            throw new PinpointException("No target is specified. At least one of @Targets, @TargetMethod, @TargetConstructor, @TargetFilter must present. interceptor: " + interceptorClassName);
+        }
+
+        return interceptorId;
+    }
+
+    private int addInterceptor0(TargetConstructor c, String interceptorClassName, InterceptorScope scope, ExecutionPolicy executionPolicy, Object... constructorArgs) throws InstrumentException {
+        final InstrumentMethod constructor = getConstructor(c.value());
+
+        if (constructor == null) {
+            throw new NotFoundInstrumentException("Cannot find constructor with parameter types: " + Arrays.toString(c.value()));
+        }
+        return ((ASMMethod) constructor).addInterceptorInternal(interceptorClassName, constructorArgs, scope, executionPolicy);
+    }
+
+    private int addInterceptor0(TargetMethod m, String interceptorClassName, Object[] constructorArgs, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        InstrumentMethod method = getDeclaredMethod(m.name(), m.paramTypes());
+
+        if (method == null) {
+            throw new NotFoundInstrumentException("Cannot find method " + m.name() + " with parameter types: " + Arrays.toString(m.paramTypes()));
+        }
+        return ((ASMMethod) method).addInterceptorInternal(interceptorClassName, constructorArgs, scope, executionPolicy);
+    }
+
+    private int addInterceptor0(TargetFilter annotation, String interceptorClassName, InterceptorScope scope, ExecutionPolicy executionPolicy, Object[] constructorArgs) throws InstrumentException {
+        String filterTypeName = annotation.type();
+        Asserts.notNull(filterTypeName, "type of @TargetFilter");
+
+        final TraceContext traceContext = pluginContext.getTraceContext();
+        final InterceptorArgumentProvider interceptorArgumentProvider = new InterceptorArgumentProvider(traceContext, this);
+        AutoBindingObjectFactory filterFactory = new AutoBindingObjectFactory(pluginContext, classLoader, interceptorArgumentProvider);
+        final ObjectFactory objectFactory = ObjectFactory.byConstructor(filterTypeName, (Object[]) annotation.constructorArguments());
+        MethodFilter filter = (MethodFilter) filterFactory.createInstance(objectFactory);
+
+        boolean singleton = annotation.singleton();
+        int interceptorId = -1;
+
+        for (InstrumentMethod m : getDeclaredMethods(filter)) {
+            if (singleton && interceptorId != -1) {
+                m.addInterceptor(interceptorId);
+            } else {
+                interceptorId = ((ASMMethod) m).addInterceptorInternal(interceptorClassName, constructorArgs, scope, executionPolicy);
+            }
+        }
+
+        if (interceptorId == -1) {
+            logger.warn("No methods are intercepted. target: {}, interceptor: {}, methodFilter: {}", getName(), interceptorClassName, filterTypeName);
+        }
+
+        return interceptorId;
+    }
+
+    @Override
+    public int addInterceptor(MethodFilter filter, String interceptorClassName) throws InstrumentException {
+        Asserts.notNull(filter, "filter");
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        return addScopedInterceptor0(filter, interceptorClassName, null, null, null);
+    }
+
+    @Override
+    public int addInterceptor(MethodFilter filter, String interceptorClassName, Object[] constructorArgs) throws InstrumentException {
+        Asserts.notNull(filter, "filter");
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        return addScopedInterceptor0(filter, interceptorClassName, constructorArgs, null, null);
+    }
+
+    @Override
+    public int addScopedInterceptor(MethodFilter filter, String interceptorClassName, String scopeName, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(filter, "filter");
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scopeName, "scopeName");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        final InterceptorScope interceptorScope = pluginContext.getInterceptorScope(scopeName);
+        return addScopedInterceptor0(filter, interceptorClassName, null, interceptorScope, executionPolicy);
+    }
+
+    @Override
+    public int addScopedInterceptor(MethodFilter filter, String interceptorClassName, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(filter, "filter");
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scope, "scope");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        return addScopedInterceptor0(filter, interceptorClassName, null, scope, executionPolicy);
+    }
+
+    @Override
+    public int addScopedInterceptor(MethodFilter filter, String interceptorClassName, Object[] constructorArgs, String scopeName, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(filter, "filter");
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scopeName, "scopeName");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        final InterceptorScope interceptorScope = pluginContext.getInterceptorScope(scopeName);
+        return addScopedInterceptor0(filter, interceptorClassName, constructorArgs, interceptorScope, executionPolicy);
+    }
+
+    @Override
+    public int addScopedInterceptor(MethodFilter filter, String interceptorClassName, Object[] constructorArgs, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(filter, "filter");
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scope, "scope");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        return addScopedInterceptor0(filter, interceptorClassName, constructorArgs, scope, executionPolicy);
+    }
+
+    private int addScopedInterceptor0(MethodFilter filter, String interceptorClassName, Object[] constructorArgs, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        int interceptorId = -1;
+
+        for (InstrumentMethod m : getDeclaredMethods(filter)) {
+            if (interceptorId != -1) {
+                m.addInterceptor(interceptorId);
+            } else {
+                interceptorId = ((ASMMethod) m).addInterceptorInternal(interceptorClassName, constructorArgs, scope, executionPolicy);
+            }
+        }
+
+        if (interceptorId == -1) {
+            logger.warn("No methods are intercepted. target: {}, interceptor: {}, methodFilter: {}", getName(), interceptorClassName, filter.getClass().getName());
+        }
+
+        return interceptorId;
+    }
+
+    @Override
+    public List<InstrumentClass> getNestedClasses(ClassFilter filter) {
+        final List<InstrumentClass> list = new ArrayList<InstrumentClass>();
+        final List<InnerClassNode> innerClasses = classNode.innerClasses;
+        if (innerClasses == null || innerClasses.isEmpty()) {
+            return list;
+        }
+
+        final String nestedClassPrefix = classNode.name + "$";
+        for (InnerClassNode innerClass : innerClasses) {
+            if (!innerClass.name.startsWith(nestedClassPrefix)) {
+                continue;
+            }
+            if (innerClass.outerName != null && !innerClass.outerName.equals(classNode.name)) {
+                continue;
+            }
+            final byte[] classFileBuffer = classPool.readClassFile(classLoader, innerClass.name);
+            if (classFileBuffer == null) {
+                if (isDebug) {
+                    logger.debug("nested class not found. className:{}", innerClass.name);
+                }
+                continue;
+            }
+            final ClassNode nestedClassNode = ASMClassPool.readClassNode(classFileBuffer, 0);
+            final InstrumentClass clazz = new ASMClass(pluginContext, interceptorRegistryBinder, classPool, classLoader, nestedClassNode);
+            if (filter.accept(clazz)) {
+                list.add(clazz);
+            }
+        }
+
+        return list;
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.instrument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClass;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClassPool;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentContext;
+import com.navercorp.pinpoint.bootstrap.instrument.NotFoundInstrumentException;
+import com.navercorp.pinpoint.exception.PinpointException;
+import com.navercorp.pinpoint.profiler.interceptor.registry.InterceptorRegistryBinder;
+import com.navercorp.pinpoint.profiler.util.JavaAssistUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.commons.JSRInlinerAdapter;
+import org.objectweb.asm.tree.ClassNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * InstrumentClassPool backed by the ASM tree api.
+ * Unlike {@link JavassistClassPool}, no class pool is kept per classloader.
+ * The class model is built from the class file buffer only, and super types are read from the classloader resources on demand.
+ */
+public class ASMClassPool implements InstrumentClassPool {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final boolean isDebug = logger.isDebugEnabled();
+
+    private final InterceptorRegistryBinder interceptorRegistryBinder;
+    // aspect weaving copies javassist compiled advice code. delegate to javassist for that rare case.
+    private final JavassistClassPool weaveClassPool;
+
+    private final List<JarFile> bootstrapJarList = new CopyOnWriteArrayList<JarFile>();
+
+    public ASMClassPool(InterceptorRegistryBinder interceptorRegistryBinder, JavassistClassPool weaveClassPool, String bootStrapJar) {
+        if (interceptorRegistryBinder == null) {
+            throw new NullPointerException("interceptorRegistryBinder must not be null");
+        }
+        if (weaveClassPool == null) {
+            throw new NullPointerException("weaveClassPool must not be null");
+        }
+        this.interceptorRegistryBinder = interceptorRegistryBinder;
+        this.weaveClassPool = weaveClassPool;
+        if (bootStrapJar != null) {
+            this.bootstrapJarList.add(openJarFile(bootStrapJar));
+        }
+    }
+
+    @Override
+    public InstrumentClass getClass(InstrumentContext instrumentContext, ClassLoader classLoader, String jvmInternalClassName, byte[] classFileBuffer) throws NotFoundInstrumentException {
+        if (jvmInternalClassName == null) {
+            throw new NullPointerException("jvmInternalClassName must not be null");
+        }
+        final ClassNode classNode = getClassNode(classLoader, jvmInternalClassName, classFileBuffer);
+        return new ASMClass(instrumentContext, interceptorRegistryBinder, this, classLoader, classNode);
+    }
+
+    ClassNode getClassNode(ClassLoader classLoader, String jvmInternalClassName, byte[] classFileBuffer) throws NotFoundInstrumentException {
+        if (classFileBuffer == null) {
+            // compatibility code
+            logger.info("classFileBuffer is null className:{}", jvmInternalClassName);
+            final String jvmClassName = JavaAssistUtils.javaNameToJvmName(jvmInternalClassName);
+            classFileBuffer = readClassFile(classLoader, jvmClassName);
+            if (classFileBuffer == null) {
+                throw new NotFoundInstrumentException(jvmInternalClassName + " class not found.");
+            }
+        }
+        try {
+            return readClassNode(classFileBuffer, 0);
+        } catch (RuntimeException e) {
+            throw new NotFoundInstrumentException(jvmInternalClassName + " class read fail. Cause:" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return null if the class is not found
+     */
+    ClassNode getClassNodeForRead(ClassLoader classLoader, String jvmClassName) {
+        final byte[] classFileBuffer = readClassFile(classLoader, jvmClassName);
+        if (classFileBuffer == null) {
+            return null;
+        }
+        try {
+            return readClassNode(classFileBuffer, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (RuntimeException e) {
+            if (isDebug) {
+                logger.debug("class read fail. className:{} Caused:{}", jvmClassName, e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    static ClassNode readClassNode(byte[] classFileBuffer, int parsingOptions) {
+        final ClassReader classReader = new ClassReader(classFileBuffer);
+        final ClassNode classNode = new JSRInlinerClassNode();
+        classReader.accept(classNode, parsingOptions | ClassReader.SKIP_FRAMES);
+        return classNode;
+    }
+
+    /**
+     * @return null if the class file is not found
+     */
+    public byte[] readClassFile(ClassLoader classLoader, String jvmClassName) {
+        if (jvmClassName == null) {
+            throw new NullPointerException("jvmClassName must not be null");
+        }
+        final String resourceName = jvmClassName + ".class";
+        final InputStream inputStream = getResourceAsStream(classLoader, resourceName);
+        if (inputStream == null) {
+            return null;
+        }
+        try {
+            return readFully(inputStream);
+        } catch (IOException e) {
+            logger.info("class file read fail. className:{} Caused:{}", jvmClassName, e.getMessage());
+            return null;
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException ignore) {
+                // skip
+            }
+        }
+    }
+
+    private InputStream getResourceAsStream(ClassLoader classLoader, String resourceName) {
+        if (classLoader != null) {
+            return classLoader.getResourceAsStream(resourceName);
+        }
+        final InputStream inputStream = ClassLoader.getSystemResourceAsStream(resourceName);
+        if (inputStream != null) {
+            return inputStream;
+        }
+        for (JarFile jarFile : bootstrapJarList) {
+            final JarEntry jarEntry = jarFile.getJarEntry(resourceName);
+            if (jarEntry == null) {
+                continue;
+            }
+            try {
+                return jarFile.getInputStream(jarEntry);
+            } catch (IOException e) {
+                logger.info("jar entry read fail. jar:{} entry:{} Caused:{}", jarFile.getName(), resourceName, e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[Math.max(inputStream.available(), 1024)];
+        int length = 0;
+        while (true) {
+            final int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+            if (length == buffer.length) {
+                final byte[] newBuffer = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, newBuffer, 0, length);
+                buffer = newBuffer;
+            }
+        }
+        final byte[] classFile = new byte[length];
+        System.arraycopy(buffer, 0, classFile, 0, length);
+        return classFile;
+    }
+
+    JavassistClassPool getWeaveClassPool() {
+        return weaveClassPool;
+    }
+
+    @Override
+    public boolean hasClass(ClassLoader classLoader, String classBinaryName) {
+        if (classBinaryName == null) {
+            throw new NullPointerException("classBinaryName must not be null");
+        }
+        final String resourceName = JavaAssistUtils.javaNameToJvmName(classBinaryName) + ".class";
+        final InputStream inputStream = getResourceAsStream(classLoader, resourceName);
+        if (inputStream == null) {
+            return false;
+        }
+        try {
+            inputStream.close();
+        } catch (IOException ignore) {
+            // skip
+        }
+        return true;
+    }
+
+    @Override
+    public void appendToBootstrapClassPath(String jar) {
+        this.bootstrapJarList.add(openJarFile(jar));
+        this.weaveClassPool.appendToBootstrapClassPath(jar);
+    }
+
+    private JarFile openJarFile(String jar) {
+        try {
+            return new JarFile(jar);
+        } catch (IOException e) {
+            throw new PinpointException("jar open fail. jar:" + jar + " Caused:" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * old class files(< 1.6) may contain JSR/RET which can not be used with computed stack map frames.
+     */
+    private static class JSRInlinerClassNode extends ClassNode {
+
+        private JSRInlinerClassNode() {
+            super(ASMClass.ASM_API_VERSION);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            final MethodVisitor methodVisitor = super.visitMethod(access, name, desc, signature, exceptions);
+            return new JSRInlinerAdapter(methodVisitor, access, name, desc, signature, exceptions);
+        }
+    }
+}
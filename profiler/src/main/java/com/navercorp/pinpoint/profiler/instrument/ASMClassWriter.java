@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.instrument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.navercorp.pinpoint.profiler.instrument.classreading.ClassFileMetadata;
+import com.navercorp.pinpoint.profiler.instrument.classreading.ClassFileReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * ClassWriter resolving the super types from class files instead of loading them,
+ * since Class.forName() in the middle of a transform can trigger class loading of the classes being transformed.
+ */
+public class ASMClassWriter extends ClassWriter {
+
+    private static final String OBJECT_CLASS_NAME = "java/lang/Object";
+    private static final int MAX_HIERARCHY_DEPTH = 64;
+
+    private final ASMClassPool classPool;
+    private final ClassLoader classLoader;
+    // the class being written may not be visible as a resource yet.
+    private final String className;
+    private final String superClassName;
+
+    public ASMClassWriter(ASMClassPool classPool, ClassLoader classLoader, String className, String superClassName, int flags) {
+        super(flags);
+        if (classPool == null) {
+            throw new NullPointerException("classPool must not be null");
+        }
+        this.classPool = classPool;
+        this.classLoader = classLoader;
+        this.className = className;
+        this.superClassName = superClassName;
+    }
+
+    @Override
+    protected String getCommonSuperClass(String type1, String type2) {
+        if (type1.equals(type2)) {
+            return type1;
+        }
+        if (OBJECT_CLASS_NAME.equals(type1) || OBJECT_CLASS_NAME.equals(type2)) {
+            return OBJECT_CLASS_NAME;
+        }
+
+        final List<String> superClassList1 = getSuperClassList(type1);
+        final List<String> superClassList2 = getSuperClassList(type2);
+        // interfaces are treated as java.lang.Object by the verifier.
+        for (String superClass : superClassList2) {
+            if (superClassList1.contains(superClass)) {
+                return superClass;
+            }
+        }
+        return OBJECT_CLASS_NAME;
+    }
+
+    /**
+     * @return type itself followed by its super classes, empty list for interfaces
+     * @throws TypeNotPresentException if a class file of the hierarchy can not be read. guessing java.lang.Object would
+     * compute wrong stack map frames, so the transform is abandoned as ClassWriter does.
+     */
+    private List<String> getSuperClassList(String type) {
+        final List<String> superClassList = new ArrayList<String>();
+        String className = type;
+        while (className != null && superClassList.size() < MAX_HIERARCHY_DEPTH) {
+            if (OBJECT_CLASS_NAME.equals(className)) {
+                superClassList.add(className);
+                return superClassList;
+            }
+            if (className.equals(this.className)) {
+                superClassList.add(className);
+                className = this.superClassName;
+                continue;
+            }
+            final ClassFileMetadata metadata = readMetadata(className);
+            if (metadata.isInterface()) {
+                superClassList.clear();
+                return superClassList;
+            }
+            superClassList.add(className);
+            className = metadata.getSuperClassName();
+        }
+        return superClassList;
+    }
+
+    private ClassFileMetadata readMetadata(String className) {
+        final byte[] classFileBuffer = classPool.readClassFile(classLoader, className);
+        if (classFileBuffer == null) {
+            throw new TypeNotPresentException(className, null);
+        }
+        try {
+            return ClassFileReader.readMetadata(classFileBuffer);
+        } catch (IllegalArgumentException e) {
+            throw new TypeNotPresentException(className, e);
+        }
+    }
+}
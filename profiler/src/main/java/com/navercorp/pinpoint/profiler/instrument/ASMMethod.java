@@ -0,0 +1,500 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.instrument;
+
+import java.util.List;
+
+import com.navercorp.pinpoint.bootstrap.context.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClass;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentContext;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentException;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentMethod;
+import com.navercorp.pinpoint.bootstrap.interceptor.Interceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.annotation.Scope;
+import com.navercorp.pinpoint.bootstrap.interceptor.registry.InterceptorRegistry;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.ExecutionPolicy;
+import com.navercorp.pinpoint.bootstrap.interceptor.scope.InterceptorScope;
+import com.navercorp.pinpoint.common.util.Asserts;
+import com.navercorp.pinpoint.profiler.context.DefaultMethodDescriptor;
+import com.navercorp.pinpoint.profiler.instrument.interceptor.ASMInvokeCodeGenerator;
+import com.navercorp.pinpoint.profiler.instrument.interceptor.CaptureType;
+import com.navercorp.pinpoint.profiler.instrument.interceptor.InterceptorDefinition;
+import com.navercorp.pinpoint.profiler.instrument.interceptor.InterceptorDefinitionFactory;
+import com.navercorp.pinpoint.profiler.interceptor.factory.AnnotatedInterceptorFactory;
+import com.navercorp.pinpoint.profiler.interceptor.registry.InterceptorRegistryBinder;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ASMMethod implements InstrumentMethod {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final boolean isDebug = logger.isDebugEnabled();
+
+    private static final String CONSTRUCTOR_NAME = "<init>";
+    private static final String THROWABLE = Type.getInternalName(Throwable.class);
+
+    private final InstrumentContext pluginContext;
+    private final InterceptorRegistryBinder interceptorRegistryBinder;
+
+    private final MethodNode methodNode;
+    private final ASMClass declaringClass;
+    private final MethodDescriptor descriptor;
+
+    private static final InterceptorDefinitionFactory interceptorDefinitionFactory = new InterceptorDefinitionFactory();
+
+    public ASMMethod(InstrumentContext pluginContext, InterceptorRegistryBinder interceptorRegistryBinder, ASMClass declaringClass, MethodNode methodNode) {
+        this.pluginContext = pluginContext;
+        this.interceptorRegistryBinder = interceptorRegistryBinder;
+        this.methodNode = methodNode;
+        this.declaringClass = declaringClass;
+
+        final String[] parameterVariableNames = getParameterVariableNames();
+        final int lineNumber = getLineNumber();
+
+        final DefaultMethodDescriptor descriptor = new DefaultMethodDescriptor(declaringClass.getName(), getName(), getParameterTypes(), parameterVariableNames);
+        descriptor.setLineNumber(lineNumber);
+
+        this.descriptor = descriptor;
+    }
+
+    @Override
+    public String getName() {
+        if (isConstructor()) {
+            // same as CtConstructor.getName()
+            return declaringClass.getSimpleName();
+        }
+        return methodNode.name;
+    }
+
+    @Override
+    public String[] getParameterTypes() {
+        final Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
+        final String[] parameterTypes = new String[argumentTypes.length];
+        for (int i = 0; i < argumentTypes.length; i++) {
+            parameterTypes[i] = argumentTypes[i].getClassName();
+        }
+        return parameterTypes;
+    }
+
+    @Override
+    public String getReturnType() {
+        if (isConstructor()) {
+            return null;
+        }
+        return Type.getReturnType(methodNode.desc).getClassName();
+    }
+
+    @Override
+    public int getModifiers() {
+        // drop asm pseudo access flags. e.g. ACC_DEPRECATED
+        return methodNode.access & 0xFFFF;
+    }
+
+    @Override
+    public boolean isConstructor() {
+        return CONSTRUCTOR_NAME.equals(methodNode.name);
+    }
+
+    @Override
+    public MethodDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    MethodNode getMethodNode() {
+        return methodNode;
+    }
+
+    private String[] getParameterVariableNames() {
+        final Type[] argumentTypes = Type.getArgumentTypes(methodNode.desc);
+        final String[] variableNames = new String[argumentTypes.length];
+        int slot = isStatic() ? 0 : 1;
+        for (int i = 0; i < argumentTypes.length; i++) {
+            final String variableName = findLocalVariableName(slot);
+            if (variableName == null) {
+                // not compiled with debug option
+                variableNames[i] = getSimpleName(argumentTypes[i].getClassName()).toLowerCase();
+            } else {
+                variableNames[i] = variableName;
+            }
+            slot += argumentTypes[i].getSize();
+        }
+        return variableNames;
+    }
+
+    private String findLocalVariableName(int slot) {
+        final List<LocalVariableNode> localVariables = methodNode.localVariables;
+        if (localVariables == null) {
+            return null;
+        }
+        for (LocalVariableNode localVariable : localVariables) {
+            if (localVariable.index == slot) {
+                return localVariable.name;
+            }
+        }
+        return null;
+    }
+
+    private static String getSimpleName(String className) {
+        final int findIndex = className.lastIndexOf('.');
+        if (findIndex == -1) {
+            return className;
+        }
+        return className.substring(findIndex + 1);
+    }
+
+    private int getLineNumber() {
+        if (methodNode.instructions == null) {
+            return -1;
+        }
+        for (AbstractInsnNode insnNode = methodNode.instructions.getFirst(); insnNode != null; insnNode = insnNode.getNext()) {
+            if (insnNode instanceof LineNumberNode) {
+                return ((LineNumberNode) insnNode).line;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isStatic() {
+        return (methodNode.access & Opcodes.ACC_STATIC) != 0;
+    }
+
+    private String getLongName() {
+        return declaringClass.getName() + "." + methodNode.name + methodNode.desc;
+    }
+
+    @Override
+    public int addInterceptor(String interceptorClassName) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        return addInterceptor0(interceptorClassName, null, null, null);
+    }
+
+    @Override
+    public int addInterceptor(String interceptorClassName, Object[] constructorArgs) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        return addInterceptor0(interceptorClassName, constructorArgs, null, null);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, String scopeName) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scopeName, "scopeName");
+        final InterceptorScope interceptorScope = this.pluginContext.getInterceptorScope(scopeName);
+        return addInterceptor0(interceptorClassName, null, interceptorScope, null);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, InterceptorScope scope) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scope, "scope");
+        return addInterceptor0(interceptorClassName, null, scope, null);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, String scopeName, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scopeName, "scopeName");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        final InterceptorScope interceptorScope = this.pluginContext.getInterceptorScope(scopeName);
+        return addInterceptor0(interceptorClassName, null, interceptorScope, executionPolicy);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(scope, "scope");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        return addInterceptor0(interceptorClassName, null, scope, executionPolicy);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, Object[] constructorArgs, String scopeName) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scopeName, "scopeName");
+        final InterceptorScope interceptorScope = this.pluginContext.getInterceptorScope(scopeName);
+        return addInterceptor0(interceptorClassName, constructorArgs, interceptorScope, null);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, Object[] constructorArgs, InterceptorScope scope) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scope, "scope");
+        return addInterceptor0(interceptorClassName, constructorArgs, scope, null);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, Object[] constructorArgs, String scopeName, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scopeName, "scopeName");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        final InterceptorScope interceptorScope = this.pluginContext.getInterceptorScope(scopeName);
+        return addInterceptor0(interceptorClassName, constructorArgs, interceptorScope, executionPolicy);
+    }
+
+    @Override
+    public int addScopedInterceptor(String interceptorClassName, Object[] constructorArgs, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        Asserts.notNull(interceptorClassName, "interceptorClassName");
+        Asserts.notNull(constructorArgs, "constructorArgs");
+        Asserts.notNull(scope, "scope");
+        Asserts.notNull(executionPolicy, "executionPolicy");
+        return addInterceptor0(interceptorClassName, constructorArgs, scope, executionPolicy);
+    }
+
+    @Override
+    public void addInterceptor(int interceptorId) throws InstrumentException {
+        Interceptor interceptor = InterceptorRegistry.getInterceptor(interceptorId);
+
+        try {
+            addInterceptor0(interceptor, interceptorId);
+        } catch (Exception e) {
+            throw new InstrumentException("Failed to add interceptor " + interceptor.getClass().getName() + " to " + getLongName(), e);
+        }
+    }
+
+    private ScopeInfo resolveScopeInfo(String interceptorClassName, InterceptorScope scope, ExecutionPolicy policy) {
+        final Class<? extends Interceptor> interceptorType = pluginContext.injectClass(declaringClass.getClassLoader(), interceptorClassName);
+
+        if (scope == null) {
+            Scope interceptorScope = interceptorType.getAnnotation(Scope.class);
+
+            if (interceptorScope != null) {
+                String scopeName = interceptorScope.value();
+                scope = pluginContext.getInterceptorScope(scopeName);
+                policy = interceptorScope.executionPolicy();
+            }
+        }
+
+        if (scope == null) {
+            policy = null;
+        } else if (policy == null) {
+            policy = ExecutionPolicy.BOUNDARY;
+        }
+
+        return new ScopeInfo(scope, policy);
+    }
+
+    private static class ScopeInfo {
+        private final InterceptorScope scope;
+        private final ExecutionPolicy policy;
+
+        public ScopeInfo(InterceptorScope scope, ExecutionPolicy policy) {
+            this.scope = scope;
+            this.policy = policy;
+        }
+
+        public InterceptorScope getScope() {
+            return scope;
+        }
+
+        public ExecutionPolicy getPolicy() {
+            return policy;
+        }
+    }
+
+    // for internal api
+    int addInterceptorInternal(String interceptorClassName, Object[] constructorArgs, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        if (interceptorClassName == null) {
+            throw new NullPointerException("interceptorClassName must not be null");
+        }
+        return addInterceptor0(interceptorClassName, constructorArgs, scope, executionPolicy);
+    }
+
+    private int addInterceptor0(String interceptorClassName, Object[] constructorArgs, InterceptorScope scope, ExecutionPolicy executionPolicy) throws InstrumentException {
+        ScopeInfo scopeInfo = resolveScopeInfo(interceptorClassName, scope, executionPolicy);
+        Interceptor interceptor = createInterceptor(interceptorClassName, scopeInfo, constructorArgs);
+        int interceptorId = interceptorRegistryBinder.getInterceptorRegistryAdaptor().addInterceptor(interceptor);
+
+        addInterceptor0(interceptor, interceptorId);
+        return interceptorId;
+    }
+
+    private Interceptor createInterceptor(String interceptorClassName, ScopeInfo scopeInfo, Object[] constructorArgs) {
+        ClassLoader classLoader = declaringClass.getClassLoader();
+
+        AnnotatedInterceptorFactory factory = new AnnotatedInterceptorFactory(pluginContext);
+        Interceptor interceptor = factory.getInterceptor(classLoader, interceptorClassName, constructorArgs, scopeInfo.getScope(), scopeInfo.getPolicy(), declaringClass, this);
+
+        return interceptor;
+    }
+
+    private void addInterceptor0(Interceptor interceptor, int interceptorId) throws InstrumentException {
+        if (interceptor == null) {
+            throw new NullPointerException("interceptor must not be null");
+        }
+        if ((methodNode.access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) != 0) {
+            throw new InstrumentException("no method body. " + getLongName());
+        }
+
+        final InterceptorDefinition interceptorDefinition = interceptorDefinitionFactory.createInterceptorDefinition(interceptor.getClass());
+        final ASMInvokeCodeGenerator codeGenerator = new ASMInvokeCodeGenerator(interceptorId, interceptorDefinition, declaringClass, this, pluginContext.getTraceContext(), methodNode);
+
+        final int interceptorVar = newLocal(Type.getType(Interceptor.class));
+        final InsnList beforeCode = new InsnList();
+        beforeCode.add(new InsnNode(Opcodes.ACONST_NULL));
+        beforeCode.add(new VarInsnNode(Opcodes.ASTORE, interceptorVar));
+
+        final boolean localVarsInitialized = addBeforeInterceptor(interceptorDefinition, codeGenerator, interceptorVar, beforeCode);
+
+        final LabelNode originalCodeStart = new LabelNode();
+        beforeCode.add(originalCodeStart);
+        insertBefore(beforeCode);
+
+        addAfterInterceptor(interceptorDefinition, codeGenerator, interceptorVar, localVarsInitialized, originalCodeStart);
+        declaringClass.setModified();
+    }
+
+    private boolean addBeforeInterceptor(InterceptorDefinition interceptorDefinition, ASMInvokeCodeGenerator codeGenerator, int interceptorVar, InsnList beforeCode) {
+        final Class<?> interceptorClass = interceptorDefinition.getInterceptorClass();
+        final CaptureType captureType = interceptorDefinition.getCaptureType();
+        if (!isBeforeInterceptor(captureType)) {
+            return false;
+        }
+        if (interceptorDefinition.getBeforeMethod() == null) {
+            if (isDebug) {
+                logger.debug("Skip adding before interceptorDefinition because the interceptorDefinition doesn't have before method: {}", interceptorClass.getName());
+            }
+            return false;
+        }
+        if (isDebug) {
+            logger.debug("addBeforeInterceptor before behavior:{} interceptor:{}", getLongName(), interceptorClass.getName());
+        }
+        beforeCode.add(codeGenerator.generateBefore(interceptorVar));
+        return true;
+    }
+
+    private boolean isBeforeInterceptor(CaptureType captureType) {
+        return CaptureType.BEFORE == captureType || CaptureType.AROUND == captureType;
+    }
+
+    private void addAfterInterceptor(InterceptorDefinition interceptorDefinition, ASMInvokeCodeGenerator codeGenerator, int interceptorVar, boolean localVarsInitialized, LabelNode originalCodeStart) {
+        final Class<?> interceptorClass = interceptorDefinition.getInterceptorClass();
+        final CaptureType captureType = interceptorDefinition.getCaptureType();
+        if (!isAfterInterceptor(captureType)) {
+            return;
+        }
+        if (interceptorDefinition.getAfterMethod() == null) {
+            if (isDebug) {
+                logger.debug("Skip adding after interceptor because the interceptor doesn't have after method: {}", interceptorClass.getName());
+            }
+            return;
+        }
+        if (isDebug) {
+            logger.debug("addAfterInterceptor after behavior:{} interceptor:{}", getLongName(), interceptorClass.getName());
+        }
+
+        final InsnList instructions = methodNode.instructions;
+        final Type returnType = Type.getReturnType(methodNode.desc);
+        final int returnValueVar = returnType.getSort() == Type.VOID ? -1 : newLocal(returnType);
+
+        // every return of the original code jumps to a single exit which calls after().
+        final LabelNode originalCodeEnd = new LabelNode();
+        final LabelNode exit = new LabelNode();
+        for (AbstractInsnNode insnNode : instructions.toArray()) {
+            if (!isReturn(insnNode.getOpcode())) {
+                continue;
+            }
+            final InsnList jumpToExit = new InsnList();
+            if (returnValueVar != -1) {
+                jumpToExit.add(new VarInsnNode(returnType.getOpcode(Opcodes.ISTORE), returnValueVar));
+            }
+            jumpToExit.add(new JumpInsnNode(Opcodes.GOTO, exit));
+            instructions.insert(insnNode, jumpToExit);
+            instructions.remove(insnNode);
+        }
+        instructions.add(originalCodeEnd);
+
+        instructions.add(exit);
+        instructions.add(codeGenerator.generateAfter(interceptorVar, localVarsInitialized, returnValueVar, -1));
+        if (returnValueVar == -1) {
+            instructions.add(new InsnNode(Opcodes.RETURN));
+        } else {
+            instructions.add(new VarInsnNode(returnType.getOpcode(Opcodes.ILOAD), returnValueVar));
+            instructions.add(new InsnNode(returnType.getOpcode(Opcodes.IRETURN)));
+        }
+
+        // catch (Throwable e) { after(e); throw e; }
+        final int throwableVar = newLocal(Type.getType(Throwable.class));
+        final LabelNode handler = new LabelNode();
+        instructions.add(handler);
+        instructions.add(new VarInsnNode(Opcodes.ASTORE, throwableVar));
+        instructions.add(codeGenerator.generateAfter(interceptorVar, localVarsInitialized, -1, throwableVar));
+        instructions.add(new VarInsnNode(Opcodes.ALOAD, throwableVar));
+        instructions.add(new InsnNode(Opcodes.ATHROW));
+        // outermost handler
+        methodNode.tryCatchBlocks.add(new TryCatchBlockNode(originalCodeStart, originalCodeEnd, handler, THROWABLE));
+    }
+
+    private boolean isAfterInterceptor(CaptureType captureType) {
+        return CaptureType.AFTER == captureType || CaptureType.AROUND == captureType;
+    }
+
+    private static boolean isReturn(int opcode) {
+        return opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN;
+    }
+
+    private int newLocal(Type type) {
+        final int var = methodNode.maxLocals;
+        methodNode.maxLocals += type.getSize();
+        return var;
+    }
+
+    private void insertBefore(InsnList code) {
+        if (isConstructor()) {
+            final AbstractInsnNode superConstructorCall = findSuperConstructorCall();
+            if (superConstructorCall != null) {
+                methodNode.instructions.insert(superConstructorCall, code);
+                return;
+            }
+        }
+        methodNode.instructions.insert(code);
+    }
+
+    /**
+     * the before code of constructor must be placed after super() or this(). same as CodeIterator.skipConstructor()
+     */
+    private AbstractInsnNode findSuperConstructorCall() {
+        int newCount = 0;
+        for (AbstractInsnNode insnNode = methodNode.instructions.getFirst(); insnNode != null; insnNode = insnNode.getNext()) {
+            final int opcode = insnNode.getOpcode();
+            if (opcode == Opcodes.NEW) {
+                newCount++;
+            } else if (opcode == Opcodes.INVOKESPECIAL && CONSTRUCTOR_NAME.equals(((MethodInsnNode) insnNode).name)) {
+                if (newCount == 0) {
+                    return insnNode;
+                }
+                newCount--;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.classreading;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The names a class file declares about itself. All names are JVM internal names (ex: java/lang/String).
+ */
+public class ClassFileMetadata {
+
+    public static final int ACC_INTERFACE = 0x0200;
+
+    private final int accessFlags;
+    private final String className;
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final List<String> annotationNames;
+
+    public ClassFileMetadata(int accessFlags, String className, String superClassName, List<String> interfaceNames, List<String> annotationNames) {
+        if (className == null) {
+            throw new NullPointerException("className must not be null");
+        }
+        if (interfaceNames == null) {
+            throw new NullPointerException("interfaceNames must not be null");
+        }
+        if (annotationNames == null) {
+            throw new NullPointerException("annotationNames must not be null");
+        }
+        this.accessFlags = accessFlags;
+        this.className = className;
+        this.superClassName = superClassName;
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+        this.annotationNames = Collections.unmodifiableList(annotationNames);
+    }
+
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & ACC_INTERFACE) != 0;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return null for java/lang/Object
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    public List<String> getAnnotationNames() {
+        return annotationNames;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassFileMetadata{" +
+                "accessFlags=" + accessFlags +
+                ", className='" + className + '\'' +
+                ", superClassName='" + superClassName + '\'' +
+                ", interfaceNames=" + interfaceNames +
+                ", annotationNames=" + annotationNames +
+                '}';
+    }
+}
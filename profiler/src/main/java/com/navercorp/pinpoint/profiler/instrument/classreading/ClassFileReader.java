@@ -0,0 +1,277 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.classreading;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the constant pool and header of a raw class file without building a class model.
+ * See "The class File Format" chapter of the JVM specification.
+ */
+public final class ClassFileReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int CONSTANT_POOL_OFFSET = 10;
+
+    private static final int CONSTANT_Utf8 = 1;
+    private static final int CONSTANT_Integer = 3;
+    private static final int CONSTANT_Float = 4;
+    private static final int CONSTANT_Long = 5;
+    private static final int CONSTANT_Double = 6;
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_String = 8;
+    private static final int CONSTANT_Fieldref = 9;
+    private static final int CONSTANT_Methodref = 10;
+    private static final int CONSTANT_InterfaceMethodref = 11;
+    private static final int CONSTANT_NameAndType = 12;
+    private static final int CONSTANT_MethodHandle = 15;
+    private static final int CONSTANT_MethodType = 16;
+    private static final int CONSTANT_Dynamic = 17;
+    private static final int CONSTANT_InvokeDynamic = 18;
+    private static final int CONSTANT_Module = 19;
+    private static final int CONSTANT_Package = 20;
+
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String RUNTIME_INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations";
+
+    private ClassFileReader() {
+    }
+
+    /**
+     * Checks whether any Utf8 entry of the constant pool is one of the given keys.
+     * Nothing is allocated, so this is cheap enough to run for every loaded class.
+     *
+     * @return false if the class file is malformed
+     */
+    public static boolean containsUtf8(byte[] classFileBuffer, Utf8KeySet keys) {
+        if (classFileBuffer == null) {
+            throw new NullPointerException("classFileBuffer must not be null");
+        }
+        if (keys == null) {
+            throw new NullPointerException("keys must not be null");
+        }
+        if (keys.isEmpty() || !isClassFile(classFileBuffer)) {
+            return false;
+        }
+        try {
+            final int constantPoolCount = readUnsignedShort(classFileBuffer, CONSTANT_POOL_OFFSET - 2);
+            int offset = CONSTANT_POOL_OFFSET;
+            for (int index = 1; index < constantPoolCount; index++) {
+                final int tag = classFileBuffer[offset];
+                if (tag == CONSTANT_Utf8) {
+                    final int length = readUnsignedShort(classFileBuffer, offset + 1);
+                    if (keys.contains(classFileBuffer, offset + 3, length)) {
+                        return true;
+                    }
+                }
+                if (tag == CONSTANT_Long || tag == CONSTANT_Double) {
+                    index++;
+                }
+                offset += getEntrySize(classFileBuffer, offset, tag);
+            }
+            return false;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return false;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public static ClassFileMetadata readMetadata(byte[] classFileBuffer) {
+        if (classFileBuffer == null) {
+            throw new NullPointerException("classFileBuffer must not be null");
+        }
+        if (!isClassFile(classFileBuffer)) {
+            throw new IllegalArgumentException("invalid class file magic");
+        }
+        try {
+            return readMetadata0(classFileBuffer);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("truncated class file", e);
+        }
+    }
+
+    private static ClassFileMetadata readMetadata0(byte[] buffer) {
+        final int constantPoolCount = readUnsignedShort(buffer, CONSTANT_POOL_OFFSET - 2);
+        final int[] entryOffsets = new int[constantPoolCount];
+        int offset = CONSTANT_POOL_OFFSET;
+        for (int index = 1; index < constantPoolCount; index++) {
+            entryOffsets[index] = offset;
+            final int tag = buffer[offset];
+            if (tag == CONSTANT_Long || tag == CONSTANT_Double) {
+                index++;
+            }
+            offset += getEntrySize(buffer, offset, tag);
+        }
+
+        final int accessFlags = readUnsignedShort(buffer, offset);
+        offset += 2;
+        final String className = readClassName(buffer, entryOffsets, readUnsignedShort(buffer, offset));
+        offset += 2;
+        final int superClassIndex = readUnsignedShort(buffer, offset);
+        final String superClassName = superClassIndex == 0 ? null : readClassName(buffer, entryOffsets, superClassIndex);
+        offset += 2;
+
+        final int interfaceCount = readUnsignedShort(buffer, offset);
+        offset += 2;
+        final List<String> interfaceNames = new ArrayList<String>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames.add(readClassName(buffer, entryOffsets, readUnsignedShort(buffer, offset)));
+            offset += 2;
+        }
+
+        // fields and methods
+        for (int memberType = 0; memberType < 2; memberType++) {
+            final int memberCount = readUnsignedShort(buffer, offset);
+            offset += 2;
+            for (int i = 0; i < memberCount; i++) {
+                // access_flags, name_index, descriptor_index
+                offset += 6;
+                offset = skipAttributes(buffer, offset);
+            }
+        }
+
+        List<String> annotationNames = Collections.emptyList();
+        final int attributeCount = readUnsignedShort(buffer, offset);
+        offset += 2;
+        for (int i = 0; i < attributeCount; i++) {
+            final String attributeName = readUtf8(buffer, entryOffsets, readUnsignedShort(buffer, offset));
+            final int attributeLength = readInt(buffer, offset + 2);
+            offset += 6;
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName) || RUNTIME_INVISIBLE_ANNOTATIONS.equals(attributeName)) {
+                if (annotationNames.isEmpty()) {
+                    annotationNames = new ArrayList<String>();
+                }
+                readAnnotationNames(buffer, entryOffsets, offset, annotationNames);
+            }
+            offset += attributeLength;
+        }
+
+        return new ClassFileMetadata(accessFlags, className, superClassName, interfaceNames, annotationNames);
+    }
+
+    private static void readAnnotationNames(byte[] buffer, int[] entryOffsets, int offset, List<String> annotationNames) {
+        final int annotationCount = readUnsignedShort(buffer, offset);
+        offset += 2;
+        for (int i = 0; i < annotationCount; i++) {
+            final String descriptor = readUtf8(buffer, entryOffsets, readUnsignedShort(buffer, offset));
+            // Lcom/foo/Bar;
+            annotationNames.add(descriptor.substring(1, descriptor.length() - 1));
+            offset = skipAnnotationPairs(buffer, offset + 2);
+        }
+    }
+
+    private static int skipAnnotationPairs(byte[] buffer, int offset) {
+        final int pairCount = readUnsignedShort(buffer, offset);
+        offset += 2;
+        for (int i = 0; i < pairCount; i++) {
+            // element_name_index
+            offset = skipElementValue(buffer, offset + 2);
+        }
+        return offset;
+    }
+
+    private static int skipElementValue(byte[] buffer, int offset) {
+        final char tag = (char) buffer[offset];
+        offset++;
+        switch (tag) {
+            case 'e':
+                return offset + 4;
+            case '@':
+                // type_index
+                return skipAnnotationPairs(buffer, offset + 2);
+            case '[':
+                final int valueCount = readUnsignedShort(buffer, offset);
+                offset += 2;
+                for (int i = 0; i < valueCount; i++) {
+                    offset = skipElementValue(buffer, offset);
+                }
+                return offset;
+            default:
+                // const_value_index or class_info_index
+                return offset + 2;
+        }
+    }
+
+    private static int skipAttributes(byte[] buffer, int offset) {
+        final int attributeCount = readUnsignedShort(buffer, offset);
+        offset += 2;
+        for (int i = 0; i < attributeCount; i++) {
+            offset += 6 + readInt(buffer, offset + 2);
+        }
+        return offset;
+    }
+
+    private static String readClassName(byte[] buffer, int[] entryOffsets, int classIndex) {
+        final int nameIndex = readUnsignedShort(buffer, entryOffsets[classIndex] + 1);
+        return readUtf8(buffer, entryOffsets, nameIndex);
+    }
+
+    private static String readUtf8(byte[] buffer, int[] entryOffsets, int utf8Index) {
+        final int offset = entryOffsets[utf8Index];
+        final int length = readUnsignedShort(buffer, offset + 1);
+        return new String(buffer, offset + 3, length, UTF_8);
+    }
+
+    private static int getEntrySize(byte[] buffer, int offset, int tag) {
+        switch (tag) {
+            case CONSTANT_Utf8:
+                return 3 + readUnsignedShort(buffer, offset + 1);
+            case CONSTANT_Class:
+            case CONSTANT_String:
+            case CONSTANT_MethodType:
+            case CONSTANT_Module:
+            case CONSTANT_Package:
+                return 3;
+            case CONSTANT_MethodHandle:
+                return 4;
+            case CONSTANT_Integer:
+            case CONSTANT_Float:
+            case CONSTANT_Fieldref:
+            case CONSTANT_Methodref:
+            case CONSTANT_InterfaceMethodref:
+            case CONSTANT_NameAndType:
+            case CONSTANT_Dynamic:
+            case CONSTANT_InvokeDynamic:
+                return 5;
+            case CONSTANT_Long:
+            case CONSTANT_Double:
+                return 9;
+            default:
+                throw new IllegalArgumentException("unknown constant pool tag:" + tag);
+        }
+    }
+
+    private static boolean isClassFile(byte[] buffer) {
+        return buffer.length > CONSTANT_POOL_OFFSET && readInt(buffer, 0) == MAGIC;
+    }
+
+    private static int readUnsignedShort(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 8) | (buffer[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16)
+                | ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+    }
+}
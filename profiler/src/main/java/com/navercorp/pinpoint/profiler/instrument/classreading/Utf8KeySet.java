@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.classreading;
+
+import java.nio.charset.Charset;
+import java.util.Collection;
+
+/**
+ * Set of constant pool strings that can be looked up directly against the Utf8 entries of a class file,
+ * without decoding them into Strings.
+ */
+public class Utf8KeySet {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[][] EMPTY = new byte[0][];
+
+    // keys grouped by their encoded length
+    private final byte[][][] keysByLength;
+    private final int size;
+
+    public Utf8KeySet(Collection<String> keys) {
+        if (keys == null) {
+            throw new NullPointerException("keys must not be null");
+        }
+        int maxLength = 0;
+        for (String key : keys) {
+            maxLength = Math.max(maxLength, key.getBytes(UTF_8).length);
+        }
+        final byte[][][] keysByLength = new byte[maxLength + 1][][];
+        int size = 0;
+        for (String key : keys) {
+            final byte[] encoded = key.getBytes(UTF_8);
+            final byte[][] sameLength = keysByLength[encoded.length] == null ? EMPTY : keysByLength[encoded.length];
+            if (indexOf(sameLength, encoded, 0, encoded.length) != -1) {
+                continue;
+            }
+            final byte[][] newSameLength = new byte[sameLength.length + 1][];
+            System.arraycopy(sameLength, 0, newSameLength, 0, sameLength.length);
+            newSameLength[sameLength.length] = encoded;
+            keysByLength[encoded.length] = newSameLength;
+            size++;
+        }
+        this.keysByLength = keysByLength;
+        this.size = size;
+    }
+
+    public boolean contains(byte[] buffer, int offset, int length) {
+        if (length >= keysByLength.length) {
+            return false;
+        }
+        final byte[][] sameLength = keysByLength[length];
+        if (sameLength == null) {
+            return false;
+        }
+        return indexOf(sameLength, buffer, offset, length) != -1;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int indexOf(byte[][] keys, byte[] buffer, int offset, int length) {
+        for (int i = 0; i < keys.length; i++) {
+            if (equals(keys[i], buffer, offset, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean equals(byte[] key, byte[] buffer, int offset, int length) {
+        // class names share their prefixes, so compare from the end
+        for (int i = length - 1; i >= 0; i--) {
+            if (key[i] != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.instrument.interceptor;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClass;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentMethod;
+import com.navercorp.pinpoint.bootstrap.interceptor.Interceptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.InterceptorInvokerHelper;
+import com.navercorp.pinpoint.bootstrap.interceptor.registry.InterceptorRegistry;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+/**
+ * Bytecode counterpart of {@link InvokeBeforeCodeGenerator} and {@link InvokeAfterCodeGenerator}.
+ * Emits the interceptor invocation directly as instructions instead of compiling a source snippet.
+ */
+public class ASMInvokeCodeGenerator extends InvokeCodeGenerator {
+
+    private static final int THIS_RETURN_EXCEPTION_SIZE = 3;
+
+    private static final String INTERCEPTOR_REGISTRY = Type.getInternalName(InterceptorRegistry.class);
+    private static final String GET_INTERCEPTOR_DESC = Type.getMethodDescriptor(Type.getType(Interceptor.class), Type.INT_TYPE);
+    private static final String INTERCEPTOR_INVOKER_HELPER = Type.getInternalName(InterceptorInvokerHelper.class);
+    private static final String HANDLE_EXCEPTION_DESC = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Throwable.class));
+    private static final String THROWABLE = Type.getInternalName(Throwable.class);
+    private static final String OBJECT = Type.getInternalName(Object.class);
+
+    private final InstrumentClass targetClass;
+    private final MethodNode methodNode;
+    private final Type[] argumentTypes;
+
+    public ASMInvokeCodeGenerator(int interceptorId, InterceptorDefinition interceptorDefinition, InstrumentClass targetClass, InstrumentMethod targetMethod, TraceContext traceContext, MethodNode methodNode) {
+        super(interceptorId, interceptorDefinition, targetMethod, traceContext);
+        if (methodNode == null) {
+            throw new NullPointerException("methodNode must not be null");
+        }
+        this.targetClass = targetClass;
+        this.methodNode = methodNode;
+        this.argumentTypes = Type.getArgumentTypes(methodNode.desc);
+    }
+
+    /**
+     * try {
+     *     interceptor = InterceptorRegistry.getInterceptor(id);
+     *     ((INTERCEPTOR_TYPE)interceptor).before(ARGUMENTS);
+     * } catch (Throwable t) {
+     *     InterceptorInvokerHelper.handleException(t);
+     * }
+     */
+    public InsnList generateBefore(int interceptorVar) {
+        final InsnList code = new InsnList();
+        final LabelNode tryStart = new LabelNode();
+        final LabelNode tryEnd = new LabelNode();
+        code.add(tryStart);
+
+        loadInterceptor(code, interceptorVar);
+
+        final Method beforeMethod = interceptorDefinition.getBeforeMethod();
+        if (beforeMethod != null) {
+            code.add(new VarInsnNode(Opcodes.ALOAD, interceptorVar));
+            code.add(new TypeInsnNode(Opcodes.CHECKCAST, getInterceptorBaseType()));
+            appendBeforeArguments(code);
+            invokeInterceptor(code, beforeMethod);
+        }
+
+        code.add(tryEnd);
+        appendHandleException(code, tryStart, tryEnd);
+        return code;
+    }
+
+    /**
+     * try {
+     *     ((INTERCEPTOR_TYPE)interceptor).after(ARGUMENTS, result, throwable);
+     * } catch (Throwable t) {
+     *     InterceptorInvokerHelper.handleException(t);
+     * }
+     *
+     * @param returnValueVar -1 if there is no return value
+     * @param throwableVar -1 if the method returned normally
+     */
+    public InsnList generateAfter(int interceptorVar, boolean localVarsInitialized, int returnValueVar, int throwableVar) {
+        final InsnList code = new InsnList();
+        final LabelNode tryStart = new LabelNode();
+        final LabelNode tryEnd = new LabelNode();
+        code.add(tryStart);
+
+        if (!localVarsInitialized) {
+            loadInterceptor(code, interceptorVar);
+        }
+
+        final Method afterMethod = interceptorDefinition.getAfterMethod();
+        if (afterMethod != null) {
+            code.add(new VarInsnNode(Opcodes.ALOAD, interceptorVar));
+            code.add(new TypeInsnNode(Opcodes.CHECKCAST, getInterceptorBaseType()));
+            appendAfterArguments(code, returnValueVar, throwableVar);
+            invokeInterceptor(code, afterMethod);
+        }
+
+        code.add(tryEnd);
+        appendHandleException(code, tryStart, tryEnd);
+        return code;
+    }
+
+    private void loadInterceptor(InsnList code, int interceptorVar) {
+        pushInt(code, interceptorId);
+        code.add(new MethodInsnNode(Opcodes.INVOKESTATIC, INTERCEPTOR_REGISTRY, "getInterceptor", GET_INTERCEPTOR_DESC, false));
+        code.add(new VarInsnNode(Opcodes.ASTORE, interceptorVar));
+    }
+
+    private void invokeInterceptor(InsnList code, Method interceptorMethod) {
+        final Class<? extends Interceptor> interceptorBaseClass = interceptorDefinition.getInterceptorBaseClass();
+        final boolean isInterface = interceptorBaseClass.isInterface();
+        final int opcode = isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL;
+        code.add(new MethodInsnNode(opcode, getInterceptorBaseType(), interceptorMethod.getName(), Type.getMethodDescriptor(interceptorMethod), isInterface));
+    }
+
+    private void appendHandleException(InsnList code, LabelNode tryStart, LabelNode tryEnd) {
+        final LabelNode handler = new LabelNode();
+        final LabelNode end = new LabelNode();
+        code.add(new JumpInsnNode(Opcodes.GOTO, end));
+        code.add(handler);
+        code.add(new MethodInsnNode(Opcodes.INVOKESTATIC, INTERCEPTOR_INVOKER_HELPER, "handleException", HANDLE_EXCEPTION_DESC, false));
+        code.add(end);
+        // innermost handler. must precede the handlers of the original code.
+        methodNode.tryCatchBlocks.add(0, new TryCatchBlockNode(tryStart, tryEnd, handler, THROWABLE));
+    }
+
+    private String getInterceptorBaseType() {
+        return Type.getInternalName(interceptorDefinition.getInterceptorBaseClass());
+    }
+
+    private void appendBeforeArguments(InsnList code) {
+        final InterceptorType type = interceptorDefinition.getInterceptorType();
+        switch (type) {
+        case ARRAY_ARGS:
+            loadTarget(code);
+            loadArgumentArray(code);
+            break;
+        case STATIC:
+            loadTarget(code);
+            appendStaticArguments(code);
+            loadArgumentArray(code);
+            break;
+        case API_ID_AWARE:
+            loadTarget(code);
+            pushInt(code, getApiId());
+            loadArgumentArray(code);
+            break;
+        case BASIC:
+            appendCustomBeforeArguments(code);
+            break;
+        }
+    }
+
+    private void appendAfterArguments(InsnList code, int returnValueVar, int throwableVar) {
+        final InterceptorType type = interceptorDefinition.getInterceptorType();
+        switch (type) {
+        case ARRAY_ARGS:
+            loadTarget(code);
+            loadArgumentArray(code);
+            loadReturnValue(code, returnValueVar);
+            loadThrowable(code, throwableVar);
+            break;
+        case STATIC:
+            loadTarget(code);
+            appendStaticArguments(code);
+            loadArgumentArray(code);
+            loadReturnValue(code, returnValueVar);
+            loadThrowable(code, throwableVar);
+            break;
+        case API_ID_AWARE:
+            loadTarget(code);
+            pushInt(code, getApiId());
+            loadArgumentArray(code);
+            loadReturnValue(code, returnValueVar);
+            loadThrowable(code, throwableVar);
+            break;
+        case BASIC:
+            appendCustomAfterArguments(code, returnValueVar, throwableVar);
+            break;
+        }
+    }
+
+    private void appendStaticArguments(InsnList code) {
+        code.add(new LdcInsnNode(targetClass.getName()));
+        code.add(new LdcInsnNode(targetMethod.getName()));
+        code.add(new LdcInsnNode(getParameterTypes()));
+    }
+
+    private void appendCustomBeforeArguments(InsnList code) {
+        final Method interceptorMethod = interceptorDefinition.getBeforeMethod();
+        final Class<?>[] paramTypes = interceptorMethod.getParameterTypes();
+        if (paramTypes.length == 0) {
+            return;
+        }
+
+        loadTarget(code);
+
+        final int interceptorArgNum = paramTypes.length - 1;
+        final int matchNum = Math.min(argumentTypes.length, interceptorArgNum);
+        int i = 0;
+        for (; i < matchNum; i++) {
+            loadArgument(code, i);
+        }
+        for (; i < interceptorArgNum; i++) {
+            code.add(new InsnNode(Opcodes.ACONST_NULL));
+        }
+    }
+
+    private void appendCustomAfterArguments(InsnList code, int returnValueVar, int throwableVar) {
+        final Method interceptorMethod = interceptorDefinition.getAfterMethod();
+        final Class<?>[] interceptorParamTypes = interceptorMethod.getParameterTypes();
+        if (interceptorParamTypes.length == 0) {
+            return;
+        }
+
+        loadTarget(code);
+
+        final int interceptorArgNum = interceptorParamTypes.length - THIS_RETURN_EXCEPTION_SIZE;
+        if (interceptorArgNum < 0) {
+            throw new IllegalStateException("interceptor arguments not matched. interceptorSize:" + interceptorParamTypes.length);
+        }
+        final int matchNum = Math.min(argumentTypes.length, interceptorArgNum);
+        int i = 0;
+        for (; i < matchNum; i++) {
+            loadArgument(code, i);
+        }
+        for (; i < interceptorArgNum; i++) {
+            code.add(new InsnNode(Opcodes.ACONST_NULL));
+        }
+
+        loadReturnValue(code, returnValueVar);
+        loadThrowable(code, throwableVar);
+    }
+
+    private void loadTarget(InsnList code) {
+        if (Modifier.isStatic(methodNode.access)) {
+            code.add(new InsnNode(Opcodes.ACONST_NULL));
+        } else {
+            code.add(new VarInsnNode(Opcodes.ALOAD, 0));
+        }
+    }
+
+    private void loadArgumentArray(InsnList code) {
+        if (argumentTypes.length == 0) {
+            code.add(new InsnNode(Opcodes.ACONST_NULL));
+            return;
+        }
+        pushInt(code, argumentTypes.length);
+        code.add(new TypeInsnNode(Opcodes.ANEWARRAY, OBJECT));
+        for (int i = 0; i < argumentTypes.length; i++) {
+            code.add(new InsnNode(Opcodes.DUP));
+            pushInt(code, i);
+            loadArgument(code, i);
+            code.add(new InsnNode(Opcodes.AASTORE));
+        }
+    }
+
+    private void loadArgument(InsnList code, int argumentIndex) {
+        int slot = Modifier.isStatic(methodNode.access) ? 0 : 1;
+        for (int i = 0; i < argumentIndex; i++) {
+            slot += argumentTypes[i].getSize();
+        }
+        final Type argumentType = argumentTypes[argumentIndex];
+        code.add(new VarInsnNode(argumentType.getOpcode(Opcodes.ILOAD), slot));
+        box(code, argumentType);
+    }
+
+    private void loadReturnValue(InsnList code, int returnValueVar) {
+        if (returnValueVar == -1) {
+            code.add(new InsnNode(Opcodes.ACONST_NULL));
+            return;
+        }
+        final Type returnType = Type.getReturnType(methodNode.desc);
+        code.add(new VarInsnNode(returnType.getOpcode(Opcodes.ILOAD), returnValueVar));
+        box(code, returnType);
+    }
+
+    private void loadThrowable(InsnList code, int throwableVar) {
+        if (throwableVar == -1) {
+            code.add(new InsnNode(Opcodes.ACONST_NULL));
+        } else {
+            code.add(new VarInsnNode(Opcodes.ALOAD, throwableVar));
+        }
+    }
+
+    private static void box(InsnList code, Type type) {
+        switch (type.getSort()) {
+        case Type.BOOLEAN:
+            valueOf(code, "java/lang/Boolean", type);
+            break;
+        case Type.CHAR:
+            valueOf(code, "java/lang/Character", type);
+            break;
+        case Type.BYTE:
+            valueOf(code, "java/lang/Byte", type);
+            break;
+        case Type.SHORT:
+            valueOf(code, "java/lang/Short", type);
+            break;
+        case Type.INT:
+            valueOf(code, "java/lang/Integer", type);
+            break;
+        case Type.FLOAT:
+            valueOf(code, "java/lang/Float", type);
+            break;
+        case Type.LONG:
+            valueOf(code, "java/lang/Long", type);
+            break;
+        case Type.DOUBLE:
+            valueOf(code, "java/lang/Double", type);
+            break;
+        default:
+            // reference type
+            break;
+        }
+    }
+
+    private static void valueOf(InsnList code, String boxType, Type primitiveType) {
+        final String desc = "(" + primitiveType.getDescriptor() + ")L" + boxType + ";";
+        code.add(new MethodInsnNode(Opcodes.INVOKESTATIC, boxType, "valueOf", desc, false));
+    }
+
+    private static void pushInt(InsnList code, int value) {
+        if (value >= -1 && value <= 5) {
+            code.add(new InsnNode(Opcodes.ICONST_0 + value));
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.add(new IntInsnNode(Opcodes.BIPUSH, value));
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.add(new IntInsnNode(Opcodes.SIPUSH, value));
+        } else {
+            code.add(new LdcInsnNode(value));
+        }
+    }
+}
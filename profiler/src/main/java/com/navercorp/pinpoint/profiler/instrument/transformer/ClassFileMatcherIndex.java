@@ -0,0 +1,325 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.AnnotationMatcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.InterfaceMatcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.Matcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.PackageMatcher;
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.SuperClassMatcher;
+import com.navercorp.pinpoint.profiler.instrument.classreading.ClassFileMetadata;
+import com.navercorp.pinpoint.profiler.instrument.classreading.ClassFileReader;
+import com.navercorp.pinpoint.profiler.instrument.classreading.Utf8KeySet;
+import com.navercorp.pinpoint.profiler.util.JavaAssistUtils;
+import com.navercorp.pinpoint.profiler.util.Maps;
+
+/**
+ * Finds transformers whose matcher is not a class name, from the raw class file.
+ * A class that declares a matched interface, super class or annotation itself must have its name in the constant pool,
+ * so every other class is rejected by a single allocation free scan of the constant pool.
+ * Only hierarchy matchers have to read the class header, and the class files of its super types through the class loader.
+ * The super types read are cached per class loader, so common base classes are read once instead of once per sub class.
+ * <p>
+ * Package matchers are checked first because they need nothing but the class name, then the other matchers in registration order.
+ */
+public class ClassFileMatcherIndex {
+
+    private static final String OBJECT_CLASS_NAME = "java/lang/Object";
+    private static final int MAX_HIERARCHY_LOOKUP = 64;
+    static final int MAX_CACHED_SUPER_TYPE_PER_CLASS_LOADER = 4096;
+
+    private static final ClassFileMetadata NOT_FOUND = new ClassFileMetadata(0, "", null, Collections.<String>emptyList(), Collections.<String>emptyList());
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    // No concurrent issue for the same reason as DefaultTransformerRegistry.
+    private final List<PackageEntry> packageEntries = new ArrayList<PackageEntry>();
+    private final List<Entry> entries = new ArrayList<Entry>();
+    private final Set<String> prefilterKeys = new HashSet<String>();
+    private Utf8KeySet prefilter = new Utf8KeySet(prefilterKeys);
+    private boolean hasHierarchyEntry = false;
+
+    // weak keys, the cache must not keep the class loaders of undeployed applications alive
+    private final ConcurrentMap<ClassLoader, ConcurrentMap<String, ClassFileMetadata>> superTypeCache = Maps.newWeakConcurrentMap();
+    private final ConcurrentMap<String, ClassFileMetadata> bootstrapSuperTypeCache = new ConcurrentHashMap<String, ClassFileMetadata>();
+
+    public boolean isSupported(Matcher matcher) {
+        return matcher instanceof InterfaceMatcher || matcher instanceof SuperClassMatcher
+                || matcher instanceof AnnotationMatcher || matcher instanceof PackageMatcher;
+    }
+
+    public void addTransformer(Matcher matcher, ClassFileTransformer transformer) {
+        if (matcher == null) {
+            throw new NullPointerException("matcher must not be null");
+        }
+        if (transformer == null) {
+            throw new NullPointerException("transformer must not be null");
+        }
+        if (matcher instanceof PackageMatcher) {
+            final String packageName = JavaAssistUtils.javaNameToJvmName(((PackageMatcher) matcher).getPackageName());
+            packageEntries.add(new PackageEntry(packageName + '/', transformer));
+            return;
+        }
+
+        final Entry entry;
+        if (matcher instanceof InterfaceMatcher) {
+            final InterfaceMatcher interfaceMatcher = (InterfaceMatcher) matcher;
+            final String interfaceName = JavaAssistUtils.javaNameToJvmName(interfaceMatcher.getInterfaceName());
+            entry = new SuperTypeEntry(interfaceName, true, interfaceMatcher.isConsiderHierarchy(), transformer);
+            prefilterKeys.add(interfaceName);
+        } else if (matcher instanceof SuperClassMatcher) {
+            final SuperClassMatcher superClassMatcher = (SuperClassMatcher) matcher;
+            final String superClassName = JavaAssistUtils.javaNameToJvmName(superClassMatcher.getSuperClassName());
+            entry = new SuperTypeEntry(superClassName, false, superClassMatcher.isConsiderHierarchy(), transformer);
+            prefilterKeys.add(superClassName);
+        } else if (matcher instanceof AnnotationMatcher) {
+            final String annotationName = JavaAssistUtils.javaNameToJvmName(((AnnotationMatcher) matcher).getAnnotationName());
+            entry = new AnnotationEntry(annotationName, transformer);
+            // annotations are referenced by their descriptor
+            prefilterKeys.add('L' + annotationName + ';');
+        } else {
+            throw new IllegalArgumentException("unsupported matcher :" + matcher);
+        }
+        entries.add(entry);
+        hasHierarchyEntry |= entry.considerHierarchy;
+        prefilter = new Utf8KeySet(prefilterKeys);
+    }
+
+    public boolean isEmpty() {
+        return packageEntries.isEmpty() && entries.isEmpty();
+    }
+
+    public ClassFileTransformer findTransformer(ClassLoader classLoader, String jvmClassName, byte[] classFileBuffer) {
+        for (PackageEntry packageEntry : packageEntries) {
+            if (jvmClassName.startsWith(packageEntry.packagePrefix)) {
+                return packageEntry.transformer;
+            }
+        }
+        if (entries.isEmpty() || classFileBuffer == null) {
+            return null;
+        }
+
+        final boolean candidate = ClassFileReader.containsUtf8(classFileBuffer, prefilter);
+        if (!candidate && !hasHierarchyEntry) {
+            return null;
+        }
+
+        final ClassFileMetadata metadata = readMetadata(classFileBuffer);
+        if (metadata == null) {
+            return null;
+        }
+        for (Entry entry : entries) {
+            if (!candidate && !entry.considerHierarchy) {
+                continue;
+            }
+            if (entry.matches(classLoader, metadata)) {
+                return entry.transformer;
+            }
+        }
+        return null;
+    }
+
+    private ClassFileMetadata readMetadata(byte[] classFileBuffer) {
+        try {
+            return ClassFileReader.readMetadata(classFileBuffer);
+        } catch (IllegalArgumentException e) {
+            logger.debug("class file read fail. Caused:{}", e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean hierarchyContains(ClassLoader classLoader, ClassFileMetadata metadata, String targetName, boolean followInterfaces) {
+        final LinkedList<String> superTypes = new LinkedList<String>();
+        final Set<String> visited = new HashSet<String>();
+        addSuperTypes(superTypes, metadata, followInterfaces);
+        while (!superTypes.isEmpty() && visited.size() < MAX_HIERARCHY_LOOKUP) {
+            final String superType = superTypes.removeFirst();
+            if (!visited.add(superType)) {
+                continue;
+            }
+            if (superType.equals(targetName)) {
+                return true;
+            }
+            if (OBJECT_CLASS_NAME.equals(superType)) {
+                continue;
+            }
+            final ClassFileMetadata superTypeMetadata = getSuperTypeMetadata(classLoader, superType);
+            if (superTypeMetadata != null) {
+                addSuperTypes(superTypes, superTypeMetadata, followInterfaces);
+            }
+        }
+        return false;
+    }
+
+    private void addSuperTypes(List<String> superTypes, ClassFileMetadata metadata, boolean followInterfaces) {
+        if (metadata.getSuperClassName() != null) {
+            superTypes.add(metadata.getSuperClassName());
+        }
+        if (followInterfaces) {
+            superTypes.addAll(metadata.getInterfaceNames());
+        }
+    }
+
+    private ClassFileMetadata getSuperTypeMetadata(ClassLoader classLoader, String jvmClassName) {
+        final ConcurrentMap<String, ClassFileMetadata> cache = getSuperTypeCache(classLoader);
+        final ClassFileMetadata cached = cache.get(jvmClassName);
+        if (cached != null) {
+            return cached == NOT_FOUND ? null : cached;
+        }
+        final ClassFileMetadata metadata = readClassFile(classLoader, jvmClassName);
+        // stop caching rather than evicting, the super types shared by many classes are read first
+        if (cache.size() < MAX_CACHED_SUPER_TYPE_PER_CLASS_LOADER) {
+            cache.put(jvmClassName, metadata == null ? NOT_FOUND : metadata);
+        }
+        return metadata;
+    }
+
+    private ConcurrentMap<String, ClassFileMetadata> getSuperTypeCache(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return bootstrapSuperTypeCache;
+        }
+        ConcurrentMap<String, ClassFileMetadata> cache = superTypeCache.get(classLoader);
+        if (cache == null) {
+            final ConcurrentMap<String, ClassFileMetadata> newCache = new ConcurrentHashMap<String, ClassFileMetadata>();
+            final ConcurrentMap<String, ClassFileMetadata> old = superTypeCache.putIfAbsent(classLoader, newCache);
+            cache = old == null ? newCache : old;
+        }
+        return cache;
+    }
+
+    private ClassFileMetadata readClassFile(ClassLoader classLoader, String jvmClassName) {
+        final String resourceName = jvmClassName + ".class";
+        final InputStream inputStream = classLoader == null ? ClassLoader.getSystemResourceAsStream(resourceName) : classLoader.getResourceAsStream(resourceName);
+        if (inputStream == null) {
+            return null;
+        }
+        try {
+            return readMetadata(readFully(inputStream));
+        } catch (IOException e) {
+            logger.debug("class file read fail. className:{} Caused:{}", jvmClassName, e.getMessage());
+            return null;
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException ignore) {
+                // skip
+            }
+        }
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[Math.max(inputStream.available(), 1024)];
+        int length = 0;
+        while (true) {
+            final int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+            if (length == buffer.length) {
+                final byte[] newBuffer = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, newBuffer, 0, length);
+                buffer = newBuffer;
+            }
+        }
+        final byte[] classFile = new byte[length];
+        System.arraycopy(buffer, 0, classFile, 0, length);
+        return classFile;
+    }
+
+    private static class PackageEntry {
+        private final String packagePrefix;
+        private final ClassFileTransformer transformer;
+
+        private PackageEntry(String packagePrefix, ClassFileTransformer transformer) {
+            this.packagePrefix = packagePrefix;
+            this.transformer = transformer;
+        }
+    }
+
+    private abstract static class Entry {
+        protected final boolean considerHierarchy;
+        protected final ClassFileTransformer transformer;
+
+        protected Entry(boolean considerHierarchy, ClassFileTransformer transformer) {
+            this.considerHierarchy = considerHierarchy;
+            this.transformer = transformer;
+        }
+
+        abstract boolean matches(ClassLoader classLoader, ClassFileMetadata metadata);
+    }
+
+    private class SuperTypeEntry extends Entry {
+        private final String superTypeName;
+        private final boolean interfaceType;
+
+        private SuperTypeEntry(String superTypeName, boolean interfaceType, boolean considerHierarchy, ClassFileTransformer transformer) {
+            super(considerHierarchy, transformer);
+            this.superTypeName = superTypeName;
+            this.interfaceType = interfaceType;
+        }
+
+        @Override
+        boolean matches(ClassLoader classLoader, ClassFileMetadata metadata) {
+            if (metadata.isInterface()) {
+                // only classes implement or extend, sub interfaces have nothing to transform
+                return false;
+            }
+            if (interfaceType) {
+                if (metadata.getInterfaceNames().contains(superTypeName)) {
+                    return true;
+                }
+            } else if (superTypeName.equals(metadata.getSuperClassName())) {
+                return true;
+            }
+            if (!considerHierarchy) {
+                return false;
+            }
+            return hierarchyContains(classLoader, metadata, superTypeName, interfaceType);
+        }
+    }
+
+    private static class AnnotationEntry extends Entry {
+        private final String annotationName;
+
+        private AnnotationEntry(String annotationName, ClassFileTransformer transformer) {
+            super(false, transformer);
+            this.annotationName = annotationName;
+        }
+
+        @Override
+        boolean matches(ClassLoader classLoader, ClassFileMetadata metadata) {
+            return metadata.getAnnotationNames().contains(annotationName);
+        }
+    }
+}
@@ -39,9 +39,18 @@ public class DefaultTransformerRegistry implements TransformerRegistry {
     // Set the map size big intentionally to keep hash collision low.
     private final Map<String, ClassFileTransformer> registry = new HashMap<String, ClassFileTransformer>(512);
 
+    private final ClassFileMatcherIndex matcherIndex = new ClassFileMatcherIndex();
+
     @Override
-    public ClassFileTransformer findTransformer(String className) {
-        return registry.get(className);
+    public ClassFileTransformer findTransformer(ClassLoader classLoader, String className, byte[] classFileBuffer) {
+        final ClassFileTransformer transformer = registry.get(className);
+        if (transformer != null) {
+            return transformer;
+        }
+        if (matcherIndex.isEmpty()) {
+            return null;
+        }
+        return matcherIndex.findTransformer(classLoader, className, classFileBuffer);
     }
     
     public void addTransformer(Matcher matcher, ClassFileTransformer transformer) {
@@ -56,6 +65,8 @@ public class DefaultTransformerRegistry implements TransformerRegistry {
             for (String className : classNameList) {
                 addModifier0(transformer, className);
             }
+        } else if (matcherIndex.isSupported(matcher)) {
+            matcherIndex.addTransformer(matcher, transformer);
         } else {
             throw new IllegalArgumentException("unsupported matcher :" + matcher);
         }
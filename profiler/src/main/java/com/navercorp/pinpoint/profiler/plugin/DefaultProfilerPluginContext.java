@@ -89,7 +89,7 @@ public class DefaultProfilerPluginContext implements ProfilerPluginSetupContext,
             throw new NullPointerException("className must not be null");
         }
         try {
-            return agent.getClassPool().getClass(this, classLoader, className, classFileBuffer);
+            return agent.getInstrumentClassPool().getClass(this, classLoader, className, classFileBuffer);
         } catch (NotFoundInstrumentException e) {
             return null;
         }
@@ -101,7 +101,7 @@ public class DefaultProfilerPluginContext implements ProfilerPluginSetupContext,
             throw new NullPointerException("className must not be null");
         }
 
-        return agent.getClassPool().hasClass(classLoader, className);
+        return agent.getInstrumentClassPool().hasClass(classLoader, className);
     }
 
     @Override
@@ -117,6 +117,19 @@ public class DefaultProfilerPluginContext implements ProfilerPluginSetupContext,
         final MatchableClassFileTransformerGuardDelegate guard = new MatchableClassFileTransformerGuardDelegate(this, matcher, transformCallback);
         classTransformers.add(guard);
     }
+
+    @Override
+    public void addClassFileTransformer(Matcher matcher, TransformCallback transformCallback) {
+        if (matcher == null) {
+            throw new NullPointerException("matcher must not be null");
+        }
+        if (transformCallback == null) {
+            throw new NullPointerException("transformCallback must not be null");
+        }
+
+        final MatchableClassFileTransformerGuardDelegate guard = new MatchableClassFileTransformerGuardDelegate(this, matcher, transformCallback);
+        classTransformers.add(guard);
+    }
     
     @Override
     public void addClassFileTransformer(ClassLoader classLoader, String targetClassName, final TransformCallback transformCallback) {
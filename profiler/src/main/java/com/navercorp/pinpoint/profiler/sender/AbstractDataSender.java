@@ -22,6 +22,7 @@ import org.apache.thrift.TBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.navercorp.pinpoint.profiler.context.Recyclable;
 import com.navercorp.pinpoint.rpc.FutureListener;
 import com.navercorp.pinpoint.rpc.ResponseMessage;
 import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializer;
@@ -56,7 +57,14 @@ public abstract class AbstractDataSender implements DataSender {
     }
 
     protected AsyncQueueingExecutor<Object> createAsyncQueueingExecutor(int queueSize, String executorName) {
-        final AsyncQueueingExecutor<Object> executor = new AsyncQueueingExecutor<Object>(queueSize, executorName);
+        return createAsyncQueueingExecutor(AsyncQueueingExecutorFactory.DEFAULT, queueSize, executorName);
+    }
+
+    protected AsyncQueueingExecutor<Object> createAsyncQueueingExecutor(AsyncQueueingExecutorFactory executorFactory, int queueSize, String executorName) {
+        if (executorFactory == null) {
+            throw new NullPointerException("executorFactory must not be null");
+        }
+        final AsyncQueueingExecutor<Object> executor = executorFactory.create(queueSize, executorName);
         executor.setListener(new AsyncQueueingExecutorListener<Object>() {
             @Override
             public void execute(Collection<Object> messageList) {
@@ -71,6 +79,15 @@ public abstract class AbstractDataSender implements DataSender {
         return executor;
     }
 
+    /**
+     * Returns pooled trace data once it is serialized. see {@link Recyclable}
+     */
+    protected void recycle(Object message) {
+        if (message instanceof Recyclable) {
+            ((Recyclable) message).recycle();
+        }
+    }
+
     protected byte[] serialize(HeaderTBaseSerializer serializer, TBase tBase) {
         return SerializationUtils.serialize(tBase, serializer, null);
     }
@@ -17,7 +17,6 @@
 package com.navercorp.pinpoint.profiler.sender;
 
 import java.util.Collection;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -26,6 +25,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import com.navercorp.pinpoint.profiler.sender.queue.ExecutorQueue;
+import com.navercorp.pinpoint.profiler.sender.queue.LinkedBlockingExecutorQueue;
 
 /**
  * @author emeroad
@@ -37,7 +38,9 @@ public class AsyncQueueingExecutor<T> implements Runnable {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final boolean isWarn = logger.isWarnEnabled();
 
-    private final LinkedBlockingQueue<T> queue;
+    public static final int DEFAULT_MAX_DRAIN_SIZE = 10;
+
+    private final ExecutorQueue<T> queue;
     private final AtomicBoolean isRun = new AtomicBoolean(true);
     private final Thread executeThread;
     private final String executorName;
@@ -54,13 +57,23 @@ public class AsyncQueueingExecutor<T> implements Runnable {
     }
 
     public AsyncQueueingExecutor(int queueSize, String executorName) {
+        this(new LinkedBlockingExecutorQueue<T>(queueSize), DEFAULT_MAX_DRAIN_SIZE, executorName);
+    }
+
+    public AsyncQueueingExecutor(ExecutorQueue<T> queue, int maxDrainSize, String executorName) {
+        if (queue == null) {
+            throw new NullPointerException("queue must not be null");
+        }
+        if (maxDrainSize <= 0) {
+            throw new IllegalArgumentException("maxDrainSize must be positive");
+        }
         if (executorName == null) {
             throw new NullPointerException("executorName must not be null");
         }
         // BEFORE executeThread start
-        this.maxDrainSize = 10;
+        this.maxDrainSize = maxDrainSize;
         this.drain = new UnsafeArrayCollection<T>(maxDrainSize);
-        this.queue = new LinkedBlockingQueue<T>(queueSize);
+        this.queue = queue;
 
         this.executeThread = this.createExecuteThread(executorName);
         this.executorName = executeThread.getName();
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import com.navercorp.pinpoint.profiler.sender.queue.ExecutorQueue;
+import com.navercorp.pinpoint.profiler.sender.queue.ExecutorQueueType;
+import com.navercorp.pinpoint.profiler.sender.queue.LinkedBlockingExecutorQueue;
+import com.navercorp.pinpoint.profiler.sender.queue.MpscRingBufferQueue;
+import com.navercorp.pinpoint.profiler.sender.queue.WaitStrategyType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class AsyncQueueingExecutorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncQueueingExecutorFactory.class);
+
+    public static final AsyncQueueingExecutorFactory DEFAULT = new AsyncQueueingExecutorFactory(ExecutorQueueType.BLOCKING, WaitStrategyType.BLOCKING, AsyncQueueingExecutor.DEFAULT_MAX_DRAIN_SIZE);
+
+    private final ExecutorQueueType queueType;
+    private final WaitStrategyType waitStrategyType;
+    private final int maxDrainSize;
+
+    public AsyncQueueingExecutorFactory(String queueTypeName, String waitStrategyTypeName, int maxDrainSize) {
+        this(parseQueueType(queueTypeName), parseWaitStrategyType(waitStrategyTypeName), maxDrainSize);
+    }
+
+    static ExecutorQueueType parseQueueType(String queueTypeName) {
+        if (queueTypeName != null) {
+            final String normalized = queueTypeName.trim().toUpperCase();
+            for (ExecutorQueueType queueType : ExecutorQueueType.values()) {
+                if (queueType.name().equals(normalized)) {
+                    return queueType;
+                }
+            }
+        }
+        logger.warn("unknown executor queue type:{}. use {}", queueTypeName, ExecutorQueueType.BLOCKING);
+        return ExecutorQueueType.BLOCKING;
+    }
+
+    static WaitStrategyType parseWaitStrategyType(String waitStrategyTypeName) {
+        if (waitStrategyTypeName != null) {
+            final String normalized = waitStrategyTypeName.trim().toUpperCase();
+            for (WaitStrategyType waitStrategyType : WaitStrategyType.values()) {
+                if (waitStrategyType.name().equals(normalized)) {
+                    return waitStrategyType;
+                }
+            }
+        }
+        logger.warn("unknown executor wait strategy:{}. use {}", waitStrategyTypeName, WaitStrategyType.BLOCKING);
+        return WaitStrategyType.BLOCKING;
+    }
+
+    public AsyncQueueingExecutorFactory(ExecutorQueueType queueType, WaitStrategyType waitStrategyType, int maxDrainSize) {
+        if (queueType == null) {
+            throw new NullPointerException("queueType must not be null");
+        }
+        if (waitStrategyType == null) {
+            throw new NullPointerException("waitStrategyType must not be null");
+        }
+        if (maxDrainSize <= 0) {
+            throw new IllegalArgumentException("maxDrainSize must be positive");
+        }
+        this.queueType = queueType;
+        this.waitStrategyType = waitStrategyType;
+        this.maxDrainSize = maxDrainSize;
+    }
+
+    public <T> AsyncQueueingExecutor<T> create(int queueSize, String executorName) {
+        final ExecutorQueue<T> queue = createQueue(queueSize);
+        return new AsyncQueueingExecutor<T>(queue, maxDrainSize, executorName);
+    }
+
+    private <T> ExecutorQueue<T> createQueue(int queueSize) {
+        if (queueType == ExecutorQueueType.BLOCKING) {
+            return new LinkedBlockingExecutorQueue<T>(queueSize);
+        } else if (queueType == ExecutorQueueType.RINGBUFFER) {
+            final MpscRingBufferQueue<T> queue = new MpscRingBufferQueue<T>(queueSize, waitStrategyType.createWaitStrategy());
+            if (queue.capacity() != queueSize) {
+                logger.info("RINGBUFFER queue size rounded up to a power of two. queueSize:{} capacity:{}", queueSize, queue.capacity());
+            }
+            return queue;
+        } else {
+            throw new IllegalArgumentException("Unknown type.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncQueueingExecutorFactory{" +
+                "queueType=" + queueType +
+                ", waitStrategyType=" + waitStrategyType +
+                ", maxDrainSize=" + maxDrainSize +
+                '}';
+    }
+}
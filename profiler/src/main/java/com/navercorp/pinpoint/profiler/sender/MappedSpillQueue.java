@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Bounded FIFO of serialized messages kept in a memory-mapped file.
+ * Records are written as [length][retryCount][bytes] into a ring, so neither the file nor the heap grows past the capacity.
+ * Contents do not survive a restart. the file is truncated when opened.
+ */
+public class MappedSpillQueue {
+
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final File file;
+    private final int capacity;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+    private final byte[] header = new byte[RECORD_HEADER_SIZE];
+
+    // guarded by this
+    private long readPosition;
+    private long writePosition;
+    private int size;
+    private boolean closed;
+
+    public MappedSpillQueue(File file, int capacity) throws IOException {
+        if (file == null) {
+            throw new NullPointerException("file must not be null");
+        }
+        if (capacity <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("capacity must be greater than " + RECORD_HEADER_SIZE);
+        }
+        this.file = file;
+        this.capacity = capacity;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            this.randomAccessFile.setLength(0);
+            this.randomAccessFile.setLength(capacity);
+            this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            closeFile();
+            throw e;
+        }
+    }
+
+    /**
+     * @return false if there is not enough space left or the queue is closed
+     */
+    public synchronized boolean offer(int retryCount, byte[] bytes) {
+        if (bytes == null) {
+            throw new NullPointerException("bytes must not be null");
+        }
+        if (closed) {
+            return false;
+        }
+        final long recordSize = RECORD_HEADER_SIZE + bytes.length;
+        if (recordSize > capacity - (writePosition - readPosition)) {
+            return false;
+        }
+        writeInt(header, 0, bytes.length);
+        writeInt(header, 4, retryCount);
+        write(writePosition, header, RECORD_HEADER_SIZE);
+        write(writePosition + RECORD_HEADER_SIZE, bytes, bytes.length);
+        writePosition += recordSize;
+        size++;
+        return true;
+    }
+
+    public synchronized RetryMessage poll() {
+        if (closed || size == 0) {
+            return null;
+        }
+        read(readPosition, header, RECORD_HEADER_SIZE);
+        final int length = readInt(header, 0);
+        final int retryCount = readInt(header, 4);
+        final byte[] bytes = new byte[length];
+        read(readPosition + RECORD_HEADER_SIZE, bytes, length);
+
+        size--;
+        if (size == 0) {
+            readPosition = 0;
+            writePosition = 0;
+        } else {
+            readPosition += RECORD_HEADER_SIZE + length;
+        }
+        return new RetryMessage(retryCount, bytes);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void write(long position, byte[] src, int length) {
+        final int index = (int) (position % capacity);
+        final int first = Math.min(length, capacity - index);
+        buffer.position(index);
+        buffer.put(src, 0, first);
+        if (first < length) {
+            buffer.position(0);
+            buffer.put(src, first, length - first);
+        }
+    }
+
+    private void read(long position, byte[] dst, int length) {
+        final int index = (int) (position % capacity);
+        final int first = Math.min(length, capacity - index);
+        buffer.position(index);
+        buffer.get(dst, 0, first);
+        if (first < length) {
+            buffer.position(0);
+            buffer.get(dst, first, length - first);
+        }
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24)
+                | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8)
+                | (bytes[offset + 3] & 0xff);
+    }
+
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (size > 0) {
+            logger.warn("discard spilled messages. file:{} size:{}", file, size);
+        }
+        size = 0;
+        closeFile();
+        // the mapping is released by gc. delete may fail on some platforms until then.
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private void closeFile() {
+        try {
+            randomAccessFile.close();
+        } catch (IOException e) {
+            logger.warn("{} close fail. Caused:{}", file, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedSpillQueue{" +
+                "file=" + file +
+                ", capacity=" + capacity +
+                '}';
+    }
+}
@@ -43,6 +43,10 @@ public class NioUDPDataSender extends AbstractDataSender implements DataSender {
     }
 
     public NioUDPDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, AsyncQueueingExecutorFactory.DEFAULT);
+    }
+
+    public NioUDPDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueingExecutorFactory executorFactory) {
         if (host == null ) {
             throw new NullPointerException("host must not be null");
         }
@@ -58,6 +62,9 @@ public class NioUDPDataSender extends AbstractDataSender implements DataSender {
         if (sendBufferSize <= 0) {
             throw new IllegalArgumentException("sendBufferSize");
         }
+        if (executorFactory == null) {
+            throw new NullPointerException("executorFactory must not be null");
+        }
 
         // TODO If fail to create socket, stop agent start
         logger.info("NioUDPDataSender initialized. host={}, port={}", host, port);
@@ -70,7 +77,7 @@ public class NioUDPDataSender extends AbstractDataSender implements DataSender {
         ByteBuffer byteBuffer = bufferFactory.getBuffer(UDP_MAX_PACKET_LENGTH);
         this.byteBufferOutputStream = new ByteBufferOutputStream(byteBuffer);
 
-        this.executor = createAsyncQueueingExecutor(queueSize, threadName);
+        this.executor = createAsyncQueueingExecutor(executorFactory, queueSize, threadName);
     }
 
     private DatagramChannel createChannel(String host, int port, int timeout, int sendBufferSize) {
@@ -134,28 +141,32 @@ public class NioUDPDataSender extends AbstractDataSender implements DataSender {
         }
 
         if (message instanceof TBase) {
-            byteBufferOutputStream.clear();
-
             final TBase dto = (TBase) message;
-            // do not copy bytes because it's single threaded
-
-            try {
-                serializer.serialize(dto,  byteBufferOutputStream);
-            } catch (TException e) {
-                throw new PinpointSocketException("Serialize " + dto + " failed. Error:" +  e.getMessage(), e);
-            }
-            ByteBuffer byteBuffer = byteBufferOutputStream.getByteBuffer();
-            int bufferSize = byteBuffer.remaining();
             try {
-                datagramChannel.write(byteBuffer);
-            } catch (IOException e) {
-                final Thread currentThread = Thread.currentThread();
-                if (currentThread.isInterrupted()) {
-                    logger.warn("{} thread interrupted.", currentThread.getName());
-                    throw new PinpointSocketException(currentThread.getName() + " thread interrupted.", e);
-                } else {
-                    throw new PinpointSocketException("packet send error. size:" + bufferSize + ", " +  dto, e);
+                byteBufferOutputStream.clear();
+
+                // do not copy bytes because it's single threaded
+
+                try {
+                    serializer.serialize(dto,  byteBufferOutputStream);
+                } catch (TException e) {
+                    throw new PinpointSocketException("Serialize " + dto + " failed. Error:" +  e.getMessage(), e);
+                }
+                ByteBuffer byteBuffer = byteBufferOutputStream.getByteBuffer();
+                int bufferSize = byteBuffer.remaining();
+                try {
+                    datagramChannel.write(byteBuffer);
+                } catch (IOException e) {
+                    final Thread currentThread = Thread.currentThread();
+                    if (currentThread.isInterrupted()) {
+                        logger.warn("{} thread interrupted.", currentThread.getName());
+                        throw new PinpointSocketException(currentThread.getName() + " thread interrupted.", e);
+                    } else {
+                        throw new PinpointSocketException("packet send error. size:" + bufferSize + ", " +  dto, e);
+                    }
                 }
+            } finally {
+                recycle(dto);
             }
         } else {
             logger.warn("sendPacket fail. invalid type:{}", message != null ? message.getClass() : null);
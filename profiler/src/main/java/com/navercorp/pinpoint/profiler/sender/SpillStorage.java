@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Holds the messages TcpDataSender could not deliver while the collector is unreachable or the send queue is full.
+ * Messages are classified by retry count, not by message type. Requests sent with a retry count are kept apart
+ * from the messages sent without response and are always replayed first.
+ * Only the metadata (api, sql, string) is requested with a retry count, agent info is requested with a listener and is never spilled,
+ * so the priority queue holds the metadata, whose loss breaks the display of every trace that refers to it.
+ */
+public class SpillStorage {
+
+    /**
+     * retryCount of a message sent without response.
+     */
+    public static final int SEND_ONLY = -1;
+
+    private final MappedSpillQueue metadataQueue;
+    private final MappedSpillQueue dataQueue;
+    private final int replaySize;
+
+    public SpillStorage(MappedSpillQueue metadataQueue, MappedSpillQueue dataQueue, int replaySize) {
+        if (metadataQueue == null) {
+            throw new NullPointerException("metadataQueue must not be null");
+        }
+        if (dataQueue == null) {
+            throw new NullPointerException("dataQueue must not be null");
+        }
+        if (replaySize <= 0) {
+            throw new IllegalArgumentException("replaySize must be positive");
+        }
+        this.metadataQueue = metadataQueue;
+        this.dataQueue = dataQueue;
+        this.replaySize = replaySize;
+    }
+
+    public static SpillStorage create(String directory, String agentId, int metadataSize, int dataSize, int replaySize) throws IOException {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        final File dir = getSpillDirectory(directory);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("can not create spill directory. " + dir);
+        }
+        final MappedSpillQueue metadataQueue = new MappedSpillQueue(new File(dir, "pinpoint-" + agentId + "-metadata.spill"), metadataSize);
+        final MappedSpillQueue dataQueue;
+        try {
+            dataQueue = new MappedSpillQueue(new File(dir, "pinpoint-" + agentId + "-data.spill"), dataSize);
+        } catch (IOException e) {
+            metadataQueue.close();
+            throw e;
+        }
+        return new SpillStorage(metadataQueue, dataQueue, replaySize);
+    }
+
+    private static File getSpillDirectory(String directory) {
+        if (directory == null || directory.trim().isEmpty()) {
+            return new File(System.getProperty("java.io.tmpdir"));
+        }
+        return new File(directory.trim());
+    }
+
+    /**
+     * @param retryCount retry count of a request, {@link #SEND_ONLY} for a message sent without response.
+     *                   Every other value goes to the priority queue.
+     */
+    public boolean offer(int retryCount, byte[] bytes) {
+        if (retryCount == SEND_ONLY) {
+            return dataQueue.offer(retryCount, bytes);
+        }
+        return metadataQueue.offer(retryCount, bytes);
+    }
+
+    public RetryMessage poll() {
+        final RetryMessage metadata = metadataQueue.poll();
+        if (metadata != null) {
+            return metadata;
+        }
+        return dataQueue.poll();
+    }
+
+    public boolean isEmpty() {
+        return metadataQueue.isEmpty() && dataQueue.isEmpty();
+    }
+
+    public int size() {
+        return metadataQueue.size() + dataQueue.size();
+    }
+
+    /**
+     * Max number of messages replayed at once, so that a recovered connection is not flooded.
+     */
+    public int getReplaySize() {
+        return replaySize;
+    }
+
+    public void close() {
+        metadataQueue.close();
+        dataQueue.close();
+    }
+
+    @Override
+    public String toString() {
+        return "SpillStorage{" +
+                "metadataQueue=" + metadataQueue +
+                ", dataQueue=" + dataQueue +
+                ", replaySize=" + replaySize +
+                '}';
+    }
+}
@@ -68,11 +68,43 @@ public class TcpDataSender extends AbstractDataSender implements EnhancedDataSen
 
     private AsyncQueueingExecutor<Object> executor;
 
+    // null if spill is disabled
+    private final SpillStorage spillStorage;
+    // serializer for messages spilled by application threads
+    private final HeaderTBaseSerializer spillSerializer;
+    private final Object replaySpillMarker = new Object();
+    private final AtomicBoolean replayScheduled = new AtomicBoolean(false);
+    private final Object spillLock = new Object();
+    // set when the send queue overflowed into the spill. cleared when the replay has emptied the spill
+    private volatile boolean spillOverflow = false;
+    // executor thread only. set when a message taken from the send queue was spilled
+    private boolean spillOutage = false;
+
     public TcpDataSender(PinpointClient client) {
+        this(client, null);
+    }
+
+    /**
+     * @param spillStorage storage of the messages which can not be sent, or null to drop them
+     */
+    public TcpDataSender(PinpointClient client, SpillStorage spillStorage) {
         this.client = client;
         this.timer = createTimer();
         writeFailFutureListener = new WriteFailFutureListener(logger, "io write fail.", "host", -1);
         this.executor = createAsyncQueueingExecutor(1024 * 5, "Pinpoint-TcpDataExecutor");
+        this.spillStorage = spillStorage;
+        if (spillStorage != null) {
+            this.spillSerializer = HeaderTBaseSerializerFactory.DEFAULT_FACTORY.createSerializer();
+            this.client.addPinpointClientReconnectEventListener(new PinpointClientReconnectEventListener() {
+                @Override
+                public void reconnectPerformed(PinpointClient client) {
+                    // replay on the executor thread to keep the order of messages
+                    executor.execute(replaySpillMarker);
+                }
+            });
+        } else {
+            this.spillSerializer = null;
+        }
     }
     
     private Timer createTimer() {
@@ -83,7 +115,10 @@ public class TcpDataSender extends AbstractDataSender implements EnhancedDataSen
     
     @Override
     public boolean send(TBase<?, ?> data) {
-        return executor.execute(data);
+        if (!spillOverflow && executor.execute(data)) {
+            return true;
+        }
+        return spillOverflow(data, SpillStorage.SEND_ONLY);
     }
 
     @Override
@@ -94,7 +129,10 @@ public class TcpDataSender extends AbstractDataSender implements EnhancedDataSen
     @Override
     public boolean request(TBase<?, ?> data, int retryCount) {
         RequestMarker message = new RequestMarker(data, retryCount);
-        return executor.execute(message);
+        if (!spillOverflow && executor.execute(message)) {
+            return true;
+        }
+        return spillOverflow(data, retryCount);
     }
 
     @Override
@@ -121,16 +159,26 @@ public class TcpDataSender extends AbstractDataSender implements EnhancedDataSen
         if (!stop.isEmpty()) {
             logger.info("stop Timeout:{}", stop.size());
         }
+        if (spillStorage != null) {
+            spillStorage.close();
+        }
     }
 
     @Override
     protected void sendPacket(Object message) {
         try {
+            if (message == replaySpillMarker) {
+                replaySpill();
+                return;
+            }
             if (message instanceof TBase) {
                 byte[] copy = serialize(serializer, (TBase) message);
                 if (copy == null) {
                     return;
                 }
+                if (spillIfNotSendable(SpillStorage.SEND_ONLY, copy)) {
+                    return;
+                }
                 doSend(copy);
             } else if (message instanceof RequestMarker) {
                 RequestMarker requestMarker = (RequestMarker) message;
@@ -144,8 +192,12 @@ public class TcpDataSender extends AbstractDataSender implements EnhancedDataSen
                 }
                 
                 if (futureListener != null) {
+                    // the listener can not be spilled.
                     doRequest(copy, futureListener);
                 } else {
+                    if (spillIfNotSendable(retryCount, copy)) {
+                        return;
+                    }
                     doRequest(copy, retryCount, tBase);
                 }
             } else {
@@ -157,6 +209,127 @@ public class TcpDataSender extends AbstractDataSender implements EnhancedDataSen
         }
     }
 
+    /**
+     * Spills the message of an application thread which found the send queue full, or an earlier overflow still in the spill.
+     * The messages in the queue are older, so they are sent first and the spill is replayed behind them by the replay marker.
+     * Until then later messages skip the queue and are spilled behind the overflow.
+     */
+    private boolean spillOverflow(TBase<?, ?> data, int retryCount) {
+        if (spillStorage == null || !executor.isRun()) {
+            return false;
+        }
+        final byte[] copy;
+        synchronized (spillSerializer) {
+            copy = serialize(spillSerializer, data);
+        }
+        if (copy == null) {
+            return false;
+        }
+        return spill(retryCount, copy);
+    }
+
+    /**
+     * Spills a message from outside the executor thread, marking the spill non-empty so that later messages follow it,
+     * and schedules its replay.
+     */
+    private boolean spill(int retryCount, byte[] copy) {
+        final boolean spill;
+        synchronized (spillLock) {
+            spill = spillStorage.offer(retryCount, copy);
+            if (spill) {
+                spillOverflow = true;
+            }
+        }
+        if (spill) {
+            scheduleReplay();
+        } else {
+            logger.warn("Drop data. spill storage is full. size:{}", spillStorage.size());
+        }
+        return spill;
+    }
+
+    /**
+     * Spills a message taken from the send queue while the collector is unreachable,
+     * or while messages spilled that way are waiting, so that the messages are delivered in order.
+     * An overflow in the spill is newer than the queue and does not hold the queue back.
+     * Messages taken from the queue during an outage are still spilled behind such an overflow.
+     */
+    private boolean spillIfNotSendable(int retryCount, byte[] copy) {
+        if (spillStorage == null) {
+            return false;
+        }
+        if (client.isConnected() && !spillOutage) {
+            return false;
+        }
+        if (!spillStorage.offer(retryCount, copy)) {
+            return false;
+        }
+        spillOutage = true;
+        scheduleReplay();
+        return true;
+    }
+
+    // executor thread only, by the replay marker
+    private void replaySpill() {
+        if (spillStorage == null) {
+            return;
+        }
+        if (clearSpillState()) {
+            return;
+        }
+        if (!client.isConnected()) {
+            // the reconnect event may come before the handshake completes
+            scheduleReplay();
+            return;
+        }
+        final int replaySize = spillStorage.getReplaySize();
+        for (int i = 0; i < replaySize; i++) {
+            final RetryMessage message = spillStorage.poll();
+            if (message == null) {
+                break;
+            }
+            final int retryCount = message.getRetryCount();
+            if (retryCount == SpillStorage.SEND_ONLY) {
+                doSend(message.getBytes());
+            } else {
+                doRequest(message.getBytes(), retryCount, message);
+            }
+        }
+        if (clearSpillState()) {
+            return;
+        }
+        // continue after the messages queued meanwhile
+        if (!executor.execute(replaySpillMarker)) {
+            scheduleReplay();
+        }
+    }
+
+    /**
+     * @return true if the spill is empty, in which case new messages go through the send queue again
+     */
+    private boolean clearSpillState() {
+        synchronized (spillLock) {
+            if (!spillStorage.isEmpty()) {
+                return false;
+            }
+            spillOverflow = false;
+            spillOutage = false;
+            return true;
+        }
+    }
+
+    private void scheduleReplay() {
+        if (replayScheduled.compareAndSet(false, true)) {
+            timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    replayScheduled.set(false);
+                    executor.execute(replaySpillMarker);
+                }
+            }, 1000, TimeUnit.MILLISECONDS);
+        }
+    }
+
     private void doSend(byte[] copy) {
         Future write = this.client.sendAsync(copy);
         write.setListener(writeFailFutureListener);
@@ -195,6 +368,12 @@ public class TcpDataSender extends AbstractDataSender implements EnhancedDataSen
     }
 
     private void retryRequest(byte[] requestPacket, int retryCount, final String className) {
+        if (spillStorage != null && !client.isConnected()) {
+            // do not use up the retry count while the collector is down
+            if (spill(retryCount, requestPacket)) {
+                return;
+            }
+        }
         RetryMessage retryMessage = new RetryMessage(retryCount, requestPacket);
         retryQueue.add(retryMessage);
         if (fireTimeout()) {
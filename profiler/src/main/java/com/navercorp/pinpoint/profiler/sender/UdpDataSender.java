@@ -57,6 +57,10 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
     }
 
     public UdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, AsyncQueueingExecutorFactory.DEFAULT);
+    }
+
+    public UdpDataSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, AsyncQueueingExecutorFactory executorFactory) {
         if (host == null ) {
             throw new NullPointerException("host must not be null");
         }
@@ -72,12 +76,15 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
         if (sendBufferSize <= 0) {
             throw new IllegalArgumentException("sendBufferSize");
         }
+        if (executorFactory == null) {
+            throw new NullPointerException("executorFactory must not be null");
+        }
 
         // TODO If fail to create socket, stop agent start
         logger.info("UdpDataSender initialized. host={}, port={}", host, port);
         this.udpSocket = createSocket(host, port, timeout, sendBufferSize);
 
-        this.executor = createAsyncQueueingExecutor(queueSize, threadName);
+        this.executor = createAsyncQueueingExecutor(executorFactory, queueSize, threadName);
     }
 
     @Override
@@ -114,29 +121,33 @@ public class UdpDataSender extends AbstractDataSender implements DataSender {
     protected void sendPacket(Object message) {
         if (message instanceof TBase) {
             final TBase dto = (TBase) message;
-            // do not copy bytes because it's single threaded
-            final byte[] internalBufferData = serialize(this.serializer, dto);
-            if (internalBufferData == null) {
-                logger.warn("interBufferData is null");
-                return;
-            }
-
-            final int internalBufferSize = this.serializer.getInterBufferSize();
-            if (isLimit(internalBufferSize)) {
-                // When packet size is greater than UDP packet size limit, it's better to discard packet than let the socket API fails.
-                logger.warn("discard packet. Caused:too large message. size:{}, {}", internalBufferSize, dto);
-                return;
-            }
-            // it's safe to reuse because it's single threaded
-            reusePacket.setData(internalBufferData, 0, internalBufferSize);
-
             try {
-                udpSocket.send(reusePacket);
-                if (isDebug) {
-                    logger.debug("Data sent. size:{}, {}", internalBufferSize, dto);
+                // do not copy bytes because it's single threaded
+                final byte[] internalBufferData = serialize(this.serializer, dto);
+                if (internalBufferData == null) {
+                    logger.warn("interBufferData is null");
+                    return;
+                }
+
+                final int internalBufferSize = this.serializer.getInterBufferSize();
+                if (isLimit(internalBufferSize)) {
+                    // When packet size is greater than UDP packet size limit, it's better to discard packet than let the socket API fails.
+                    logger.warn("discard packet. Caused:too large message. size:{}, {}", internalBufferSize, dto);
+                    return;
+                }
+                // it's safe to reuse because it's single threaded
+                reusePacket.setData(internalBufferData, 0, internalBufferSize);
+
+                try {
+                    udpSocket.send(reusePacket);
+                    if (isDebug) {
+                        logger.debug("Data sent. size:{}, {}", internalBufferSize, dto);
+                    }
+                } catch (IOException e) {
+                    logger.info("packet send error. size:{}, {}", internalBufferSize, dto, e);
                 }
-            } catch (IOException e) {
-                logger.info("packet send error. size:{}, {}", internalBufferSize, dto, e);
+            } finally {
+                recycle(dto);
             }
         } else {
             logger.warn("sendPacket fail. invalid type:{}", message != null ? message.getClass() : null);
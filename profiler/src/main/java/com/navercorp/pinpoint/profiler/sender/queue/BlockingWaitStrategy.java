@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender.queue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Parks the consumer thread until a producer publishes data.
+ * Lowest cpu usage, but producers pay for unpark() when the consumer is sleeping.
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+
+    private volatile Thread waiter;
+
+    @Override
+    public void idle(ExecutorQueue<?> queue, int idleCount, long remainNanos) {
+        this.waiter = Thread.currentThread();
+        // check again after publishing waiter. producer may have offered data before it could see the waiter.
+        if (queue.isEmpty()) {
+            LockSupport.parkNanos(this, remainNanos);
+        }
+        this.waiter = null;
+    }
+
+    @Override
+    public void signal() {
+        final Thread waiter = this.waiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender.queue;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer/single-consumer queue backed by a preallocated array.
+ * No node is allocated on offer(), and producers never take a lock.
+ * <p>
+ * Each slot has a sequence number.
+ * A producer claims a slot by CAS on the producer index, stores the element and then publishes it by advancing the slot sequence.
+ * The consumer reads a slot only after its sequence is published, and releases it by moving the sequence one lap ahead.
+ * <p>
+ * Caution. poll(), drainTo() must be called by a single consumer thread.
+ */
+public class MpscRingBufferQueue<T> implements ExecutorQueue<T> {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong producerIndex = new AtomicLong(0);
+    // written by consumer thread only. volatile for size() from other threads.
+    private volatile long consumerIndex = 0;
+
+    private final WaitStrategy waitStrategy;
+
+    public MpscRingBufferQueue(int queueSize) {
+        this(queueSize, new BlockingWaitStrategy());
+    }
+
+    public MpscRingBufferQueue(int queueSize, WaitStrategy waitStrategy) {
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize must be positive");
+        }
+        if (queueSize > MAX_CAPACITY) {
+            throw new IllegalArgumentException("queueSize too large. max:" + MAX_CAPACITY);
+        }
+        if (waitStrategy == null) {
+            throw new NullPointerException("waitStrategy must not be null");
+        }
+        final int capacity = roundToPowerOfTwo(queueSize);
+        this.buffer = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    static int roundToPowerOfTwo(int value) {
+        final int highestOneBit = Integer.highestOneBit(value);
+        if (highestOneBit == value) {
+            return value;
+        }
+        return highestOneBit << 1;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    @Override
+    public boolean offer(T data) {
+        if (data == null) {
+            throw new NullPointerException("data must not be null");
+        }
+        long index;
+        int offset;
+        while (true) {
+            index = producerIndex.get();
+            offset = (int) (index & mask);
+            final long sequence = sequences.get(offset);
+            final long diff = sequence - index;
+            if (diff == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                // slot is not released by the consumer yet. queue is full.
+                return false;
+            }
+            // another producer claimed this slot. retry with new index.
+        }
+        buffer[offset] = data;
+        // volatile write publishes the element. also orders it before reading the waiter in signal().
+        sequences.set(offset, index + 1);
+        waitStrategy.signal();
+        return true;
+    }
+
+    /**
+     * Non-blocking poll. consumer thread only.
+     */
+    public T poll() {
+        final long index = this.consumerIndex;
+        final int offset = (int) (index & mask);
+        final long sequence = sequences.get(offset);
+        if (sequence != index + 1) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        final T data = (T) buffer[offset];
+        buffer[offset] = null;
+        sequences.lazySet(offset, index + buffer.length);
+        this.consumerIndex = index + 1;
+        return data;
+    }
+
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        T data = poll();
+        if (data != null) {
+            return data;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int idleCount = 0;
+        while (true) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            final long remainNanos = deadline - System.nanoTime();
+            if (remainNanos <= 0) {
+                return null;
+            }
+            waitStrategy.idle(this, idleCount++, remainNanos);
+
+            data = poll();
+            if (data != null) {
+                return data;
+            }
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super T> drain, int maxElements) {
+        int count = 0;
+        while (count < maxElements) {
+            final T data = poll();
+            if (data == null) {
+                break;
+            }
+            drain.add(data);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        // read consumer index first. size is never negative.
+        final long consumerIndex = this.consumerIndex;
+        final long producerIndex = this.producerIndex.get();
+        final long size = producerIndex - consumerIndex;
+        if (size > buffer.length) {
+            return buffer.length;
+        }
+        return (int) size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        final long index = this.consumerIndex;
+        final int offset = (int) (index & mask);
+        return sequences.get(offset) != index + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "MpscRingBufferQueue{" +
+                "capacity=" + buffer.length +
+                ", size=" + size() +
+                ", waitStrategy=" + waitStrategy.getClass().getSimpleName() +
+                '}';
+    }
+}
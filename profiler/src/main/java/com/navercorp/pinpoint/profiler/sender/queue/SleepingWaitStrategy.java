@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender.queue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spins, then yields, then sleeps for a short period.
+ * Producers never pay for waking up the consumer.
+ */
+public class SleepingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_COUNT = 100;
+    private static final int YIELD_COUNT = SPIN_COUNT + 100;
+    private static final long DEFAULT_SLEEP_NANOS = 1000 * 100;
+
+    private final long sleepNanos;
+
+    public SleepingWaitStrategy() {
+        this(DEFAULT_SLEEP_NANOS);
+    }
+
+    public SleepingWaitStrategy(long sleepNanos) {
+        if (sleepNanos <= 0) {
+            throw new IllegalArgumentException("sleepNanos must be positive");
+        }
+        this.sleepNanos = sleepNanos;
+    }
+
+    @Override
+    public void idle(ExecutorQueue<?> queue, int idleCount, long remainNanos) {
+        if (idleCount < SPIN_COUNT) {
+            return;
+        }
+        if (idleCount < YIELD_COUNT) {
+            Thread.yield();
+            return;
+        }
+        LockSupport.parkNanos(Math.min(sleepNanos, remainNanos));
+    }
+
+    @Override
+    public void signal() {
+    }
+}
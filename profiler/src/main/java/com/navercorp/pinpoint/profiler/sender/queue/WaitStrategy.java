@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender.queue;
+
+/**
+ * Decides what the consumer thread of {@link MpscRingBufferQueue} does while the queue is empty.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Called by the consumer thread when the queue is empty.
+     *
+     * @param queue       queue being waited on
+     * @param idleCount   number of consecutive empty polls
+     * @param remainNanos time left until the poll times out
+     */
+    void idle(ExecutorQueue<?> queue, int idleCount, long remainNanos);
+
+    /**
+     * Called by producer threads after an element is published.
+     */
+    void signal();
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender.queue;
+
+/**
+ * Spins, then yields the cpu on every empty poll.
+ * Lowest latency, but keeps one core busy while the agent is idle. use with care.
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+    private static final int SPIN_COUNT = 100;
+
+    @Override
+    public void idle(ExecutorQueue<?> queue, int idleCount, long remainNanos) {
+        if (idleCount < SPIN_COUNT) {
+            return;
+        }
+        Thread.yield();
+    }
+
+    @Override
+    public void signal() {
+    }
+}
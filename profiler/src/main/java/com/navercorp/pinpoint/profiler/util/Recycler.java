@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.util;
+
+import com.navercorp.pinpoint.profiler.sender.queue.MpscRingBufferQueue;
+
+/**
+ * Per-thread object pool.
+ * Objects are always taken from the pool of the current thread.
+ * An object recycled by another thread (e.g. the data sender thread) goes back to the pool of the thread which created it,
+ * through a lock-free return queue. The owner thread pulls returned objects lazily when its local pool is empty.
+ * <p>
+ * Pools never block and never grow. If a pool is full, recycled objects are simply left to the GC.
+ */
+public abstract class Recycler<T> {
+
+    public static final int DEFAULT_MAX_CAPACITY_PER_THREAD = 256;
+
+    public interface Handle<T> {
+        void recycle(T object);
+    }
+
+    private final int maxCapacityPerThread;
+
+    private final ThreadLocal<Stack<T>> threadLocalStack = new ThreadLocal<Stack<T>>() {
+        @Override
+        protected Stack<T> initialValue() {
+            return new Stack<T>(Thread.currentThread(), maxCapacityPerThread);
+        }
+    };
+
+    protected Recycler() {
+        this(DEFAULT_MAX_CAPACITY_PER_THREAD);
+    }
+
+    protected Recycler(int maxCapacityPerThread) {
+        if (maxCapacityPerThread <= 0) {
+            throw new IllegalArgumentException("maxCapacityPerThread must be positive");
+        }
+        this.maxCapacityPerThread = maxCapacityPerThread;
+    }
+
+    public final T get() {
+        final Stack<T> stack = threadLocalStack.get();
+        final T object = stack.pop();
+        if (object != null) {
+            return object;
+        }
+        return newObject(stack);
+    }
+
+    /**
+     * The created object must keep the handle and pass itself to {@link Handle#recycle(Object)} when it is no longer used.
+     */
+    protected abstract T newObject(Handle<T> handle);
+
+    // for test
+    int localSize() {
+        return threadLocalStack.get().size;
+    }
+
+    private static final class Stack<T> implements Handle<T> {
+
+        private final Thread owner;
+        private final Object[] elements;
+        private int size = 0;
+        // recycled by other threads.
+        private final MpscRingBufferQueue<T> returnQueue;
+
+        private Stack(Thread owner, int maxCapacity) {
+            this.owner = owner;
+            this.elements = new Object[maxCapacity];
+            this.returnQueue = new MpscRingBufferQueue<T>(maxCapacity);
+        }
+
+        @SuppressWarnings("unchecked")
+        private T pop() {
+            if (size == 0) {
+                transfer();
+                if (size == 0) {
+                    return null;
+                }
+            }
+            size--;
+            final T object = (T) elements[size];
+            elements[size] = null;
+            return object;
+        }
+
+        private void transfer() {
+            while (size < elements.length) {
+                final T object = returnQueue.poll();
+                if (object == null) {
+                    return;
+                }
+                elements[size++] = object;
+            }
+        }
+
+        @Override
+        public void recycle(T object) {
+            if (object == null) {
+                return;
+            }
+            if (Thread.currentThread() == owner) {
+                if (size < elements.length) {
+                    elements[size++] = object;
+                }
+                return;
+            }
+            // discard if full.
+            returnQueue.offer(object);
+        }
+    }
+}
@@ -58,4 +58,69 @@ public class DefaultCachingSqlNormalizerTest {
         boolean newCache_parsingResult1_recached = normalizer.normalizedSql(parsingResult1_recached);
         Assert.assertTrue(newCache_parsingResult1_recached);
     }
+
+    @Test
+    public void testNormalizedSql_frontCache_hit() throws Exception {
+        DefaultCachingSqlNormalizer normalizer = new DefaultCachingSqlNormalizer(16);
+        final String sql = "select * from member where id = 10";
+
+        ParsingResult first = normalizer.wrapSql(sql);
+        Assert.assertTrue(normalizer.normalizedSql(first));
+        Assert.assertEquals(0, normalizer.getHitCount());
+        Assert.assertEquals(1, normalizer.getMissCount());
+
+        // same instance
+        ParsingResult second = normalizer.wrapSql(sql);
+        Assert.assertFalse(normalizer.normalizedSql(second));
+        // equal string, different instance
+        ParsingResult third = normalizer.wrapSql(new String(sql));
+        Assert.assertFalse(normalizer.normalizedSql(third));
+
+        Assert.assertEquals(2, normalizer.getHitCount());
+        Assert.assertEquals(1, normalizer.getMissCount());
+        Assert.assertEquals(0, normalizer.getEvictionCount());
+
+        Assert.assertEquals(first.getId(), second.getId());
+        Assert.assertEquals(first.getId(), third.getId());
+        Assert.assertEquals(first.getSql(), third.getSql());
+        Assert.assertEquals(first.getOutput(), third.getOutput());
+    }
+
+    @Test
+    public void testNormalizedSql_frontCache_eviction() throws Exception {
+        DefaultCachingSqlNormalizer normalizer = new DefaultCachingSqlNormalizer(16, 1);
+
+        ParsingResult parsingResult1 = normalizer.wrapSql("select * from table1 where id = 1");
+        Assert.assertTrue(normalizer.normalizedSql(parsingResult1));
+        ParsingResult parsingResult2 = normalizer.wrapSql("select * from table2 where id = 2");
+        Assert.assertTrue(normalizer.normalizedSql(parsingResult2));
+        Assert.assertEquals(1, normalizer.getEvictionCount());
+
+        // evicted from the front cache, still cached by sqlCache
+        ParsingResult parsingResult1_recached = normalizer.wrapSql("select * from table1 where id = 3");
+        Assert.assertFalse(normalizer.normalizedSql(parsingResult1_recached));
+        Assert.assertEquals(parsingResult1.getId(), parsingResult1_recached.getId());
+        Assert.assertEquals("3", parsingResult1_recached.getOutput());
+
+        Assert.assertEquals(0, normalizer.getHitCount());
+        Assert.assertEquals(3, normalizer.getMissCount());
+        Assert.assertEquals(2, normalizer.getEvictionCount());
+    }
+
+    @Test
+    public void testNormalizedSql_frontCache_longSql() throws Exception {
+        DefaultCachingSqlNormalizer normalizer = new DefaultCachingSqlNormalizer(16);
+        StringBuilder builder = new StringBuilder("select * from dual where id in (");
+        while (builder.length() <= DefaultCachingSqlNormalizer.MAX_FRONT_CACHE_SQL_LENGTH) {
+            builder.append("1,");
+        }
+        builder.append("1)");
+        final String longSql = builder.toString();
+
+        Assert.assertTrue(normalizer.normalizedSql(normalizer.wrapSql(longSql)));
+        Assert.assertFalse(normalizer.normalizedSql(normalizer.wrapSql(longSql)));
+
+        Assert.assertEquals(0, normalizer.getHitCount());
+        Assert.assertEquals(2, normalizer.getMissCount());
+    }
 }
\ No newline at end of file
@@ -16,9 +16,11 @@
 
 package com.navercorp.pinpoint.profiler.context;
 
+import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
 import com.navercorp.pinpoint.profiler.context.DefaultTrace;
 import com.navercorp.pinpoint.profiler.context.DefaultTraceContext;
 import com.navercorp.pinpoint.profiler.context.storage.SpanStorage;
+import com.navercorp.pinpoint.profiler.context.storage.Storage;
 import com.navercorp.pinpoint.profiler.logging.Slf4jLoggerBinderInitializer;
 import com.navercorp.pinpoint.profiler.sender.LoggingDataSender;
 import com.navercorp.pinpoint.test.TestAgentInformation;
@@ -54,4 +56,62 @@ public class DefaultTraceTest {
         trace.traceBlockEnd();
         trace.close();
     }
+
+    @Test
+    public void lateRecordDoesNotTouchPooledSpan() {
+        DefaultTraceContext defaultTraceContext = new DefaultTraceContext(new TestAgentInformation());
+        DefaultTrace trace = new DefaultTrace(defaultTraceContext, 1, true, new RecyclingSpanFactory(4));
+        RecordingStorage storage = new RecordingStorage();
+        trace.setStorage(storage);
+
+        final long startTime = trace.getStartTime();
+        trace.close();
+
+        trace.getSpanRecorder().recordRpcName("late");
+        trace.currentSpanEventRecorder().recordException(new RuntimeException());
+
+        Assert.assertNull(storage.span.getRpc());
+        Assert.assertFalse(storage.span.isSetErrCode());
+        Assert.assertEquals(startTime, trace.getStartTime());
+    }
+
+    @Test
+    public void lateRecordDoesNotTouchPooledSpanEvent() {
+        DefaultTraceContext defaultTraceContext = new DefaultTraceContext(new TestAgentInformation());
+        DefaultTrace trace = new DefaultTrace(defaultTraceContext, 1, true, new RecyclingSpanFactory(4));
+        RecordingStorage storage = new RecordingStorage();
+        trace.setStorage(storage);
+
+        SpanEventRecorder recorder = trace.traceBlockBegin();
+        recorder.recordRpcName("rpc");
+        trace.traceBlockEnd();
+        // recorder kept across traceBlockEnd()
+        recorder.recordRpcName("late");
+        trace.close();
+
+        Assert.assertEquals("rpc", storage.spanEvent.getRpc());
+    }
+
+    private static class RecordingStorage implements Storage {
+        private SpanEvent spanEvent;
+        private Span span;
+
+        @Override
+        public void store(SpanEvent spanEvent) {
+            this.spanEvent = spanEvent;
+        }
+
+        @Override
+        public void store(Span span) {
+            this.span = span;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
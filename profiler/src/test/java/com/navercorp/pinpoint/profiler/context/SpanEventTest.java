@@ -16,6 +16,8 @@
 
 package com.navercorp.pinpoint.profiler.context;
 
+import java.util.List;
+
 import org.junit.Assert;
 
 import org.junit.Test;
@@ -53,6 +55,33 @@ public class SpanEventTest {
         Assert.assertEquals("endTime", span.getStartTime() + spanEvent.getStartElapsed() + spanEvent.getEndElapsed(), spanEvent.getAfterTime());
     }
 
+    @Test
+    public void recycle() throws Exception {
+        RecyclingSpanFactory spanFactory = new RecyclingSpanFactory(4);
+        Span span = spanFactory.newSpan();
+        SpanEvent spanEvent = spanFactory.newSpanEvent(span);
+        spanEvent.setDepth(1);
+        spanEvent.setEndElapsed(10);
+        spanEvent.addAnnotation(new Annotation(1, "value"));
+
+        List<SpanEvent> spanEventList = spanFactory.newSpanEventList(1);
+        spanEventList.add(spanEvent);
+        span.setSpanEventList((List) spanEventList);
+        span.recycle();
+
+        SpanEvent reused = spanFactory.newSpanEvent(span);
+        Assert.assertSame(spanEvent, reused);
+        // must be serialized exactly like a new SpanEvent
+        Assert.assertEquals(new SpanEvent(span), reused);
+        Assert.assertFalse(reused.isSetDepth());
+        Assert.assertFalse(reused.isSetEndElapsed());
+        Assert.assertFalse(reused.isSetAnnotations());
+
+        Assert.assertSame(span, spanFactory.newSpan());
+        Assert.assertSame(spanEventList, spanFactory.newSpanEventList(1));
+        Assert.assertTrue(spanEventList.isEmpty());
+    }
+
     @Test
     public void testGetStartTime() throws Exception {
 
@@ -20,6 +20,7 @@ import java.util.Collections;
 
 import com.navercorp.pinpoint.bootstrap.context.ServerMetaDataHolder;
 import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
 import com.navercorp.pinpoint.common.Version;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.common.util.JvmUtils;
@@ -29,6 +30,7 @@ import com.navercorp.pinpoint.profiler.context.DefaultServerMetaDataHolder;
 import com.navercorp.pinpoint.profiler.context.DefaultTraceContext;
 import com.navercorp.pinpoint.profiler.context.ThreadLocalTraceFactory;
 import com.navercorp.pinpoint.profiler.context.storage.LogStorageFactory;
+import com.navercorp.pinpoint.profiler.sampler.FalseSampler;
 import com.navercorp.pinpoint.profiler.sampler.TrueSampler;
 
 import org.junit.Assert;
@@ -37,6 +39,10 @@ import org.junit.Test;
 public class ThreadLocalTraceFactoryTest {
 
     private ThreadLocalTraceFactory getTraceFactory() {
+        return getTraceFactory(new TrueSampler());
+    }
+
+    private ThreadLocalTraceFactory getTraceFactory(Sampler sampler) {
         IdGenerator idGenerator = new IdGenerator();
         LogStorageFactory logStorageFactory = new LogStorageFactory();
         TrueSampler trueSampler = new TrueSampler();
@@ -44,7 +50,7 @@ public class ThreadLocalTraceFactoryTest {
         AgentInformation agentInformation = new AgentInformation("agentId", "applicationName", System.currentTimeMillis(), 10, "test", "127.0.0.1", ServiceType.STAND_ALONE,
                 JvmUtils.getSystemProperty(SystemPropertyKey.JAVA_VERSION), Version.VERSION);
         DefaultTraceContext traceContext = new DefaultTraceContext(100, agentInformation, logStorageFactory, trueSampler, serverMetaDataHolder, false);
-        return new ThreadLocalTraceFactory(traceContext, logStorageFactory, trueSampler, idGenerator);
+        return new ThreadLocalTraceFactory(traceContext, logStorageFactory, sampler, idGenerator);
     }
 
     @Test
@@ -96,4 +102,55 @@ public class ThreadLocalTraceFactoryTest {
     public void testDetachTraceObject() throws Exception {
 
     }
+
+    @Test
+    public void reuseDisableTrace() {
+        ThreadLocalTraceFactory traceFactory = getTraceFactory(new FalseSampler());
+
+        Trace first = traceFactory.newTraceObject();
+        Assert.assertFalse(first.canSampled());
+        final long firstId = first.getId();
+        Assert.assertSame(first, traceFactory.removeTraceObject());
+
+        Trace second = traceFactory.newTraceObject();
+        Assert.assertSame(first, second);
+        Assert.assertNotEquals(firstId, second.getId());
+        traceFactory.removeTraceObject();
+
+        Trace continued = traceFactory.disableSampling();
+        Assert.assertSame(first, continued);
+        Assert.assertEquals(IdGenerator.INITIAL_CONTINUED_DISABLED_ID, continued.getId());
+        traceFactory.removeTraceObject();
+    }
+
+    @Test
+    public void reuseDisableTrace_scope() {
+        ThreadLocalTraceFactory traceFactory = getTraceFactory(new FalseSampler());
+
+        Trace first = traceFactory.newTraceObject();
+        Assert.assertNull(first.getScope("scope"));
+        Assert.assertNull(first.addScope("scope"));
+        Assert.assertNotNull(first.getScope("scope"));
+        traceFactory.removeTraceObject();
+
+        Trace second = traceFactory.newTraceObject();
+        Assert.assertSame(first, second);
+        Assert.assertNull(second.getScope("scope"));
+        traceFactory.removeTraceObject();
+    }
+
+    @Test
+    public void notReuseEscapedDisableTrace() {
+        ThreadLocalTraceFactory traceFactory = getTraceFactory(new FalseSampler());
+
+        Trace first = traceFactory.newTraceObject();
+        traceFactory.removeTraceObject();
+        // e.g. servlet 3.0 async dispatch
+        traceFactory.continueTraceObject(first);
+        traceFactory.removeTraceObject();
+
+        Trace second = traceFactory.newTraceObject();
+        Assert.assertNotSame(first, second);
+        traceFactory.removeTraceObject();
+    }
 }
\ No newline at end of file
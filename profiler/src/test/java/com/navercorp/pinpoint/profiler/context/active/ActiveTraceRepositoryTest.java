@@ -103,6 +103,7 @@ public class ActiveTraceRepositoryTest {
         assertEquals(expectedSampledContinuationCount, transactionCounter.getTransactionCount(SamplingType.SAMPLED_CONTINUATION));
         assertEquals(expectedUnsampledContinuationCount, transactionCounter.getTransactionCount(SamplingType.UNSAMPLED_CONTINUATION));
         assertEquals(expectedTotalTransactionCount, transactionCounter.getTotalTransactionCount());
+        assertEquals(expectedTotalTransactionCount, activeTraceInfos.size());
         
         for (ActiveTraceInfo activeTraceInfo : activeTraceInfos) {
             TraceThreadTuple executedTrace = executedTraceMap.get(activeTraceInfo.getId());
@@ -112,6 +113,92 @@ public class ActiveTraceRepositoryTest {
         }
     }
 
+    @Test
+    public void putAndRemove() {
+        ActiveTraceRepository repository = new ActiveTraceRepository(16, 4);
+        final Thread thread = Thread.currentThread();
+
+        int first = repository.put(1L, 100L, thread);
+        int second = repository.put(2L, 200L, thread);
+        int third = repository.put(3L, 300L, thread);
+        assertEquals(3, repository.size());
+
+        repository.remove(first);
+        assertEquals(2, repository.size());
+        // removing twice does nothing
+        repository.remove(first);
+        assertEquals(2, repository.size());
+
+        List<ActiveTraceInfo> activeTraceInfos = repository.collect();
+        assertEquals(2, activeTraceInfos.size());
+        Map<Long, ActiveTraceInfo> activeTraceInfoMap = new HashMap<Long, ActiveTraceInfo>();
+        for (ActiveTraceInfo activeTraceInfo : activeTraceInfos) {
+            activeTraceInfoMap.put(activeTraceInfo.getId(), activeTraceInfo);
+        }
+        assertEquals(200L, activeTraceInfoMap.get(2L).getStartTime());
+        assertEquals(300L, activeTraceInfoMap.get(3L).getStartTime());
+        assertSame(thread, activeTraceInfoMap.get(3L).getThread());
+
+        repository.remove(third);
+        repository.remove(second);
+        assertEquals(0, repository.size());
+        assertEquals(0, repository.collectStartTime().length);
+    }
+
+    @Test
+    public void maxActiveTraceSize() {
+        ActiveTraceRepository repository = new ActiveTraceRepository(8, 4);
+        final Thread thread = Thread.currentThread();
+
+        List<Integer> handles = new ArrayList<Integer>();
+        for (int i = 0; i < 8; i++) {
+            int handle = repository.put(i, 100L + i, thread);
+            assertNotEquals(ActiveTraceRepository.NOT_TRACKED, handle);
+            handles.add(handle);
+        }
+        // full. the other stripes are tried before giving up
+        assertEquals(ActiveTraceRepository.NOT_TRACKED, repository.put(8, 108L, thread));
+        assertEquals(8, repository.size());
+
+        repository.remove(handles.get(3));
+        assertNotEquals(ActiveTraceRepository.NOT_TRACKED, repository.put(8, 108L, thread));
+        assertEquals(8, repository.collectStartTime().length);
+    }
+
+    @Test
+    public void collectStartTime_notStarted() {
+        ActiveTraceRepository repository = new ActiveTraceRepository();
+        repository.put(1L, 0L, Thread.currentThread());
+        repository.put(2L, 100L, Thread.currentThread());
+
+        assertArrayEquals(new long[]{100L}, repository.collectStartTime());
+        assertEquals(1, repository.collect().size());
+    }
+
+    @Test
+    public void deadThreadIsRemoved() throws InterruptedException {
+        ActiveTraceRepository repository = new ActiveTraceRepository(16, 4);
+        Thread deadThread = new Thread();
+        deadThread.start();
+        deadThread.join();
+
+        repository.put(1L, 100L, deadThread);
+        final int handle = repository.put(2L, 200L, Thread.currentThread());
+        repository.put(3L, 300L, deadThread);
+        assertEquals(3, repository.size());
+
+        assertArrayEquals(new long[]{200L}, repository.collectStartTime());
+        assertEquals(1, repository.size());
+
+        repository.put(4L, 400L, deadThread);
+        List<ActiveTraceInfo> activeTraceInfos = repository.collect();
+        assertEquals(1, activeTraceInfos.size());
+        assertEquals(2L, activeTraceInfos.get(0).getId());
+
+        repository.remove(handle);
+        assertEquals(0, repository.size());
+    }
+
     private ListenableFuture<List<TraceThreadTuple>> executeTransactions(CountDownLatch awaitLatch, CountDownLatch executeLatch, int newTransactionCount, int sampledContinuationCount, int unsampledContinuationCount) {
         final int totalTransactionCount = newTransactionCount + sampledContinuationCount + unsampledContinuationCount;
         final ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(totalTransactionCount));
@@ -21,9 +21,11 @@ import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.common.util.JvmUtils;
 import com.navercorp.pinpoint.common.util.SystemPropertyKey;
 import com.navercorp.pinpoint.profiler.AgentInformation;
+import com.navercorp.pinpoint.profiler.context.DefaultSpanFactory;
 import com.navercorp.pinpoint.profiler.context.Span;
 import com.navercorp.pinpoint.profiler.context.SpanChunkFactory;
 import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.context.SpanFactory;
 import com.navercorp.pinpoint.profiler.context.storage.BufferedStorage;
 import com.navercorp.pinpoint.profiler.sender.CountingDataSender;
 
@@ -31,6 +33,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+
 public class BufferedStorageTest {
 
     private AgentInformation agentInformation = new AgentInformation("agentId", "applicationName", 0, 1, "hostName", "127.0.0.1", ServiceType.STAND_ALONE,
@@ -104,4 +108,65 @@ public class BufferedStorageTest {
         Assert.assertEquals(0, countingDataSender.getSpanCounter(), 1);
         Assert.assertEquals(0, countingDataSender.getSpanChunkCounter(), 0);
     }
+
+    @Test
+    public void testStore_flushBytes() throws Exception {
+        SpanEventSizeEstimator sizeEstimator = new SpanEventSizeEstimator();
+        Span span = new Span();
+        SpanEvent spanEvent = new SpanEvent(span);
+        spanEvent.setRpc("/test");
+        final int spanEventBytes = sizeEstimator.estimate(spanEvent);
+
+        BufferedStorage bufferedStorage = new BufferedStorage(countingDataSender, spanChunkFactory, 10, spanEventBytes * 2, DefaultSpanFactory.INSTANCE);
+        bufferedStorage.store(spanEvent);
+        Assert.assertEquals(0, countingDataSender.getSpanChunkCounter());
+
+        bufferedStorage.store(spanEvent);
+        Assert.assertEquals(1, countingDataSender.getSpanChunkCounter());
+
+        bufferedStorage.store(spanEvent);
+        Assert.assertEquals(1, countingDataSender.getSpanChunkCounter());
+    }
+
+    @Test
+    public void testStore_spanEventListAllocation() throws Exception {
+        CountingSpanFactory spanFactory = new CountingSpanFactory();
+        BufferedStorage bufferedStorage = new BufferedStorage(countingDataSender, spanChunkFactory, 2, 0, spanFactory);
+
+        // no SpanEvent, no list
+        bufferedStorage.store(new Span());
+        Assert.assertEquals(0, spanFactory.spanEventListCount);
+
+        bufferedStorage = new BufferedStorage(countingDataSender, spanChunkFactory, 2, 0, spanFactory);
+        Span span = new Span();
+        SpanEvent spanEvent = new SpanEvent(span);
+        bufferedStorage.store(spanEvent);
+        bufferedStorage.store(spanEvent);
+        Assert.assertEquals(1, spanFactory.spanEventListCount);
+
+        // the list of the flushed chunk is not replaced until the next SpanEvent
+        bufferedStorage.store(span);
+        Assert.assertEquals(1, spanFactory.spanEventListCount);
+        Assert.assertFalse(span.isSetSpanEventList());
+    }
+
+    private static class CountingSpanFactory implements SpanFactory {
+        private int spanEventListCount;
+
+        @Override
+        public Span newSpan() {
+            return DefaultSpanFactory.INSTANCE.newSpan();
+        }
+
+        @Override
+        public SpanEvent newSpanEvent(Span span) {
+            return DefaultSpanFactory.INSTANCE.newSpanEvent(span);
+        }
+
+        @Override
+        public List<SpanEvent> newSpanEventList(int initialCapacity) {
+            spanEventListCount++;
+            return DefaultSpanFactory.INSTANCE.newSpanEventList(initialCapacity);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.profiler.context.Annotation;
+import com.navercorp.pinpoint.profiler.context.Span;
+import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpanEventSizeEstimatorTest {
+
+    private final SpanEventSizeEstimator sizeEstimator = new SpanEventSizeEstimator();
+
+    @Test
+    public void estimate_empty() throws Exception {
+        SpanEvent spanEvent = new SpanEvent(new Span());
+
+        assertEstimate(spanEvent);
+    }
+
+    @Test
+    public void estimate() throws Exception {
+        SpanEvent spanEvent = new SpanEvent(new Span());
+        spanEvent.setSpanId(Long.MAX_VALUE);
+        spanEvent.setSequence((short) 10);
+        spanEvent.setStartElapsed(Integer.MAX_VALUE);
+        spanEvent.setEndElapsed(Integer.MAX_VALUE);
+        spanEvent.setRpc("/test/rpc");
+        spanEvent.setEndPoint("localhost:8080");
+        spanEvent.setDestinationId("destination");
+        spanEvent.setApiId(100);
+        spanEvent.setExceptionInfo(new TIntStringValue(1));
+        spanEvent.getExceptionInfo().setStringValue("exception message");
+        spanEvent.addAnnotation(new Annotation(1, "select * from table"));
+        spanEvent.addAnnotation(new Annotation(2, 123));
+        spanEvent.addAnnotation(new Annotation(3, new byte[100]));
+        spanEvent.addAnnotation(new Annotation(4, new TIntStringStringValue(1)));
+
+        assertEstimate(spanEvent);
+    }
+
+    @Test
+    public void estimate_multibyte() throws Exception {
+        SpanEvent spanEvent = new SpanEvent(new Span());
+        spanEvent.setRpc("/\uC8FC\uBB38/\uC870\uD68C");
+        spanEvent.addAnnotation(new Annotation(1, "select * from \u6CE8\u6587 where \u540D\u524D = ? -- \uD83D\uDE00 \u00E9"));
+
+        assertEstimate(spanEvent);
+    }
+
+    @Test
+    public void utf8Length() throws Exception {
+        assertUtf8Length("");
+        assertUtf8Length("select 1");
+        assertUtf8Length("\u00E9\u07FF");
+        assertUtf8Length("\u0800\uC8FC\uFFFF");
+        assertUtf8Length("\uD83D\uDE00");
+    }
+
+    private void assertUtf8Length(String value) throws Exception {
+        Assert.assertEquals(value.getBytes("UTF-8").length, SpanEventSizeEstimator.utf8Length(value));
+    }
+
+    private void assertEstimate(SpanEvent spanEvent) throws Exception {
+        TSerializer serializer = new TSerializer(new TCompactProtocol.Factory());
+        final int serializedSize = serializer.serialize(spanEvent).length;
+        final int estimate = sizeEstimator.estimate(spanEvent);
+
+        Assert.assertTrue("estimate:" + estimate + " serializedSize:" + serializedSize, estimate >= serializedSize);
+        Assert.assertTrue("estimate:" + estimate + " serializedSize:" + serializedSize, estimate < serializedSize * 2 + 100);
+    }
+}
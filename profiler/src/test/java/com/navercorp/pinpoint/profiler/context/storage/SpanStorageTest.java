@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.profiler.context.RecyclingSpanFactory;
+import com.navercorp.pinpoint.profiler.context.Span;
+import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.sender.CountingDataSender;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpanStorageTest {
+
+    @Test
+    public void recycleSpanEvents() throws Exception {
+        RecyclingSpanFactory spanFactory = new RecyclingSpanFactory(4);
+        CountingDataSender countingDataSender = new CountingDataSender();
+        SpanStorage spanStorage = new SpanStorage(countingDataSender, spanFactory);
+
+        Span span = spanFactory.newSpan();
+        SpanEvent spanEvent = spanFactory.newSpanEvent(span);
+        spanStorage.store(spanEvent);
+        spanStorage.store(span);
+        Assert.assertEquals(1, countingDataSender.getSpanCounter());
+        Assert.assertEquals(1, span.getSpanEventListSize());
+
+        span.recycle();
+        Assert.assertSame(spanEvent, spanFactory.newSpanEvent(span));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.instrument;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import com.navercorp.pinpoint.test.util.BytecodeUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.objectweb.asm.ClassWriter;
+
+public class ASMClassWriterTest {
+
+    private static final String MISSING_CLASS_NAME = "com/navercorp/pinpoint/profiler/instrument/Missing";
+
+    private ASMClassPool classPool;
+
+    @Before
+    public void setUp() {
+        classPool = mock(ASMClassPool.class);
+        when(classPool.readClassFile(any(ClassLoader.class), anyString())).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                final String jvmClassName = (String) invocation.getArguments()[1];
+                if (MISSING_CLASS_NAME.equals(jvmClassName)) {
+                    return null;
+                }
+                return BytecodeUtils.getClassFile(null, jvmClassName);
+            }
+        });
+    }
+
+    @Test
+    public void getCommonSuperClass() {
+        ASMClassWriter classWriter = newClassWriter("com/navercorp/pinpoint/Target", "java/util/ArrayList");
+        assertEquals("java/util/AbstractList", classWriter.getCommonSuperClass("java/util/ArrayList", "java/util/LinkedList"));
+        assertEquals("java/util/ArrayList", classWriter.getCommonSuperClass("com/navercorp/pinpoint/Target", "java/util/ArrayList"));
+        // interfaces are java.lang.Object for the verifier
+        assertEquals("java/lang/Object", classWriter.getCommonSuperClass("java/util/List", "java/util/ArrayList"));
+    }
+
+    @Test(expected = TypeNotPresentException.class)
+    public void getCommonSuperClass_classFileNotFound() {
+        ASMClassWriter classWriter = newClassWriter("com/navercorp/pinpoint/Target", "java/lang/Object");
+        classWriter.getCommonSuperClass(MISSING_CLASS_NAME, "java/util/ArrayList");
+    }
+
+    private ASMClassWriter newClassWriter(String className, String superClassName) {
+        return new ASMClassWriter(classPool, getClass().getClassLoader(), className, superClassName, ClassWriter.COMPUTE_FRAMES);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.classreading;
+
+import static org.junit.Assert.*;
+
+import java.io.Serializable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.navercorp.pinpoint.test.util.BytecodeUtils;
+
+public class ClassFileReaderTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Marker {
+        String value() default "";
+        int[] numbers() default {};
+    }
+
+    @Marker(value = "test", numbers = {1, 2})
+    @Deprecated
+    public static class Target extends ArrayList<String> implements Runnable, Serializable {
+        private static final long LONG_CONSTANT = Long.MAX_VALUE;
+        private final double doubleValue = Math.random();
+
+        @Override
+        public void run() {
+        }
+    }
+
+    @Test
+    public void readMetadata() {
+        byte[] classFile = BytecodeUtils.getClassFile(Target.class.getClassLoader(), Target.class.getName());
+
+        ClassFileMetadata metadata = ClassFileReader.readMetadata(classFile);
+        assertEquals("com/navercorp/pinpoint/profiler/instrument/classreading/ClassFileReaderTest$Target", metadata.getClassName());
+        assertEquals("java/util/ArrayList", metadata.getSuperClassName());
+        assertEquals(Arrays.asList("java/lang/Runnable", "java/io/Serializable"), metadata.getInterfaceNames());
+        assertTrue(metadata.getAnnotationNames().contains("com/navercorp/pinpoint/profiler/instrument/classreading/ClassFileReaderTest$Marker"));
+        assertTrue(metadata.getAnnotationNames().contains("java/lang/Deprecated"));
+        assertFalse(metadata.isInterface());
+    }
+
+    @Test
+    public void readMetadata_interface() {
+        byte[] classFile = BytecodeUtils.getClassFile(null, Runnable.class.getName());
+
+        ClassFileMetadata metadata = ClassFileReader.readMetadata(classFile);
+        assertEquals("java/lang/Runnable", metadata.getClassName());
+        assertTrue(metadata.isInterface());
+    }
+
+    @Test
+    public void readMetadata_object() {
+        byte[] classFile = BytecodeUtils.getClassFile(null, Object.class.getName());
+
+        ClassFileMetadata metadata = ClassFileReader.readMetadata(classFile);
+        assertNull(metadata.getSuperClassName());
+    }
+
+    @Test
+    public void containsUtf8() {
+        byte[] classFile = BytecodeUtils.getClassFile(Target.class.getClassLoader(), Target.class.getName());
+
+        assertTrue(ClassFileReader.containsUtf8(classFile, new Utf8KeySet(Arrays.asList("java/lang/Runnable"))));
+        assertTrue(ClassFileReader.containsUtf8(classFile, new Utf8KeySet(Arrays.asList("java/sql/Connection", "java/util/ArrayList"))));
+        assertFalse(ClassFileReader.containsUtf8(classFile, new Utf8KeySet(Arrays.asList("java/sql/Connection"))));
+        assertFalse(ClassFileReader.containsUtf8(classFile, new Utf8KeySet(Collections.<String>emptyList())));
+    }
+
+    @Test
+    public void containsUtf8_invalidClassFile() {
+        assertFalse(ClassFileReader.containsUtf8(new byte[] {1, 2, 3}, new Utf8KeySet(Arrays.asList("java/lang/Runnable"))));
+
+        byte[] classFile = BytecodeUtils.getClassFile(Target.class.getClassLoader(), Target.class.getName());
+        byte[] truncated = Arrays.copyOf(classFile, 32);
+        assertFalse(ClassFileReader.containsUtf8(truncated, new Utf8KeySet(Arrays.asList("java/lang/Runnable"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readMetadata_invalidClassFile() {
+        ClassFileReader.readMetadata(new byte[] {1, 2, 3});
+    }
+}
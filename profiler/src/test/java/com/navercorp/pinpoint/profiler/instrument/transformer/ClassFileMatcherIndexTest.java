@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.instrument.transformer;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.io.InputStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+import org.junit.Test;
+
+import com.navercorp.pinpoint.bootstrap.instrument.matcher.Matchers;
+import com.navercorp.pinpoint.test.util.BytecodeUtils;
+
+public class ClassFileMatcherIndexTest {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Marker {
+    }
+
+    @Marker
+    public static class Annotated {
+    }
+
+    public static class Child extends ArrayList<String> {
+    }
+
+    public static class GrandChild extends Child {
+    }
+
+    public interface SubRunnable extends Runnable {
+    }
+
+    public static class RunnableImpl implements SubRunnable {
+        @Override
+        public void run() {
+        }
+    }
+
+    @Test
+    public void superClass() {
+        ClassFileTransformer transformer = mock(ClassFileTransformer.class);
+        ClassFileMatcherIndex index = new ClassFileMatcherIndex();
+        index.addTransformer(Matchers.newSuperClassMatcher("java.util.ArrayList"), transformer);
+
+        assertSame(transformer, find(index, Child.class));
+        assertNull(find(index, GrandChild.class));
+        assertNull(find(index, Annotated.class));
+    }
+
+    @Test
+    public void superClass_considerHierarchy() {
+        ClassFileTransformer transformer = mock(ClassFileTransformer.class);
+        ClassFileMatcherIndex index = new ClassFileMatcherIndex();
+        index.addTransformer(Matchers.newSuperClassMatcher(AbstractList.class.getName(), true), transformer);
+
+        assertSame(transformer, find(index, Child.class));
+        assertSame(transformer, find(index, GrandChild.class));
+        assertNull(find(index, Annotated.class));
+    }
+
+    @Test
+    public void interfaceMatcher() {
+        ClassFileTransformer transformer = mock(ClassFileTransformer.class);
+        ClassFileMatcherIndex index = new ClassFileMatcherIndex();
+        index.addTransformer(Matchers.newInterfaceMatcher(SubRunnable.class.getName()), transformer);
+
+        assertSame(transformer, find(index, RunnableImpl.class));
+        assertNull(find(index, Child.class));
+    }
+
+    @Test
+    public void interfaceMatcher_considerHierarchy() {
+        ClassFileTransformer runnableTransformer = mock(ClassFileTransformer.class);
+        ClassFileTransformer collectionTransformer = mock(ClassFileTransformer.class);
+        ClassFileMatcherIndex index = new ClassFileMatcherIndex();
+        index.addTransformer(Matchers.newInterfaceMatcher(Runnable.class.getName(), true), runnableTransformer);
+        index.addTransformer(Matchers.newInterfaceMatcher(RandomAccess.class.getName(), true), collectionTransformer);
+
+        assertSame(runnableTransformer, find(index, RunnableImpl.class));
+        assertSame(collectionTransformer, find(index, GrandChild.class));
+        // interfaces are not transformed
+        assertNull(find(index, SubRunnable.class));
+        assertNull(find(index, Annotated.class));
+    }
+
+    @Test
+    public void superTypeCache() {
+        ClassFileTransformer transformer = mock(ClassFileTransformer.class);
+        ClassFileMatcherIndex index = new ClassFileMatcherIndex();
+        index.addTransformer(Matchers.newInterfaceMatcher(Runnable.class.getName(), true), transformer);
+
+        CountingClassLoader classLoader = new CountingClassLoader(GrandChild.class.getClassLoader());
+        assertNull(index.findTransformer(classLoader, toJvmName(GrandChild.class), getClassFile(GrandChild.class)));
+        final int readCount = classLoader.count;
+        assertTrue(readCount > 0);
+
+        // super types of the first lookup are not read again
+        assertNull(index.findTransformer(classLoader, toJvmName(GrandChild.class), getClassFile(GrandChild.class)));
+        assertNull(index.findTransformer(classLoader, toJvmName(Child.class), getClassFile(Child.class)));
+        assertEquals(readCount, classLoader.count);
+    }
+
+    @Test
+    public void annotation() {
+        ClassFileTransformer transformer = mock(ClassFileTransformer.class);
+        ClassFileMatcherIndex index = new ClassFileMatcherIndex();
+        index.addTransformer(Matchers.newAnnotationMatcher(Marker.class.getName()), transformer);
+
+        assertSame(transformer, find(index, Annotated.class));
+        assertNull(find(index, Child.class));
+    }
+
+    @Test
+    public void packageMatcher() {
+        ClassFileTransformer transformer = mock(ClassFileTransformer.class);
+        ClassFileMatcherIndex index = new ClassFileMatcherIndex();
+        index.addTransformer(Matchers.newPackageMatcher("com.navercorp.pinpoint.profiler.instrument"), transformer);
+
+        assertSame(transformer, index.findTransformer(null, "com/navercorp/pinpoint/profiler/instrument/transformer/Test", null));
+        assertNull(index.findTransformer(null, "com/navercorp/pinpoint/profiler/instrumentation/Test", null));
+    }
+
+    @Test
+    public void registry() {
+        ClassFileTransformer nameTransformer = mock(ClassFileTransformer.class);
+        ClassFileTransformer superClassTransformer = mock(ClassFileTransformer.class);
+        DefaultTransformerRegistry registry = new DefaultTransformerRegistry();
+        registry.addTransformer(Matchers.newClassNameMatcher(Child.class.getName()), nameTransformer);
+        registry.addTransformer(Matchers.newSuperClassMatcher(Child.class.getName()), superClassTransformer);
+
+        assertSame(nameTransformer, registry.findTransformer(null, toJvmName(Child.class), getClassFile(Child.class)));
+        assertSame(superClassTransformer, registry.findTransformer(null, toJvmName(GrandChild.class), getClassFile(GrandChild.class)));
+        assertNull(registry.findTransformer(null, toJvmName(Collection.class), getClassFile(Collection.class)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedMatcher() {
+        new ClassFileMatcherIndex().addTransformer(Matchers.newClassNameMatcher("java.lang.String"), mock(ClassFileTransformer.class));
+    }
+
+    private static class CountingClassLoader extends ClassLoader {
+        private int count;
+
+        private CountingClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            count++;
+            return super.getResourceAsStream(name);
+        }
+    }
+
+    private ClassFileTransformer find(ClassFileMatcherIndex index, Class<?> clazz) {
+        return index.findTransformer(clazz.getClassLoader(), toJvmName(clazz), getClassFile(clazz));
+    }
+
+    private byte[] getClassFile(Class<?> clazz) {
+        return BytecodeUtils.getClassFile(clazz.getClassLoader(), clazz.getName());
+    }
+
+    private String toJvmName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
+    }
+}
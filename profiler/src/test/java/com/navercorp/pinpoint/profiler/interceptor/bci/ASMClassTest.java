@@ -0,0 +1,294 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.interceptor.bci;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.security.ProtectionDomain;
+import java.util.Properties;
+
+import com.navercorp.pinpoint.bootstrap.config.DefaultProfilerConfig;
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
+import com.navercorp.pinpoint.bootstrap.instrument.ClassFilters;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClass;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentException;
+import com.navercorp.pinpoint.bootstrap.instrument.InstrumentMethod;
+import com.navercorp.pinpoint.bootstrap.instrument.Instrumentor;
+import com.navercorp.pinpoint.bootstrap.instrument.transformer.TransformCallback;
+import com.navercorp.pinpoint.bootstrap.interceptor.Interceptor;
+import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.profiler.DefaultAgent;
+import com.navercorp.pinpoint.profiler.instrument.ASMClassPool;
+import com.navercorp.pinpoint.profiler.instrument.JavassistClassPool;
+import com.navercorp.pinpoint.profiler.interceptor.registry.GlobalInterceptorRegistryBinder;
+import com.navercorp.pinpoint.profiler.logging.Slf4jLoggerBinder;
+import com.navercorp.pinpoint.test.MockAgent;
+import com.navercorp.pinpoint.test.TestClassLoader;
+import com.navercorp.pinpoint.test.util.BytecodeUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ASMClassTest {
+
+    private final Logger logger = LoggerFactory.getLogger(ASMClassTest.class.getName());
+
+    private static final String INTERCEPTOR = "com.navercorp.pinpoint.profiler.interceptor.bci.ASMTestInterceptor";
+
+    @Before
+    public void clear() {
+        TestInterceptors.clear();
+    }
+
+    private byte[] readByteCode(String className) {
+        final ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+        return BytecodeUtils.getClassFile(classLoader, className);
+    }
+
+    private ASMClassPool newClassPool() {
+        final GlobalInterceptorRegistryBinder binder = new GlobalInterceptorRegistryBinder();
+        return new ASMClassPool(binder, new JavassistClassPool(binder, null), null);
+    }
+
+    @Test
+    public void testClassHierarchy() throws InstrumentException {
+        ASMClassPool pool = newClassPool();
+
+        final String classHierarchyTestMockName = "com.navercorp.pinpoint.profiler.interceptor.bci.ClassHierarchyTestMock";
+        byte[] classHierarchyTestMockByteCode = readByteCode(classHierarchyTestMockName);
+        InstrumentClass classHierarchyObject = pool.getClass(null, null, classHierarchyTestMockName, classHierarchyTestMockByteCode);
+
+        Assert.assertEquals(classHierarchyTestMockName, classHierarchyObject.getName());
+        Assert.assertEquals("java.util.HashMap", classHierarchyObject.getSuperClass());
+
+        String[] hierarchyInterfaces = classHierarchyObject.getInterfaces();
+        Assert.assertEquals(2, hierarchyInterfaces.length);
+        Assert.assertEquals("java.lang.Runnable", hierarchyInterfaces[0]);
+        Assert.assertEquals("java.lang.Comparable", hierarchyInterfaces[1]);
+
+        // inherited from java.util.HashMap
+        Assert.assertTrue(classHierarchyObject.hasMethod("put", "java.lang.Object", "java.lang.Object"));
+        Assert.assertFalse(classHierarchyObject.hasDeclaredMethod("put", "java.lang.Object", "java.lang.Object"));
+    }
+
+    @Test
+    public void testDeclaredMethod() throws InstrumentException {
+        ASMClassPool pool = newClassPool();
+
+        String testObjectName = "com.navercorp.pinpoint.profiler.interceptor.bci.ASMTestObject";
+        InstrumentClass testObject = pool.getClass(null, null, testObjectName, readByteCode(testObjectName));
+
+        InstrumentMethod concat = testObject.getDeclaredMethod("concat", "java.lang.String", "int");
+        Assert.assertNotNull(concat);
+        Assert.assertArrayEquals(new String[]{"java.lang.String", "int"}, concat.getParameterTypes());
+        Assert.assertEquals("java.lang.String", concat.getReturnType());
+        Assert.assertArrayEquals(new String[]{"value", "count"}, concat.getDescriptor().getParameterVariableName());
+
+        InstrumentMethod constructor = testObject.getConstructor("java.lang.String");
+        Assert.assertNotNull(constructor);
+        Assert.assertTrue(constructor.isConstructor());
+        Assert.assertEquals("ASMTestObject", constructor.getName());
+
+        Assert.assertTrue(testObject.hasConstructor());
+        Assert.assertTrue(testObject.hasField("prefix", "java.lang.String"));
+        Assert.assertFalse(testObject.hasField("prefix", "int"));
+        // constructors are not declared methods
+        Assert.assertEquals(5, testObject.getDeclaredMethods().size());
+    }
+
+    @Test
+    public void testAroundInterceptor() throws Exception {
+        final TestClassLoader loader = getTestClassLoader();
+        final String targetClassName = "com.navercorp.pinpoint.profiler.interceptor.bci.ASMTestObject";
+
+        loader.addTransformer(targetClassName, new TransformCallback() {
+            @Override
+            public byte[] doInTransform(Instrumentor instrumentor, ClassLoader classLoader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws InstrumentException {
+                InstrumentClass aClass = instrumentor.getInstrumentClass(classLoader, className, classfileBuffer);
+                aClass.getDeclaredMethod("concat", "java.lang.String", "int").addInterceptor(INTERCEPTOR);
+                aClass.getDeclaredMethod("sign", "long").addInterceptor(INTERCEPTOR);
+                aClass.getDeclaredMethod("sum", "int", "int").addInterceptor(INTERCEPTOR);
+                aClass.getDeclaredMethod("parse", "java.lang.String").addInterceptor(INTERCEPTOR);
+                aClass.getDeclaredMethod("fail", "java.lang.String").addInterceptor(INTERCEPTOR);
+                aClass.getConstructor("java.lang.String").addInterceptor(INTERCEPTOR);
+                return aClass.toBytecode();
+            }
+        });
+        loader.initialize();
+
+        final Class<?> testObjectClazz = loader.loadClass(targetClassName);
+        final Object testObject = testObjectClazz.getConstructor(String.class).newInstance("p-");
+
+        Interceptor constructorInterceptor = getInterceptor(loader, 5);
+        assertEqualsIntField(constructorInterceptor, "afterCall", 1);
+        assertEqualsObjectField(constructorInterceptor, "target", testObject);
+        Assert.assertArrayEquals(new Object[]{"p-"}, (Object[]) getField(constructorInterceptor, "args"));
+
+        Object concat = testObjectClazz.getMethod("concat", String.class, int.class).invoke(testObject, "a", 3);
+        Assert.assertEquals("p-aaa", concat);
+        Interceptor concatInterceptor = getInterceptor(loader, 0);
+        assertEqualsIntField(concatInterceptor, "beforeCall", 1);
+        assertEqualsIntField(concatInterceptor, "afterCall", 1);
+        Assert.assertArrayEquals(new Object[]{"a", 3}, (Object[]) getField(concatInterceptor, "args"));
+        assertEqualsObjectField(concatInterceptor, "result", "p-aaa");
+
+        // multiple return & wide type
+        Method sign = testObjectClazz.getMethod("sign", long.class);
+        Assert.assertEquals(-1L, sign.invoke(testObject, -10L));
+        Assert.assertEquals(0L, sign.invoke(testObject, 0L));
+        Assert.assertEquals(1L, sign.invoke(testObject, 10L));
+        Interceptor signInterceptor = getInterceptor(loader, 1);
+        assertEqualsIntField(signInterceptor, "afterCall", 3);
+        assertEqualsObjectField(signInterceptor, "result", 1L);
+
+        // static method
+        Assert.assertEquals(3, testObjectClazz.getMethod("sum", int.class, int.class).invoke(null, 1, 2));
+        Interceptor sumInterceptor = getInterceptor(loader, 2);
+        assertEqualsObjectField(sumInterceptor, "target", null);
+        assertEqualsObjectField(sumInterceptor, "result", 3);
+
+        // exception handled in the original code
+        Assert.assertEquals(-1, testObjectClazz.getMethod("parse", String.class).invoke(testObject, "NaN"));
+        Interceptor parseInterceptor = getInterceptor(loader, 3);
+        assertEqualsObjectField(parseInterceptor, "result", -1);
+        assertEqualsObjectField(parseInterceptor, "throwable", null);
+
+        // exception thrown to the caller
+        try {
+            testObjectClazz.getMethod("fail", String.class).invoke(testObject, "error");
+            Assert.fail();
+        } catch (InvocationTargetException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Interceptor failInterceptor = getInterceptor(loader, 4);
+        assertEqualsIntField(failInterceptor, "afterCall", 1);
+        assertEqualsObjectField(failInterceptor, "result", null);
+        Assert.assertTrue(getField(failInterceptor, "throwable") instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testInterceptorChain() throws Exception {
+        final TestClassLoader loader = getTestClassLoader();
+        final String targetClassName = "com.navercorp.pinpoint.profiler.interceptor.bci.TestObject2";
+
+        loader.addTransformer(targetClassName, new TransformCallback() {
+            @Override
+            public byte[] doInTransform(Instrumentor instrumentor, ClassLoader classLoader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws InstrumentException {
+                InstrumentClass aClass = instrumentor.getInstrumentClass(classLoader, className, classfileBuffer);
+                InstrumentMethod callA = aClass.getDeclaredMethod("callA");
+                callA.addInterceptor(INTERCEPTOR);
+                callA.addInterceptor("com.navercorp.pinpoint.profiler.interceptor.TestAfterInterceptor");
+                return aClass.toBytecode();
+            }
+        });
+        loader.initialize();
+
+        final Class<?> testObjectClazz = loader.loadClass(targetClassName);
+        final Object testObject = testObjectClazz.newInstance();
+        Object result = testObjectClazz.getMethod("callA").invoke(testObject);
+
+        Interceptor aroundInterceptor = getInterceptor(loader, 0);
+        assertEqualsIntField(aroundInterceptor, "afterCall", 1);
+        assertEqualsObjectField(aroundInterceptor, "result", result);
+
+        Interceptor afterInterceptor = getInterceptor(loader, 1);
+        assertEqualsIntField(afterInterceptor, "call", 1);
+        assertEqualsObjectField(afterInterceptor, "methodName", "callA");
+        assertEqualsObjectField(afterInterceptor, "result", result);
+    }
+
+    @Test
+    public void testAddGetterAndSetter() throws Exception {
+        final TestClassLoader loader = getTestClassLoader();
+        final String targetClassName = "com.navercorp.pinpoint.profiler.interceptor.bci.TestObject4";
+
+        loader.addTransformer(targetClassName, new TransformCallback() {
+            @Override
+            public byte[] doInTransform(Instrumentor instrumentor, ClassLoader classLoader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws InstrumentException {
+                InstrumentClass testClass = instrumentor.getInstrumentClass(classLoader, className, classfileBuffer);
+                testClass.addField(ObjectTraceValue.class.getName());
+                testClass.addGetter(IntGetter.class.getName(), "intValue");
+                testClass.addSetter(IntSetter.class.getName(), "intValue");
+                return testClass.toBytecode();
+            }
+        });
+        loader.initialize();
+
+        Object testObject = loader.loadClass(targetClassName).newInstance();
+
+        Class<?> objectTraceValue = loader.loadClass(ObjectTraceValue.class.getName());
+        Assert.assertTrue(objectTraceValue.isInstance(testObject));
+        objectTraceValue.getMethod("_$PINPOINT$_setTraceObject", Object.class).invoke(testObject, "a");
+        Assert.assertEquals("a", objectTraceValue.getMethod("_$PINPOINT$_getTraceObject").invoke(testObject));
+
+        Class<?> intSetter = loader.loadClass(IntSetter.class.getName());
+        Class<?> intGetter = loader.loadClass(IntGetter.class.getName());
+        intSetter.getMethod("_$PINPOINT$_setInt", int.class).invoke(testObject, 99);
+        Assert.assertEquals(99, intGetter.getMethod("_$PINPOINT$_getInt").invoke(testObject));
+        Assert.assertEquals(99, testObject.getClass().getMethod("getIntValue").invoke(testObject));
+    }
+
+    @Test
+    public void getNestedClasses() throws Exception {
+        ASMClassPool pool = newClassPool();
+        String testObjectName = "com.navercorp.pinpoint.profiler.interceptor.bci.TestObjectNestedClass";
+
+        InstrumentClass testObject = pool.getClass(null, ClassLoader.getSystemClassLoader(), testObjectName, readByteCode(testObjectName));
+
+        final String targetClassName = "com.navercorp.pinpoint.profiler.interceptor.bci.TestObjectNestedClass$InstanceInner";
+        Assert.assertEquals(1, testObject.getNestedClasses(ClassFilters.name(targetClassName)).size());
+        Assert.assertEquals(2, testObject.getNestedClasses(ClassFilters.enclosingMethod("annonymousInnerClass")).size());
+        Assert.assertEquals(2, testObject.getNestedClasses(ClassFilters.interfaze("java.util.concurrent.Callable")).size());
+        Assert.assertEquals(1, testObject.getNestedClasses(ClassFilters.enclosingMethod("enclosingMethod", "java.lang.String", "int")).size());
+        Assert.assertEquals(0, testObject.getNestedClasses(ClassFilters.enclosingMethod("enclosingMethod", "int")).size());
+    }
+
+    private TestClassLoader getTestClassLoader() {
+        PLoggerFactory.initialize(new Slf4jLoggerBinder());
+
+        Properties properties = new Properties();
+        properties.setProperty("profiler.instrument.engine", DefaultProfilerConfig.INSTRUMENT_ENGINE_ASM);
+        ProfilerConfig profilerConfig = new DefaultProfilerConfig(properties);
+        profilerConfig.setApplicationServerType(ServiceType.TEST_STAND_ALONE.getName());
+        DefaultAgent agent = MockAgent.of(profilerConfig);
+        Assert.assertTrue(agent.getInstrumentClassPool() instanceof ASMClassPool);
+
+        return new TestClassLoader(agent);
+    }
+
+    private Interceptor getInterceptor(final TestClassLoader loader, int index) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException, ClassNotFoundException {
+        return (Interceptor) loader.loadClass("com.navercorp.pinpoint.profiler.interceptor.bci.TestInterceptors").getMethod("get", int.class).invoke(null, index);
+    }
+
+    private Object getField(Object target, String fieldName) throws NoSuchFieldException, IllegalAccessException {
+        Field field = target.getClass().getField(fieldName);
+        return field.get(target);
+    }
+
+    private void assertEqualsIntField(Object target, String fieldName, int value) throws NoSuchFieldException, IllegalAccessException {
+        Field field = target.getClass().getField(fieldName);
+        Assert.assertEquals(value, field.getInt(target));
+    }
+
+    private void assertEqualsObjectField(Object target, String fieldName, Object value) throws NoSuchFieldException, IllegalAccessException {
+        Assert.assertEquals(value, getField(target, fieldName));
+    }
+}
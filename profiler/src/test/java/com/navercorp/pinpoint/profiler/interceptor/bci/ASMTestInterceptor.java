@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.interceptor.bci;
+
+import com.navercorp.pinpoint.bootstrap.interceptor.AroundInterceptor;
+
+public class ASMTestInterceptor implements AroundInterceptor {
+
+    public int beforeCall = 0;
+    public int afterCall = 0;
+    public Object target;
+    public Object[] args;
+    public Object result;
+    public Throwable throwable;
+
+    public ASMTestInterceptor() {
+        TestInterceptors.add(this);
+    }
+
+    @Override
+    public void before(Object target, Object[] args) {
+        this.beforeCall++;
+        this.target = target;
+        this.args = args;
+    }
+
+    @Override
+    public void after(Object target, Object[] args, Object result, Throwable throwable) {
+        this.afterCall++;
+        this.result = result;
+        this.throwable = throwable;
+    }
+}
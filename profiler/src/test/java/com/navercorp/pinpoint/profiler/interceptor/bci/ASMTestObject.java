@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.interceptor.bci;
+
+public class ASMTestObject {
+
+    private final String prefix;
+
+    public ASMTestObject() {
+        this("default");
+    }
+
+    public ASMTestObject(String prefix) {
+        super();
+        this.prefix = new StringBuilder(prefix).toString();
+    }
+
+    public String concat(String value, int count) {
+        final StringBuilder buffer = new StringBuilder(prefix);
+        for (int i = 0; i < count; i++) {
+            buffer.append(value);
+        }
+        return buffer.toString();
+    }
+
+    public long sign(long value) {
+        if (value < 0) {
+            return -1L;
+        }
+        if (value == 0) {
+            return 0L;
+        }
+        return 1L;
+    }
+
+    public static int sum(int a, int b) {
+        return a + b;
+    }
+
+    public int parse(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public void fail(String message) {
+        throw new IllegalStateException(message);
+    }
+}
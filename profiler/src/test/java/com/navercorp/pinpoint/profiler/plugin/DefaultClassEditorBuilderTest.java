@@ -50,7 +50,7 @@ public class DefaultClassEditorBuilderTest {
         Class<?>[] parameterTypes = new Class<?>[] { String.class };
         String[] parameterTypeNames = TypeUtils.toClassNames(parameterTypes);
         
-        when(agent.getClassPool()).thenReturn(pool);
+        when(agent.getInstrumentClassPool()).thenReturn(pool);
         when(agent.getTraceContext()).thenReturn(traceContext);
         when(pool.getClass(context, classLoader, className, classFileBuffer)).thenReturn(aClass);
         when(aClass.getDeclaredMethod(methodName, parameterTypeNames)).thenReturn(aMethod);
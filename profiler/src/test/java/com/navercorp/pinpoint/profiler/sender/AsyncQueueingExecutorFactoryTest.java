@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import com.navercorp.pinpoint.profiler.sender.queue.ExecutorQueueType;
+import com.navercorp.pinpoint.profiler.sender.queue.WaitStrategyType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncQueueingExecutorFactoryTest {
+
+    @Test
+    public void parseQueueType() {
+        Assert.assertEquals(ExecutorQueueType.RINGBUFFER, AsyncQueueingExecutorFactory.parseQueueType("RINGBUFFER"));
+        Assert.assertEquals(ExecutorQueueType.RINGBUFFER, AsyncQueueingExecutorFactory.parseQueueType(" ringbuffer "));
+    }
+
+    @Test
+    public void parseQueueType_unknown() {
+        Assert.assertEquals(ExecutorQueueType.BLOCKING, AsyncQueueingExecutorFactory.parseQueueType("RING_BUFFER"));
+        Assert.assertEquals(ExecutorQueueType.BLOCKING, AsyncQueueingExecutorFactory.parseQueueType(""));
+        Assert.assertEquals(ExecutorQueueType.BLOCKING, AsyncQueueingExecutorFactory.parseQueueType(null));
+    }
+
+    @Test
+    public void parseWaitStrategyType() {
+        Assert.assertEquals(WaitStrategyType.YIELDING, AsyncQueueingExecutorFactory.parseWaitStrategyType("yielding"));
+        Assert.assertEquals(WaitStrategyType.BLOCKING, AsyncQueueingExecutorFactory.parseWaitStrategyType("spin"));
+        Assert.assertEquals(WaitStrategyType.BLOCKING, AsyncQueueingExecutorFactory.parseWaitStrategyType(null));
+    }
+
+    @Test
+    public void create_unknownTypeName() {
+        AsyncQueueingExecutorFactory factory = new AsyncQueueingExecutorFactory("linked", "busy", AsyncQueueingExecutor.DEFAULT_MAX_DRAIN_SIZE);
+        AsyncQueueingExecutor<Object> executor = factory.create(16, "Pinpoint-AsyncQueueingExecutorFactoryTest");
+        try {
+            Assert.assertTrue(executor.execute(new Object()));
+        } finally {
+            executor.stop();
+        }
+    }
+}
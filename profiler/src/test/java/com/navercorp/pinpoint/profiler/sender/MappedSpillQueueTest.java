@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+public class MappedSpillQueueTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void offerAndPoll() throws IOException {
+        MappedSpillQueue queue = new MappedSpillQueue(temporaryFolder.newFile(), 1024);
+        try {
+            Assert.assertTrue(queue.offer(0, new byte[]{1, 2, 3}));
+            Assert.assertTrue(queue.offer(SpillStorage.SEND_ONLY, new byte[]{4}));
+            Assert.assertEquals(2, queue.size());
+
+            RetryMessage first = queue.poll();
+            Assert.assertEquals(0, first.getRetryCount());
+            Assert.assertArrayEquals(new byte[]{1, 2, 3}, first.getBytes());
+
+            RetryMessage second = queue.poll();
+            Assert.assertEquals(SpillStorage.SEND_ONLY, second.getRetryCount());
+            Assert.assertArrayEquals(new byte[]{4}, second.getBytes());
+
+            Assert.assertNull(queue.poll());
+            Assert.assertTrue(queue.isEmpty());
+        } finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    public void capacity() throws IOException {
+        // header 8 + body 8
+        MappedSpillQueue queue = new MappedSpillQueue(temporaryFolder.newFile(), 32);
+        try {
+            Assert.assertTrue(queue.offer(0, new byte[8]));
+            Assert.assertTrue(queue.offer(0, new byte[8]));
+            Assert.assertFalse(queue.offer(0, new byte[0]));
+            Assert.assertFalse(queue.offer(0, new byte[100]));
+            Assert.assertEquals(2, queue.size());
+
+            queue.poll();
+            Assert.assertTrue(queue.offer(0, new byte[8]));
+        } finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    public void wrapAround() throws IOException {
+        MappedSpillQueue queue = new MappedSpillQueue(temporaryFolder.newFile(), 40);
+        try {
+            for (int i = 0; i < 100; i++) {
+                byte[] first = new byte[]{(byte) i, 1, 2, 3, 4, 5, 6};
+                byte[] second = new byte[]{(byte) i, 7, 8};
+                Assert.assertTrue(queue.offer(i, first));
+                Assert.assertTrue(queue.offer(i + 1, second));
+
+                RetryMessage message = queue.poll();
+                Assert.assertEquals(i, message.getRetryCount());
+                Assert.assertArrayEquals(first, message.getBytes());
+                // keep one record so that positions keep moving around the ring
+                Assert.assertTrue(queue.offer(i + 2, first));
+                Assert.assertArrayEquals(second, queue.poll().getBytes());
+                Assert.assertArrayEquals(first, queue.poll().getBytes());
+                Assert.assertTrue(queue.isEmpty());
+                Assert.assertTrue(queue.offer(i, second));
+                Assert.assertArrayEquals(second, queue.poll().getBytes());
+            }
+        } finally {
+            queue.close();
+        }
+    }
+
+    @Test
+    public void close() throws IOException {
+        File file = temporaryFolder.newFile();
+        MappedSpillQueue queue = new MappedSpillQueue(file, 1024);
+        queue.offer(0, new byte[10]);
+        queue.close();
+
+        Assert.assertFalse(queue.offer(0, new byte[10]));
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test
+    public void metadataFirst() throws IOException {
+        MappedSpillQueue metadataQueue = new MappedSpillQueue(temporaryFolder.newFile(), 1024);
+        MappedSpillQueue dataQueue = new MappedSpillQueue(temporaryFolder.newFile(), 1024);
+        SpillStorage spillStorage = new SpillStorage(metadataQueue, dataQueue, 10);
+        try {
+            spillStorage.offer(SpillStorage.SEND_ONLY, new byte[]{1});
+            spillStorage.offer(0, new byte[]{2});
+            spillStorage.offer(SpillStorage.SEND_ONLY, new byte[]{3});
+            spillStorage.offer(1, new byte[]{4});
+            Assert.assertEquals(4, spillStorage.size());
+
+            Assert.assertArrayEquals(new byte[]{2}, spillStorage.poll().getBytes());
+            Assert.assertArrayEquals(new byte[]{4}, spillStorage.poll().getBytes());
+            Assert.assertArrayEquals(new byte[]{1}, spillStorage.poll().getBytes());
+            Assert.assertArrayEquals(new byte[]{3}, spillStorage.poll().getBytes());
+            Assert.assertTrue(spillStorage.isEmpty());
+        } finally {
+            spillStorage.close();
+        }
+    }
+}
@@ -28,7 +28,9 @@ import com.navercorp.pinpoint.thrift.dto.TApiMetaData;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.SocketUtils;
@@ -48,6 +50,9 @@ public class TcpDataSenderTest {
     public static final int PORT = SocketUtils.findAvailableTcpPort(50050);
     public static final String HOST = "127.0.0.1";
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private PinpointServerAcceptor serverAcceptor;
     private CountDownLatch sendLatch;
 
@@ -86,6 +91,7 @@ public class TcpDataSenderTest {
     public void serverShutdown() {
         if (serverAcceptor != null) {
             serverAcceptor.close();
+            serverAcceptor = null;
         }
     }
 
@@ -118,6 +124,35 @@ public class TcpDataSenderTest {
         }
     }
     
+    @Test
+    public void spillWhileDisconnected() throws Exception {
+        serverShutdown();
+        this.sendLatch = new CountDownLatch(2);
+
+        PinpointClientFactory clientFactory = createPinpointClientFactory();
+        clientFactory.setReconnectDelay(200);
+        PinpointClient client = clientFactory.scheduledConnect(HOST, PORT);
+
+        SpillStorage spillStorage = SpillStorage.create(temporaryFolder.getRoot().getPath(), "test", 1024 * 16, 1024 * 16, 10);
+        TcpDataSender sender = new TcpDataSender(client, spillStorage);
+        try {
+            sender.send(new TApiMetaData("test", System.currentTimeMillis(), 1, "TestApi"));
+            sender.send(new TApiMetaData("test", System.currentTimeMillis(), 2, "TestApi"));
+
+            Assert.assertFalse(sendLatch.await(500, TimeUnit.MILLISECONDS));
+            Assert.assertEquals(2, spillStorage.size());
+
+            serverStart();
+            boolean received = sendLatch.await(5000, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(received);
+            Assert.assertTrue(spillStorage.isEmpty());
+        } finally {
+            sender.stop();
+            client.close();
+            clientFactory.release();
+        }
+    }
+
     private PinpointClientFactory createPinpointClientFactory() {
         PinpointClientFactory clientFactory = new PinpointClientFactory();
         clientFactory.setTimeoutMillis(1000 * 5);
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender.queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class MpscRingBufferQueueTest {
+
+    @Test
+    public void roundToPowerOfTwo() {
+        Assert.assertEquals(1, MpscRingBufferQueue.roundToPowerOfTwo(1));
+        Assert.assertEquals(4, MpscRingBufferQueue.roundToPowerOfTwo(3));
+        Assert.assertEquals(1024 * 8, MpscRingBufferQueue.roundToPowerOfTwo(1024 * 5));
+    }
+
+    @Test
+    public void offerAndPoll() throws InterruptedException {
+        MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<Integer>(4);
+        Assert.assertTrue(queue.isEmpty());
+
+        Assert.assertTrue(queue.offer(1));
+        Assert.assertTrue(queue.offer(2));
+        Assert.assertEquals(2, queue.size());
+        Assert.assertFalse(queue.isEmpty());
+
+        Assert.assertEquals(Integer.valueOf(1), queue.poll(1, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(Integer.valueOf(2), queue.poll(1, TimeUnit.MILLISECONDS));
+        Assert.assertNull(queue.poll(1, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void full() throws InterruptedException {
+        MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<Integer>(2);
+        Assert.assertTrue(queue.offer(1));
+        Assert.assertTrue(queue.offer(2));
+        Assert.assertFalse(queue.offer(3));
+        Assert.assertEquals(2, queue.size());
+
+        Assert.assertEquals(Integer.valueOf(1), queue.poll(1, TimeUnit.MILLISECONDS));
+        // slot released. wrap around
+        Assert.assertTrue(queue.offer(3));
+        Assert.assertEquals(Integer.valueOf(2), queue.poll(1, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(Integer.valueOf(3), queue.poll(1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void drainTo() {
+        MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<Integer>(8);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        List<Integer> drain = new ArrayList<Integer>();
+        Assert.assertEquals(3, queue.drainTo(drain, 3));
+        Assert.assertEquals(2, queue.drainTo(drain, 3));
+        Assert.assertEquals(0, queue.drainTo(drain, 3));
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(Integer.valueOf(i), drain.get(i));
+        }
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void pollInterrupted() throws InterruptedException {
+        MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<Integer>(2);
+        Thread.currentThread().interrupt();
+        queue.poll(1000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void blockingWaitStrategy() throws InterruptedException {
+        assertMultiProducer(new BlockingWaitStrategy());
+    }
+
+    @Test
+    public void sleepingWaitStrategy() throws InterruptedException {
+        assertMultiProducer(new SleepingWaitStrategy());
+    }
+
+    @Test
+    public void yieldingWaitStrategy() throws InterruptedException {
+        assertMultiProducer(new YieldingWaitStrategy());
+    }
+
+    private void assertMultiProducer(WaitStrategy waitStrategy) throws InterruptedException {
+        final int producerCount = 4;
+        final int messagePerProducer = 10000;
+        final MpscRingBufferQueue<Integer> queue = new MpscRingBufferQueue<Integer>(64, waitStrategy);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        for (int i = 0; i < producerCount; i++) {
+            final int producerId = i;
+            Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int sequence = 0; sequence < messagePerProducer; sequence++) {
+                        final Integer message = producerId * messagePerProducer + sequence;
+                        while (!queue.offer(message)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            producer.setDaemon(true);
+            producer.start();
+        }
+        startLatch.countDown();
+
+        // messages of each producer must be received in order
+        final int[] lastSequence = new int[producerCount];
+        for (int i = 0; i < producerCount; i++) {
+            lastSequence[i] = -1;
+        }
+        for (int i = 0; i < producerCount * messagePerProducer; i++) {
+            final Integer message = queue.poll(5000, TimeUnit.MILLISECONDS);
+            Assert.assertNotNull(message);
+            final int producerId = message / messagePerProducer;
+            final int sequence = message % messagePerProducer;
+            Assert.assertEquals(lastSequence[producerId] + 1, sequence);
+            lastSequence[producerId] = sequence;
+        }
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
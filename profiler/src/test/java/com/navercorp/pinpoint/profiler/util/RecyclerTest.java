@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RecyclerTest {
+
+    private static class PooledObject {
+        private final Recycler.Handle<PooledObject> handle;
+
+        private PooledObject(Recycler.Handle<PooledObject> handle) {
+            this.handle = handle;
+        }
+
+        private void recycle() {
+            handle.recycle(this);
+        }
+    }
+
+    private static class TestRecycler extends Recycler<PooledObject> {
+        private TestRecycler(int maxCapacityPerThread) {
+            super(maxCapacityPerThread);
+        }
+
+        @Override
+        protected PooledObject newObject(Handle<PooledObject> handle) {
+            return new PooledObject(handle);
+        }
+    }
+
+    @Test
+    public void recycleSameThread() {
+        TestRecycler recycler = new TestRecycler(4);
+        PooledObject object = recycler.get();
+        object.recycle();
+        Assert.assertEquals(1, recycler.localSize());
+
+        Assert.assertSame(object, recycler.get());
+        Assert.assertEquals(0, recycler.localSize());
+        Assert.assertNotSame(object, recycler.get());
+    }
+
+    @Test
+    public void discardIfFull() {
+        TestRecycler recycler = new TestRecycler(1);
+        PooledObject object1 = recycler.get();
+        PooledObject object2 = recycler.get();
+        object1.recycle();
+        object2.recycle();
+
+        Assert.assertEquals(1, recycler.localSize());
+    }
+
+    @Test
+    public void recycleOtherThread() throws InterruptedException {
+        TestRecycler recycler = new TestRecycler(4);
+        final PooledObject object = recycler.get();
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                object.recycle();
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // returned to the pool of the owner thread
+        Assert.assertSame(object, recycler.get());
+    }
+}
@@ -120,7 +120,7 @@ public class FilteredMapController {
         ApplicationMap map = filteredMapService.selectApplicationMap(limitedScanResult.getScanData(), originalRange, scannerRange, filter);
 
         if (logger.isDebugEnabled()) {
-            logger.debug("getFilteredServerMapData range scan(limit:{}) range:{} lastFetchedTimestamp:{}", limit, range.prettyToString(), DateUtils.longToDateStr(lastScanTime));
+            logger.debug("getFilteredServerMapData range scan(limit:{}, scanThreads:{}) range:{} lastFetchedTimestamp:{}", limit, limitedScanResult.getScanThreads(), range.prettyToString(), DateUtils.longToDateStr(lastScanTime));
         }
 
         FilterMapWrap mapWrap = new FilterMapWrap(map);
@@ -174,7 +174,7 @@ public class FilteredMapController {
         ApplicationMap map = filteredMapService.selectApplicationMapWithScatterData(limitedScanResult.getScanData(), originalRange, scannerRange, xGroupUnit, yGroupUnit, filter);
 
         if (logger.isDebugEnabled()) {
-            logger.debug("getFilteredServerMapData range scan(limit:{}) range:{} lastFetchedTimestamp:{}", limit, range.prettyToString(), DateUtils.longToDateStr(lastScanTime));
+            logger.debug("getFilteredServerMapData range scan(limit:{}, scanThreads:{}) range:{} lastFetchedTimestamp:{}", limit, limitedScanResult.getScanThreads(), range.prettyToString(), DateUtils.longToDateStr(lastScanTime));
         }
 
         FilterMapWrap mapWrap = new FilterMapWrap(map);
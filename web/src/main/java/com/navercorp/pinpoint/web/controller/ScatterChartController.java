@@ -24,6 +24,7 @@ import com.navercorp.pinpoint.web.scatter.ScatterData;
 import com.navercorp.pinpoint.web.service.FilteredMapService;
 import com.navercorp.pinpoint.web.service.ScatterChartService;
 import com.navercorp.pinpoint.web.util.LimitUtils;
+import com.navercorp.pinpoint.web.view.ScatterDataBinaryView;
 import com.navercorp.pinpoint.web.view.ServerTime;
 import com.navercorp.pinpoint.web.view.TransactionMetaDataViewModel;
 import com.navercorp.pinpoint.web.vo.LimitedScanResult;
@@ -38,6 +39,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.util.StopWatch;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -150,7 +152,9 @@ public class ScatterChartController {
             @RequestParam(value = "backwardDirection", required = false, defaultValue = "true") boolean backwardDirection,
             @RequestParam(value = "filter", required = false) String filterText,
             @RequestParam(value = "_callback", required = false) String jsonpCallback,
-            @RequestParam(value = "v", required = false, defaultValue = "1") int version) {
+            @RequestParam(value = "v", required = false, defaultValue = "1") int version,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = "Accept", required = false) String accept) {
         limit = LimitUtils.checkRange(limit);
 
         StopWatch watch = new StopWatch();
@@ -167,19 +171,32 @@ public class ScatterChartController {
             mv = selectFilterScatterData(applicationName, range, xGroupUnit, yGroupUnit, limit, backwardDirection, filterText, version);
         }
 
-        if (jsonpCallback == null) {
-            mv.setViewName("jsonView");
-        } else {
+        if (jsonpCallback != null) {
             mv.setViewName("jsonpView");
+        } else if (isBinaryFormat(format, accept) && mv.getModel().containsKey("scatter")) {
+            mv.setViewName("scatterBinaryView");
+        } else {
+            mv.setViewName("jsonView");
         }
 
         watch.stop();
 
-        logger.info("Fetch scatterData time : {}ms", watch.getLastTaskTimeMillis());
+        final Object scanThreads = mv.getModel().get("scanThreads");
+        logger.info("Fetch scatterData time : {}ms, scanThreads : {}", watch.getLastTaskTimeMillis(), scanThreads);
 
         return mv;
     }
 
+    /**
+     * the binary format of {@link ScatterDataBinaryView} is requested by format=binary or by its content type in the Accept header
+     */
+    private boolean isBinaryFormat(String format, String accept) {
+        if ("binary".equalsIgnoreCase(format)) {
+            return true;
+        }
+        return accept != null && accept.contains(ScatterDataBinaryView.CONTENT_TYPE);
+    }
+
     private ModelAndView selectScatterData(String applicationName, Range range, int xGroupUnit, int yGroupUnit, int limit, boolean backwardDirection, int version) {
         ModelAndView mv = null;
         if (version == 1) {
@@ -214,6 +231,7 @@ public class ScatterChartController {
         ModelAndView mv;
         if (version == 1) {
             ScatterData scatterData = scatter.selectScatterData(traceIdSet, applicationName, range, xGroupUnit, yGroupUnit, filter);
+            scatterData.setScanThreads(limitedScanResult.getScanThreads());
             if (logger.isDebugEnabled()) {
                 logger.debug("getScatterData range scan(limited:{}, backwardDirection:{}) from ~ to:{} ~ {}, limited:{}, filterDataSize:{}",
                         limit, backwardDirection, DateUtils.longToDateStr(range.getFrom()), DateUtils.longToDateStr(range.getTo()), DateUtils.longToDateStr(limitedScanResult.getLimitedTime()), traceIdList.size());
@@ -237,6 +255,7 @@ public class ScatterChartController {
         mv.addObject("resultTo", scatterData.getLatestAcceptedTime());
 
         mv.addObject("complete", complete);
+        mv.addObject("scanThreads", scatterData.getScanThreads());
         mv.addObject("scatter", scatterData);
 
         return mv;
@@ -36,6 +36,11 @@ public interface TraceDao {
     
     List<List<SpanBo>> selectAllSpans(Collection<TransactionId> transactionIdList);
 
+    /**
+     * streams the transactions to the handler batch by batch instead of materializing all of them
+     */
+    void selectAllSpans(Collection<TransactionId> transactionIdList, SpanBatchHandler handler);
+
     List<SpanBo> selectSpans(TransactionId transactionId);
     
 }
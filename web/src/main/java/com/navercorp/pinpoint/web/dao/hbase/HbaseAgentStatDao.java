@@ -29,12 +29,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.hbase.ResultsExtractor;
 import com.navercorp.pinpoint.common.hbase.RowMapper;
+import com.navercorp.pinpoint.common.server.bo.AgentStatBucketCodec;
+import com.navercorp.pinpoint.common.server.bo.AgentStatRollupBo;
+import com.navercorp.pinpoint.common.server.bo.AgentStatRollupType;
 import com.navercorp.pinpoint.common.util.BytesUtils;
 import com.navercorp.pinpoint.common.util.RowKeyUtils;
 import com.navercorp.pinpoint.common.util.TimeUtils;
@@ -50,6 +54,12 @@ import com.sematext.hbase.wd.AbstractRowKeyDistributor;
  */
 @Repository
 public class HbaseAgentStatDao implements AgentStatDao {
+
+    /**
+     * use the coarsest rollup that still yields this many samples over the requested range, one per inspector chart slot
+     */
+    private static final int MIN_ROLLUP_SAMPLES = 200;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
@@ -63,12 +73,24 @@ public class HbaseAgentStatDao implements AgentStatDao {
     @Qualifier("agentStatRowKeyDistributor")
     private AbstractRowKeyDistributor rowKeyDistributor;
 
+    @Autowired
+    @Qualifier("agentStatRollupMapper")
+    private RowMapper<AgentStat> agentStatRollupMapper;
+
+    // read the AgentStatRollup table only if the collectors maintain it (collector.agentStat.rollup.enable)
+    @Value("#{pinpointWebProps['web.agentStat.rollup.enable'] ?: false}")
+    private boolean rollupEnable = false;
+
     private int scanCacheSize = 256;
 
     public void setScanCacheSize(int scanCacheSize) {
         this.scanCacheSize = scanCacheSize;
     }
 
+    public void setRollupEnable(boolean rollupEnable) {
+        this.rollupEnable = rollupEnable;
+    }
+
     @Override
     public List<AgentStat> getAgentStatList(String agentId, Range range) {
         if (agentId == null) {
@@ -86,7 +108,9 @@ public class HbaseAgentStatDao implements AgentStatDao {
     }
     
     private List<AgentStat> getAgentStatListFromRaw(String agentId, Range range) {
-        Scan scan = createScan(agentId, range);
+        // bucketed rows are keyed by their first sample, so look back far enough to catch a bucket straddling range.from
+        Range scanRange = Range.createUncheckedRange(range.getFrom() - AgentStatBucketCodec.MAX_BUCKET_SPAN, range.getTo());
+        Scan scan = createScan(agentId, scanRange);
         scan.addFamily(HBaseTables.AGENT_STAT_CF_STATISTICS);
 
         List<List<AgentStat>> intermediate = hbaseOperations2.find(HBaseTables.AGENT_STAT, scan, rowKeyDistributor, agentStatMapper);
@@ -95,7 +119,12 @@ public class HbaseAgentStatDao implements AgentStatDao {
         List<AgentStat> merged = new ArrayList<>(expectedSize);
 
         for (List<AgentStat> each : intermediate) {
-            merged.addAll(each);
+            for (AgentStat agentStat : each) {
+                final long timestamp = agentStat.getTimestamp();
+                if (timestamp > range.getFrom() && timestamp <= range.getTo()) {
+                    merged.add(agentStat);
+                }
+            }
         }
 
         return merged;
@@ -113,6 +142,57 @@ public class HbaseAgentStatDao implements AgentStatDao {
             logger.debug("scanAgentStat : agentId={}, {}", agentId, range);
         }
 
+        AgentStatRollupType rollupType = getRollupType(range);
+        if (rollupType == null) {
+            return getAggregatedAgentStatListFromAggr(agentId, range);
+        }
+        return getAgentStatListFromRollup(agentId, range, rollupType);
+    }
+
+    /**
+     * @return rollup to read for the range, or null to read the AgentStatAggr and AgentStat tables
+     */
+    AgentStatRollupType getRollupType(Range range) {
+        if (!rollupEnable) {
+            return null;
+        }
+        return AgentStatRollupType.getCoarsest(range.getRange() / MIN_ROLLUP_SAMPLES);
+    }
+
+    private List<AgentStat> getAgentStatListFromRollup(String agentId, Range range, AgentStatRollupType rollupType) {
+        Scan scan = createRollupScan(agentId, range, rollupType);
+        List<AgentStat> rollups = hbaseOperations2.find(HBaseTables.AGENT_STAT_ROLLUP, scan, rowKeyDistributor, agentStatRollupMapper);
+
+        List<AgentStat> merged = new ArrayList<>(rollups.size());
+        for (AgentStat rollup : rollups) {
+            if (rollup != null) {
+                merged.add(rollup);
+            }
+        }
+        Collections.sort(merged, AgentStats.TIMESTAMP_COMPARATOR);
+
+        // windows the collector has not rolled up (e.g. before rollups were enabled) are filled from the older tables
+        final long resolution = rollupType.getResolution();
+        List<Range> missingRanges = new ArrayList<>();
+        long last = range.getFrom();
+        for (AgentStat stat : merged) {
+            if (last + resolution < stat.getTimestamp()) {
+                missingRanges.add(new Range(last, stat.getTimestamp()));
+            }
+            last = Math.max(last, stat.getTimestamp() + resolution);
+        }
+        if (last + resolution < range.getTo()) {
+            missingRanges.add(new Range(last, range.getTo()));
+        }
+
+        for (Range r : missingRanges) {
+            logger.debug("AgentStatRollup doesn't have range: {} of {}", r.prettyToString(), agentId);
+            merged.addAll(getAggregatedAgentStatListFromAggr(agentId, r));
+        }
+        return merged;
+    }
+
+    private List<AgentStat> getAggregatedAgentStatListFromAggr(String agentId, Range range) {
         Scan scan = createScan(agentId, range);
         scan.addFamily(HBaseTables.AGENT_STAT_CF_STATISTICS);
         
@@ -145,12 +225,12 @@ public class HbaseAgentStatDao implements AgentStatDao {
         }
         
         for (Range r : missingRanges) {
-            logger.debug("AgentStatAggr doesn't have range: " + r.prettyToString() + " of " + agentId);
+            logger.debug("AgentStatAggr doesn't have range: {} of {}", r.prettyToString(), agentId);
 
             List<AgentStat> list = getAgentStatListFromRaw(agentId, r);
             
             if (list.isEmpty()) {
-                logger.debug("AgentStat also doesn't have range: " + r.prettyToString() + " of " + agentId);
+                logger.debug("AgentStat also doesn't have range: {} of {}", r.prettyToString(), agentId);
                 continue;
             }
             
@@ -218,6 +298,24 @@ public class HbaseAgentStatDao implements AgentStatDao {
         return RowKeyUtils.concatFixedByteAndLong(bAgentId, AGENT_NAME_MAX_LEN, TimeUtils.reverseTimeMillis(timestamp));
     }
 
+    private Scan createRollupScan(String agentId, Range range, AgentStatRollupType rollupType) {
+        Scan scan = new Scan();
+        scan.setCaching(this.scanCacheSize);
+
+        // include the window range.getFrom() falls into
+        byte[] startKey = AgentStatRollupBo.createRowKey(agentId, rollupType, range.getFrom() - rollupType.getResolution());
+        byte[] endKey = AgentStatRollupBo.createRowKey(agentId, rollupType, range.getTo());
+
+        // start key is replaced by end key because key has been reversed
+        scan.setStartRow(endKey);
+        scan.setStopRow(startKey);
+
+        // every collector writes its own column of a window
+        scan.addFamily(HBaseTables.AGENT_STAT_CF_STATISTICS);
+        scan.setId("AgentStatRollupScan");
+        return scan;
+    }
+
     private Scan createScan(String agentId, Range range) {
         Scan scan = new Scan();
         scan.setCaching(this.scanCacheSize);
@@ -55,6 +55,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
@@ -67,8 +68,6 @@ import java.util.List;
 @Repository
 public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
 
-    private static final int APPLICATION_TRACE_INDEX_NUM_PARTITIONS = 32;
-
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
@@ -86,12 +85,20 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
     @Qualifier("applicationTraceIndexDistributor")
     private AbstractRowKeyDistributor traceIdRowKeyDistributor;
 
+    // salt buckets are distributed over the threads and merged back in row key order
+    @Value("#{pinpointWebProps['web.hbase.applicationTraceIndex.threads'] ?: 32}")
+    private int scanThreads;
+
     private int scanCacheSize = 256;
 
     public void setScanCacheSize(int scanCacheSize) {
         this.scanCacheSize = scanCacheSize;
     }
 
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
     @Override
     public LimitedScanResult<List<TransactionId>> scanTraceIndex(final String applicationName, Range range, int limit, boolean scanBackward) {
         if (applicationName == null) {
@@ -108,8 +115,14 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
 
         final LimitedScanResult<List<TransactionId>> limitedScanResult = new LimitedScanResult<>();
         LastRowAccessor lastRowAccessor = new LastRowAccessor();
+        final long startTime = System.currentTimeMillis();
         List<List<TransactionId>> traceIndexList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX,
-                scan, traceIdRowKeyDistributor, limit, traceIndexMapper, lastRowAccessor, APPLICATION_TRACE_INDEX_NUM_PARTITIONS);
+                scan, traceIdRowKeyDistributor, limit, traceIndexMapper, lastRowAccessor, scanThreads);
+        final int scanThreadsUsed = hbaseOperations2.getParallelScanThreads(scanThreads);
+        limitedScanResult.setScanThreads(scanThreadsUsed);
+        if (logger.isDebugEnabled()) {
+            logger.debug("scanTraceIndex time:{}ms, rows:{}, threads:{}", System.currentTimeMillis() - startTime, traceIndexList.size(), scanThreadsUsed);
+        }
 
         List<TransactionId> transactionIdSum = new ArrayList<>(128);
         for(List<TransactionId> transactionId: traceIndexList) {
@@ -150,7 +163,8 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
         final LimitedScanResult<List<TransactionId>> limitedScanResult = new LimitedScanResult<>();
         LastRowAccessor lastRowAccessor = new LastRowAccessor();
         List<List<TransactionId>> traceIndexList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX,
-                scan, traceIdRowKeyDistributor, limit, traceIndexMapper, lastRowAccessor, APPLICATION_TRACE_INDEX_NUM_PARTITIONS);
+                scan, traceIdRowKeyDistributor, limit, traceIndexMapper, lastRowAccessor, scanThreads);
+        limitedScanResult.setScanThreads(hbaseOperations2.getParallelScanThreads(scanThreads));
 
         List<TransactionId> transactionIdSum = new ArrayList<>(128);
         for(List<TransactionId> transactionId: traceIndexList) {
@@ -269,7 +283,7 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
         ResponseTimeRange responseTimeRange = area.getResponseTimeRange();
         TraceIndexScatterMapper2 mapper = new TraceIndexScatterMapper2(responseTimeRange.getFrom(), responseTimeRange.getTo());
 
-        List<List<Dot>> dotListList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX, scan, traceIdRowKeyDistributor, limit, mapper, APPLICATION_TRACE_INDEX_NUM_PARTITIONS);
+        List<List<Dot>> dotListList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX, scan, traceIdRowKeyDistributor, limit, mapper, scanThreads);
 
         List<Dot> result = new ArrayList<>();
         for(List<Dot> dotList : dotListList) {
@@ -294,18 +308,24 @@ public class HbaseApplicationTraceIndexDao implements ApplicationTraceIndexDao {
         Scan scan = createScan(applicationName, range, scanBackward);
 
         TraceIndexScatterMapper3 mapper = new TraceIndexScatterMapper3(range.getFrom(), range.getTo(), xGroupUnit, yGroupUnit);
-        List<ScatterData> dotGroupList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX, scan, traceIdRowKeyDistributor, limit, mapper, APPLICATION_TRACE_INDEX_NUM_PARTITIONS);
+        final long startTime = System.currentTimeMillis();
+        List<ScatterData> dotGroupList = hbaseOperations2.findParallel(HBaseTables.APPLICATION_TRACE_INDEX, scan, traceIdRowKeyDistributor, limit, mapper, scanThreads);
+        final int scanThreadsUsed = hbaseOperations2.getParallelScanThreads(scanThreads);
+        if (logger.isDebugEnabled()) {
+            logger.debug("scanTraceScatterData time:{}ms, rows:{}, threads:{}", System.currentTimeMillis() - startTime, dotGroupList.size(), scanThreadsUsed);
+        }
 
+        final ScatterData scatterData;
         if (ListUtils.isEmpty(dotGroupList)) {
-            return new ScatterData(range.getFrom(), range.getTo(), xGroupUnit, yGroupUnit);
+            scatterData = new ScatterData(range.getFrom(), range.getTo(), xGroupUnit, yGroupUnit);
         } else {
-            ScatterData firstScatterData = dotGroupList.get(0);
+            scatterData = dotGroupList.get(0);
             for (int i = 1; i < dotGroupList.size(); i++) {
-                firstScatterData.merge(dotGroupList.get(i));
+                scatterData.merge(dotGroupList.get(i));
             }
-
-            return firstScatterData;
         }
+        scatterData.setScanThreads(scanThreadsUsed);
+        return scatterData;
     }
 
     /**
@@ -32,8 +32,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
 import java.util.*;
 
 /**
@@ -64,6 +66,37 @@ public class HbaseMapResponseTimeDao implements MapResponseDao {
     @Qualifier("statisticsSelfRowKeyDistributor")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
 
+    @Value("#{pinpointWebProps['web.servermap.cache.slots'] ?: 10000}")
+    private long cacheSlots;
+
+    @Value("#{pinpointWebProps['web.servermap.cache.closedSlotDelay'] ?: 60000}")
+    private long closedSlotDelay;
+
+    private MapStatisticsSlotCache<List<ResponseTime>> slotCache;
+
+    private final MapStatisticsSlotCache.SlotLoader<List<ResponseTime>> slotLoader = new MapStatisticsSlotCache.SlotLoader<List<ResponseTime>>() {
+        @Override
+        public Map<Long, List<ResponseTime>> load(Application application, Range range) {
+            final Map<Long, List<ResponseTime>> slotMap = new HashMap<>();
+            for (ResponseTime responseTime : scan(application, range)) {
+                final Long slot = MapStatisticsSlotCache.getSlot(responseTime.getTimeStamp());
+                List<ResponseTime> slotResponseTimeList = slotMap.get(slot);
+                if (slotResponseTimeList == null) {
+                    slotResponseTimeList = new ArrayList<>(1);
+                    slotMap.put(slot, slotResponseTimeList);
+                }
+                slotResponseTimeList.add(responseTime);
+            }
+            return slotMap;
+        }
+    };
+
+    @PostConstruct
+    public void setup() {
+        if (cacheSlots > 0) {
+            this.slotCache = new MapStatisticsSlotCache<>(cacheSlots, closedSlotDelay);
+        }
+    }
 
     @Override
     public List<ResponseTime> selectResponseTime(Application application, Range range) {
@@ -74,9 +107,16 @@ public class HbaseMapResponseTimeDao implements MapResponseDao {
             logger.debug("selectResponseTime applicationName:{}, {}", application, range);
         }
 
-        Scan scan = createScan(application, range, HBaseTables.MAP_STATISTICS_SELF_VER2_CF_COUNTER);
-
-        List<ResponseTime> responseTimeList = hbaseOperations2.findParallel(HBaseTables.MAP_STATISTICS_SELF_VER2, scan, rowKeyDistributorByHashPrefix, responseTimeMapper, MAP_STATISTICS_SELF_VER2_NUM_PARTITIONS);
+        final List<ResponseTime> responseTimeList;
+        if (slotCache == null) {
+            responseTimeList = scan(application, range);
+        } else {
+            // cached ResponseTimes are shared, callers only read them
+            responseTimeList = new ArrayList<>();
+            for (List<ResponseTime> slotResponseTimeList : slotCache.select(application, range, slotLoader)) {
+                responseTimeList.addAll(slotResponseTimeList);
+            }
+        }
         if (logger.isDebugEnabled()) {
             logger.debug("Self data {}", responseTimeList);
         }
@@ -88,6 +128,11 @@ public class HbaseMapResponseTimeDao implements MapResponseDao {
         return new ArrayList<>();
     }
 
+    private List<ResponseTime> scan(Application application, Range range) {
+        Scan scan = createScan(application, range, HBaseTables.MAP_STATISTICS_SELF_VER2_CF_COUNTER);
+        return hbaseOperations2.findParallel(HBaseTables.MAP_STATISTICS_SELF_VER2, scan, rowKeyDistributorByHashPrefix, responseTimeMapper, MAP_STATISTICS_SELF_VER2_NUM_PARTITIONS);
+    }
+
     private Scan createScan(Application application, Range range, byte[] family) {
         range = rangeFactory.createStatisticsRange(range);
         if (logger.isDebugEnabled()) {
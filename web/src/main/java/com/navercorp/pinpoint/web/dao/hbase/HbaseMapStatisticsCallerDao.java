@@ -20,6 +20,7 @@ import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.hbase.ResultsExtractor;
 import com.navercorp.pinpoint.common.hbase.RowMapper;
+import com.navercorp.pinpoint.common.hbase.RowReducer;
 import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
 import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataMap;
 import com.navercorp.pinpoint.web.dao.MapStatisticsCallerDao;
@@ -36,8 +37,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+import java.util.Map;
+
 /**
  * @author netspider
  * @author emeroad
@@ -64,6 +69,28 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
     @Qualifier("statisticsCallerRowKeyDistributor")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
 
+    @Value("#{pinpointWebProps['web.servermap.cache.slots'] ?: 10000}")
+    private long cacheSlots;
+
+    @Value("#{pinpointWebProps['web.servermap.cache.closedSlotDelay'] ?: 60000}")
+    private long closedSlotDelay;
+
+    private MapStatisticsSlotCache<LinkDataMap> slotCache;
+
+    private final MapStatisticsSlotCache.SlotLoader<LinkDataMap> slotLoader = new MapStatisticsSlotCache.SlotLoader<LinkDataMap>() {
+        @Override
+        public Map<Long, LinkDataMap> load(Application application, Range range) {
+            // without a time window, the rows keep the timestamp of their slot
+            return LinkDataMapSlotSplitter.split(scan(application, range, new MapStatisticsTimeWindowReducer(null)));
+        }
+    };
+
+    @PostConstruct
+    public void setup() {
+        if (cacheSlots > 0) {
+            this.slotCache = new MapStatisticsSlotCache<>(cacheSlots, closedSlotDelay);
+        }
+    }
 
     @Override
     public LinkDataMap selectCaller(Application callerApplication, Range range) {
@@ -75,10 +102,15 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
         }
 
         final TimeWindow timeWindow = new TimeWindow(range, TimeWindowDownSampler.SAMPLER);
-        // find distributed key.
-        final Scan scan = createScan(callerApplication, range, HBaseTables.MAP_STATISTICS_CALLEE_VER2_CF_COUNTER);
-        ResultsExtractor<LinkDataMap> resultExtractor = new RowMapReduceResultExtractor<>(mapStatisticsCallerMapper, new MapStatisticsTimeWindowReducer(timeWindow));
-        LinkDataMap linkDataMap = hbaseOperations2.findParallel(HBaseTables.MAP_STATISTICS_CALLEE_VER2, scan, rowKeyDistributorByHashPrefix, resultExtractor, MAP_STATISTICS_CALLEE_VER2_NUM_PARTITIONS);
+        final LinkDataMap linkDataMap;
+        if (slotCache == null) {
+            linkDataMap = scan(callerApplication, range, new MapStatisticsTimeWindowReducer(timeWindow));
+        } else {
+            linkDataMap = new LinkDataMap(timeWindow);
+            for (LinkDataMap slotLinkDataMap : slotCache.select(callerApplication, range, slotLoader)) {
+                linkDataMap.addLinkDataMap(slotLinkDataMap);
+            }
+        }
         logger.debug("Caller data. {}, {}", linkDataMap, range);
         if (linkDataMap != null && linkDataMap.size() > 0) {
             return linkDataMap;
@@ -88,6 +120,13 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
     }
 
 
+    private LinkDataMap scan(Application application, Range range, RowReducer<LinkDataMap> reducer) {
+        // find distributed key.
+        final Scan scan = createScan(application, range, HBaseTables.MAP_STATISTICS_CALLEE_VER2_CF_COUNTER);
+        final ResultsExtractor<LinkDataMap> resultExtractor = new RowMapReduceResultExtractor<>(mapStatisticsCallerMapper, reducer);
+        return hbaseOperations2.findParallel(HBaseTables.MAP_STATISTICS_CALLEE_VER2, scan, rowKeyDistributorByHashPrefix, resultExtractor, MAP_STATISTICS_CALLEE_VER2_NUM_PARTITIONS);
+    }
+
     private Scan createScan(Application application, Range range, byte[]... familyArgs) {
         range = rangeFactory.createStatisticsRange(range);
 
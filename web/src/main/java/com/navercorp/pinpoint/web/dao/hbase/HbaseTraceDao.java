@@ -19,7 +19,10 @@ package com.navercorp.pinpoint.web.dao.hbase;
 import com.navercorp.pinpoint.common.server.bo.SpanBo;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.HbaseSystemException;
 import com.navercorp.pinpoint.common.hbase.RowMapper;
+import com.navercorp.pinpoint.common.util.ExecutorFactory;
+import com.navercorp.pinpoint.web.dao.SpanBatchHandler;
 import com.navercorp.pinpoint.web.dao.TraceDao;
 import com.navercorp.pinpoint.web.vo.TransactionId;
 import com.sematext.hbase.wd.AbstractRowKeyDistributor;
@@ -29,11 +32,22 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @author emeroad
@@ -62,6 +76,26 @@ public class HbaseTraceDao implements TraceDao {
     @Value("#{pinpointWebProps['web.hbase.selectAllSpans.limit'] ?: 500}")
     private int selectAllSpansLimit;
 
+    @Value("#{pinpointWebProps['web.hbase.selectAllSpans.threads'] ?: 4}")
+    private int selectAllSpansThreads;
+
+    private ExecutorService selectAllSpansExecutor;
+
+    @PostConstruct
+    public void start() {
+        if (selectAllSpansThreads > 1) {
+            this.selectAllSpansExecutor = ExecutorFactory.newFixedThreadPool(selectAllSpansThreads, 1024, "Pinpoint-selectAllSpans", true);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        final ExecutorService executor = this.selectAllSpansExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     @Override
     public List<SpanBo> selectSpan(TransactionId transactionId) {
         if (transactionId == null) {
@@ -110,9 +144,28 @@ public class HbaseTraceDao implements TraceDao {
     }
 
     public List<List<SpanBo>> selectAllSpans(Collection<TransactionId> transactionIdList, int hBaseGetLimitSize) {
+        final List<List<SpanBo>> spanBoList = new ArrayList<>();
+        selectAllSpans(transactionIdList, hBaseGetLimitSize, new SpanBatchHandler() {
+            @Override
+            public void handleBatch(List<List<SpanBo>> transactionList) {
+                spanBoList.addAll(transactionList);
+            }
+        });
+        return spanBoList;
+    }
+
+    @Override
+    public void selectAllSpans(Collection<TransactionId> transactionIdList, SpanBatchHandler handler) {
+        selectAllSpans(transactionIdList, selectAllSpansLimit, handler);
+    }
+
+    public void selectAllSpans(Collection<TransactionId> transactionIdList, int hBaseGetLimitSize, SpanBatchHandler handler) {
         if (transactionIdList == null) {
             throw new NullPointerException("transactionIdList must not be null");
         }
+        if (handler == null) {
+            throw new NullPointerException("handler must not be null");
+        }
 
         List<List<TransactionId>> splitTransactionIdList = splitTransactionIdList(collectionToList(transactionIdList), hBaseGetLimitSize);
 
@@ -120,7 +173,7 @@ public class HbaseTraceDao implements TraceDao {
         hBaseFamilyList.add(HBaseTables.TRACES_CF_SPAN);
         hBaseFamilyList.add(HBaseTables.TRACES_CF_TERMINALSPAN);
 
-        return getSpans(splitTransactionIdList, hBaseFamilyList);
+        getSpans(splitTransactionIdList, hBaseFamilyList, handler);
     }
 
     private List<TransactionId> collectionToList(Collection<TransactionId> transactionIdList) {
@@ -160,6 +213,67 @@ public class HbaseTraceDao implements TraceDao {
         return spanBoList;
     }
 
+    private void getSpans(List<List<TransactionId>> splitTransactionIdList, final List<byte[]> hBaseFamiliyList, SpanBatchHandler handler) {
+        final ExecutorService executor = this.selectAllSpansExecutor;
+        if (executor == null || splitTransactionIdList.size() <= 1) {
+            for (List<TransactionId> transactionIdList : splitTransactionIdList) {
+                handler.handleBatch(getSpans0(transactionIdList, hBaseFamiliyList));
+            }
+            return;
+        }
+
+        // multi-gets run concurrently while the caller consumes finished batches in request order.
+        // at most selectAllSpansThreads batches are held at once, however many transactions are requested.
+        final Deque<Future<List<List<SpanBo>>>> inFlight = new ArrayDeque<>(selectAllSpansThreads);
+        final Iterator<List<TransactionId>> iterator = splitTransactionIdList.iterator();
+        try {
+            while (iterator.hasNext() || !inFlight.isEmpty()) {
+                while (iterator.hasNext() && inFlight.size() < selectAllSpansThreads) {
+                    inFlight.add(submitGetSpans(executor, iterator.next(), hBaseFamiliyList));
+                }
+                handler.handleBatch(awaitSpans(inFlight.poll()));
+            }
+        } finally {
+            for (Future<List<List<SpanBo>>> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Future<List<List<SpanBo>>> submitGetSpans(ExecutorService executor, final List<TransactionId> transactionIdList, final List<byte[]> hBaseFamiliyList) {
+        final FutureTask<List<List<SpanBo>>> task = new FutureTask<>(new Callable<List<List<SpanBo>>>() {
+            @Override
+            public List<List<SpanBo>> call() throws Exception {
+                return getSpans0(transactionIdList, hBaseFamiliyList);
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // pool is saturated by other requests, fetch on the caller thread instead
+            task.run();
+        }
+        return task;
+    }
+
+    private List<List<SpanBo>> awaitSpans(Future<List<List<SpanBo>>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HbaseSystemException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new HbaseSystemException((Exception) cause);
+        }
+    }
+
     private List<List<SpanBo>> getSpans0(List<TransactionId> transactionIdList, List<byte[]> hBaseFamiliyList) {
         if (transactionIdList == null || transactionIdList.isEmpty()) {
             return Collections.emptyList();
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.web.applicationmap.histogram.TimeHistogram;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkCallData;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkData;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * splits the raw (not time windowed) statistics of a scan into the time slots of {@link MapStatisticsSlotCache}
+ */
+final class LinkDataMapSlotSplitter {
+
+    private LinkDataMapSlotSplitter() {
+    }
+
+    static Map<Long, LinkDataMap> split(LinkDataMap linkDataMap) {
+        if (linkDataMap == null) {
+            return Collections.emptyMap();
+        }
+        final Map<Long, LinkDataMap> slotMap = new HashMap<>();
+        for (LinkData linkData : linkDataMap.getLinkDataList()) {
+            for (LinkCallData linkCallData : linkData.getLinkCallDataMap().getLinkDataList()) {
+                for (TimeHistogram timeHistogram : linkCallData.getTimeHistogram()) {
+                    final Long slot = MapStatisticsSlotCache.getSlot(timeHistogram.getTimeStamp());
+                    LinkDataMap slotLinkDataMap = slotMap.get(slot);
+                    if (slotLinkDataMap == null) {
+                        slotLinkDataMap = new LinkDataMap();
+                        slotMap.put(slot, slotLinkDataMap);
+                    }
+                    final LinkData slotLinkData = new LinkData(linkData.getFromApplication(), linkData.getToApplication());
+                    slotLinkData.getLinkCallDataMap().addCallData(linkCallData.getSource(), linkCallData.getSourceServiceType(),
+                            linkCallData.getTarget(), linkCallData.getTargetServiceType(), Collections.singletonList(timeHistogram));
+                    slotLinkDataMap.addLinkData(slotLinkData);
+                }
+            }
+        }
+        return slotMap;
+    }
+}
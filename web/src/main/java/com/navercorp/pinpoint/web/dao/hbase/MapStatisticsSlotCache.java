@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.navercorp.pinpoint.web.vo.Application;
+import com.navercorp.pinpoint.web.vo.Range;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the map statistics of each (application, time slot) so that the server map of a sliding range
+ * only scans the slots it has not seen yet.
+ * Only closed slots are cached - the collector writes statistics by its accept time, so a slot never changes
+ * once it has ended and the collector had time to flush it.
+ */
+public class MapStatisticsSlotCache<V> {
+
+    // row resolution of the map statistics tables
+    public static final long SLOT_SIZE = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Object EMPTY_SLOT = new Object();
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final long closedSlotDelay;
+
+    private final Cache<SlotKey, Object> cache;
+
+    /**
+     * @param maxSlotCount max number of (application, time slot) entries to keep
+     * @param closedSlotDelay time to wait after the end of a slot before it is considered closed
+     */
+    public MapStatisticsSlotCache(long maxSlotCount, long closedSlotDelay) {
+        if (maxSlotCount <= 0) {
+            throw new IllegalArgumentException("maxSlotCount must be positive");
+        }
+        if (closedSlotDelay < 0) {
+            throw new IllegalArgumentException("closedSlotDelay must not be negative");
+        }
+        this.closedSlotDelay = closedSlotDelay;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSlotCount)
+                .build();
+    }
+
+    public static long getSlot(long time) {
+        return (time / SLOT_SIZE) * SLOT_SIZE;
+    }
+
+    /**
+     * @return values of the slots within the range in time order, slots without data are skipped
+     */
+    public List<V> select(Application application, Range range, SlotLoader<V> slotLoader) {
+        if (application == null) {
+            throw new NullPointerException("application must not be null");
+        }
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        if (slotLoader == null) {
+            throw new NullPointerException("slotLoader must not be null");
+        }
+        final long fromSlot = getSlot(range.getFrom());
+        final long toSlot = getSlot(range.getTo());
+        final long lastClosedSlot = getSlot(System.currentTimeMillis() - closedSlotDelay) - SLOT_SIZE;
+
+        final List<V> result = new ArrayList<>();
+        // consecutive uncached slots are read with a single scan
+        long missingFromSlot = -1;
+        int hitCount = 0;
+        for (long slot = fromSlot; slot <= toSlot; slot += SLOT_SIZE) {
+            final Object cached = slot <= lastClosedSlot ? cache.getIfPresent(new SlotKey(application, slot)) : null;
+            if (cached == null) {
+                if (missingFromSlot == -1) {
+                    missingFromSlot = slot;
+                }
+                continue;
+            }
+            hitCount++;
+            if (missingFromSlot != -1) {
+                load(application, missingFromSlot, slot - SLOT_SIZE, lastClosedSlot, slotLoader, result);
+                missingFromSlot = -1;
+            }
+            if (cached != EMPTY_SLOT) {
+                result.add(cast(cached));
+            }
+        }
+        if (missingFromSlot != -1) {
+            load(application, missingFromSlot, toSlot, lastClosedSlot, slotLoader, result);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("slot cache {} hit:{}/{} {}", application, hitCount, ((toSlot - fromSlot) / SLOT_SIZE) + 1, range);
+        }
+        return result;
+    }
+
+    private void load(Application application, long fromSlot, long toSlot, long lastClosedSlot, SlotLoader<V> slotLoader, List<V> result) {
+        Map<Long, V> slotMap = slotLoader.load(application, new Range(fromSlot, toSlot));
+        if (slotMap == null) {
+            slotMap = Collections.emptyMap();
+        }
+        for (long slot = fromSlot; slot <= toSlot; slot += SLOT_SIZE) {
+            final V value = slotMap.get(slot);
+            if (value != null) {
+                result.add(value);
+            }
+            if (slot <= lastClosedSlot) {
+                cache.put(new SlotKey(application, slot), value != null ? value : EMPTY_SLOT);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V cast(Object cached) {
+        return (V) cached;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public interface SlotLoader<V> {
+        /**
+         * cached values are shared between requests and must not be modified afterwards
+         *
+         * @return values keyed by {@link MapStatisticsSlotCache#getSlot(long)}, slots without data may be omitted
+         */
+        Map<Long, V> load(Application application, Range range);
+    }
+
+    private static final class SlotKey {
+        private final Application application;
+        private final long slot;
+
+        private SlotKey(Application application, long slot) {
+            this.application = application;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            SlotKey slotKey = (SlotKey) o;
+
+            if (slot != slotKey.slot) return false;
+            return application.equals(slotKey.application);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = application.hashCode();
+            result = 31 * result + (int) (slot ^ (slot >>> 32));
+            return result;
+        }
+    }
+}
@@ -25,14 +25,19 @@ import java.util.Map;
 import java.util.NavigableMap;
 
 import com.navercorp.pinpoint.common.server.bo.ActiveTraceHistogramBo;
+import com.navercorp.pinpoint.common.server.bo.AgentStatBucketCodec;
 import com.navercorp.pinpoint.common.server.bo.AgentStatCpuLoadBo;
 import com.navercorp.pinpoint.common.server.bo.AgentStatMemoryGcBo;
 import com.navercorp.pinpoint.common.hbase.RowMapper;
 import com.navercorp.pinpoint.common.trace.BaseHistogramSchema;
 import com.navercorp.pinpoint.common.util.BytesUtils;
 import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.navercorp.pinpoint.thrift.dto.TActiveTraceHistogram;
 import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
 import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+import com.navercorp.pinpoint.thrift.dto.TJvmGcType;
+import com.navercorp.pinpoint.thrift.dto.TTransaction;
 import com.navercorp.pinpoint.web.vo.AgentStat;
 import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
 
@@ -55,6 +60,8 @@ public class AgentStatMapper implements RowMapper<List<AgentStat>> {
 
     private TProtocolFactory factory = new TCompactProtocol.Factory();
 
+    private final AgentStatBucketCodec agentStatBucketCodec = new AgentStatBucketCodec();
+
     @Autowired
     @Qualifier("agentStatRowKeyDistributor")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
@@ -69,7 +76,9 @@ public class AgentStatMapper implements RowMapper<List<AgentStat>> {
         final long timestamp = TimeUtils.recoveryTimeMillis(reverseTimestamp);
 
         NavigableMap<byte[], byte[]> qualifierMap = result.getFamilyMap(AGENT_STAT_CF_STATISTICS);
-        if (qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_V1)) {
+        if (qualifierMap.containsKey(AGENT_STAT_COL_BUCKET)) {
+            return readBucket(agentId, qualifierMap.get(AGENT_STAT_COL_BUCKET));
+        } else if (qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_V1)) {
             // FIXME (2014.08) Legacy support for TAgentStat Thrift DTO stored directly into hbase.
             return readAgentStatThriftDto(agentId, timestamp, qualifierMap.get(AGENT_STAT_CF_STATISTICS_V1));
         } else if (qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_MEMORY_GC) || qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_CPU_LOAD)) {
@@ -131,6 +140,52 @@ public class AgentStatMapper implements RowMapper<List<AgentStat>> {
         return agentStats;
     }
 
+    private List<AgentStat> readBucket(String agentId, byte[] bucket) {
+        final List<TAgentStat> tAgentStats = agentStatBucketCodec.decode(bucket);
+        // rows are scanned latest first, so samples within a bucket are returned in the same order
+        final List<AgentStat> agentStats = new ArrayList<>(tAgentStats.size());
+        for (int i = tAgentStats.size() - 1; i >= 0; i--) {
+            agentStats.add(toAgentStat(agentId, tAgentStats.get(i)));
+        }
+        return agentStats;
+    }
+
+    private AgentStat toAgentStat(String agentId, TAgentStat tAgentStat) {
+        AgentStat agentStat = new AgentStat(agentId, tAgentStat.getTimestamp());
+        agentStat.setCollectInterval(tAgentStat.getCollectInterval());
+        if (tAgentStat.isSetGc()) {
+            TJvmGc gc = tAgentStat.getGc();
+            agentStat.setGcType(gc.getType().name());
+            agentStat.setGcOldCount(gc.getJvmGcOldCount());
+            agentStat.setGcOldTime(gc.getJvmGcOldTime());
+            agentStat.setHeapUsed(gc.getJvmMemoryHeapUsed());
+            agentStat.setHeapMax(gc.getJvmMemoryHeapMax());
+            agentStat.setNonHeapUsed(gc.getJvmMemoryNonHeapUsed());
+            agentStat.setNonHeapMax(gc.getJvmMemoryNonHeapMax());
+        } else {
+            agentStat.setGcType(TJvmGcType.UNKNOWN.name());
+        }
+        if (tAgentStat.isSetCpuLoad()) {
+            TCpuLoad cpuLoad = tAgentStat.getCpuLoad();
+            agentStat.setJvmCpuUsage(cpuLoad.getJvmCpuLoad());
+            agentStat.setSystemCpuUsage(cpuLoad.getSystemCpuLoad());
+        }
+        if (tAgentStat.isSetTransaction()) {
+            TTransaction transaction = tAgentStat.getTransaction();
+            agentStat.setSampledNewCount(transaction.getSampledNewCount());
+            agentStat.setSampledContinuationCount(transaction.getSampledContinuationCount());
+            agentStat.setUnsampledNewCount(transaction.getUnsampledNewCount());
+            agentStat.setUnsampledContinuationCount(transaction.getUnsampledContinuationCount());
+        }
+        if (tAgentStat.isSetActiveTrace() && tAgentStat.getActiveTrace().isSetHistogram()) {
+            TActiveTraceHistogram histogram = tAgentStat.getActiveTrace().getHistogram();
+            ActiveTraceHistogramBo activeTraceHistogramBo = new ActiveTraceHistogramBo(histogram.getVersion(), histogram.getHistogramSchemaType(), histogram.getActiveTraceCount());
+            agentStat.setHistogramSchema(BaseHistogramSchema.getDefaultHistogramSchemaByTypeCode(activeTraceHistogramBo.getHistogramSchemaType()));
+            agentStat.setActiveTraceCounts(activeTraceHistogramBo.getActiveTraceCountMap());
+        }
+        return agentStat;
+    }
+
     private byte[] getOriginalKey(byte[] rowKey) {
         return rowKeyDistributorByHashPrefix.getOriginalKey(rowKey);
     }
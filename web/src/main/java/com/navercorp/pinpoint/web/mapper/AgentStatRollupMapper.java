@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.mapper;
+
+import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.navercorp.pinpoint.common.hbase.RowMapper;
+import com.navercorp.pinpoint.common.server.bo.AgentStatRollupBo;
+import com.navercorp.pinpoint.common.trace.BaseHistogramSchema;
+import com.navercorp.pinpoint.common.trace.SlotType;
+import com.navercorp.pinpoint.web.vo.AgentStat;
+import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps a rollup window to a single {@link AgentStat} stamped with the window start.
+ * The parts written by each collector are merged first.
+ * Gauges are averaged, maxima and cumulative gc values take the window maximum, and transaction counts are summed
+ * so that the tps calculated over the window's collect interval stays correct.
+ */
+@Component
+public class AgentStatRollupMapper implements RowMapper<AgentStat> {
+
+    @Autowired
+    @Qualifier("agentStatRowKeyDistributor")
+    private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
+
+    @Override
+    public AgentStat mapRow(Result result, int rowNum) throws Exception {
+        if (result.isEmpty()) {
+            return null;
+        }
+        final byte[] rowKey = rowKeyDistributorByHashPrefix.getOriginalKey(result.getRow());
+        AgentStatRollupBo rollup = null;
+        for (Cell cell : result.rawCells()) {
+            if (!CellUtil.matchingFamily(cell, AGENT_STAT_CF_STATISTICS)) {
+                continue;
+            }
+            if (!Bytes.startsWith(CellUtil.cloneQualifier(cell), AGENT_STAT_ROLLUP_COL_VALUE)) {
+                continue;
+            }
+            final AgentStatRollupBo part = new AgentStatRollupBo(rowKey, CellUtil.cloneValue(cell));
+            if (rollup == null) {
+                rollup = part;
+            } else {
+                rollup.merge(part);
+            }
+        }
+        if (rollup == null) {
+            return null;
+        }
+
+        final AgentStat agentStat = new AgentStat(rollup.getAgentId(), rollup.getTimestamp());
+        agentStat.setCollectInterval(rollup.getType().getResolution());
+        agentStat.setGcType(rollup.getGcType());
+        if (rollup.getHeapUsed().getCount() > 0) {
+            agentStat.setHeapUsed((long) rollup.getHeapUsed().getAvg());
+            agentStat.setHeapMax((long) rollup.getHeapMax().getMax());
+            agentStat.setNonHeapUsed((long) rollup.getNonHeapUsed().getAvg());
+            agentStat.setNonHeapMax((long) rollup.getNonHeapMax().getMax());
+            agentStat.setGcOldCount((long) rollup.getGcOldCount().getMax());
+            agentStat.setGcOldTime((long) rollup.getGcOldTime().getMax());
+        }
+        if (rollup.getJvmCpuLoad().getCount() > 0) {
+            agentStat.setJvmCpuUsage(rollup.getJvmCpuLoad().getAvg());
+        }
+        if (rollup.getSystemCpuLoad().getCount() > 0) {
+            agentStat.setSystemCpuUsage(rollup.getSystemCpuLoad().getAvg());
+        }
+        if (rollup.getSampledNewCount().getCount() > 0) {
+            agentStat.setSampledNewCount((long) rollup.getSampledNewCount().getSum());
+            agentStat.setSampledContinuationCount((long) rollup.getSampledContinuationCount().getSum());
+            agentStat.setUnsampledNewCount((long) rollup.getUnsampledNewCount().getSum());
+            agentStat.setUnsampledContinuationCount((long) rollup.getUnsampledContinuationCount().getSum());
+        }
+        if (rollup.getHistogramSchemaType() >= 0) {
+            agentStat.setHistogramSchema(BaseHistogramSchema.getDefaultHistogramSchemaByTypeCode(rollup.getHistogramSchemaType()));
+            Map<SlotType, Integer> activeTraceCounts = new HashMap<>();
+            activeTraceCounts.put(SlotType.FAST, (int) Math.round(rollup.getActiveTraceFast().getAvg()));
+            activeTraceCounts.put(SlotType.NORMAL, (int) Math.round(rollup.getActiveTraceNormal().getAvg()));
+            activeTraceCounts.put(SlotType.SLOW, (int) Math.round(rollup.getActiveTraceSlow().getAvg()));
+            activeTraceCounts.put(SlotType.VERY_SLOW, (int) Math.round(rollup.getActiveTraceVerySlow().getAvg()));
+            agentStat.setActiveTraceCounts(activeTraceCounts);
+        }
+        return agentStat;
+    }
+}
@@ -48,6 +48,9 @@ public class ScatterData {
     private long oldestAcceptedTime = Long.MAX_VALUE;
     private long latestAcceptedTime = Long.MIN_VALUE;
 
+    // not serialized, reported with the fetch time of the scatter chart
+    private int scanThreads = 1;
+
     public ScatterData(long from, long to, int xGroupUnitMillis, int yGroupUnitMillis) {
         if (from <= 0) {
             throw new IllegalArgumentException("from value must be higher than 0");
@@ -186,6 +189,17 @@ public class ScatterData {
         return latestAcceptedTime;
     }
 
+    /**
+     * @return number of threads that scanned the trace index for this data
+     */
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
     private static class XCoordinatesComparator implements Comparator<Long> {
 
         @Override
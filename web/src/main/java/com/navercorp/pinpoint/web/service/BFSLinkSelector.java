@@ -34,12 +34,20 @@ import com.navercorp.pinpoint.web.vo.SearchOption;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.StopWatch;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Breadth-first link search
- * not thread safe
+ * not thread safe - the caller/callee/host lookups of a level may run on the given executor,
+ * but all results are merged on the calling thread.
  * @author emeroad
  * @author minwoo.jung
  */
@@ -63,7 +71,19 @@ public class BFSLinkSelector implements LinkSelector {
     
     private ServerMapDataFilter serverMapDataFilter;
 
+    private final Executor executor;
+
+    private final StopWatch stopWatch;
+
     public BFSLinkSelector(MapStatisticsCallerDao mapStatisticsCallerDao, MapStatisticsCalleeDao mapStatisticsCalleeDao, HostApplicationMapDao hostApplicationMapDao, ServerMapDataFilter serverMapDataFilter) {
+        this(mapStatisticsCallerDao, mapStatisticsCalleeDao, hostApplicationMapDao, serverMapDataFilter, null, null);
+    }
+
+    /**
+     * @param executor runs the HBase lookups of each level concurrently; lookups run on the calling thread if null
+     * @param stopWatch records the fetch time of each level; may be null
+     */
+    public BFSLinkSelector(MapStatisticsCallerDao mapStatisticsCallerDao, MapStatisticsCalleeDao mapStatisticsCalleeDao, HostApplicationMapDao hostApplicationMapDao, ServerMapDataFilter serverMapDataFilter, Executor executor, StopWatch stopWatch) {
         if (mapStatisticsCalleeDao == null) {
             throw new NullPointerException("mapStatisticsCalleeDao must not be null");
         }
@@ -77,6 +97,8 @@ public class BFSLinkSelector implements LinkSelector {
         this.mapStatisticsCallerDao = mapStatisticsCallerDao;
         this.hostApplicationMapDao = hostApplicationMapDao;
         this.serverMapDataFilter = serverMapDataFilter;
+        this.executor = executor;
+        this.stopWatch = stopWatch;
     }
 
     /**
@@ -88,17 +110,34 @@ public class BFSLinkSelector implements LinkSelector {
      */
     private LinkDataDuplexMap selectLink(List<Application> targetApplicationList, Range range, SearchDepth callerDepth, SearchDepth calleeDepth) {
 
-        final LinkDataDuplexMap searchResult = new LinkDataDuplexMap();
-
+        // visit checks are stateful, so decide what to search up front and only issue the lookups concurrently
+        final List<Future<LinkDataMap>> callerFutureList = new ArrayList<>(targetApplicationList.size());
+        final List<Future<LinkDataMap>> calleeFutureList = new ArrayList<>(targetApplicationList.size());
         for (Application targetApplication : targetApplicationList) {
             final boolean searchCallerNode = checkNextCaller(targetApplication, callerDepth);
-            if (searchCallerNode) {
-                final LinkDataMap caller = mapStatisticsCallerDao.selectCaller(targetApplication, range);
+            callerFutureList.add(searchCallerNode ? submitSelectCaller(targetApplication, range) : null);
+
+            final boolean searchCalleeNode = checkNextCallee(targetApplication, calleeDepth);
+            calleeFutureList.add(searchCalleeNode ? submitSelectCallee(targetApplication, range) : null);
+        }
+
+        final List<LinkDataMap> callerList = awaitAll(callerFutureList);
+        final Map<Application, Set<AcceptApplication>> acceptApplicationMap = prefetchAcceptApplication(callerList, range);
+        final List<LinkDataMap> calleeList = awaitAll(calleeFutureList);
+
+        // merge in frontier order so that the result does not depend on which lookup finished first
+        final LinkDataDuplexMap searchResult = new LinkDataDuplexMap();
+
+        for (int i = 0; i < targetApplicationList.size(); i++) {
+            final Application targetApplication = targetApplicationList.get(i);
+
+            final LinkDataMap caller = callerList.get(i);
+            if (caller != null) {
                 if (logger.isDebugEnabled()) {
                     logger.debug("Found Caller. count={}, caller={}, depth={}", caller.size(), targetApplication, callerDepth.getDepth());
                 }
 
-                final LinkDataMap replaceRpcCaller = replaceRpcCaller(caller, range);
+                final LinkDataMap replaceRpcCaller = replaceRpcCaller(caller, range, acceptApplicationMap);
 
                 for (LinkData link : replaceRpcCaller.getLinkDataList()) {
                     searchResult.addSourceLinkData(link);
@@ -113,9 +152,8 @@ public class BFSLinkSelector implements LinkSelector {
                 }
             }
 
-            final boolean searchCalleeNode = checkNextCallee(targetApplication, calleeDepth);
-            if (searchCalleeNode) {
-                final LinkDataMap callee = mapStatisticsCalleeDao.selectCallee(targetApplication, range);
+            final LinkDataMap callee = calleeList.get(i);
+            if (callee != null) {
                 if (logger.isInfoEnabled()) {
                     logger.debug("Found Callee. count={}, callee={}, depth={}", callee.size(), targetApplication, calleeDepth.getDepth());
                 }
@@ -132,6 +170,103 @@ public class BFSLinkSelector implements LinkSelector {
         return searchResult;
     }
 
+    private Future<LinkDataMap> submitSelectCaller(final Application targetApplication, final Range range) {
+        return submit(new Callable<LinkDataMap>() {
+            @Override
+            public LinkDataMap call() throws Exception {
+                return mapStatisticsCallerDao.selectCaller(targetApplication, range);
+            }
+        });
+    }
+
+    private Future<LinkDataMap> submitSelectCallee(final Application targetApplication, final Range range) {
+        return submit(new Callable<LinkDataMap>() {
+            @Override
+            public LinkDataMap call() throws Exception {
+                return mapStatisticsCalleeDao.selectCallee(targetApplication, range);
+            }
+        });
+    }
+
+    /**
+     * looks up the accept applications of every rpc caller in this level that is not in the local cache yet
+     */
+    private Map<Application, Set<AcceptApplication>> prefetchAcceptApplication(List<LinkDataMap> callerList, final Range range) {
+        final Map<Application, Future<Set<AcceptApplication>>> futureMap = new LinkedHashMap<>();
+        for (LinkDataMap caller : callerList) {
+            if (caller == null) {
+                continue;
+            }
+            for (LinkData linkData : caller.getLinkDataList()) {
+                final Application toApplication = linkData.getToApplication();
+                if (!toApplication.getServiceType().isRpcClient() && !toApplication.getServiceType().isQueue()) {
+                    continue;
+                }
+                final Application fromApplication = linkData.getFromApplication();
+                if (futureMap.containsKey(fromApplication)) {
+                    continue;
+                }
+                final RpcApplication rpcApplication = new RpcApplication(toApplication.getName(), fromApplication);
+                if (CollectionUtils.isNotEmpty(this.acceptApplicationLocalCache.get(rpcApplication))) {
+                    continue;
+                }
+                futureMap.put(fromApplication, submit(new Callable<Set<AcceptApplication>>() {
+                    @Override
+                    public Set<AcceptApplication> call() throws Exception {
+                        return hostApplicationMapDao.findAcceptApplicationName(fromApplication, range);
+                    }
+                }));
+            }
+        }
+
+        final Map<Application, Set<AcceptApplication>> acceptApplicationMap = new HashMap<>(futureMap.size());
+        for (Map.Entry<Application, Future<Set<AcceptApplication>>> entry : futureMap.entrySet()) {
+            acceptApplicationMap.put(entry.getKey(), await(entry.getValue()));
+        }
+        return acceptApplicationMap;
+    }
+
+    private <V> Future<V> submit(Callable<V> callable) {
+        final FutureTask<V> task = new FutureTask<>(callable);
+        if (executor == null) {
+            task.run();
+            return task;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // executor is saturated, look up on the calling thread instead
+            task.run();
+        }
+        return task;
+    }
+
+    private <V> List<V> awaitAll(List<Future<V>> futureList) {
+        final List<V> resultList = new ArrayList<>(futureList.size());
+        for (Future<V> future : futureList) {
+            resultList.add(future == null ? null : await(future));
+        }
+        return resultList;
+    }
+
+    private <V> V await(Future<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while selecting links", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
     private void addNextNode(Application sourceApplication) {
         final boolean add = this.nextQueue.addNextNode(sourceApplication);
         if (!add) {
@@ -178,7 +313,7 @@ public class BFSLinkSelector implements LinkSelector {
 
 
 
-    private List<LinkData> checkRpcCallAccepted(LinkData linkData, Range range) {
+    private List<LinkData> checkRpcCallAccepted(LinkData linkData, Range range, Map<Application, Set<AcceptApplication>> acceptApplicationMap) {
         // replace if the rpc client's destination has an agent installed and thus has an application name
         final Application toApplication = linkData.getToApplication();
         if (!toApplication.getServiceType().isRpcClient() && !toApplication.getServiceType().isQueue()) {
@@ -187,7 +322,7 @@ public class BFSLinkSelector implements LinkSelector {
 
         logger.debug("checkRpcCallAccepted(). Find applicationName:{} {}", toApplication, range);
 
-        final Set<AcceptApplication> acceptApplicationList = findAcceptApplication(linkData.getFromApplication(), toApplication.getName(), range);
+        final Set<AcceptApplication> acceptApplicationList = findAcceptApplication(linkData.getFromApplication(), toApplication.getName(), range, acceptApplicationMap);
         logger.debug("find accept application:{}", acceptApplicationList);
         if (CollectionUtils.isNotEmpty(acceptApplicationList)) {
             if (acceptApplicationList.size() == 1) {
@@ -237,7 +372,7 @@ public class BFSLinkSelector implements LinkSelector {
     }
 
 
-    private Set<AcceptApplication> findAcceptApplication(Application fromApplication, String host, Range range) {
+    private Set<AcceptApplication> findAcceptApplication(Application fromApplication, String host, Range range, Map<Application, Set<AcceptApplication>> acceptApplicationMap) {
         logger.debug("findAcceptApplication {} {}", fromApplication, host);
 
         final RpcApplication rpcApplication = new RpcApplication(host, fromApplication);
@@ -246,7 +381,10 @@ public class BFSLinkSelector implements LinkSelector {
             logger.debug("acceptApplicationLocalCache hit {}", rpcApplication);
             return hit;
         }
-        final Set<AcceptApplication> acceptApplicationSet= hostApplicationMapDao.findAcceptApplicationName(fromApplication, range);
+        Set<AcceptApplication> acceptApplicationSet = acceptApplicationMap.get(fromApplication);
+        if (acceptApplicationSet == null) {
+            acceptApplicationSet = hostApplicationMapDao.findAcceptApplicationName(fromApplication, range);
+        }
         this.acceptApplicationLocalCache.put(rpcApplication, acceptApplicationSet);
 
         Set<AcceptApplication> acceptApplication = this.acceptApplicationLocalCache.get(rpcApplication);
@@ -343,14 +481,18 @@ public class BFSLinkSelector implements LinkSelector {
 
         LinkDataDuplexMap linkDataDuplexMap = new LinkDataDuplexMap();
 
+        int level = 0;
         while (!this.nextQueue.isEmpty()) {
 
             final List<Application> currentNode = this.nextQueue.copyAndClear();
 
             logger.debug("size:{} depth caller:{} callee:{} node:{}", currentNode.size(), callerDepth.getDepth(), calleeDepth.getDepth(), currentNode);
+            startWatch("ApplicationMap Hbase Io Fetch(Caller,Callee) Level:" + level + " Node:" + currentNode.size());
             LinkDataDuplexMap levelData = selectLink(currentNode, range, callerDepth, calleeDepth);
+            stopWatch();
 
             linkDataDuplexMap.addLinkDataDuplexMap(levelData);
+            level++;
 
             callerDepth = callerDepth.nextDepth();
             calleeDepth = calleeDepth.nextDepth();
@@ -359,13 +501,27 @@ public class BFSLinkSelector implements LinkSelector {
         if (!emulationLinkMarker.isEmpty()) {
             logger.debug("Link emulation size:{}", emulationLinkMarker.size());
             // special case
+            startWatch("ApplicationMap Hbase Io Fetch(Emulation) Time");
             checkUnsearchEmulationCalleeNode(linkDataDuplexMap, range);
             fillEmulationLink(linkDataDuplexMap, range);
+            stopWatch();
         }
 
         return linkDataDuplexMap;
     }
 
+    private void startWatch(String taskName) {
+        if (stopWatch != null) {
+            stopWatch.start(taskName);
+        }
+    }
+
+    private void stopWatch() {
+        if (stopWatch != null) {
+            stopWatch.stop();
+        }
+    }
+
 
     private void checkUnsearchEmulationCalleeNode(LinkDataDuplexMap searchResult, Range range) {
 
@@ -427,10 +583,10 @@ public class BFSLinkSelector implements LinkSelector {
     }
 
 
-    private LinkDataMap replaceRpcCaller(LinkDataMap caller, Range range) {
+    private LinkDataMap replaceRpcCaller(LinkDataMap caller, Range range, Map<Application, Set<AcceptApplication>> acceptApplicationMap) {
         final LinkDataMap replaceRpcCaller = new LinkDataMap();
         for (LinkData callerLink : caller.getLinkDataList()) {
-            final List<LinkData> checkedLink = checkRpcCallAccepted(callerLink, range);
+            final List<LinkData> checkedLink = checkRpcCallAccepted(callerLink, range, acceptApplicationMap);
             for (LinkData linkData : checkedLink) {
                 replaceRpcCaller.addLinkData(linkData);
             }
@@ -29,6 +29,7 @@ import com.navercorp.pinpoint.web.applicationmap.ApplicationMapWithScatterScanRe
 import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataDuplexMap;
 import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataMap;
 import com.navercorp.pinpoint.web.dao.ApplicationTraceIndexDao;
+import com.navercorp.pinpoint.web.dao.SpanBatchHandler;
 import com.navercorp.pinpoint.web.dao.TraceDao;
 import com.navercorp.pinpoint.web.filter.Filter;
 import com.navercorp.pinpoint.web.security.ServerMapDataFilter;
@@ -183,16 +184,6 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         return filteredResult;
     }
 
-    private List<List<SpanBo>> filterList2(List<List<SpanBo>> transactionList, Filter filter) {
-        final List<List<SpanBo>> filteredResult = new ArrayList<>();
-        for (List<SpanBo> transaction : transactionList) {
-            if (filter.include(transaction)) {
-                filteredResult.add(transaction);
-            }
-        }
-        return filteredResult;
-    }
-
     @Override
     public ApplicationMap selectApplicationMap(TransactionId transactionId) {
         if (transactionId == null) {
@@ -220,10 +211,10 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         StopWatch watch = new StopWatch();
         watch.start();
 
-        final List<List<SpanBo>> filterList = selectFilteredSpan(transactionIdList, filter);
+        final FilteredMapBuilder filteredMapBuilder = selectFilteredSpan(transactionIdList, originalRange, scanRange, filter);
 
-        DotExtractor dotExtractor = createDotExtractor(scanRange, filterList);
-        ApplicationMap map = createMap(originalRange, scanRange, filterList);
+        DotExtractor dotExtractor = filteredMapBuilder.getDotExtractor();
+        ApplicationMap map = filteredMapBuilder.build();
 
         ApplicationMapWithScatterScanResult applicationMapWithScatterScanResult = new ApplicationMapWithScatterScanResult(map, dotExtractor.getApplicationScatterScanResult());
 
@@ -245,10 +236,10 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         StopWatch watch = new StopWatch();
         watch.start();
 
-        final List<List<SpanBo>> filterList = selectFilteredSpan(transactionIdList, filter);
+        final FilteredMapBuilder filteredMapBuilder = selectFilteredSpan(transactionIdList, originalRange, scanRange, filter);
 
-        DotExtractor dotExtractor = createDotExtractor(scanRange, filterList);
-        ApplicationMap map = createMap(originalRange, scanRange, filterList);
+        DotExtractor dotExtractor = filteredMapBuilder.getDotExtractor();
+        ApplicationMap map = filteredMapBuilder.build();
 
         ApplicationMapWithScatterData applicationMapWithScatterData = new ApplicationMapWithScatterData(map, dotExtractor.getApplicationScatterData(originalRange.getFrom(), originalRange.getTo(), xGroupUnit, yGroupUnit));
 
@@ -258,103 +249,120 @@ public class FilteredMapServiceImpl implements FilteredMapService {
         return applicationMapWithScatterData;
     }
 
-    private List<List<SpanBo>> selectFilteredSpan(List<TransactionId> transactionIdList, Filter filter) {
+    private FilteredMapBuilder selectFilteredSpan(List<TransactionId> transactionIdList, Range originalRange, Range scanRange, Filter filter) {
         // filters out recursive calls by looking at each objects
         // do not filter here if we change to a tree-based collision check in the future. 
         final Collection<TransactionId> recursiveFilterList = recursiveCallFilter(transactionIdList);
 
-        // FIXME might be better to simply traverse the List<Span> and create a process chain for execution
-        final List<List<SpanBo>> originalList = this.traceDao.selectAllSpans(recursiveFilterList);
-
-        return filterList2(originalList, filter);
+        // spans are filtered and folded into the map as each batch arrives, so the whole trace list is never held at once
+        final FilteredMapBuilder filteredMapBuilder = new FilteredMapBuilder(originalRange, scanRange, filter);
+        this.traceDao.selectAllSpans(recursiveFilterList, filteredMapBuilder);
+        return filteredMapBuilder;
     }
 
-    private DotExtractor createDotExtractor(Range scanRange, List<List<SpanBo>> filterList) {
-        final DotExtractor dotExtractor = new DotExtractor(scanRange, applicationFactory);
+    private class FilteredMapBuilder implements SpanBatchHandler {
+
+        private final Range range;
+        private final Filter filter;
+        // TODO inject TimeWindow from elsewhere
+        private final TimeWindow window;
+        private final LinkDataDuplexMap linkDataDuplexMap = new LinkDataDuplexMap();
+        private final ResponseHistogramBuilder mapHistogramSummary;
+        private final DotExtractor dotExtractor;
+
+        private FilteredMapBuilder(Range range, Range scanRange, Filter filter) {
+            this.range = range;
+            this.filter = filter;
+            this.window = new TimeWindow(range, TimeWindowDownSampler.SAMPLER);
+            this.mapHistogramSummary = new ResponseHistogramBuilder(range);
+            this.dotExtractor = new DotExtractor(scanRange, applicationFactory);
+        }
 
-        for (List<SpanBo> transaction : filterList) {
-            for (SpanBo span : transaction) {
-                final Application spanApplication = this.applicationFactory.createApplication(span.getApplicationId(), span.getApplicationServiceType());
-                if (!spanApplication.getServiceType().isRecordStatistics() || spanApplication.getServiceType().isRpcClient()) {
-                    continue;
+        @Override
+        public void handleBatch(List<List<SpanBo>> transactionList) {
+            for (List<SpanBo> transaction : transactionList) {
+                if (filter.include(transaction)) {
+                    addDot(dotExtractor, transaction);
+                    addTransaction(window, linkDataDuplexMap, mapHistogramSummary, transaction);
                 }
-
-                dotExtractor.addDot(span);
             }
         }
 
-        return dotExtractor;
+        private DotExtractor getDotExtractor() {
+            return dotExtractor;
+        }
+
+        private ApplicationMap build() {
+            ApplicationMapBuilder applicationMapBuilder = new ApplicationMapBuilder(range);
+            mapHistogramSummary.build();
+            return applicationMapBuilder.build(linkDataDuplexMap, agentInfoService, mapHistogramSummary);
+        }
     }
 
-    private ApplicationMap createMap(Range range, Range scanRange, List<List<SpanBo>> filterList) {
+    private void addDot(DotExtractor dotExtractor, List<SpanBo> transaction) {
+        for (SpanBo span : transaction) {
+            final Application spanApplication = this.applicationFactory.createApplication(span.getApplicationId(), span.getApplicationServiceType());
+            if (!spanApplication.getServiceType().isRecordStatistics() || spanApplication.getServiceType().isRpcClient()) {
+                continue;
+            }
 
-        // TODO inject TimeWindow from elsewhere 
-        final TimeWindow window = new TimeWindow(range, TimeWindowDownSampler.SAMPLER);
+            dotExtractor.addDot(span);
+        }
+    }
 
+    /**
+     * Convert to statistical data
+     */
+    private void addTransaction(TimeWindow window, LinkDataDuplexMap linkDataDuplexMap, ResponseHistogramBuilder mapHistogramSummary, List<SpanBo> transaction) {
+        final Map<Long, SpanBo> transactionSpanMap = checkDuplicatedSpanId(transaction);
 
-        final LinkDataDuplexMap linkDataDuplexMap = new LinkDataDuplexMap();
+        for (SpanBo span : transaction) {
+            final Application parentApplication = createParentApplication(span, transactionSpanMap);
+            final Application spanApplication = this.applicationFactory.createApplication(span.getApplicationId(), span.getApplicationServiceType());
 
-        final ResponseHistogramBuilder mapHistogramSummary = new ResponseHistogramBuilder(range);
-        /**
-         * Convert to statistical data
-         */
-        for (List<SpanBo> transaction : filterList) {
-            final Map<Long, SpanBo> transactionSpanMap = checkDuplicatedSpanId(transaction);
+            // records the Span's response time statistics
+            recordSpanResponseTime(spanApplication, span, mapHistogramSummary, span.getCollectorAcceptTime());
 
-            for (SpanBo span : transaction) {
-                final Application parentApplication = createParentApplication(span, transactionSpanMap);
-                final Application spanApplication = this.applicationFactory.createApplication(span.getApplicationId(), span.getApplicationServiceType());
+            if (!spanApplication.getServiceType().isRecordStatistics() || spanApplication.getServiceType().isRpcClient()) {
+                // span's serviceType is probably not set correctly
+                logger.warn("invalid span application:{}", spanApplication);
+                continue;
+            }
 
-                // records the Span's response time statistics
-                recordSpanResponseTime(spanApplication, span, mapHistogramSummary, span.getCollectorAcceptTime());
+            final short slotTime = getHistogramSlotTime(span, spanApplication.getServiceType());
+            // might need to reconsider using collector's accept time for link statistics.
+            // we need to convert to time window's timestamp. If not, it may lead to OOM due to mismatch in timeslots. 
+            long timestamp = window.refineTimestamp(span.getCollectorAcceptTime());
 
-                if (!spanApplication.getServiceType().isRecordStatistics() || spanApplication.getServiceType().isRpcClient()) {
-                    // span's serviceType is probably not set correctly
-                    logger.warn("invalid span application:{}", spanApplication);
-                    continue;
+            if (parentApplication.getServiceType() == ServiceType.USER) {
+                // Outbound data
+                if (logger.isTraceEnabled()) {
+                    logger.trace("span user:{} {} -> span:{} {}", parentApplication, span.getAgentId(), spanApplication, span.getAgentId());
                 }
+                final LinkDataMap sourceLinkData = linkDataDuplexMap.getSourceLinkDataMap();
+                sourceLinkData.addLinkData(parentApplication, span.getAgentId(), spanApplication,  span.getAgentId(), timestamp, slotTime, 1);
 
-                final short slotTime = getHistogramSlotTime(span, spanApplication.getServiceType());
-                // might need to reconsider using collector's accept time for link statistics.
-                // we need to convert to time window's timestamp. If not, it may lead to OOM due to mismatch in timeslots. 
-                long timestamp = window.refineTimestamp(span.getCollectorAcceptTime());
-
-                if (parentApplication.getServiceType() == ServiceType.USER) {
-                    // Outbound data
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("span user:{} {} -> span:{} {}", parentApplication, span.getAgentId(), spanApplication, span.getAgentId());
-                    }
-                    final LinkDataMap sourceLinkData = linkDataDuplexMap.getSourceLinkDataMap();
-                    sourceLinkData.addLinkData(parentApplication, span.getAgentId(), spanApplication,  span.getAgentId(), timestamp, slotTime, 1);
-
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("span target user:{} {} -> span:{} {}", parentApplication, span.getAgentId(), spanApplication, span.getAgentId());
-                    }
-                    // Inbound data
-                    final LinkDataMap targetLinkDataMap = linkDataDuplexMap.getTargetLinkDataMap();
-                    targetLinkDataMap.addLinkData(parentApplication, span.getAgentId(), spanApplication, span.getAgentId(), timestamp, slotTime, 1);
-                } else {
-                    // Inbound data
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("span target parent:{} {} -> span:{} {}", parentApplication, span.getAgentId(), spanApplication, span.getAgentId());
-                    }
-                    final LinkDataMap targetLinkDataMap = linkDataDuplexMap.getTargetLinkDataMap();
-                    targetLinkDataMap.addLinkData(parentApplication, span.getAgentId(), spanApplication, span.getAgentId(), timestamp, slotTime, 1);
+                if (logger.isTraceEnabled()) {
+                    logger.trace("span target user:{} {} -> span:{} {}", parentApplication, span.getAgentId(), spanApplication, span.getAgentId());
                 }
-
-                if (serverMapDataFilter != null && serverMapDataFilter.filter(spanApplication)) {
-                    continue;
+                // Inbound data
+                final LinkDataMap targetLinkDataMap = linkDataDuplexMap.getTargetLinkDataMap();
+                targetLinkDataMap.addLinkData(parentApplication, span.getAgentId(), spanApplication, span.getAgentId(), timestamp, slotTime, 1);
+            } else {
+                // Inbound data
+                if (logger.isTraceEnabled()) {
+                    logger.trace("span target parent:{} {} -> span:{} {}", parentApplication, span.getAgentId(), spanApplication, span.getAgentId());
                 }
-                
-                addNodeFromSpanEvent(span, window, linkDataDuplexMap, transactionSpanMap);
+                final LinkDataMap targetLinkDataMap = linkDataDuplexMap.getTargetLinkDataMap();
+                targetLinkDataMap.addLinkData(parentApplication, span.getAgentId(), spanApplication, span.getAgentId(), timestamp, slotTime, 1);
             }
-        }
-        
-        ApplicationMapBuilder applicationMapBuilder = new ApplicationMapBuilder(range);
-        mapHistogramSummary.build();
-        ApplicationMap map = applicationMapBuilder.build(linkDataDuplexMap, agentInfoService, mapHistogramSummary);
 
-        return map;
+            if (serverMapDataFilter != null && serverMapDataFilter.filter(spanApplication)) {
+                continue;
+            }
+            
+            addNodeFromSpanEvent(span, window, linkDataDuplexMap, transactionSpanMap);
+        }
     }
 
     private Map<Long, SpanBo> checkDuplicatedSpanId(List<SpanBo> transaction) {
@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.web.service;
 
+import com.navercorp.pinpoint.common.util.ExecutorFactory;
 import com.navercorp.pinpoint.web.applicationmap.ApplicationMap;
 import com.navercorp.pinpoint.web.applicationmap.ApplicationMapBuilder;
 import com.navercorp.pinpoint.web.applicationmap.rawdata.AgentHistogramList;
@@ -33,10 +34,14 @@ import com.navercorp.pinpoint.web.vo.SearchOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StopWatch;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author netspider
@@ -69,6 +74,26 @@ public class MapServiceImpl implements MapService {
     @Autowired(required=false)
     private ServerMapDataFilter serverMapDataFilter;
 
+    @Value("#{pinpointWebProps['web.servermap.selectLink.threads'] ?: 8}")
+    private int selectLinkThreads;
+
+    private ExecutorService selectLinkExecutor;
+
+    @PostConstruct
+    public void start() {
+        if (selectLinkThreads > 1) {
+            this.selectLinkExecutor = ExecutorFactory.newFixedThreadPool(selectLinkThreads, 1024, "Pinpoint-selectLink", true);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        final ExecutorService executor = this.selectLinkExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Used in the main UI - draws the server map by querying the timeslot by time.
      */
@@ -83,11 +108,10 @@ public class MapServiceImpl implements MapService {
         logger.debug("SelectApplicationMap");
 
         StopWatch watch = new StopWatch("ApplicationMap");
-        watch.start("ApplicationMap Hbase Io Fetch(Caller,Callee) Time");
 
-        LinkSelector linkSelector = new BFSLinkSelector(this.mapStatisticsCallerDao, this.mapStatisticsCalleeDao, hostApplicationMapDao, serverMapDataFilter);
+        // each level of the search is recorded to the watch by the selector
+        LinkSelector linkSelector = new BFSLinkSelector(this.mapStatisticsCallerDao, this.mapStatisticsCalleeDao, hostApplicationMapDao, serverMapDataFilter, selectLinkExecutor, watch);
         LinkDataDuplexMap linkDataDuplexMap = linkSelector.select(sourceApplication, range, searchOption);
-        watch.stop();
 
         watch.start("ApplicationMap MapBuilding(Response) Time");
         ApplicationMapBuilder builder = new ApplicationMapBuilder(range);
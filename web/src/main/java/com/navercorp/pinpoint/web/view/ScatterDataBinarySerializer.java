@@ -0,0 +1,244 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.view;
+
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.web.scatter.DotGroup;
+import com.navercorp.pinpoint.web.scatter.DotGroups;
+import com.navercorp.pinpoint.web.scatter.ScatterAgentMetaData;
+import com.navercorp.pinpoint.web.scatter.ScatterData;
+import com.navercorp.pinpoint.web.vo.scatter.Dot;
+import com.navercorp.pinpoint.web.vo.scatter.DotAgentInfo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link ScatterData}, an alternative to {@link ScatterDataSerializer} for large scatter charts.
+ * Dots are written column by column in the order of the json dotList, all numbers are (zigzag) varints.
+ * Only the payload gets smaller. The DAO still loads every dot into ScatterData and the dots are sorted again here,
+ * since the order and the thick column depend on all dots of a group.
+ * <pre>
+ * version                      byte (1)
+ * complete                     boolean
+ * currentServerTime            VLong
+ * from, to                     VLong
+ * resultFrom, resultTo         SVLong (-1 if there is no dot)
+ * agentCount                   VInt
+ *   agentId                    prefixed string   (agent index = position + 1)
+ *   transactionAgentId         prefixed string
+ *   transactionAgentStartTime  VLong
+ * dotCount                     VInt
+ * acceptedTime column          SVLong, delta from the previous dot (from for the first dot)
+ * elapsedTime column           VInt
+ * agent column                 VInt agent index, 0 if unknown
+ * transactionSequence column   VLong, prefixed transaction id string instead if the agent is unknown
+ * exceptionCode column         byte, simple exception code
+ * thick column                 VInt, number of dots in the group led by the dot, 0 otherwise
+ * </pre>
+ */
+public class ScatterDataBinarySerializer {
+
+    public static final byte VERSION = 1;
+
+    private static final int CHUNK_SIZE = 8192;
+    // max length of a varint
+    private static final int MAX_VAR_SIZE = 10;
+
+    private static final Comparator<Long> X_COORDINATES_DESC = new Comparator<Long>() {
+        @Override
+        public int compare(Long o1, Long o2) {
+            return Long.compare(o2, o1);
+        }
+    };
+
+    private static final Comparator<DotEntry> ACCEPTED_TIME_DESC = new Comparator<DotEntry>() {
+        @Override
+        public int compare(DotEntry o1, DotEntry o2) {
+            return Long.compare(o2.dot.getAcceptedTime(), o1.dot.getAcceptedTime());
+        }
+    };
+
+    public void serialize(ScatterData scatterData, boolean complete, long currentServerTime, OutputStream out) throws IOException {
+        if (scatterData == null) {
+            throw new NullPointerException("scatterData must not be null");
+        }
+        if (out == null) {
+            throw new NullPointerException("out must not be null");
+        }
+        final ChunkWriter writer = new ChunkWriter(out);
+
+        writer.ensure(MAX_VAR_SIZE * 6);
+        final Buffer buffer = writer.buffer;
+        buffer.putByte(VERSION);
+        buffer.putBoolean(complete);
+        buffer.putVLong(currentServerTime);
+        buffer.putVLong(scatterData.getFrom());
+        buffer.putVLong(scatterData.getTo());
+        buffer.putSVLong(scatterData.getOldestAcceptedTime());
+        buffer.putSVLong(scatterData.getLatestAcceptedTime());
+
+        final ScatterAgentMetaData metaData = scatterData.getScatterAgentMetadata();
+        writeAgentMetaData(metaData, writer);
+
+        final DotEntry[] dots = collectDots(scatterData);
+        writeDots(dots, scatterData.getFrom(), metaData, writer);
+
+        writer.flush();
+    }
+
+    private void writeAgentMetaData(ScatterAgentMetaData metaData, ChunkWriter writer) throws IOException {
+        final List<Map.Entry<Integer, DotAgentInfo>> entryList = new ArrayList<>(metaData.entrySet());
+        final DotAgentInfo[] agentInfos = new DotAgentInfo[entryList.size()];
+        for (Map.Entry<Integer, DotAgentInfo> entry : entryList) {
+            agentInfos[entry.getKey() - 1] = entry.getValue();
+        }
+
+        writer.ensure(MAX_VAR_SIZE);
+        writer.buffer.putVInt(agentInfos.length);
+        for (DotAgentInfo agentInfo : agentInfos) {
+            writer.putPrefixedString(agentInfo.getAgentId());
+            writer.putPrefixedString(agentInfo.getTransactionAgentId());
+            writer.ensure(MAX_VAR_SIZE);
+            writer.buffer.putVLong(agentInfo.getTransactionAgentStartTime());
+        }
+    }
+
+    /**
+     * same order and thickness as {@link ScatterDataSerializer}, without the intermediate sorted maps and sets
+     */
+    private DotEntry[] collectDots(ScatterData scatterData) {
+        final Map<Long, DotGroups> scatterDataMap = scatterData.getScatterDataMap();
+        final List<Long> xCoordinatesList = new ArrayList<>(scatterDataMap.keySet());
+        Collections.sort(xCoordinatesList, X_COORDINATES_DESC);
+
+        final DotEntry[] dots = new DotEntry[scatterData.getDotSize()];
+        int index = 0;
+        for (Long xCoordinates : xCoordinatesList) {
+            final int fromIndex = index;
+            for (DotGroup dotGroup : scatterDataMap.get(xCoordinates).getDotGroupMap().values()) {
+                final Dot leader = dotGroup.getDotLeader();
+                for (Dot dot : dotGroup.getDotSet()) {
+                    final int thick = dot == leader ? dotGroup.getDotSize() : 0;
+                    dots[index++] = new DotEntry(dot, thick);
+                }
+            }
+            Arrays.sort(dots, fromIndex, index, ACCEPTED_TIME_DESC);
+        }
+        return dots;
+    }
+
+    private void writeDots(DotEntry[] dots, long from, ScatterAgentMetaData metaData, ChunkWriter writer) throws IOException {
+        final Buffer buffer = writer.buffer;
+        writer.ensure(MAX_VAR_SIZE);
+        buffer.putVInt(dots.length);
+
+        long prevAcceptedTime = from;
+        for (DotEntry entry : dots) {
+            writer.ensure(MAX_VAR_SIZE);
+            final long acceptedTime = entry.dot.getAcceptedTime();
+            buffer.putSVLong(acceptedTime - prevAcceptedTime);
+            prevAcceptedTime = acceptedTime;
+        }
+        for (DotEntry entry : dots) {
+            writer.ensure(MAX_VAR_SIZE);
+            buffer.putVInt(entry.dot.getElapsedTime());
+        }
+        final int[] agentIndexes = new int[dots.length];
+        for (int i = 0; i < dots.length; i++) {
+            final int agentIndex = metaData.getId(dots[i].dot);
+            agentIndexes[i] = agentIndex == -1 ? 0 : agentIndex;
+            writer.ensure(MAX_VAR_SIZE);
+            buffer.putVInt(agentIndexes[i]);
+        }
+        for (int i = 0; i < dots.length; i++) {
+            if (agentIndexes[i] == 0) {
+                writer.putPrefixedString(dots[i].dot.getTransactionIdAsString());
+            } else {
+                writer.ensure(MAX_VAR_SIZE);
+                buffer.putVLong(dots[i].dot.getTransactionId().getTransactionSequence());
+            }
+        }
+        for (DotEntry entry : dots) {
+            writer.ensure(1);
+            buffer.putByte((byte) entry.dot.getSimpleExceptionCode());
+        }
+        for (DotEntry entry : dots) {
+            writer.ensure(MAX_VAR_SIZE);
+            buffer.putVInt(entry.thick);
+        }
+    }
+
+    private static final class DotEntry {
+        private final Dot dot;
+        private final int thick;
+
+        private DotEntry(Dot dot, int thick) {
+            this.dot = dot;
+            this.thick = thick;
+        }
+    }
+
+    /**
+     * writes through a fixed size buffer so that large charts are streamed instead of being encoded into one array
+     */
+    private static final class ChunkWriter {
+        private final OutputStream out;
+        private final Buffer buffer = new FixedBuffer(CHUNK_SIZE);
+
+        private ChunkWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        private void ensure(int size) throws IOException {
+            if (buffer.remaining() < size) {
+                flush();
+            }
+        }
+
+        private void putPrefixedString(String string) throws IOException {
+            final byte[] bytes = BytesUtils.toBytes(string);
+            final int size = bytes == null ? MAX_VAR_SIZE : bytes.length + MAX_VAR_SIZE;
+            if (size > CHUNK_SIZE) {
+                flush();
+                final Buffer large = new FixedBuffer(size);
+                large.putPrefixedBytes(bytes);
+                out.write(large.getInternalBuffer(), 0, large.getOffset());
+                return;
+            }
+            ensure(size);
+            buffer.putPrefixedBytes(bytes);
+        }
+
+        private void flush() throws IOException {
+            final int offset = buffer.getOffset();
+            if (offset > 0) {
+                out.write(buffer.getInternalBuffer(), 0, offset);
+                buffer.setOffset(0);
+            }
+        }
+    }
+}
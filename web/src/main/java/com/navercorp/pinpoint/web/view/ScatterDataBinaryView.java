@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.view;
+
+import com.navercorp.pinpoint.web.scatter.ScatterData;
+import org.springframework.web.servlet.view.AbstractView;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * renders the "scatter" model of the scatter chart with {@link ScatterDataBinarySerializer}
+ */
+public class ScatterDataBinaryView extends AbstractView {
+
+    public static final String CONTENT_TYPE = "application/x-pinpoint-scatter";
+
+    private final ScatterDataBinarySerializer serializer = new ScatterDataBinarySerializer();
+
+    public ScatterDataBinaryView() {
+        setContentType(CONTENT_TYPE);
+        setExposePathVariables(false);
+    }
+
+    @Override
+    protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        final Object scatterData = model.get("scatter");
+        if (!(scatterData instanceof ScatterData)) {
+            throw new IllegalStateException("scatter model not found");
+        }
+        final boolean complete = Boolean.TRUE.equals(model.get("complete"));
+        final Object currentServerTime = model.get("currentServerTime");
+        final long serverTime = currentServerTime instanceof Long ? (Long) currentServerTime : System.currentTimeMillis();
+
+        response.setContentType(getContentType());
+        final ServletOutputStream out = response.getOutputStream();
+        serializer.serialize((ScatterData) scatterData, complete, serverTime, out);
+        out.flush();
+    }
+}
@@ -26,6 +26,7 @@ public class LimitedScanResult<V> {
 
     private long limitedTime;
     private V data;
+    private int scanThreads = 1;
 
     public V getScanData() {
         return data;
@@ -43,11 +44,23 @@ public class LimitedScanResult<V> {
         this.limitedTime = limitedTime;
     }
 
+    /**
+     * @return number of threads the scan used
+     */
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("LimitedScanResult{");
         sb.append("limitedTime=").append(limitedTime);
         sb.append(", data=").append(data);
+        sb.append(", scanThreads=").append(scanThreads);
         sb.append('}');
         return sb.toString();
     }
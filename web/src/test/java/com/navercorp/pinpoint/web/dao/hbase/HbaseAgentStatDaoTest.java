@@ -0,0 +1,148 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.navercorp.pinpoint.common.hbase.HBaseTables;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.RowMapper;
+import com.navercorp.pinpoint.common.server.bo.AgentStatRollupType;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.navercorp.pinpoint.web.vo.AgentStat;
+import com.navercorp.pinpoint.web.vo.Range;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import org.apache.hadoop.hbase.client.Scan;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class HbaseAgentStatDaoTest {
+
+    private static final String AGENT_ID = "agentId";
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long FROM = 1460001600000L;
+
+    @Mock
+    private HbaseOperations2 hbaseOperations2;
+
+    @Mock
+    private AbstractRowKeyDistributor rowKeyDistributor;
+
+    @Mock
+    private RowMapper<List<AgentStat>> agentStatMapper;
+
+    @Mock
+    private RowMapper<AgentStat> agentStatRollupMapper;
+
+    private HbaseAgentStatDao agentStatDao;
+
+    private final List<Range> aggrScanRanges = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        agentStatDao = new HbaseAgentStatDao();
+        ReflectionTestUtils.setField(agentStatDao, "hbaseOperations2", hbaseOperations2);
+        ReflectionTestUtils.setField(agentStatDao, "rowKeyDistributor", rowKeyDistributor);
+        ReflectionTestUtils.setField(agentStatDao, "agentStatMapper", agentStatMapper);
+        ReflectionTestUtils.setField(agentStatDao, "agentStatRollupMapper", agentStatRollupMapper);
+
+        when(hbaseOperations2.find(eq(HBaseTables.AGENT_STAT), any(Scan.class), any(AbstractRowKeyDistributor.class), any(RowMapper.class)))
+                .thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void getRollupType() {
+        final Range hour = new Range(FROM, FROM + TimeUnit.HOURS.toMillis(1));
+        final Range day = new Range(FROM, FROM + TimeUnit.DAYS.toMillis(1));
+        final Range month = new Range(FROM, FROM + TimeUnit.DAYS.toMillis(30));
+
+        // disabled by default
+        Assert.assertNull(agentStatDao.getRollupType(month));
+
+        agentStatDao.setRollupEnable(true);
+        Assert.assertNull(agentStatDao.getRollupType(hour));
+        Assert.assertEquals(AgentStatRollupType.MINUTE, agentStatDao.getRollupType(day));
+        Assert.assertEquals(AgentStatRollupType.HOUR, agentStatDao.getRollupType(month));
+    }
+
+    @Test
+    public void getAggregatedAgentStatList_rollupDisabled() {
+        when(hbaseOperations2.find(eq(HBaseTables.AGENT_STAT_AGGR), any(Scan.class), any(AbstractRowKeyDistributor.class), any(RowMapper.class)))
+                .thenReturn(Collections.emptyList());
+
+        agentStatDao.getAggregatedAgentStatList(AGENT_ID, new Range(FROM, FROM + TimeUnit.DAYS.toMillis(30)));
+
+        verify(hbaseOperations2, never()).find(eq(HBaseTables.AGENT_STAT_ROLLUP), any(Scan.class), any(AbstractRowKeyDistributor.class), any(RowMapper.class));
+    }
+
+    @Test
+    public void getAggregatedAgentStatList_fillMissingWindows() {
+        agentStatDao.setRollupEnable(true);
+
+        // minute rollups of the day, except 12:00 ~ 18:00
+        final List<AgentStat> rollups = new ArrayList<>();
+        for (int i = 0; i < 24 * 60; i++) {
+            if (i < 12 * 60 || i >= 18 * 60) {
+                rollups.add(new AgentStat(AGENT_ID, FROM + i * MINUTE));
+            }
+        }
+        when(hbaseOperations2.find(eq(HBaseTables.AGENT_STAT_ROLLUP), any(Scan.class), any(AbstractRowKeyDistributor.class), any(RowMapper.class)))
+                .thenReturn((List) rollups);
+
+        final AgentStat aggregated = new AgentStat(AGENT_ID, FROM + 15 * 60 * MINUTE);
+        aggregated.setCollectInterval(AgentStat.AGGR_SAMPLE_INTERVAL);
+        when(hbaseOperations2.find(eq(HBaseTables.AGENT_STAT_AGGR), any(Scan.class), any(AbstractRowKeyDistributor.class), any(RowMapper.class)))
+                .thenAnswer(new Answer<List<List<AgentStat>>>() {
+                    @Override
+                    public List<List<AgentStat>> answer(InvocationOnMock invocation) throws Throwable {
+                        final Scan scan = (Scan) invocation.getArguments()[1];
+                        aggrScanRanges.add(new Range(getTimestamp(scan.getStopRow()), getTimestamp(scan.getStartRow())));
+                        return Collections.singletonList(Collections.singletonList(aggregated));
+                    }
+                });
+
+        final List<AgentStat> agentStatList = agentStatDao.getAggregatedAgentStatList(AGENT_ID, new Range(FROM, FROM + TimeUnit.DAYS.toMillis(1)));
+
+        Assert.assertEquals(1, aggrScanRanges.size());
+        Assert.assertEquals(FROM + 12 * 60 * MINUTE, aggrScanRanges.get(0).getFrom());
+        Assert.assertEquals(FROM + 18 * 60 * MINUTE, aggrScanRanges.get(0).getTo());
+
+        Assert.assertEquals(rollups.size() + 1, agentStatList.size());
+        Assert.assertTrue(agentStatList.contains(aggregated));
+    }
+
+    private long getTimestamp(byte[] rowKey) {
+        return TimeUtils.recoveryTimeMillis(BytesUtils.bytesToLong(rowKey, HBaseTables.AGENT_NAME_MAX_LEN));
+    }
+}
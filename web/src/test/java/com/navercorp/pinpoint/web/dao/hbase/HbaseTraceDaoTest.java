@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.when;
+
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.HbaseSystemException;
+import com.navercorp.pinpoint.common.hbase.RowMapper;
+import com.navercorp.pinpoint.common.server.bo.SpanBo;
+import com.navercorp.pinpoint.web.dao.SpanBatchHandler;
+import com.navercorp.pinpoint.web.vo.TransactionId;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HbaseTraceDaoTest {
+
+    private static final int THREADS = 3;
+
+    @Mock
+    private HbaseOperations2 template2;
+
+    @Mock
+    private AbstractRowKeyDistributor rowKeyDistributor;
+
+    @Mock
+    private RowMapper<List<SpanBo>> spanMapper;
+
+    @InjectMocks
+    private HbaseTraceDao traceDao = new HbaseTraceDao();
+
+    private final AtomicInteger concurrentGets = new AtomicInteger();
+    private final AtomicInteger maxConcurrentGets = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(traceDao, "selectAllSpansThreads", THREADS);
+        traceDao.start();
+
+        when(rowKeyDistributor.getDistributedKey(any(byte[].class))).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                return (byte[]) invocation.getArguments()[0];
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        traceDao.stop();
+    }
+
+    @Test
+    public void selectAllSpans_batchesInRequestOrder() {
+        when(template2.get(any(TableName.class), anyListOf(Get.class), any(RowMapper.class))).thenAnswer(new MultiGetAnswer(-1));
+
+        final List<Long> handled = new ArrayList<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        traceDao.selectAllSpans(createTransactionIdList(10), 3, new SpanBatchHandler() {
+            @Override
+            public void handleBatch(List<List<SpanBo>> transactionList) {
+                batchSizes.add(transactionList.size());
+                for (List<SpanBo> transaction : transactionList) {
+                    handled.add(transaction.get(0).getTraceTransactionSequence());
+                }
+            }
+        });
+
+        Assert.assertEquals(createSequenceList(10), handled);
+        Assert.assertEquals(4, batchSizes.size());
+        Assert.assertEquals(Integer.valueOf(1), batchSizes.get(3));
+        Assert.assertTrue("in flight gets " + maxConcurrentGets.get(), maxConcurrentGets.get() <= THREADS);
+
+        List<List<SpanBo>> all = traceDao.selectAllSpans(createTransactionIdList(10), 3);
+        Assert.assertEquals(10, all.size());
+    }
+
+    @Test(expected = HbaseSystemException.class)
+    public void selectAllSpans_propagatesFailure() {
+        when(template2.get(any(TableName.class), anyListOf(Get.class), any(RowMapper.class))).thenAnswer(new MultiGetAnswer(7));
+
+        traceDao.selectAllSpans(createTransactionIdList(10), 2);
+    }
+
+    private List<TransactionId> createTransactionIdList(int size) {
+        List<TransactionId> transactionIdList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactionIdList.add(new TransactionId("agentId", 1000L, i));
+        }
+        return transactionIdList;
+    }
+
+    private List<Long> createSequenceList(int size) {
+        List<Long> sequenceList = new ArrayList<>(size);
+        for (long i = 0; i < size; i++) {
+            sequenceList.add(i);
+        }
+        return sequenceList;
+    }
+
+    private class MultiGetAnswer implements Answer<List<List<SpanBo>>> {
+
+        private final long failSequence;
+
+        private MultiGetAnswer(long failSequence) {
+            this.failSequence = failSequence;
+        }
+
+        @Override
+        public List<List<SpanBo>> answer(InvocationOnMock invocation) throws Throwable {
+            final int current = concurrentGets.incrementAndGet();
+            try {
+                updateMax(current);
+                @SuppressWarnings("unchecked")
+                final List<Get> getList = (List<Get>) invocation.getArguments()[1];
+                final List<List<SpanBo>> result = new ArrayList<>(getList.size());
+                for (Get get : getList) {
+                    final long sequence = new TransactionId(get.getRow()).getTransactionSequence();
+                    if (sequence == failSequence) {
+                        throw new HbaseSystemException(new Exception("fail " + sequence));
+                    }
+                    final SpanBo spanBo = new SpanBo("agentId", 1000L, sequence, 1000L, 10, sequence);
+                    result.add(Collections.singletonList(spanBo));
+                }
+                // earlier batches finish later so that completion order differs from request order
+                Thread.sleep(Math.max(0, 40 - result.get(0).get(0).getTraceTransactionSequence() * 4));
+                return result;
+            } finally {
+                concurrentGets.decrementAndGet();
+            }
+        }
+
+        private void updateMax(int current) {
+            while (true) {
+                final int max = maxConcurrentGets.get();
+                if (current <= max || maxConcurrentGets.compareAndSet(max, current)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.web.applicationmap.rawdata.LinkDataMap;
+import com.navercorp.pinpoint.web.util.TimeWindow;
+import com.navercorp.pinpoint.web.vo.Application;
+import com.navercorp.pinpoint.web.vo.Range;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class MapStatisticsSlotCacheTest {
+
+    private static final long SLOT_SIZE = MapStatisticsSlotCache.SLOT_SIZE;
+
+    private final Application application = new Application("test", ServiceType.STAND_ALONE);
+
+    @Test
+    public void slidingRangeScansNewSlotsOnly() {
+        MapStatisticsSlotCache<Long> slotCache = new MapStatisticsSlotCache<>(1000, 0);
+        RecordingSlotLoader slotLoader = new RecordingSlotLoader();
+
+        final long from = TimeUnit.HOURS.toMillis(10);
+        List<Long> result = slotCache.select(application, new Range(from, from + 4 * SLOT_SIZE), slotLoader);
+        Assert.assertEquals(5, result.size());
+        Assert.assertEquals(1, slotLoader.rangeList.size());
+        Assert.assertEquals(new Range(from, from + 4 * SLOT_SIZE), slotLoader.rangeList.get(0));
+
+        // slide by a single slot
+        result = slotCache.select(application, new Range(from + SLOT_SIZE, from + 5 * SLOT_SIZE), slotLoader);
+        Assert.assertEquals(5, result.size());
+        Assert.assertEquals(Long.valueOf(from + SLOT_SIZE), result.get(0));
+        Assert.assertEquals(Long.valueOf(from + 5 * SLOT_SIZE), result.get(4));
+        Assert.assertEquals(2, slotLoader.rangeList.size());
+        Assert.assertEquals(new Range(from + 5 * SLOT_SIZE, from + 5 * SLOT_SIZE), slotLoader.rangeList.get(1));
+
+        // all slots are cached
+        slotCache.select(application, new Range(from + 30000, from + 3 * SLOT_SIZE + 30000), slotLoader);
+        Assert.assertEquals(2, slotLoader.rangeList.size());
+    }
+
+    @Test
+    public void emptySlotIsCached() {
+        MapStatisticsSlotCache<Long> slotCache = new MapStatisticsSlotCache<>(1000, 0);
+        RecordingSlotLoader slotLoader = new RecordingSlotLoader();
+        slotLoader.emptySlot = SLOT_SIZE * 2;
+
+        List<Long> result = slotCache.select(application, new Range(0, SLOT_SIZE * 4), slotLoader);
+        Assert.assertEquals(4, result.size());
+        Assert.assertEquals(5, slotCache.size());
+
+        result = slotCache.select(application, new Range(0, SLOT_SIZE * 4), slotLoader);
+        Assert.assertEquals(4, result.size());
+        Assert.assertEquals(1, slotLoader.rangeList.size());
+    }
+
+    @Test
+    public void openSlotIsNotCached() {
+        MapStatisticsSlotCache<Long> slotCache = new MapStatisticsSlotCache<>(1000, TimeUnit.MINUTES.toMillis(10));
+        RecordingSlotLoader slotLoader = new RecordingSlotLoader();
+
+        final long now = System.currentTimeMillis();
+        final Range range = new Range(now - TimeUnit.MINUTES.toMillis(30), now);
+        slotCache.select(application, range, slotLoader);
+        slotCache.select(application, range, slotLoader);
+
+        Assert.assertEquals(2, slotLoader.rangeList.size());
+        final Range reloadRange = slotLoader.rangeList.get(1);
+        Assert.assertEquals(MapStatisticsSlotCache.getSlot(now), reloadRange.getTo());
+        Assert.assertTrue(reloadRange.getFrom() >= now - TimeUnit.MINUTES.toMillis(12));
+        Assert.assertTrue(reloadRange.getFrom() <= now - TimeUnit.MINUTES.toMillis(10));
+    }
+
+    @Test
+    public void cacheIsKeyedByApplication() {
+        MapStatisticsSlotCache<Long> slotCache = new MapStatisticsSlotCache<>(1000, 0);
+        RecordingSlotLoader slotLoader = new RecordingSlotLoader();
+
+        slotCache.select(application, new Range(0, SLOT_SIZE), slotLoader);
+        slotCache.select(new Application("test", ServiceType.UNKNOWN), new Range(0, SLOT_SIZE), slotLoader);
+        Assert.assertEquals(2, slotLoader.rangeList.size());
+    }
+
+    @Test
+    public void mergedSlotsEqualSingleScan() {
+        final Application from = new Application("from", ServiceType.STAND_ALONE);
+        final Application to = new Application("to", ServiceType.STAND_ALONE);
+        final short slotTime = ServiceType.STAND_ALONE.getHistogramSchema().getFastSlot().getSlotTime();
+
+        // raw rows as read by a scan without a time window
+        LinkDataMap raw = new LinkDataMap();
+        for (int i = 0; i < 10; i++) {
+            raw.addLinkData(from, "fromAgent", to, "toAgent", i * SLOT_SIZE, slotTime, i + 1);
+        }
+        Map<Long, LinkDataMap> slotMap = LinkDataMapSlotSplitter.split(raw);
+        Assert.assertEquals(10, slotMap.size());
+        Assert.assertEquals(3, slotMap.get(2 * SLOT_SIZE).getTotalCount());
+
+        final TimeWindow timeWindow = new TimeWindow(new Range(0, 9 * SLOT_SIZE));
+        LinkDataMap expected = new LinkDataMap(timeWindow);
+        expected.addLinkDataMap(raw);
+        LinkDataMap merged = new LinkDataMap(timeWindow);
+        for (LinkDataMap slot : slotMap.values()) {
+            merged.addLinkDataMap(slot);
+        }
+        Assert.assertEquals(expected.size(), merged.size());
+        Assert.assertEquals(expected.getTotalCount(), merged.getTotalCount());
+        Assert.assertEquals(55, merged.getTotalCount());
+    }
+
+    private static class RecordingSlotLoader implements MapStatisticsSlotCache.SlotLoader<Long> {
+        private final List<Range> rangeList = new ArrayList<>();
+        private long emptySlot = -1;
+
+        @Override
+        public Map<Long, Long> load(Application application, Range range) {
+            rangeList.add(range);
+            final Map<Long, Long> slotMap = new HashMap<>();
+            for (long slot = range.getFrom(); slot <= range.getTo(); slot += SLOT_SIZE) {
+                if (slot != emptySlot) {
+                    slotMap.put(slot, slot);
+                }
+            }
+            return slotMap;
+        }
+    }
+}
@@ -40,14 +40,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.navercorp.pinpoint.common.server.bo.AgentStatBucketCodec;
 import com.navercorp.pinpoint.common.server.bo.AgentStatCpuLoadBo;
 import com.navercorp.pinpoint.common.server.bo.AgentStatMemoryGcBo;
 import com.navercorp.pinpoint.common.util.BytesUtils;
 import com.navercorp.pinpoint.common.util.RowKeyUtils;
 import com.navercorp.pinpoint.common.util.TimeUtils;
 import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
 import com.navercorp.pinpoint.thrift.dto.TJvmGc;
 import com.navercorp.pinpoint.thrift.dto.TJvmGcType;
+import com.navercorp.pinpoint.thrift.dto.TTransaction;
 import com.navercorp.pinpoint.web.vo.AgentStat;
 import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
 
@@ -166,6 +169,29 @@ public class AgentStatMapperTest {
         assertEquals(AgentStat.NOT_COLLECTED, agentStat.getUnsampledContinuationCount());
     }
 
+    @Test
+    public void test_bucket() throws Exception {
+        // Given
+        final TAgentStat older = createTAgentStat(TIMESTAMP);
+        final TAgentStat newer = createTAgentStat(TIMESTAMP + COLLECT_INTERVAL);
+        newer.getGc().setJvmMemoryHeapUsed(HEAP_USED * 2);
+        final byte[] value = new AgentStatBucketCodec().encode(Arrays.asList(older, newer));
+        final Result result = Result.create(Arrays.asList(createCell(AGENT_STAT_COL_BUCKET, value)));
+        // When
+        List<AgentStat> agentStats = this.mapper.mapRow(result, 0);
+        // Then
+        assertNotNull(agentStats);
+        assertThat(agentStats.size(), is(2));
+        assertEquals(TIMESTAMP + COLLECT_INTERVAL, agentStats.get(0).getTimestamp());
+        assertEquals(HEAP_USED * 2, agentStats.get(0).getHeapUsed());
+        AgentStat agentStat = agentStats.get(1);
+
+        assertEquals(COLLECT_INTERVAL, agentStat.getCollectInterval());
+        assertJvmGc(agentStat);
+        assertCpuUsage(agentStat);
+        assertTransaction(agentStat);
+    }
+
     private void assertJvmGc(AgentStat agentStat) {
         assertEquals(AGENT_ID, agentStat.getAgentId());
         assertEquals(TIMESTAMP, agentStat.getTimestamp());
@@ -209,6 +235,24 @@ public class AgentStatMapperTest {
         return Result.create(Arrays.asList(createCell(qualifier, value)));
     }
 
+    private TAgentStat createTAgentStat(long timestamp) {
+        final TAgentStat agentStat = new TAgentStat();
+        agentStat.setTimestamp(timestamp);
+        agentStat.setCollectInterval(COLLECT_INTERVAL);
+        final TJvmGc gc = new TJvmGc();
+        gc.setType(GC_TYPE);
+        gc.setJvmGcOldCount(GC_OLD_COUNT);
+        gc.setJvmGcOldTime(GC_OLD_TIME);
+        gc.setJvmMemoryHeapUsed(HEAP_USED);
+        gc.setJvmMemoryHeapMax(HEAP_MAX);
+        gc.setJvmMemoryNonHeapUsed(NON_HEAP_USED);
+        gc.setJvmMemoryNonHeapMax(NON_HEAP_MAX);
+        agentStat.setGc(gc);
+        agentStat.setCpuLoad(createCpuLoad(JVM_CPU_USAGE, SYS_CPU_USAGE));
+        agentStat.setTransaction(createTransaction(SAMPLED_NEW_COUNT, SAMPLED_CONTINUATION_COUNT, UNSAMPLED_NEW_COUNT, UNSAMPLED_CONTINUATION_COUNT));
+        return agentStat;
+    }
+
     private Result createResultForLegacy_serialized_BOs() {
         final AgentStatMemoryGcBo.Builder jvmGcBuilder = new AgentStatMemoryGcBo.Builder(AGENT_ID, 0L, TIMESTAMP);
         jvmGcBuilder.gcType(GC_TYPE.name());
@@ -236,4 +280,20 @@ public class AgentStatMapperTest {
                 KeyValue.Type.Maximum.getCode(), value);
     }
 
+    private TCpuLoad createCpuLoad(double jvmCpuLoad, double systemCpuLoad) {
+        TCpuLoad cpuLoad = new TCpuLoad();
+        cpuLoad.setJvmCpuLoad(jvmCpuLoad);
+        cpuLoad.setSystemCpuLoad(systemCpuLoad);
+        return cpuLoad;
+    }
+
+    private TTransaction createTransaction(long sampledNewCount, long sampledContinuationCount, long unsampledNewCount, long unsampledContinuationCount) {
+        TTransaction transaction = new TTransaction();
+        transaction.setSampledNewCount(sampledNewCount);
+        transaction.setSampledContinuationCount(sampledContinuationCount);
+        transaction.setUnsampledNewCount(unsampledNewCount);
+        transaction.setUnsampledContinuationCount(unsampledContinuationCount);
+        return transaction;
+    }
+
 }
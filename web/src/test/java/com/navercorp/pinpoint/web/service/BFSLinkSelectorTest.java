@@ -30,8 +30,11 @@ import com.navercorp.pinpoint.web.vo.SearchOption;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.util.StopWatch;
 
 import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -232,6 +235,46 @@ public class BFSLinkSelectorTest {
 
     }
 
+    @Test
+    public void testCallerCallee_concurrent() throws Exception {
+        // APP_A -> APP_B -> APP_C
+        int callCount_A_B = 10;
+        LinkDataMap link_A_B = new LinkDataMap();
+        link_A_B.addLinkData(APP_A, "agentA", APP_B, "agentB", 1000, BaseHistogramSchema.NORMAL_SCHEMA.getNormalSlot().getSlotTime(), callCount_A_B);
+        when(callerDao.selectCaller(eq(APP_A), any(Range.class))).thenReturn(link_A_B);
+
+        int callCount_B_C = 20;
+        LinkDataMap link_B_C = new LinkDataMap();
+        link_B_C.addLinkData(APP_B, "agentB", APP_C, "agentC", 1000, BaseHistogramSchema.NORMAL_SCHEMA.getNormalSlot().getSlotTime(), callCount_B_C);
+        when(callerDao.selectCaller(eq(APP_B), any(Range.class))).thenReturn(link_B_C);
+        when(callerDao.selectCaller(eq(APP_C), any(Range.class))).thenReturn(newEmptyLinkDataMap());
+
+        when(calleeDao.selectCallee(any(Application.class), any(Range.class))).thenReturn(newEmptyLinkDataMap());
+        when(calleeDao.selectCallee(eq(APP_B), any(Range.class))).thenReturn(link_A_B);
+        when(calleeDao.selectCallee(eq(APP_C), any(Range.class))).thenReturn(link_B_C);
+        when(hostApplicationMapDao.findAcceptApplicationName(any(Application.class), any(Range.class))).thenReturn(new HashSet<AcceptApplication>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            StopWatch stopWatch = new StopWatch();
+            LinkSelector linkSelector = new BFSLinkSelector(this.callerDao, this.calleeDao, hostApplicationMapDao, null, executor, stopWatch);
+            LinkDataDuplexMap linkData = linkSelector.select(APP_B, range, twoDepth);
+
+            assertSource_Target_TotalCount("APP_B->APP_C", linkData, new LinkKey(APP_B, APP_C), callCount_B_C);
+            assertTarget_Source_TotalCount("APP_A->APP_B", linkData, new LinkKey(APP_A, APP_B), callCount_A_B);
+
+            // same result as the sequential search
+            LinkDataDuplexMap sequential = createLinkSelector().select(APP_B, range, twoDepth);
+            Assert.assertEquals(sequential.size(), linkData.size());
+            Assert.assertEquals(sequential.getTotalCount(), linkData.getTotalCount());
+
+            // one task per search level
+            Assert.assertEquals(3, stopWatch.getTaskCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private void assertTarget_Source_TotalCount(String message, LinkDataDuplexMap linkData, LinkKey linkKey, long count) {
         LinkData sourceLinkData = linkData.getTargetLinkData(linkKey);
         long totalCount = sourceLinkData.getTotalCount();
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2016 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.view;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.web.scatter.ScatterData;
+import com.navercorp.pinpoint.web.vo.TransactionId;
+import com.navercorp.pinpoint.web.vo.scatter.Dot;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+
+public class ScatterDataBinarySerializerTest {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void sameDotsAsJson() throws Exception {
+        final long from = 1000000;
+        ScatterData scatterData = new ScatterData(from, from + 100000, 1000, 100);
+        final int dotCount = 3000;
+        for (int i = 0; i < dotCount; i++) {
+            final String agentId = "agent" + (i % 3);
+            TransactionId transactionId = new TransactionId(agentId, 1234, i);
+            scatterData.addDot(new Dot(transactionId, from + (i * 31), (i * 7) % 3000, i % 5 == 0 ? 1 : 0, agentId));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ScatterDataBinarySerializer().serialize(scatterData, true, 5000, out);
+        byte[] bytes = out.toByteArray();
+
+        String json = mapper.writeValueAsString(scatterData);
+        logger.debug("binary:{} json:{}", bytes.length, json.length());
+        Assert.assertTrue(bytes.length + " " + json.length(), bytes.length < json.length() / 2);
+
+        Buffer buffer = new FixedBuffer(bytes);
+        Assert.assertEquals(ScatterDataBinarySerializer.VERSION, buffer.readByte());
+        Assert.assertTrue(buffer.readBoolean());
+        Assert.assertEquals(5000, buffer.readVLong());
+        Assert.assertEquals(from, buffer.readVLong());
+        Assert.assertEquals(from + 100000, buffer.readVLong());
+        Assert.assertEquals(scatterData.getOldestAcceptedTime(), buffer.readSVLong());
+        Assert.assertEquals(scatterData.getLatestAcceptedTime(), buffer.readSVLong());
+
+        final int agentCount = buffer.readVInt();
+        Assert.assertEquals(3, agentCount);
+        String[] agentIds = new String[agentCount + 1];
+        for (int i = 1; i <= agentCount; i++) {
+            agentIds[i] = buffer.readPrefixedString();
+            Assert.assertEquals(agentIds[i], buffer.readPrefixedString());
+            Assert.assertEquals(1234, buffer.readVLong());
+        }
+
+        final int size = buffer.readVInt();
+        Assert.assertEquals(dotCount, size);
+        long[] acceptedTimes = new long[size];
+        long acceptedTime = from;
+        for (int i = 0; i < size; i++) {
+            acceptedTime += buffer.readSVLong();
+            acceptedTimes[i] = acceptedTime;
+        }
+        int[] elapsedTimes = new int[size];
+        for (int i = 0; i < size; i++) {
+            elapsedTimes[i] = buffer.readVInt();
+        }
+        int[] agents = new int[size];
+        for (int i = 0; i < size; i++) {
+            agents[i] = buffer.readVInt();
+        }
+        long[] sequences = new long[size];
+        for (int i = 0; i < size; i++) {
+            sequences[i] = buffer.readVLong();
+        }
+        int[] exceptionCodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            exceptionCodes[i] = buffer.readByte();
+        }
+        int[] thicks = new int[size];
+        for (int i = 0; i < size; i++) {
+            thicks[i] = buffer.readVInt();
+        }
+        Assert.assertFalse(buffer.hasRemaining());
+
+        JsonNode root = mapper.readTree(json);
+        JsonNode metadata = root.get("metadata");
+        JsonNode dotList = root.get("dotList");
+        Assert.assertEquals(size, dotList.size());
+        for (int i = 0; i < size; i++) {
+            JsonNode dot = dotList.get(i);
+            Assert.assertEquals(dot.get(0).asLong(), acceptedTimes[i]);
+            Assert.assertEquals(dot.get(1).asInt(), elapsedTimes[i]);
+            Assert.assertEquals(metadata.get(dot.get(2).asText()).get(0).asText(), agentIds[agents[i]]);
+            Assert.assertEquals(dot.get(3).asLong(), sequences[i]);
+            Assert.assertEquals(dot.get(4).asInt(), exceptionCodes[i]);
+            Assert.assertEquals(dot.get(5).asInt(), thicks[i]);
+        }
+    }
+
+    @Test
+    public void emptyScatterData() throws Exception {
+        ScatterData scatterData = new ScatterData(1000, 2000, 10, 10);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ScatterDataBinarySerializer().serialize(scatterData, false, 1, out);
+
+        Buffer buffer = new FixedBuffer(out.toByteArray());
+        Assert.assertEquals(ScatterDataBinarySerializer.VERSION, buffer.readByte());
+        Assert.assertFalse(buffer.readBoolean());
+        Assert.assertEquals(1, buffer.readVLong());
+        Assert.assertEquals(1000, buffer.readVLong());
+        Assert.assertEquals(2000, buffer.readVLong());
+        Assert.assertEquals(-1, buffer.readSVLong());
+        Assert.assertEquals(-1, buffer.readSVLong());
+        Assert.assertEquals(0, buffer.readVInt());
+        Assert.assertEquals(0, buffer.readVInt());
+        Assert.assertFalse(buffer.hasRemaining());
+    }
+}